@@ -0,0 +1,78 @@
+package com.streampick;
+
+import com.streampick.dto.Subscriber;
+import com.streampick.model.Movie;
+import com.streampick.util.MoodMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Synthetic catalogs and audiences for the JMH benchmarks
+ *
+ * Generated from a fixed seed so every run (and every commit) measures the same data.
+ */
+public final class BenchmarkFixtures {
+
+    private static final List<String> GENRES = List.of(
+        "Drama", "Comedy", "Thriller", "Sci-Fi", "Romance", "Horror", "Animation", "Documentary", "Action", "Fantasy");
+
+    private static final List<String> PLATFORMS = List.of("Netflix", "Prime Video", "Disney+", "Hulu", "Max", "Apple TV+");
+
+    private static final List<String> UI_MOODS = MoodMapper.getUIFriendlyMoods();
+
+    private BenchmarkFixtures() {
+    }
+
+    public static List<Movie> catalog(int size) {
+        Random random = new Random(42);
+        List<Movie> movies = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Movie movie = new Movie();
+            movie.setUid("blt" + Long.toHexString(0x1000000000L + i));
+            movie.setTitle("Movie " + i);
+            movie.setYear(1970 + random.nextInt(55));
+            movie.setRuntime(75 + random.nextInt(110));
+            movie.setRating(Math.round((4 + random.nextDouble() * 5.5) * 10) / 10.0);
+            movie.setGenre(pick(random, GENRES, 1 + random.nextInt(3)));
+            movie.setMoodTags(pick(random, MoodMapper.getBackendMoods(), 1 + random.nextInt(3)));
+            movie.setPlatforms(pick(random, PLATFORMS, 1 + random.nextInt(2)));
+            movie.setDescription("A story about " + GENRES.get(random.nextInt(GENRES.size())).toLowerCase()
+                + " and everything that follows, told over " + movie.getRuntime() + " minutes.");
+            movie.setAiDescription("Perfect when you want something " + movie.getMoodTags().get(0) + ".");
+
+            Map<String, Object> image = new HashMap<>();
+            image.put("url", "https://images.contentstack.io/v3/assets/blt0/" + movie.getUid() + "/poster.jpg");
+            movie.setImage(image);
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    /**
+     * Subscribers with 1-3 moods, mixing UI labels and backend tags as real signups do
+     */
+    public static List<Subscriber> audience(int size) {
+        Random random = new Random(7);
+        List<Subscriber> subscribers = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            List<String> moods = random.nextBoolean()
+                ? pick(random, UI_MOODS, 1 + random.nextInt(3))
+                : pick(random, MoodMapper.getBackendMoods(), 1 + random.nextInt(3));
+            subscribers.add(new Subscriber("Subscriber " + i, "user" + i + "@example.com", moods, "2025-01-01"));
+        }
+        return subscribers;
+    }
+
+    private static List<String> pick(Random random, List<String> values, int count) {
+        List<String> remaining = new ArrayList<>(values);
+        List<String> picked = new ArrayList<>(count);
+        for (int i = 0; i < count && !remaining.isEmpty(); i++) {
+            picked.add(remaining.remove(random.nextInt(remaining.size())));
+        }
+        return picked;
+    }
+}
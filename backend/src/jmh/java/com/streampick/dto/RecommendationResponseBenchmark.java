@@ -0,0 +1,53 @@
+package com.streampick.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streampick.BenchmarkFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of the recommendation response
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecommendationResponseBenchmark {
+
+    @Param({"5", "50"})
+    private int recommendationCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RecommendationResponse response;
+
+    @Setup
+    public void setUp() {
+        List<RecommendationResponse.MovieRecommendation> recommendations = BenchmarkFixtures.catalog(recommendationCount)
+            .stream()
+            .map(movie -> RecommendationResponse.MovieRecommendation.builder()
+                .movie(movie)
+                .aiReason(movie.getAiDescription())
+                .matchScore(87.5)
+                .build())
+            .toList();
+        response = RecommendationResponse.builder()
+            .recommendations(recommendations)
+            .totalCandidates(250)
+            .source("ml")
+            .build();
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(response);
+    }
+}
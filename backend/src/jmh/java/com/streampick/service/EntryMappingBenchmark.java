@@ -0,0 +1,99 @@
+package com.streampick.service;
+
+import com.contentstack.sdk.Contentstack;
+import com.contentstack.sdk.Entry;
+import com.streampick.model.Movie;
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping a movie entry (as recorded from the Delivery API, image reference included) to a Movie:
+ * the SDK entry's JSON rendering plus the Gson step, as on every catalog load
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EntryMappingBenchmark {
+
+    static final String RECORDED_ENTRY = """
+        {
+          "uid": "blt5d4c6a2e8f1b3a90",
+          "_version": 4,
+          "locale": "en-us",
+          "title": "The Grand Budapest Hotel",
+          "year": 2014,
+          "runtime": 99,
+          "rating": 8.1,
+          "genre": ["Comedy", "Drama", "Adventure"],
+          "mood_tags": ["laugh", "escape", "cozy"],
+          "platforms": ["Disney+", "Prime Video"],
+          "description": "A writer encounters the owner of an aging high-class hotel, who tells him of his early years serving as a lobby boy in the hotel's glorious years under an exceptional concierge.",
+          "ai_description": "A whimsical, pastel-colored caper that balances slapstick with melancholy - ideal when you want to laugh and escape at the same time.",
+          "image": {
+            "uid": "blt9a1f0c7b2d3e4f56",
+            "created_at": "2025-09-12T10:41:27.512Z",
+            "updated_at": "2025-09-12T10:41:27.512Z",
+            "created_by": "blt1e2d3c4b5a697887",
+            "updated_by": "blt1e2d3c4b5a697887",
+            "content_type": "image/jpeg",
+            "file_size": "184213",
+            "tags": [],
+            "filename": "grand-budapest-hotel.jpg",
+            "url": "https://images.contentstack.io/v3/assets/blt0a1b2c3d4e5f6a7b/blt9a1f0c7b2d3e4f56/grand-budapest-hotel.jpg",
+            "ACL": [],
+            "is_dir": false,
+            "parent_uid": null,
+            "_version": 1,
+            "title": "grand-budapest-hotel.jpg",
+            "publish_details": {
+              "environment": "blt7c8d9e0f1a2b3c4d",
+              "locale": "en-us",
+              "time": "2025-09-12T10:42:03.118Z",
+              "user": "blt1e2d3c4b5a697887"
+            }
+          },
+          "tags": [],
+          "ACL": {},
+          "_in_progress": false,
+          "created_at": "2025-09-12T10:44:51.004Z",
+          "created_by": "blt1e2d3c4b5a697887",
+          "updated_at": "2025-10-01T08:15:22.647Z",
+          "updated_by": "blt1e2d3c4b5a697887",
+          "publish_details": {
+            "environment": "blt7c8d9e0f1a2b3c4d",
+            "locale": "en-us",
+            "time": "2025-10-01T08:15:40.233Z",
+            "user": "blt1e2d3c4b5a697887"
+          }
+        }
+        """;
+
+    private Entry entry;
+
+    @Setup
+    public void setUp() throws IllegalAccessException {
+        JSONObject json = new JSONObject(RECORDED_ENTRY);
+        entry = Contentstack.stack("benchmark", "benchmark", "benchmark")
+            .contentType("movie")
+            .entry(json.getString("uid"))
+            .configure(json);
+    }
+
+    @Benchmark
+    public Movie mapEntryToMovie() {
+        return ContentstackService.mapEntryToMovie(entry);
+    }
+
+    @Benchmark
+    public Movie mapJsonToMovie() {
+        return ContentstackService.mapJsonToMovie(RECORDED_ENTRY);
+    }
+}
@@ -0,0 +1,54 @@
+package com.streampick.service;
+
+import com.streampick.BenchmarkFixtures;
+import com.streampick.dto.RecommendationRequest;
+import com.streampick.dto.RecommendationResponse;
+import com.streampick.model.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java fallback scoring and ranking over catalogs of different sizes
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RecommendationBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int catalogSize;
+
+    private List<Movie> catalog;
+    private RecommendationRequest request;
+
+    @Setup
+    public void setUp() {
+        catalog = BenchmarkFixtures.catalog(catalogSize);
+        request = new RecommendationRequest();
+        request.setMood("cozy");
+        request.setTimeAvailable(120);
+    }
+
+    @Benchmark
+    public double calculateSimpleScore() {
+        double total = 0;
+        for (Movie movie : catalog) {
+            total += RecommendationService.calculateSimpleScore(movie, request);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public List<RecommendationResponse.MovieRecommendation> rankFallback() {
+        return RecommendationService.rankFallback(catalog, request, 5);
+    }
+}
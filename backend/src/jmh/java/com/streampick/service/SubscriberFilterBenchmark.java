@@ -0,0 +1,61 @@
+package com.streampick.service;
+
+import com.streampick.BenchmarkFixtures;
+import com.streampick.dto.Subscriber;
+import com.streampick.util.MoodMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filtering a synthetic audience by a published movie's moods
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SubscriberFilterBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int audienceSize;
+
+    private List<Subscriber> audience;
+    private List<String> movieMoods;
+
+    @Setup
+    public void setUp() {
+        audience = BenchmarkFixtures.audience(audienceSize);
+        movieMoods = List.of("cozy", "deep");
+        audience.forEach(Subscriber::getMoodMask);  // Masks are compiled once per subscriber in production too
+    }
+
+    @Benchmark
+    public int filterCompiled() {
+        int movieMask = MoodMapper.compileMoods(movieMoods);
+        int matches = 0;
+        for (Subscriber subscriber : audience) {
+            if (SubscriberService.matches(subscriber, movieMask, movieMoods)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int filterByLists() {
+        int matches = 0;
+        for (Subscriber subscriber : audience) {
+            if (MoodMapper.hasMatchingMood(subscriber.getPreferredMoods(), movieMoods)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,93 @@
+package com.streampick.similarity;
+
+import com.streampick.model.Movie;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * The graph against an exact scan over the same vectors, on sampled query movies
+ *
+ * @param recall Share of the exact top k the graph found, unfiltered
+ * @param filteredRecall The same, restricted to one of the query movie's moods
+ */
+record RecallCheck(int queries, int k, double recall, double filteredRecall,
+        double annMicrosP50, double annMicrosP99, double exactMicrosP50, double exactMicrosP99) {
+
+    private static final long SEED = 42;
+
+    /**
+     * @param movies The movies the index was built from, queries are drawn from them
+     * @param queries Number of query movies
+     * @param k Results per query
+     */
+    static RecallCheck run(VectorIndex index, List<Movie> movies, int queries, int k) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        long[] annNanos = new long[queries];
+        long[] exactNanos = new long[queries];
+        long hits = 0;
+        long wanted = 0;
+        long filteredHits = 0;
+        long filteredWanted = 0;
+        int run = 0;
+        for (int attempt = 0; run < queries && attempt < queries * 10 && !movies.isEmpty(); attempt++) {
+            Movie movie = movies.get(random.nextInt(movies.size()));
+            if (!index.contains(movie.getUid())) {
+                continue;
+            }
+
+            long start = System.nanoTime();
+            List<VectorIndex.Neighbour> ann = index.similarTo(movie.getUid(), k, SimilarityFilter.NONE);
+            annNanos[run] = System.nanoTime() - start;
+            start = System.nanoTime();
+            List<VectorIndex.Neighbour> exact = index.exactSimilarTo(movie.getUid(), k, SimilarityFilter.NONE);
+            exactNanos[run] = System.nanoTime() - start;
+            hits += overlap(ann, exact);
+            wanted += exact.size();
+
+            if (movie.getMoodTags() != null && !movie.getMoodTags().isEmpty()) {
+                SimilarityFilter filter = new SimilarityFilter(List.of(movie.getMoodTags().get(0)), null, null);
+                List<VectorIndex.Neighbour> filteredExact = index.exactSimilarTo(movie.getUid(), k, filter);
+                filteredHits += overlap(index.similarTo(movie.getUid(), k, filter), filteredExact);
+                filteredWanted += filteredExact.size();
+            }
+            run++;
+        }
+        Arrays.sort(annNanos, 0, run);
+        Arrays.sort(exactNanos, 0, run);
+        return new RecallCheck(run, k,
+                wanted > 0 ? (double) hits / wanted : 1,
+                filteredWanted > 0 ? (double) filteredHits / filteredWanted : 1,
+                percentile(annNanos, run, 0.5) / 1000.0, percentile(annNanos, run, 0.99) / 1000.0,
+                percentile(exactNanos, run, 0.5) / 1000.0, percentile(exactNanos, run, 0.99) / 1000.0);
+    }
+
+    /**
+     * How many of the exact results the approximate ones found; a different movie with
+     * the same score as an exact result counts (ties are arbitrary)
+     */
+    private static int overlap(List<VectorIndex.Neighbour> found, List<VectorIndex.Neighbour> exact) {
+        Set<String> foundUids = new HashSet<>();
+        for (VectorIndex.Neighbour neighbour : found) {
+            foundUids.add(neighbour.movie().getUid());
+        }
+        float cutoff = exact.isEmpty() ? 0 : exact.get(exact.size() - 1).similarity();
+        int hits = 0;
+        int tiesAtCutoff = 0;
+        for (VectorIndex.Neighbour neighbour : exact) {
+            if (foundUids.remove(neighbour.movie().getUid())) {
+                hits++;
+            } else if (neighbour.similarity() == cutoff) {
+                tiesAtCutoff++;
+            }
+        }
+        return hits + Math.min(tiesAtCutoff, foundUids.size());
+    }
+
+    private static long percentile(long[] sorted, int count, double quantile) {
+        return count > 0 ? sorted[Math.min(count - 1, (int) Math.ceil(quantile * count) - 1)] : 0;
+    }
+}
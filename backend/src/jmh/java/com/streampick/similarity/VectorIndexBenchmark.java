@@ -0,0 +1,72 @@
+package com.streampick.similarity;
+
+import com.streampick.BenchmarkFixtures;
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * "More like this" queries through the HNSW graph, unfiltered and filtered by mood
+ *
+ * Setup also compares the graph with an exact scan on sampled queries ({@link RecallCheck})
+ * and logs recall@10 and both latencies, the check to repeat after changing the graph settings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class VectorIndexBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndexBenchmark.class);
+
+    private static final VectorIndex.Settings SETTINGS = new VectorIndex.Settings(16, 100, 64);
+    private static final int K = 10;
+
+    @Param({"1000", "10000"})
+    private int catalogSize;
+
+    private VectorIndex index;
+    private String[] uids;
+    private SimilarityFilter cozy;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        List<Movie> movies = BenchmarkFixtures.catalog(catalogSize);
+        index = VectorIndex.build(new Catalog("benchmark", movies, System.currentTimeMillis()), SETTINGS);
+        uids = movies.stream().map(Movie::getUid).toArray(String[]::new);
+        cozy = new SimilarityFilter(List.of("cozy"), null, null);
+
+        RecallCheck result = RecallCheck.run(index, movies, 200, K);
+        log.info(String.format("%d movies, %d queries: recall@%d %.3f (%.3f filtered by mood); "
+                + "p50/p99 %.0f/%.0f us against %.0f/%.0f us for an exact scan",
+            index.size(), result.queries(), result.k(), result.recall(), result.filteredRecall(),
+            result.annMicrosP50(), result.annMicrosP99(), result.exactMicrosP50(), result.exactMicrosP99()));
+    }
+
+    @Benchmark
+    public List<VectorIndex.Neighbour> similarTo() {
+        return index.similarTo(nextUid(), K, SimilarityFilter.NONE);
+    }
+
+    @Benchmark
+    public List<VectorIndex.Neighbour> similarToFilteredByMood() {
+        return index.similarTo(nextUid(), K, cozy);
+    }
+
+    private String nextUid() {
+        next = next + 1 < uids.length ? next + 1 : 0;
+        return uids[next];
+    }
+}
@@ -0,0 +1,60 @@
+package com.streampick.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mood normalization and matching, per call
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoodMapperBenchmark {
+
+    private static final List<String> INPUTS = List.of(
+        "Cozy & Warm", "THRILLING", "  need laughs ", "make-me-think", "Pure Escapism", "mellow", "unknown-mood");
+
+    private List<String> userMoods;
+    private List<String> movieMoods;
+    private int userMask;
+    private int movieMask;
+
+    @Setup
+    public void setUp() {
+        userMoods = List.of("Cozy & Warm", "Need Laughs");
+        movieMoods = List.of("thrilling", "laugh");
+        userMask = MoodMapper.compileMoods(userMoods);
+        movieMask = MoodMapper.compileMoods(movieMoods);
+    }
+
+    @Benchmark
+    public void normalizeMood(Blackhole blackhole) {
+        for (String input : INPUTS) {
+            blackhole.consume(MoodMapper.normalizeMood(input));
+        }
+    }
+
+    @Benchmark
+    public boolean hasMatchingMoodLists() {
+        return MoodMapper.hasMatchingMood(userMoods, movieMoods);
+    }
+
+    @Benchmark
+    public boolean hasMatchingMoodCompiled() {
+        return MoodMapper.hasMatchingMood(userMask, userMoods, movieMask, movieMoods);
+    }
+
+    @Benchmark
+    public int compileMoods() {
+        return MoodMapper.compileMoods(userMoods);
+    }
+}
@@ -0,0 +1,206 @@
+package com.streampick.admission;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that follows observed latency, with a bounded wait queue
+ *
+ * Gradient style: a slow moving average of request latency is the no-load baseline and
+ * the average over the last window (100 ms, at least 10 requests) is the current
+ * latency. While that stays within {@code tolerance} of the baseline the limit grows by
+ * about sqrt(limit) per window; once requests slow down (they're queueing somewhere
+ * downstream) it shrinks in proportion. Growth only happens while the limit is actually being used, so an idle
+ * service doesn't drift up to the maximum. Requests beyond the limit wait in a FIFO
+ * queue of bounded length for at most the given time.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    // The limit moves once per window of samples, not per request, so it isn't whipsawed
+    // by the tail of requests admitted under the previous limit
+    private static final long WINDOW_NANOS = 100_000_000L;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueued;
+    private final double tolerance;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition slotFreed = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private double longRttNanos;
+
+    // Latency samples since the limit was last updated
+    private long windowStartNanos = System.nanoTime();
+    private long windowRttNanos;
+    private int windowSamples;
+    private int windowMaxInFlight;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, int maxQueued, double tolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Need 1 <= minLimit <= maxLimit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueued = Math.max(0, maxQueued);
+        this.tolerance = Math.max(1.0, tolerance);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Take a slot, waiting in the queue if the limit is reached and the queue has room
+     *
+     * @param maxWaitNanos Longest time to wait for a slot, 0 to not queue at all
+     * @return A permit to {@link Permit#release release} when the work is done,
+     *         or null if no slot was free in time
+     */
+    public Permit acquire(long maxWaitNanos) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit && queued == 0) {
+                return admit();
+            }
+            if (maxWaitNanos <= 0 || queued >= maxQueued) {
+                return null;
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return null;
+                    }
+                    remaining = slotFreed.awaitNanos(remaining);
+                }
+                return admit();
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Permit admit() {
+        inFlight++;
+        return new Permit(System.nanoTime(), inFlight);
+    }
+
+    private void release(Permit permit, boolean sample) {
+        long rtt = System.nanoTime() - permit.startNanos;
+        lock.lock();
+        try {
+            inFlight--;
+            if (sample) {
+                update(rtt, permit.inFlightAtStart);
+            }
+            slotFreed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(long rttNanos, int inFlightAtStart) {
+        windowRttNanos += rttNanos;
+        windowSamples++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtStart);
+        long now = System.nanoTime();
+        if (windowSamples < MIN_WINDOW_SAMPLES || now - windowStartNanos < WINDOW_NANOS) {
+            return;
+        }
+
+        double shortRttNanos = (double) windowRttNanos / windowSamples;
+        int maxInFlight = windowMaxInFlight;
+        windowStartNanos = now;
+        windowRttNanos = 0;
+        windowSamples = 0;
+        windowMaxInFlight = 0;
+
+        if (longRttNanos == 0) {
+            longRttNanos = shortRttNanos;
+            return;
+        }
+        longRttNanos += (shortRttNanos - longRttNanos) * 0.01;
+        // After a long overload the baseline has crept up; let it recover quickly
+        if (longRttNanos > shortRttNanos * 2) {
+            longRttNanos = (longRttNanos + shortRttNanos) / 2;
+        }
+
+        // App-limited: nothing learned about capacity from requests that never filled the limit
+        if (maxInFlight < limit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRttNanos / shortRttNanos));
+        double target = limit * gradient + Math.sqrt(limit);
+        double next = limit * (1 - SMOOTHING) + target * SMOOTHING;
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    /**
+     * A slot held by one request
+     */
+    public final class Permit {
+        private final long startNanos;
+        private final int inFlightAtStart;
+        private boolean released;
+
+        private Permit(long startNanos, int inFlightAtStart) {
+            this.startNanos = startNanos;
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Free the slot and feed its latency to the limit
+         */
+        public void release() {
+            release(true);
+        }
+
+        /**
+         * Free the slot without a latency sample (the request didn't do the measured work)
+         */
+        public void releaseWithoutSample() {
+            release(false);
+        }
+
+        private void release(boolean sample) {
+            if (!released) {
+                released = true;
+                AdaptiveConcurrencyLimit.this.release(this, sample);
+            }
+        }
+    }
+}
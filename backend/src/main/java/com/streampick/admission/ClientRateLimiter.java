@@ -0,0 +1,98 @@
+package com.streampick.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket per client
+ *
+ * Each client gets {@code ratePerSecond} tokens a second, up to {@code burst} saved
+ * up. Buckets are created on first use and dropped once full and idle, so memory is
+ * bounded by the number of clients active within the last few seconds, with a hard
+ * cap on tracked clients: past it, new clients share a single bucket until buckets
+ * expire, so flooding the table with made-up clients doesn't switch limiting off.
+ */
+public class ClientRateLimiter {
+
+    private final double ratePerNano;
+    private final double burst;
+    private final int maxClients;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private volatile Bucket overflow;
+
+    public ClientRateLimiter(double ratePerSecond, int burst, int maxClients) {
+        this.ratePerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.maxClients = maxClients;
+    }
+
+    /**
+     * Take one token for a client
+     *
+     * @return 0 if allowed, otherwise milliseconds until the next token
+     */
+    public long tryAcquire(String client) {
+        Bucket bucket = buckets.get(client);
+        if (bucket == null) {
+            if (buckets.size() >= maxClients) {
+                return overflow().take(System.nanoTime());
+            }
+            bucket = buckets.computeIfAbsent(client, key -> new Bucket(burst));
+        }
+        return bucket.take(System.nanoTime());
+    }
+
+    /**
+     * Drop buckets that have refilled completely, i.e. clients idle for a while
+     */
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private Bucket overflow() {
+        Bucket bucket = overflow;
+        if (bucket == null) {
+            synchronized (this) {
+                if (overflow == null) {
+                    overflow = new Bucket(burst);
+                }
+                bucket = overflow;
+            }
+        }
+        return bucket;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    private final class Bucket {
+        private double tokens;
+        private long refilledAt;
+
+        Bucket(double tokens) {
+            this.tokens = tokens;
+            this.refilledAt = System.nanoTime();
+        }
+
+        synchronized long take(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, TimeUnit.NANOSECONDS.toMillis((long) ((1 - tokens) / ratePerNano)));
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= burst;
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * ratePerNano);
+            refilledAt = now;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.streampick.admission;
+
+import com.streampick.exception.OverloadException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission control for POST /api/recommendations
+ *
+ * Each request gets one of three answers, cheapest work last:
+ * <ol>
+ *   <li>{@link Mode#FULL}: a slot under the adaptive concurrency limit (the full path,
+ *       ML service included), possibly after a short wait in a bounded queue</li>
+ *   <li>{@link Mode#DEGRADED}: no slot in time, so the request is served from recently
+ *       cached results or the in-process fallback scorer, which never leave the JVM and
+ *       have their own fixed concurrency cap</li>
+ *   <li>rejected with 503 and Retry-After once that cap is reached too</li>
+ * </ol>
+ * Optionally, each client (last X-Forwarded-For hop, else the remote address) is held
+ * to a token bucket and gets 429 with Retry-After past it.
+ */
+@Component
+public class RecommendationAdmission {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationAdmission.class);
+
+    public enum Mode { FULL, DEGRADED }
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${admission.limit.initial:20}")
+    private int initialLimit;
+
+    @Value("${admission.limit.min:4}")
+    private int minLimit;
+
+    @Value("${admission.limit.max:200}")
+    private int maxLimit;
+
+    @Value("${admission.limit.latency-tolerance:2.0}")
+    private double latencyTolerance;
+
+    @Value("${admission.queue.capacity:50}")
+    private int queueCapacity;
+
+    @Value("${admission.queue.timeout.ms:250}")
+    private long queueTimeoutMillis;
+
+    // 0 = four per core
+    @Value("${admission.degraded.max-concurrent:0}")
+    private int degradedMaxConcurrent;
+
+    @Value("${admission.retry-after.seconds:1}")
+    private long retryAfterSeconds;
+
+    // 0 = no per-client limit
+    @Value("${admission.client.rate-per-second:0}")
+    private double clientRatePerSecond;
+
+    @Value("${admission.client.burst:20}")
+    private int clientBurst;
+
+    @Value("${admission.client.max-tracked:100000}")
+    private int clientMaxTracked;
+
+    private AdaptiveConcurrencyLimit limit;
+    private Semaphore degradedPermits;
+    private ClientRateLimiter clientRateLimiter;
+
+    public RecommendationAdmission(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, queueCapacity, latencyTolerance);
+        int degraded = degradedMaxConcurrent > 0 ? degradedMaxConcurrent : 4 * Runtime.getRuntime().availableProcessors();
+        degradedPermits = new Semaphore(degraded);
+        if (clientRatePerSecond > 0) {
+            clientRateLimiter = new ClientRateLimiter(clientRatePerSecond, clientBurst, clientMaxTracked);
+        }
+
+        Gauge.builder("streampick.admission.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+            .description("Current adaptive concurrency limit for recommendations")
+            .register(meterRegistry);
+        Gauge.builder("streampick.admission.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+            .register(meterRegistry);
+        Gauge.builder("streampick.admission.queued", limit, AdaptiveConcurrencyLimit::getQueued)
+            .register(meterRegistry);
+
+        log.info("Recommendation admission {}: limit {} ({}-{}), queue {} / {} ms, {} degraded, client rate {}/s",
+            enabled ? "on" : "off", initialLimit, minLimit, maxLimit, queueCapacity, queueTimeoutMillis,
+            degraded, clientRatePerSecond > 0 ? clientRatePerSecond : "unlimited");
+    }
+
+    /**
+     * Decide how to serve a request
+     *
+     * @param client Client key for the per-client rate
+     * @return The decision, to be closed when the response is ready
+     * @throws OverloadException if the request is shed
+     */
+    public Ticket admit(String client) {
+        if (!enabled) {
+            return new Ticket(Mode.FULL, null, false);
+        }
+
+        if (clientRateLimiter != null && client != null) {
+            long waitMillis = clientRateLimiter.tryAcquire(client);
+            if (waitMillis > 0) {
+                count("throttled");
+                throw new OverloadException(HttpStatus.TOO_MANY_REQUESTS,
+                    Math.max(1, TimeUnit.MILLISECONDS.toSeconds(waitMillis + 999)),
+                    "Too many recommendation requests, please slow down");
+            }
+        }
+
+        AdaptiveConcurrencyLimit.Permit permit;
+        try {
+            permit = limit.acquire(TimeUnit.MILLISECONDS.toNanos(queueTimeoutMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OverloadException(HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds, "Request interrupted");
+        }
+        if (permit != null) {
+            count("admitted");
+            return new Ticket(Mode.FULL, permit, false);
+        }
+
+        if (degradedPermits.tryAcquire()) {
+            count("degraded");
+            return new Ticket(Mode.DEGRADED, null, true);
+        }
+
+        count("rejected");
+        throw new OverloadException(HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds,
+            "StreamPick is busy right now, please try again in a moment");
+    }
+
+    @Scheduled(fixedDelayString = "${admission.client.evict.interval.ms:10000}")
+    public void evictIdleClients() {
+        if (clientRateLimiter != null) {
+            clientRateLimiter.evictIdle();
+        }
+    }
+
+    private void count(String outcome) {
+        meterRegistry.counter("streampick.admission", "outcome", outcome).increment();
+    }
+
+    /**
+     * An admitted request; close it when its response is ready
+     */
+    public final class Ticket implements AutoCloseable {
+        private final Mode mode;
+        private final AdaptiveConcurrencyLimit.Permit permit;
+        private boolean degradedPermit;
+        private boolean failed;
+
+        private Ticket(Mode mode, AdaptiveConcurrencyLimit.Permit permit, boolean degradedPermit) {
+            this.mode = mode;
+            this.permit = permit;
+            this.degradedPermit = degradedPermit;
+        }
+
+        public Mode getMode() {
+            return mode;
+        }
+
+        /**
+         * The request failed without doing the full work; its latency isn't a capacity sample
+         */
+        public void failed() {
+            failed = true;
+        }
+
+        @Override
+        public void close() {
+            if (permit != null) {
+                if (failed) {
+                    permit.releaseWithoutSample();
+                } else {
+                    permit.release();
+                }
+            }
+            if (degradedPermit) {
+                degradedPermit = false;
+                degradedPermits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.streampick.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * What backend replicas share to keep their in-process state in step
+ *
+ * <ul>
+ *   <li>Broadcast messages on named channels (fire-and-forget: a replica that is down
+ *       or reconnecting misses them, so listeners must be able to catch up another way)</li>
+ *   <li>Leases, so one replica does work every replica would otherwise repeat</li>
+ *   <li>Small blobs with a TTL, e.g. a catalog snapshot other replicas can adopt</li>
+ * </ul>
+ *
+ * The active implementation is chosen with {@code cluster.bus}: {@code local} (a single
+ * replica; the default) or {@code redis}.
+ */
+public interface InvalidationBus {
+
+    /**
+     * This replica's ID, unique across the cluster
+     */
+    String replicaId();
+
+    /**
+     * Whether other replicas can be on the bus (false: this JVM is the whole cluster)
+     */
+    boolean isClustered();
+
+    /**
+     * Send a message to every replica subscribed to the channel, this one included
+     */
+    void publish(String channel, String message);
+
+    /**
+     * Receive the channel's messages; listeners are called on the bus's thread and
+     * should hand anything slow to another thread
+     */
+    void subscribe(String channel, Consumer<String> listener);
+
+    /**
+     * Take or renew a lease held by one replica at a time
+     *
+     * @param name Lease name
+     * @param ttlMillis How long the lease lasts unless renewed
+     * @return true if this replica holds the lease
+     * @throws RuntimeException if the bus can't be reached
+     */
+    boolean tryAcquireLease(String name, long ttlMillis);
+
+    /**
+     * Store a blob for other replicas
+     */
+    void put(String key, byte[] value, long ttlMillis);
+
+    /**
+     * A blob stored by any replica
+     *
+     * @return The blob, or null if there is none (or this bus doesn't share blobs)
+     */
+    byte[] get(String key);
+}
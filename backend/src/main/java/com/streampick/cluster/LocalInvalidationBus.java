@@ -0,0 +1,59 @@
+package com.streampick.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bus for a single replica: messages go straight to this JVM's listeners, this replica
+ * holds every lease, and there is nobody to share blobs with
+ */
+@Component
+@ConditionalOnProperty(name = "cluster.bus", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationBus implements InvalidationBus {
+
+    private final String replicaId = UUID.randomUUID().toString();
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public String replicaId() {
+        return replicaId;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return false;
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        for (Consumer<String> listener : listeners.getOrDefault(channel, List.of())) {
+            listener.accept(message);
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    @Override
+    public boolean tryAcquireLease(String name, long ttlMillis) {
+        return true;
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttlMillis) {
+    }
+
+    @Override
+    public byte[] get(String key) {
+        return null;
+    }
+}
@@ -0,0 +1,269 @@
+package com.streampick.cluster;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Bus over Redis (or anything speaking its protocol)
+ *
+ * Messages are Redis pub/sub on {@code <prefix>channel}, received on one dedicated
+ * connection that reconnects with backoff and subscribes again. Leases are keys set
+ * with NX and a TTL; the holder renews by extending the TTL. Renewal is a GET then a
+ * PEXPIRE, so if the lease expires in between, two replicas may both hold it until the
+ * next renewal; that only costs duplicate work, never correctness. Blobs are plain keys
+ * with a TTL. Commands go over a second connection, one at a time.
+ */
+@Component
+@ConditionalOnProperty(name = "cluster.bus", havingValue = "redis")
+public class RedisInvalidationBus implements InvalidationBus {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisInvalidationBus.class);
+    private static final long MAX_RECONNECT_BACKOFF_MILLIS = 30_000;
+
+    private final MeterRegistry meterRegistry;
+
+    // redis://[:password@]host[:port][/db]
+    @Value("${cluster.redis.url:redis://localhost:6379}")
+    private String url;
+
+    @Value("${cluster.redis.key-prefix:streampick:}")
+    private String prefix;
+
+    @Value("${cluster.redis.timeout.ms:2000}")
+    private int timeoutMillis;
+
+    @Value("${cluster.replica-id:}")
+    private String configuredReplicaId;
+
+    private String host;
+    private int port;
+    private String password;
+    private int database;
+    private String replicaId;
+
+    private final Object commandLock = new Object();
+    private RespConnection commands;
+
+    private final Map<String, List<Consumer<String>>> listeners = new ConcurrentHashMap<>();
+    private volatile RespConnection subscription;
+    private volatile boolean running = true;
+    private Thread subscriber;
+
+    public RedisInvalidationBus(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        URI uri = URI.create(url);
+        host = uri.getHost() != null ? uri.getHost() : "localhost";
+        port = uri.getPort() > 0 ? uri.getPort() : 6379;
+        String userInfo = uri.getRawUserInfo();
+        if (userInfo != null) {
+            // Redis 6 ACL users aren't supported; "user:" is ignored
+            password = URLDecoder.decode(userInfo.substring(userInfo.indexOf(':') + 1), StandardCharsets.UTF_8);
+        }
+        String path = uri.getPath();
+        database = path != null && path.length() > 1 ? Integer.parseInt(path.substring(1)) : 0;
+        replicaId = !configuredReplicaId.isBlank() ? configuredReplicaId
+            : InetAddress.getLocalHost().getHostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+
+        subscriber = new Thread(this::receive, "cluster-bus-subscriber");
+        subscriber.setDaemon(true);
+        subscriber.start();
+        log.info("Cluster bus on Redis {}:{}/{} as replica {}", host, port, database, replicaId);
+    }
+
+    @PreDestroy
+    void shutdown() throws IOException {
+        running = false;
+        RespConnection current = subscription;
+        if (current != null) {
+            current.close();
+        }
+        synchronized (commandLock) {
+            if (commands != null) {
+                commands.close();
+            }
+        }
+    }
+
+    @Override
+    public String replicaId() {
+        return replicaId;
+    }
+
+    @Override
+    public boolean isClustered() {
+        return true;
+    }
+
+    @Override
+    public void publish(String channel, String message) {
+        try {
+            call("PUBLISH", prefix + channel, message);
+            count("publish", "success");
+        } catch (IOException e) {
+            count("publish", "error");
+            log.warn("Couldn't publish to {}: {}", channel, e.getMessage());
+        }
+    }
+
+    @Override
+    public void subscribe(String channel, Consumer<String> listener) {
+        listeners.computeIfAbsent(channel, c -> new CopyOnWriteArrayList<>()).add(listener);
+        RespConnection current = subscription;
+        if (current != null) {
+            try {
+                current.send("SUBSCRIBE", prefix + channel);
+            } catch (IOException e) {
+                // The receiver reconnects and subscribes to every channel again
+                log.debug("Couldn't subscribe to {} yet: {}", channel, e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public boolean tryAcquireLease(String name, long ttlMillis) {
+        String key = prefix + "lease:" + name;
+        try {
+            if ("OK".equals(call("SET", key, replicaId, "NX", "PX", ttlMillis))) {
+                return true;
+            }
+            if (replicaId.equals(RespConnection.string(call("GET", key)))) {
+                call("PEXPIRE", key, ttlMillis);
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new IllegalStateException("Couldn't reach Redis for lease " + name + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttlMillis) {
+        try {
+            call("SET", prefix + key, value, "PX", ttlMillis);
+        } catch (IOException e) {
+            log.warn("Couldn't store {} ({} bytes): {}", key, value.length, e.getMessage());
+        }
+    }
+
+    @Override
+    public byte[] get(String key) {
+        try {
+            return call("GET", prefix + key) instanceof byte[] bytes ? bytes : null;
+        } catch (IOException e) {
+            log.warn("Couldn't read {}: {}", key, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * One command on the shared command connection, reconnecting once if it broke
+     */
+    private Object call(Object... args) throws IOException {
+        synchronized (commandLock) {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    if (commands == null) {
+                        commands = connect();
+                    }
+                    return commands.call(args);
+                } catch (RespConnection.ErrorReply e) {
+                    throw e;
+                } catch (IOException e) {
+                    if (commands != null) {
+                        commands.close();
+                        commands = null;
+                    }
+                    if (attempt > 0) {
+                        throw e;
+                    }
+                }
+            }
+        }
+    }
+
+    private RespConnection connect() throws IOException {
+        RespConnection connection = new RespConnection(host, port, password, timeoutMillis);
+        try {
+            if (database != 0) {
+                connection.call("SELECT", database);
+            }
+        } catch (IOException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+
+    /**
+     * Subscriber loop: (re)connect, subscribe to every channel, dispatch messages
+     */
+    private void receive() {
+        long backoffMillis = 500;
+        while (running) {
+            try (RespConnection connection = connect()) {
+                connection.setReadTimeout(0);
+                subscription = connection;
+                for (String channel : listeners.keySet()) {
+                    connection.send("SUBSCRIBE", prefix + channel);
+                }
+                backoffMillis = 500;
+                while (running) {
+                    if (connection.read() instanceof List<?> push && push.size() == 3
+                            && "message".equals(RespConnection.string(push.get(0)))) {
+                        dispatch(RespConnection.string(push.get(1)), RespConnection.string(push.get(2)));
+                    }
+                }
+            } catch (IOException e) {
+                subscription = null;
+                if (!running) {
+                    return;
+                }
+                log.warn("Cluster bus subscription lost ({}), reconnecting in {} ms", e.getMessage(), backoffMillis);
+                try {
+                    Thread.sleep(backoffMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                backoffMillis = Math.min(backoffMillis * 2, MAX_RECONNECT_BACKOFF_MILLIS);
+            }
+        }
+    }
+
+    private void dispatch(String prefixedChannel, String message) {
+        String channel = prefixedChannel.startsWith(prefix) ? prefixedChannel.substring(prefix.length()) : prefixedChannel;
+        count("receive", "success");
+        for (Consumer<String> listener : listeners.getOrDefault(channel, List.of())) {
+            try {
+                listener.accept(message);
+            } catch (RuntimeException e) {
+                log.error("Cluster bus listener for {} failed", channel, e);
+            }
+        }
+    }
+
+    private void count(String operation, String outcome) {
+        meterRegistry.counter("streampick.cluster.bus", "operation", operation, "outcome", outcome).increment();
+    }
+}
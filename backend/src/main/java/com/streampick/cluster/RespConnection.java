@@ -0,0 +1,161 @@
+package com.streampick.cluster;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One connection speaking RESP2, the Redis protocol
+ *
+ * Commands are arrays of bulk strings; replies come back as {@code String} (simple
+ * string), {@code Long}, {@code byte[]} (bulk string), {@code null} or {@code List}
+ * (array). Error replies are thrown as {@link ErrorReply}. Not thread-safe: callers
+ * serialize commands, except that one thread may read pushed messages while another
+ * writes subscription commands.
+ */
+final class RespConnection implements Closeable {
+
+    /**
+     * An error reply: the connection is still usable
+     */
+    static final class ErrorReply extends IOException {
+        ErrorReply(String message) {
+            super(message);
+        }
+    }
+
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    RespConnection(String host, int port, String password, int timeoutMillis) throws IOException {
+        socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.connect(new InetSocketAddress(host, port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = new BufferedOutputStream(socket.getOutputStream());
+            if (password != null && !password.isEmpty()) {
+                call("AUTH", password);
+            }
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Send a command and read its reply
+     */
+    Object call(Object... args) throws IOException {
+        send(args);
+        return read();
+    }
+
+    void send(Object... args) throws IOException {
+        synchronized (out) {
+            writeHeader('*', args.length);
+            for (Object arg : args) {
+                byte[] bytes = arg instanceof byte[] raw ? raw : String.valueOf(arg).getBytes(StandardCharsets.UTF_8);
+                writeHeader('$', bytes.length);
+                out.write(bytes);
+                out.write('\r');
+                out.write('\n');
+            }
+            out.flush();
+        }
+    }
+
+    Object read() throws IOException {
+        int type = in.read();
+        switch (type) {
+            case '+':
+                return readLine();
+            case '-':
+                throw new ErrorReply(readLine());
+            case ':':
+                return Long.parseLong(readLine());
+            case '$': {
+                int length = Integer.parseInt(readLine());
+                if (length < 0) {
+                    return null;
+                }
+                byte[] bytes = in.readNBytes(length);
+                if (bytes.length < length) {
+                    throw new EOFException("Connection closed mid-reply");
+                }
+                readLine();  // CRLF
+                return bytes;
+            }
+            case '*': {
+                int count = Integer.parseInt(readLine());
+                if (count < 0) {
+                    return null;
+                }
+                List<Object> items = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    items.add(read());
+                }
+                return items;
+            }
+            case -1:
+                throw new EOFException("Connection closed");
+            default:
+                throw new IOException("Unexpected RESP type byte: " + type);
+        }
+    }
+
+    /**
+     * Block reads for at most this long (0 = forever)
+     */
+    void setReadTimeout(int timeoutMillis) throws IOException {
+        socket.setSoTimeout(timeoutMillis);
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    private void writeHeader(char type, int value) throws IOException {
+        out.write(type);
+        out.write(Integer.toString(value).getBytes(StandardCharsets.US_ASCII));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            int b = in.read();
+            if (b == -1) {
+                throw new EOFException("Connection closed");
+            }
+            if (b == '\r') {
+                if (in.read() != '\n') {
+                    throw new IOException("Malformed RESP line");
+                }
+                return line.toString();
+            }
+            line.append((char) b);
+        }
+    }
+
+    static String string(Object reply) {
+        if (reply instanceof byte[] bytes) {
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return reply != null ? reply.toString() : null;
+    }
+}
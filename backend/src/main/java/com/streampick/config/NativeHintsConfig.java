@@ -0,0 +1,34 @@
+package com.streampick.config;
+
+import com.streampick.model.Movie;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+
+/**
+ * Reflection hints for the native image (-Pnative)
+ *
+ * Spring AOT covers beans and Jackson request/response types on its own; Gson maps
+ * Contentstack entries (and shared catalog snapshots) onto Movie's fields
+ * reflectively, which it can't see.
+ */
+@Configuration
+@ImportRuntimeHints(NativeHintsConfig.GsonHints.class)
+public class NativeHintsConfig {
+
+    static class GsonHints implements RuntimeHintsRegistrar {
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            hints.reflection().registerType(Movie.class,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+            hints.reflection().registerType(TypeReference.of("com.streampick.service.CatalogSnapshotCodec$Snapshot"),
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+    }
+}
@@ -1,23 +1,47 @@
 package com.streampick.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
 
 /**
  * Configuration for RestTemplate to call external services (Python ML service)
+ * Request/response payload sizes are recorded per host
  */
 @Configuration
 public class RestTemplateConfig {
     
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
+    public RestTemplate restTemplate(RestTemplateBuilder builder, MeterRegistry meterRegistry) {
         return builder
                 .setConnectTimeout(Duration.ofSeconds(5))  // 5 second connection timeout
                 .setReadTimeout(Duration.ofSeconds(10))     // 10 second read timeout
+                .additionalInterceptors(payloadSizeInterceptor(meterRegistry))
                 .build();
     }
+    
+    /**
+     * Records request/response body sizes per host (latency is already in http.client.requests)
+     */
+    private static ClientHttpRequestInterceptor payloadSizeInterceptor(MeterRegistry meterRegistry) {
+        return (request, body, execution) -> {
+            String host = request.getURI().getHost();
+            meterRegistry.summary("streampick.http.client.payload", "host", host, "direction", "request")
+                    .record(body.length);
+            
+            ClientHttpResponse response = execution.execute(request, body);
+            long contentLength = response.getHeaders().getContentLength();
+            if (contentLength >= 0) {
+                meterRegistry.summary("streampick.http.client.payload", "host", host, "direction", "response")
+                        .record(contentLength);
+            }
+            return response;
+        };
+    }
 }
\ No newline at end of file
@@ -0,0 +1,12 @@
+package com.streampick.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables @Scheduled background jobs (subscriber replication, log compaction)
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
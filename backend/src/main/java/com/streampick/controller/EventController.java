@@ -0,0 +1,95 @@
+package com.streampick.controller;
+
+import com.streampick.dto.MoviePublishedEvent;
+import com.streampick.notification.DeadLetter;
+import com.streampick.notification.NotificationJob;
+import com.streampick.notification.NotificationPipeline;
+import com.streampick.service.CatalogService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * REST controller for Contentstack events (called by Automate / webhooks)
+ */
+@RestController
+@RequestMapping("/api/events")
+@RequiredArgsConstructor
+@Slf4j
+public class EventController {
+
+    private final NotificationPipeline notificationPipeline;
+    private final CatalogService catalogService;
+
+    /**
+     * Notify matching subscribers about a published movie
+     * POST /api/events/movie-published
+     * 
+     * Matching and delivery run in the background; poll the returned job for progress.
+     * The catalog is refreshed in the background too, so the new movie shows up in
+     * listings and recommendations without waiting for the next scheduled refresh.
+     * 
+     * @param event The published movie (title and mood tags)
+     * @return 202 with the notification job, 503 while the dead-letter queue is full
+     */
+    @PostMapping("/movie-published")
+    public ResponseEntity<Object> moviePublished(@RequestBody MoviePublishedEvent event) {
+        log.info("POST /api/events/movie-published - title={}, moods={}", event.getTitle(), event.getMoodTags());
+        catalogService.requestRefresh();
+
+        if (event.getMoodTags() == null || event.getMoodTags().isEmpty()) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", "Mood tags are required");
+            return ResponseEntity.badRequest().body(response);
+        }
+
+        try {
+            NotificationJob job = notificationPipeline.submit(event);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (IllegalStateException e) {
+            log.error("Refusing publish event for '{}': {}", event.getTitle(), e.getMessage());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("message", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+    }
+
+    /**
+     * Get progress of a notification job
+     * GET /api/events/jobs/{jobId}
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<NotificationJob> getJob(@PathVariable String jobId) {
+        NotificationJob job = notificationPipeline.getJob(jobId);
+        return job != null ? ResponseEntity.ok(job) : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * List batches that failed all delivery attempts
+     * GET /api/events/dead-letters
+     */
+    @GetMapping("/dead-letters")
+    public ResponseEntity<List<DeadLetter>> getDeadLetters() {
+        return ResponseEntity.ok(notificationPipeline.getDeadLetters());
+    }
+
+    /**
+     * Queue all dead-lettered batches for delivery again
+     * POST /api/events/dead-letters/replay
+     */
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<NotificationJob> replayDeadLetters() {
+        NotificationJob job = notificationPipeline.replayDeadLetters();
+        return job != null
+                ? ResponseEntity.status(HttpStatus.ACCEPTED).body(job)
+                : ResponseEntity.noContent().build();
+    }
+}
@@ -1,13 +1,30 @@
 package com.streampick.controller;
 
+import com.streampick.dto.FilteredMoviesResponse;
+import com.streampick.dto.MovieFilter;
+import com.streampick.dto.MovieSearchResponse;
+import com.streampick.dto.SimilarMovie;
+import com.streampick.dto.TitleSuggestion;
 import com.streampick.model.Movie;
-import com.streampick.service.ContentstackService;
+import com.streampick.search.FacetIndex;
+import com.streampick.search.FilterService;
+import com.streampick.search.SearchIndex;
+import com.streampick.search.SearchService;
+import com.streampick.service.CatalogService;
+import com.streampick.service.MovieDetailService;
+import com.streampick.service.MovieListingService;
+import com.streampick.similarity.SimilarityFilter;
+import com.streampick.similarity.SimilarityService;
+import com.streampick.similarity.VectorIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * REST controller for movie operations
@@ -19,21 +36,59 @@ import java.util.List;
 @Slf4j
 public class MovieController {
 
-    private final ContentstackService contentstackService;
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
+    private final CatalogService catalogService;
+    private final MovieListingService movieListingService;
+    private final MovieDetailService movieDetailService;
+    private final SearchService searchService;
+    private final SimilarityService similarityService;
+    private final FilterService filterService;
 
     /**
-     * Get all available movies
+     * Get available movies
+     * GET /api/movies                                   every movie, every field
+     * GET /api/movies?limit=50&view=card                first page of compact cards
+     * GET /api/movies?cursor=...&fields=uid,title,imageUrl
+     * 
+     * Pass {@code limit}, {@code cursor}, {@code view} or {@code fields} to get a page
+     * (and the returned {@code nextCursor} as {@code cursor} for the next one) instead of
+     * the whole catalog.
      * 
-     * @return List of all movies
+     * @param cursor Optional cursor from the previous page
+     * @param limit Optional page size (1-200, default 50)
+     * @param view "full" (default) or "card": no descriptions, poster URL instead of the image object
+     * @param fields Optional comma-separated fields to return (overrides view)
+     * @return List of all movies, or a page of them
      */
     @GetMapping
-    public ResponseEntity<List<Movie>> getAllMovies() {
-        log.info("GET /api/movies - Fetching all movies");
+    public ResponseEntity<Object> getAllMovies(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String view,
+            @RequestParam(required = false) List<String> fields) {
+        log.info("GET /api/movies - Fetching movies (cursor={}, limit={}, view={}, fields={})",
+                cursor, limit, view, fields);
         
         try {
-            List<Movie> movies = contentstackService.getAllMovies();
+            if (cursor != null || limit != null || view != null || fields != null) {
+                int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+                if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+                    throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+                }
+                MovieListingService.View movieView = "card".equalsIgnoreCase(view)
+                        ? MovieListingService.View.CARD
+                        : MovieListingService.View.FULL;
+                return ResponseEntity.ok(movieListingService.page(cursor, pageSize, movieView, fields));
+            }
+            
+            List<Movie> movies = catalogService.getAllMovies();
             log.info("Successfully retrieved {} movies", movies.size());
             return ResponseEntity.ok(movies);
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid movie listing request: {}", e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         } catch (Exception e) {
             log.error("Error fetching movies", e);
             throw new RuntimeException("Failed to fetch movies: " + e.getMessage());
@@ -51,7 +106,7 @@ public class MovieController {
         log.info("GET /api/movies/mood/{} - Fetching movies by mood", mood);
         
         try {
-            List<Movie> movies = contentstackService.getMoviesByMood(mood);
+            List<Movie> movies = catalogService.getMoviesByMood(mood);
             log.info("Found {} movies for mood: {}", movies.size(), mood);
             
             if (movies.isEmpty()) {
@@ -64,5 +119,138 @@ public class MovieController {
             throw new RuntimeException("Failed to fetch movies for mood: " + mood);
         }
     }
-}
 
+    /**
+     * Full-text search over titles, genres and descriptions (BM25 ranked)
+     * GET /api/movies/search?q=dark kni&limit=20&prefix=true
+     * 
+     * @param q Query; with prefix=true (the default, for search-as-you-type) the last
+     *          word may be incomplete
+     * @param limit Maximum number of results (1-100)
+     * @param prefix Whether to match the last word as a prefix
+     * @return Matching movies, best match first, with the total number of matches
+     */
+    @GetMapping("/search")
+    public ResponseEntity<MovieSearchResponse> searchMovies(
+            @RequestParam("q") String q,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "true") boolean prefix) {
+        log.debug("GET /api/movies/search - q={}, limit={}, prefix={}", q, limit, prefix);
+
+        SearchIndex.Result result = searchService.search(q, Math.max(1, Math.min(limit, 100)), prefix);
+        return ResponseEntity.ok(MovieSearchResponse.builder()
+                .query(q)
+                .totalMatching(result.total())
+                .results(result.hits().stream()
+                        .map(hit -> new MovieSearchResponse.Hit(hit.movie(), hit.score()))
+                        .collect(Collectors.toList()))
+                .build());
+    }
+
+    /**
+     * Title type-ahead: titles with a word starting with the prefix, best rated first
+     * GET /api/movies/autocomplete?prefix=dark&limit=8
+     * 
+     * @param prefix What has been typed so far
+     * @param limit Maximum number of suggestions (1-20)
+     * @return Suggestions with just uid, title, year and poster URL
+     */
+    @GetMapping("/autocomplete")
+    public ResponseEntity<List<TitleSuggestion>> autocomplete(
+            @RequestParam String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+        log.debug("GET /api/movies/autocomplete - prefix={}", prefix);
+
+        List<TitleSuggestion> suggestions = searchService.autocomplete(prefix, Math.max(1, limit)).stream()
+                .map(movie -> new TitleSuggestion(movie.getUid(), movie.getTitle(), movie.getYear(), movie.getImageUrl()))
+                .collect(Collectors.toList());
+        return ResponseEntity.ok(suggestions);
+    }
+
+    /**
+     * Get one movie with every field, including the full image object
+     * GET /api/movies/{uid}
+     * 
+     * The catalog (and the listing above) keeps only what browsing and recommending
+     * need; details are loaded from the CMS on first request and cached.
+     * 
+     * @param uid Movie UID
+     * @return The movie; 404 if it isn't in the catalog, 502 if its details couldn't be loaded
+     */
+    @GetMapping("/{uid}")
+    public ResponseEntity<Movie> getMovie(@PathVariable String uid) {
+        log.debug("GET /api/movies/{}", uid);
+
+        try {
+            Movie movie = movieDetailService.getMovie(uid);
+            if (movie == null) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.ok(movie);
+        } catch (IllegalStateException e) {
+            log.error("Error fetching details of movie {}: {}", uid, e.getMessage());
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).build();
+        }
+    }
+
+    /**
+     * Movies similar to one ("more like this"), by genre, mood tags and descriptions
+     * GET /api/movies/{uid}/similar?limit=10&moods=cozy&maxRuntime=100
+     * 
+     * @param uid Movie UID
+     * @param limit Maximum number of movies (1-20 by default, see similar.top-k)
+     * @param userId Optional: order by similarity blended with this user's profile
+     * @param moods Optional: only movies with any of these moods
+     * @param minRuntime Optional: only movies at least this long (minutes)
+     * @param maxRuntime Optional: only movies at most this long (minutes)
+     * @return Similar movies, most similar first; 404 if the movie isn't in the catalog
+     */
+    @GetMapping("/{uid}/similar")
+    public ResponseEntity<List<SimilarMovie>> getSimilarMovies(
+            @PathVariable String uid,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) List<String> moods,
+            @RequestParam(required = false) Integer minRuntime,
+            @RequestParam(required = false) Integer maxRuntime) {
+        log.debug("GET /api/movies/{}/similar", uid);
+
+        List<VectorIndex.Neighbour> similar = similarityService.similarTo(uid, Math.max(1, limit), userId,
+                new SimilarityFilter(moods, minRuntime, maxRuntime));
+        if (similar == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(similar.stream()
+                .map(neighbour -> new SimilarMovie(neighbour.movie(), neighbour.similarity()))
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Filter the catalog, with facet counts for refining further
+     * GET /api/movies/filter?genres=Drama&genres=Comedy&platforms=Netflix&maxRuntime=120&minRating=7
+     * 
+     * Several values of one dimension match any of them; dimensions are combined with AND.
+     * 
+     * @param filter genres, platforms, minRuntime/maxRuntime (minutes), minRating/maxRating
+     * @param offset Matches to skip
+     * @param limit Page size (1-100)
+     * @param sort "rating" (best rated first, the default) or "catalog"
+     * @return The page, the total number of matches and per-dimension facet counts
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<FilteredMoviesResponse> filterMovies(
+            @ModelAttribute MovieFilter filter,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "rating") String sort) {
+        log.debug("GET /api/movies/filter - {}", filter);
+
+        FacetIndex.Result result = filterService.filter(filter, Math.max(0, offset),
+                Math.max(1, Math.min(limit, 100)), !"catalog".equalsIgnoreCase(sort));
+        return ResponseEntity.ok(FilteredMoviesResponse.builder()
+                .totalMatching(result.total())
+                .movies(result.movies())
+                .facets(result.facets())
+                .build());
+    }
+}
@@ -0,0 +1,167 @@
+package com.streampick.controller;
+
+import com.streampick.poster.PosterService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.List;
+
+/**
+ * REST controller for movie posters, served from the local poster cache
+ */
+@RestController
+@RequestMapping("/api/posters")
+@CrossOrigin(origins = "${cors.allowed.origins}")
+@RequiredArgsConstructor
+@Slf4j
+public class PosterController {
+
+    // Tomcat's sendfile request attributes (org.apache.coyote.Constants)
+    private static final String SENDFILE_SUPPORTED = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final PosterService posterService;
+
+    // For versioned URLs only; without the current version clients revalidate every time
+    @Value("${poster.cache-control.max-age.seconds:31536000}")
+    private long maxAgeSeconds;
+
+    /**
+     * Get a movie poster
+     * GET /api/posters/{uid}          the original
+     * GET /api/posters/{uid}?w=320    scaled to the nearest configured width at least 320 px wide
+     * GET /api/posters/{uid}?w=320&v=1a2b3c4d   same, cacheable for good while v is the
+     *                                           poster's current {@link PosterService#version}
+     *
+     * Supports conditional requests (ETag) and single byte ranges. The file is handed to
+     * the connector's sendfile (zero-copy, kernel to socket) when it has one, else copied
+     * with FileChannel.transferTo.
+     *
+     * @param uid Movie UID
+     * @param w Optional width in pixels
+     * @param v Optional version of the poster's asset URL
+     * @return The image; 404 if the movie has no poster, 502 if it couldn't be fetched
+     */
+    @RequestMapping(value = "/{uid}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    public void getPoster(@PathVariable String uid, @RequestParam(required = false) Integer w,
+            @RequestParam(required = false) String v, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        log.debug("GET /api/posters/{} - w={}", uid, w);
+
+        PosterService.Poster poster;
+        try {
+            poster = posterService.getPoster(uid, w);
+        } catch (IllegalStateException e) {
+            log.error("Error fetching poster for movie {}: {}", uid, e.getMessage());
+            response.sendError(HttpServletResponse.SC_BAD_GATEWAY);
+            return;
+        }
+        if (poster == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        long length;
+        try {
+            length = Files.size(poster.file());
+        } catch (NoSuchFileException e) {
+            // Evicted between lookup and send; the next request fetches it again
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        response.setHeader(HttpHeaders.ETAG, poster.etag());
+        // A stale v (poster replaced since the page loaded) still gets the current poster, just not for good
+        response.setHeader(HttpHeaders.CACHE_CONTROL, poster.version().equals(v)
+            ? "public, max-age=" + maxAgeSeconds + ", immutable"
+            : "no-cache");
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), poster.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (range != null && (ifRange == null || ifRange.equals(poster.etag()))) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(range);
+            } catch (IllegalArgumentException e) {
+                ranges = List.of();  // Malformed: ignore it and send everything
+            }
+            // Multipart byte ranges aren't worth it for images; several ranges get the whole file
+            if (ranges.size() == 1) {
+                if (length == 0 || !satisfiable(ranges.get(0), length)) {
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    return;
+                }
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+
+        long count = end - start + 1;
+        response.setContentType(poster.contentType());
+        response.setContentLengthLong(count);
+        if ("HEAD".equals(request.getMethod()) || count <= 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED))) {
+            request.setAttribute(SENDFILE_FILENAME, poster.file().toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        try (FileChannel file = FileChannel.open(poster.file())) {
+            OutputStream out = response.getOutputStream();
+            WritableByteChannel channel = Channels.newChannel(out);
+            for (long sent = 0; sent < count; ) {
+                sent += file.transferTo(start + sent, count - sent, channel);
+            }
+            out.flush();
+        }
+    }
+
+    private static boolean satisfiable(HttpRange range, long length) {
+        try {
+            range.getRangeStart(length);
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,8 +1,13 @@
 package com.streampick.controller;
 
+import com.streampick.admission.RecommendationAdmission;
+import com.streampick.dto.RecommendationClick;
 import com.streampick.dto.RecommendationRequest;
 import com.streampick.dto.RecommendationResponse;
+import com.streampick.exception.OverloadException;
+import com.streampick.profile.ProfileStore;
 import com.streampick.service.RecommendationService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -22,25 +27,38 @@ import org.springframework.web.bind.annotation.*;
 public class RecommendationController {
 
     private final RecommendationService recommendationService;
+    private final RecommendationAdmission admission;
+    private final ProfileStore profileStore;
 
     /**
      * Get personalized movie recommendations
      * 
      * Takes user's mood and available time, applies ML-based content filtering,
      * and returns top 5 movie recommendations with match scores and reasoning.
+     * Under overload the ML step is skipped (source "cached" or "fallback") and past
+     * that requests are shed with 503 + Retry-After (429 when one client is over its rate).
      * 
      * @param request User preferences (mood and time available)
      * @return List of recommended movies with match scores and reasoning
      */
     @PostMapping
     public ResponseEntity<RecommendationResponse> getRecommendation(
-            @Valid @RequestBody RecommendationRequest request) {
+            @Valid @RequestBody RecommendationRequest request,
+            HttpServletRequest httpRequest) {
         
         log.info("POST /api/recommendations - Request: mood={}, timeAvailable={}", 
                 request.getMood(), request.getTimeAvailable());
         
-        try {
-            RecommendationResponse response = recommendationService.getRecommendation(request);
+        try (RecommendationAdmission.Ticket ticket = admission.admit(clientKey(httpRequest))) {
+            RecommendationResponse response;
+            try {
+                response = ticket.getMode() == RecommendationAdmission.Mode.FULL
+                        ? recommendationService.getRecommendation(request)
+                        : recommendationService.getDegradedRecommendation(request);
+            } catch (RuntimeException e) {
+                ticket.failed();
+                throw e;
+            }
             
             log.info("Recommendations generated: count={}, source={}", 
                     response.getRecommendations().size(),
@@ -48,6 +66,10 @@ public class RecommendationController {
             
             return ResponseEntity.ok(response);
             
+        } catch (OverloadException e) {
+            log.warn("Recommendation request shed: {}", e.getStatus());
+            throw e;
+
         } catch (RuntimeException e) {
             log.error("Error generating recommendation", e);
             throw e; // Will be handled by GlobalExceptionHandler
@@ -57,5 +79,34 @@ public class RecommendationController {
             throw new RuntimeException("Failed to generate recommendation. Please try again.");
         }
     }
-}
 
+    /**
+     * Record that a user picked a movie, for their profile
+     * POST /api/recommendations/clicks {"userId": "...", "movieUid": "..."}
+     * 
+     * @return 202, or 404 if the movie isn't in the catalog
+     */
+    @PostMapping("/clicks")
+    public ResponseEntity<Void> recordClick(@Valid @RequestBody RecommendationClick click) {
+        log.debug("POST /api/recommendations/clicks - movie={}", click.getMovieUid());
+        return profileStore.recordClick(click.getUserId(), click.getMovieUid())
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Client identity for the per-client rate: the last X-Forwarded-For hop, the one
+     * the platform's proxy appended (earlier hops come from the client and can be made
+     * up), else the remote address
+     */
+    private static String clientKey(HttpServletRequest request) {
+        String forwarded = request.getHeader("X-Forwarded-For");
+        if (forwarded != null && !forwarded.isBlank()) {
+            String last = forwarded.substring(forwarded.lastIndexOf(',') + 1).trim();
+            if (!last.isEmpty()) {
+                return last;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,84 @@
+package com.streampick.controller;
+
+import com.streampick.service.SubscriberService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Destructive subscriber maintenance, for operators only
+ *
+ * Callers must send the Contentstack management token as the {@code Authorization}
+ * header. There is deliberately no {@code @CrossOrigin}: browsers on other origins
+ * can't call these endpoints.
+ */
+@RestController
+@RequestMapping("/api/subscribers")
+public class SubscriberAdminController {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriberAdminController.class);
+
+    @Autowired
+    private SubscriberService subscriberService;
+
+    @Value("${contentstack.management.token}")
+    private String managementToken;
+
+    /**
+     * Migrate the legacy single subscribers entry into the shard entries
+     * POST /api/subscribers/migrate-shards (Authorization: management token)
+     *
+     * Runs online: reads and signups keep working while subscribers are moved. The
+     * legacy entry is emptied afterwards.
+     *
+     * @return Number of subscribers migrated; 403 without the management token
+     */
+    @PostMapping("/migrate-shards")
+    public ResponseEntity<Map<String, Object>> migrateShards(
+        @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+
+        Map<String, Object> response = new HashMap<>();
+        if (!isManagementToken(authorization)) {
+            log.warn("Rejected shard migration request without the management token");
+            response.put("success", false);
+            response.put("message", "Forbidden");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(response);
+        }
+
+        log.info("Migrating legacy subscribers entry into shards");
+        try {
+            int migrated = subscriberService.migrateLegacySubscribers();
+            response.put("success", true);
+            response.put("migrated", migrated);
+            return ResponseEntity.ok(response);
+
+        } catch (Exception e) {
+            log.error("Error migrating subscribers into shards", e);
+            response.put("success", false);
+            response.put("message", "Failed to migrate subscribers: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+
+    private boolean isManagementToken(String authorization) {
+        if (authorization == null || managementToken == null || managementToken.isBlank()) {
+            return false;
+        }
+        String token = authorization.startsWith("Bearer ") ? authorization.substring(7) : authorization;
+        return MessageDigest.isEqual(token.trim().getBytes(StandardCharsets.UTF_8),
+            managementToken.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,16 +1,25 @@
 package com.streampick.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.streampick.dto.FilterSubscribersRequest;
 import com.streampick.dto.FilteredSubscribersResponse;
 import com.streampick.dto.Subscriber;
+import com.streampick.dto.SubscriberImportResponse;
+import com.streampick.service.SubscriberImporter;
+import com.streampick.service.SubscriberReplicator;
 import com.streampick.service.SubscriberService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,11 +34,24 @@ public class SubscriberController {
     
     private static final Logger log = LoggerFactory.getLogger(SubscriberController.class);
     
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 5000;
+    private static final int STREAM_FLUSH_EVERY = 100;
+    
     @Autowired
     private SubscriberService subscriberService;
     
+    @Autowired
+    private SubscriberReplicator subscriberReplicator;
+    
+    @Autowired
+    private SubscriberImporter subscriberImporter;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
-     * Add a new subscriber to the Contentstack modular block
+     * Add a new subscriber (stored locally, synced to Contentstack in the background)
      * POST /api/subscribers/add
      *
      * @param subscriber Subscriber information
@@ -55,6 +77,13 @@ public class SubscriberController {
                 return ResponseEntity.badRequest().body(response);
             }
             
+            String lengthError = subscriber.checkLengths();
+            if (lengthError != null) {
+                response.put("success", false);
+                response.put("message", lengthError);
+                return ResponseEntity.badRequest().body(response);
+            }
+            
             // Add subscriber
             boolean success = subscriberService.addSubscriber(
                 subscriber.getName(),
@@ -87,13 +116,53 @@ public class SubscriberController {
     }
     
     /**
-     * Get subscriber count
+     * Bulk import subscribers from a CSV or NDJSON upload
+     * POST /api/subscribers/import (Content-Type: text/csv or application/x-ndjson)
+     * 
+     * The body is parsed as it streams in and committed in large batches, so a
+     * mailing list of 100k addresses imports in one request. Invalid rows and
+     * already-subscribed emails are skipped and reported per row.
+     * 
+     * @param request Upload (read as a stream)
+     * @return Imported/duplicate/invalid counts and per-row errors
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<SubscriberImportResponse> importSubscribers(HttpServletRequest request) {
+        SubscriberImporter.Format format = MediaType.APPLICATION_NDJSON.includes(MediaType.parseMediaType(request.getContentType()))
+            ? SubscriberImporter.Format.NDJSON
+            : SubscriberImporter.Format.CSV;
+        log.info("Received bulk subscriber import ({})", format);
+        
+        try {
+            SubscriberImportResponse response = subscriberImporter.importSubscribers(request.getInputStream(), format);
+            return ResponseEntity.ok(response);
+            
+        } catch (Exception e) {
+            log.error("Error importing subscribers", e);
+            SubscriberImportResponse response = new SubscriberImportResponse();
+            response.setSuccess(false);
+            response.setErrors(List.of(new SubscriberImportResponse.RowError(0, null, "Import failed: " + e.getMessage())));
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+    }
+    
+    /**
+     * Get subscriber count and audience sizes
      * GET /api/subscribers/count
+     * GET /api/subscribers/count?moods=cozy,deep&match=all
+     * 
+     * Served from counters maintained on every signup, so it is cheap to poll.
+     * {@code byMood} and {@code audience} are omitted until existing subscribers
+     * have been imported from Contentstack.
      * 
-     * @return Subscriber count
+     * @param moods Optional mood combination to size
+     * @param match "any" (default, same as filter-by-moods) or "all"
+     * @return Subscriber count, audience per mood and for the requested combination
      */
     @GetMapping("/count")
-    public ResponseEntity<Map<String, Object>> getSubscriberCount() {
+    public ResponseEntity<Map<String, Object>> getSubscriberCount(
+        @RequestParam(required = false) List<String> moods,
+        @RequestParam(defaultValue = "any") String match) {
         log.info("Fetching subscriber count");
         
         try {
@@ -103,6 +172,17 @@ public class SubscriberController {
             response.put("success", true);
             response.put("count", count);
             
+            Map<String, Integer> byMood = subscriberService.getAudienceByMood();
+            if (byMood != null) {
+                response.put("byMood", byMood);
+            }
+            if (moods != null && !moods.isEmpty()) {
+                Integer audience = subscriberService.getAudienceSize(moods, "all".equalsIgnoreCase(match));
+                if (audience != null) {
+                    response.put("audience", audience);
+                }
+            }
+            
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
@@ -121,18 +201,37 @@ public class SubscriberController {
      * This endpoint is called by Automate to get a filtered list of subscribers
      * whose preferred moods match the published movie's mood tags
      * 
+     * Pass {@code limit} (and the returned {@code nextCursor} as {@code cursor})
+     * to page through large audiences instead of receiving everyone at once
+     * 
      * @param request Contains mood tags from the published movie
+     * @param cursor Optional cursor from the previous page
+     * @param limit Optional page size (enables paging)
      * @return Filtered list of subscribers with matching mood preferences
      */
     @PostMapping("/filter-by-moods")
     public ResponseEntity<FilteredSubscribersResponse> filterSubscribersByMoods(
-        @RequestBody FilterSubscribersRequest request) {
+        @RequestBody FilterSubscribersRequest request,
+        @RequestParam(required = false) String cursor,
+        @RequestParam(required = false) Integer limit) {
         
         log.info("Filtering subscribers by moods: {}", request.getMoodTags());
         
         FilteredSubscribersResponse response = new FilteredSubscribersResponse();
         
         try {
+            if (limit != null || cursor != null) {
+                int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+                if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+                    throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+                }
+                
+                FilteredSubscribersResponse page =
+                    subscriberService.getSubscribersPageByMoods(request.getMoodTags(), cursor, pageSize);
+                log.info("Returning page of {} matching subscribers", page.getTotalMatching());
+                return ResponseEntity.ok(page);
+            }
+            
             // Get matching subscribers from service
             List<Subscriber> matchingSubscribers = 
                 subscriberService.getSubscribersByMoods(request.getMoodTags());
@@ -145,6 +244,12 @@ public class SubscriberController {
             log.info("Found {} matching subscribers", matchingSubscribers.size());
             return ResponseEntity.ok(response);
             
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid filter request: {}", e.getMessage());
+            response.setSuccess(false);
+            response.setTotalMatching(0);
+            response.setSubscribers(List.of());
+            return ResponseEntity.badRequest().body(response);
         } catch (Exception e) {
             log.error("Error filtering subscribers by moods", e);
             response.setSuccess(false);
@@ -153,5 +258,59 @@ public class SubscriberController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
+    
+    /**
+     * Filter subscribers by mood tags, streamed as NDJSON
+     * POST /api/subscribers/filter-by-moods (Accept: application/x-ndjson)
+     * 
+     * Writes one subscriber JSON object per line as soon as it is matched, so the
+     * caller can start sending emails before the scan finishes and the backend never
+     * holds the full result. A failure mid-stream aborts the response.
+     * 
+     * @param request Contains mood tags from the published movie
+     * @return Stream of matching subscribers, one per line
+     */
+    @PostMapping(value = "/filter-by-moods", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamSubscribersByMoods(
+        @RequestBody FilterSubscribersRequest request) {
+        
+        log.info("Streaming subscribers by moods: {}", request.getMoodTags());
+        
+        StreamingResponseBody body = outputStream -> {
+            int[] pending = {0};
+            int matched = subscriberService.streamSubscribersByMoods(request.getMoodTags(), subscriber -> {
+                try {
+                    byte[] line = objectMapper.writeValueAsBytes(subscriber);
+                    // Called on this thread only, so no locking around the stream
+                    outputStream.write(line);
+                    outputStream.write('\n');
+                    if (++pending[0] >= STREAM_FLUSH_EVERY) {
+                        outputStream.flush();
+                        pending[0] = 0;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            outputStream.flush();
+            log.info("Streamed {} matching subscribers", matched);
+        };
+        
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(body);
+    }
+    
+    /**
+     * Local subscriber log and Contentstack sync status
+     * GET /api/subscribers/replication
+     * 
+     * @return Seeded flag, local count, pending signups and last sync result
+     */
+    @GetMapping("/replication")
+    public ResponseEntity<Map<String, Object>> getReplicationStatus() {
+        Map<String, Object> response = new HashMap<>(subscriberReplicator.getStatus());
+        response.put("success", true);
+        return ResponseEntity.ok(response);
+    }
 }
-
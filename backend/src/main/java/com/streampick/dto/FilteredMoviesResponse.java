@@ -0,0 +1,27 @@
+package com.streampick.dto;
+
+import com.streampick.model.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response DTO for a filtered catalog page with facet counts
+ * 
+ * Facet counts are per dimension (genre, platform, runtime, rating), each counted
+ * with every filter except that dimension's own applied, i.e. how many movies
+ * choosing that value instead would give.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilteredMoviesResponse {
+    private int totalMatching;
+    private List<Movie> movies;
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -1,5 +1,6 @@
 package com.streampick.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -18,5 +19,8 @@ public class FilteredSubscribersResponse {
     private boolean success;
     private int totalMatching;
     private List<Subscriber> subscribers;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;  // Only set for paged requests with more subscribers to scan
 }
 
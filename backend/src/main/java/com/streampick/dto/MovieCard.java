@@ -0,0 +1,29 @@
+package com.streampick.dto;
+
+import com.streampick.model.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Compact movie for list views: no descriptions, and the poster URL instead of the
+ * Contentstack file object
+ */
+@Data
+@AllArgsConstructor
+public class MovieCard {
+    private String uid;
+    private String title;
+    private Integer year;
+    private Integer runtime;
+    private Double rating;
+    private List<String> genre;
+    private List<String> platforms;
+    private String imageUrl;
+
+    public static MovieCard of(Movie movie) {
+        return new MovieCard(movie.getUid(), movie.getTitle(), movie.getYear(), movie.getRuntime(),
+                movie.getRating(), movie.getGenre(), movie.getPlatforms(), movie.getImageUrl());
+    }
+}
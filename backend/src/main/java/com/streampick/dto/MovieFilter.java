@@ -0,0 +1,27 @@
+package com.streampick.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Catalog filter: any of the genres, any of the platforms, runtime and rating ranges
+ * (inclusive). Unset parts don't filter; genres and platforms are case-insensitive.
+ */
+@Data
+public class MovieFilter {
+
+    private List<String> genres;
+    private List<String> platforms;
+    private Integer minRuntime;
+    private Integer maxRuntime;
+    private Double minRating;
+    private Double maxRating;
+
+    public boolean isEmpty() {
+        return (genres == null || genres.isEmpty())
+                && (platforms == null || platforms.isEmpty())
+                && minRuntime == null && maxRuntime == null
+                && minRating == null && maxRating == null;
+    }
+}
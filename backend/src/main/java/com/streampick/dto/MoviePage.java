@@ -0,0 +1,26 @@
+package com.streampick.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of the movie listing
+ * 
+ * Items are full movies, {@link MovieCard}s or field projections, depending on the request.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MoviePage {
+    private int total;
+    private List<Object> movies;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String nextCursor;  // Only set when there are more movies
+}
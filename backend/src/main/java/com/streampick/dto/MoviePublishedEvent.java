@@ -0,0 +1,18 @@
+package com.streampick.dto;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Request DTO sent by Automate when a movie entry is published
+ */
+@Data
+public class MoviePublishedEvent {
+    private String uid;
+    private String title;
+
+    @JsonAlias("mood_tags")  // Contentstack uses snake_case
+    private List<String> moodTags;
+}
@@ -0,0 +1,29 @@
+package com.streampick.dto;
+
+import com.streampick.model.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for full-text movie search
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieSearchResponse {
+    private String query;
+    private int totalMatching;
+    private List<Hit> results;
+
+    @Data
+    @AllArgsConstructor
+    public static class Hit {
+        private Movie movie;
+        private double score;
+    }
+}
@@ -32,6 +32,7 @@ public class PythonRecommendationRequest {
     @Data
     @Builder
     public static class MovieInput {
+        private String uid;  // Echoed back, so results map to the right movie when titles repeat
         private String title;
         private Integer year;
         private Integer runtime;
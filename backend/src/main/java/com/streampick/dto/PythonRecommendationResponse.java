@@ -30,6 +30,7 @@ public class PythonRecommendationResponse {
 
     @Data
     public static class PythonMovie {
+        private String uid;
         private String title;
         private Integer year;
         private Integer runtime;
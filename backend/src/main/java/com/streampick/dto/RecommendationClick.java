@@ -0,0 +1,17 @@
+package com.streampick.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.Data;
+
+/**
+ * Request DTO for a user picking one of their recommendations
+ */
+@Data
+public class RecommendationClick {
+
+    @NotBlank(message = "User ID is required")
+    private String userId;
+
+    @NotBlank(message = "Movie UID is required")
+    private String movieUid;
+}
@@ -19,5 +19,7 @@ public class RecommendationRequest {
     private Integer timeAvailable; // in minutes
     
     private String userId; // Optional for future personalization
+    
+    private MovieFilter filter; // Optional: only recommend movies passing it (e.g. the user's platforms)
 }
 
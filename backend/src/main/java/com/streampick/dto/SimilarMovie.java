@@ -0,0 +1,15 @@
+package com.streampick.dto;
+
+import com.streampick.model.Movie;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * A movie similar to another, with its content similarity (cosine, 0-1)
+ */
+@Data
+@AllArgsConstructor
+public class SimilarMovie {
+    private Movie movie;
+    private double similarity;
+}
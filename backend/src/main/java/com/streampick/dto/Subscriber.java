@@ -1,8 +1,14 @@
 package com.streampick.dto;
 
-import lombok.AllArgsConstructor;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.streampick.util.MoodMapper;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.List;
 
@@ -11,10 +17,76 @@ import java.util.List;
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
 public class Subscriber {
+
+    // Field limits enforced where subscribers enter the backend (signup, import)
+    public static final int MAX_NAME_LENGTH = 200;
+    public static final int MAX_EMAIL_LENGTH = 254;
+    public static final int MAX_MOODS = 20;
+    public static final int MAX_MOOD_LENGTH = 50;
+
     private String name;
     private String email;
     private List<String> preferredMoods;
-}
 
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String subscribedDate;  // ISO date, kept so entry rewrites don't drop it
+
+    // Preferred moods compiled by MoodMapper, computed on first use
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile int moodMask = MoodMapper.UNCOMPILED;
+
+    public Subscriber(String name, String email, List<String> preferredMoods) {
+        this(name, email, preferredMoods, null);
+    }
+
+    public Subscriber(String name, String email, List<String> preferredMoods, String subscribedDate) {
+        this.name = name;
+        this.email = email;
+        this.preferredMoods = preferredMoods;
+        this.subscribedDate = subscribedDate;
+    }
+
+    public void setPreferredMoods(List<String> preferredMoods) {
+        this.preferredMoods = preferredMoods;
+        this.moodMask = MoodMapper.UNCOMPILED;
+    }
+
+    /**
+     * Which field exceeds its limit, if any
+     *
+     * @return Error message, or null if every field is within its limit
+     */
+    public String checkLengths() {
+        if (name != null && name.length() > MAX_NAME_LENGTH) {
+            return "Name is longer than " + MAX_NAME_LENGTH + " characters";
+        }
+        if (email != null && email.length() > MAX_EMAIL_LENGTH) {
+            return "Email is longer than " + MAX_EMAIL_LENGTH + " characters";
+        }
+        if (preferredMoods != null) {
+            if (preferredMoods.size() > MAX_MOODS) {
+                return "More than " + MAX_MOODS + " moods";
+            }
+            for (String mood : preferredMoods) {
+                if (mood != null && mood.length() > MAX_MOOD_LENGTH) {
+                    return "Mood is longer than " + MAX_MOOD_LENGTH + " characters";
+                }
+            }
+        }
+        return null;
+    }
+
+    @JsonIgnore
+    public int getMoodMask() {
+        int mask = moodMask;
+        if (mask == MoodMapper.UNCOMPILED) {
+            mask = MoodMapper.compileMoods(preferredMoods);
+            moodMask = mask;
+        }
+        return mask;
+    }
+}
@@ -0,0 +1,38 @@
+package com.streampick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO summarizing a bulk subscriber import
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SubscriberImportResponse {
+    private boolean success;
+    private int totalRows;
+    private int imported;
+    private int duplicates;
+    private int invalid;
+    private List<RowError> errors;  // Capped; see errorsTruncated
+    private boolean errorsTruncated;
+    private long elapsedMillis;
+
+    /**
+     * A rejected row (1-based, header excluded)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private int row;
+        private String email;
+        private String message;
+    }
+}
@@ -0,0 +1,16 @@
+package com.streampick.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * One type-ahead suggestion: just enough to render the dropdown
+ */
+@Data
+@AllArgsConstructor
+public class TitleSuggestion {
+    private String uid;
+    private String title;
+    private Integer year;
+    private String imageUrl;
+}
@@ -1,6 +1,7 @@
 package com.streampick.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -33,6 +34,20 @@ public class GlobalExceptionHandler {
         return ResponseEntity.badRequest().body(errors);
     }
 
+    /**
+     * Handles requests shed by admission control (503/429 with Retry-After)
+     */
+    @ExceptionHandler(OverloadException.class)
+    public ResponseEntity<Map<String, String>> handleOverloadException(OverloadException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", "Too many requests right now");
+        error.put("message", ex.getMessage());
+        return ResponseEntity
+                .status(ex.getStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(error);
+    }
+
     /**
      * Handles runtime exceptions
      */
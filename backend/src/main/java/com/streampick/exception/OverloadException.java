@@ -0,0 +1,22 @@
+package com.streampick.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Request turned away by admission control: 503 when the service is over capacity,
+ * 429 when one client is over its rate. The client should retry after
+ * {@code retryAfterSeconds}.
+ */
+@Getter
+public class OverloadException extends RuntimeException {
+
+    private final HttpStatus status;
+    private final long retryAfterSeconds;
+
+    public OverloadException(HttpStatus status, long retryAfterSeconds, String message) {
+        super(message);
+        this.status = status;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
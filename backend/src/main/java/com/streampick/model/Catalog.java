@@ -0,0 +1,108 @@
+package com.streampick.model;
+
+import com.streampick.util.MoodMapper;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the movie catalog
+ *
+ * Built once per fetched catalog version, with the lookups requests need precomputed:
+ * movies by (lower-cased) mood tag, positions by UID and compiled mood masks. Readers share the snapshot
+ * without locking; a refresh swaps in a new one.
+ */
+public final class Catalog {
+
+    public static final Catalog EMPTY = new Catalog(null, List.of(), 0);
+
+    private final String version;
+    private final List<Movie> movies;
+    private final Map<String, List<Movie>> byMood;
+    private final Map<String, Integer> positionsByUid;
+    private final long loadedAtMillis;
+
+    public Catalog(String version, List<Movie> movies, long loadedAtMillis) {
+        this.version = version;
+        this.movies = Collections.unmodifiableList(new ArrayList<>(movies));
+        this.loadedAtMillis = loadedAtMillis;
+
+        for (Movie movie : this.movies) {
+            if (movie.getMoodTags() != null) {
+                MoodMapper.registerCatalogTags(movie.getMoodTags());
+            }
+        }
+
+        Map<String, List<Movie>> index = new HashMap<>();
+        Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < this.movies.size(); i++) {
+            Movie movie = this.movies.get(i);
+            if (movie.getUid() != null) {
+                positions.putIfAbsent(movie.getUid(), i);
+            }
+            movie.getMoodMask();  // Compile once here instead of on the first request
+            if (movie.getMoodTags() == null) {
+                continue;
+            }
+            for (String tag : movie.getMoodTags()) {
+                List<Movie> tagged = index.computeIfAbsent(tag.toLowerCase(Locale.ROOT), k -> new ArrayList<>());
+                if (tagged.isEmpty() || tagged.get(tagged.size() - 1) != movie) {
+                    tagged.add(movie);
+                }
+            }
+        }
+        index.replaceAll((tag, tagged) -> Collections.unmodifiableList(tagged));
+        this.byMood = index;
+        this.positionsByUid = positions;
+    }
+
+    /**
+     * Content version (see {@code ContentstackService#getCatalogVersion()}), null if empty
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    /**
+     * Movies tagged with the mood, in catalog order (case-insensitive)
+     */
+    public List<Movie> getMoviesByMood(String mood) {
+        return byMood.getOrDefault(mood.toLowerCase(Locale.ROOT).trim(), List.of());
+    }
+
+    /**
+     * Position of a movie in {@link #getMovies()}, -1 if it isn't in this version
+     */
+    public int indexOf(String uid) {
+        Integer position = uid != null ? positionsByUid.get(uid) : null;
+        return position != null ? position : -1;
+    }
+
+    /**
+     * The movie with this UID, null if it isn't in this version
+     */
+    public Movie getMovie(String uid) {
+        int position = indexOf(uid);
+        return position >= 0 ? movies.get(position) : null;
+    }
+
+    public long getLoadedAtMillis() {
+        return loadedAtMillis;
+    }
+
+    public int size() {
+        return movies.size();
+    }
+
+    public boolean isEmpty() {
+        return movies.isEmpty();
+    }
+}
@@ -1,7 +1,13 @@
 package com.streampick.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.google.gson.annotations.SerializedName;
+import com.streampick.util.MoodMapper;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.List;
 import java.util.Map;
@@ -44,7 +50,34 @@ public class Movie {
     private String aiDescription;
     
     @SerializedName("image")
-    private Map<String, Object> image;  // Contentstack file object
+    private Map<String, Object> image;  // Contentstack file object (just its url in the catalog summary)
+    
+    // Entry update time, to tell whether a cached detail copy is still current
+    @SerializedName("updated_at")
+    @JsonIgnore
+    private String updatedAt;
+    
+    // Mood tags compiled by MoodMapper, computed on first use (transient: skipped by Gson)
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient volatile int moodMask = MoodMapper.UNCOMPILED;
+    
+    public void setMoodTags(List<String> moodTags) {
+        this.moodTags = moodTags;
+        this.moodMask = MoodMapper.UNCOMPILED;
+    }
+    
+    @JsonIgnore
+    public int getMoodMask() {
+        int mask = moodMask;
+        if (mask == MoodMapper.UNCOMPILED) {
+            mask = MoodMapper.compileMoods(moodTags);
+            moodMask = mask;
+        }
+        return mask;
+    }
     
     // Helper method to get poster URL
     public String getImageUrl() {
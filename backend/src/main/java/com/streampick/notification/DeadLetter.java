@@ -0,0 +1,9 @@
+package com.streampick.notification;
+
+import java.time.Instant;
+
+/**
+ * A batch that still failed after all delivery attempts
+ */
+public record DeadLetter(NotificationBatch batch, int attempts, String error, Instant failedAt) {
+}
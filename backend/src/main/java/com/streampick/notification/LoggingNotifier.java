@@ -0,0 +1,20 @@
+package com.streampick.notification;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Notifier that only logs the batches (default, for local runs)
+ */
+@Component
+@ConditionalOnProperty(name = "notification.notifier", havingValue = "log", matchIfMissing = true)
+@Slf4j
+public class LoggingNotifier implements Notifier {
+
+    @Override
+    public void send(NotificationBatch batch) {
+        log.info("[job {}] Would notify {} subscribers about '{}'",
+                batch.jobId(), batch.recipients().size(), batch.movie().getTitle());
+    }
+}
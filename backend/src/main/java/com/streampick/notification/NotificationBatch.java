@@ -0,0 +1,16 @@
+package com.streampick.notification;
+
+import com.streampick.dto.MoviePublishedEvent;
+import com.streampick.dto.Subscriber;
+
+import java.util.List;
+
+/**
+ * A group of subscribers to notify about one published movie
+ *
+ * @param jobId Publish job the batch belongs to
+ * @param movie The published movie
+ * @param recipients Subscribers whose moods match the movie
+ */
+public record NotificationBatch(String jobId, MoviePublishedEvent movie, List<Subscriber> recipients) {
+}
@@ -0,0 +1,84 @@
+package com.streampick.notification;
+
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress of one publish event through the notification pipeline
+ */
+@Getter
+public class NotificationJob {
+
+    public enum State { MATCHING, DISPATCHING, COMPLETED, FAILED }
+
+    private final String id;
+    private final String movieTitle;
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    private volatile State state = State.MATCHING;
+    private volatile String error;
+
+    private final AtomicInteger matched = new AtomicInteger();
+    private final AtomicInteger batchesQueued = new AtomicInteger();
+    private final AtomicInteger batchesSent = new AtomicInteger();
+    private final AtomicInteger recipientsNotified = new AtomicInteger();
+    private final AtomicInteger retries = new AtomicInteger();
+    private final AtomicInteger batchesDeadLettered = new AtomicInteger();
+
+    private final AtomicInteger pendingBatches = new AtomicInteger();
+    private volatile boolean matchingDone;
+
+    public NotificationJob(String id, String movieTitle) {
+        this.id = id;
+        this.movieTitle = movieTitle;
+    }
+
+    void batchQueued() {
+        batchesQueued.incrementAndGet();
+        pendingBatches.incrementAndGet();
+    }
+
+    void batchSent(int recipients) {
+        batchesSent.incrementAndGet();
+        recipientsNotified.addAndGet(recipients);
+        batchDone();
+    }
+
+    /**
+     * Part of a batch got through; the rest is retried under the same batch
+     */
+    void recipientsNotified(int recipients) {
+        recipientsNotified.addAndGet(recipients);
+    }
+
+    void batchDeadLettered() {
+        batchesDeadLettered.incrementAndGet();
+        batchDone();
+    }
+
+    void matchingFinished() {
+        matchingDone = true;
+        state = State.DISPATCHING;
+        maybeComplete();
+    }
+
+    void fail(String message) {
+        error = message;
+        state = State.FAILED;
+        finishedAt = Instant.now();
+    }
+
+    private void batchDone() {
+        pendingBatches.decrementAndGet();
+        maybeComplete();
+    }
+
+    private synchronized void maybeComplete() {
+        if (matchingDone && pendingBatches.get() == 0 && state == State.DISPATCHING) {
+            state = State.COMPLETED;
+            finishedAt = Instant.now();
+        }
+    }
+}
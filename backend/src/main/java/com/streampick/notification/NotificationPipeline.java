@@ -0,0 +1,298 @@
+package com.streampick.notification;
+
+import com.streampick.dto.MoviePublishedEvent;
+import com.streampick.dto.Subscriber;
+import com.streampick.service.SubscriberService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fans a movie publish event out to matching subscribers
+ *
+ * 1. Match subscribers on the pipeline's own matching thread (shards are parsed
+ *    concurrently, moods matched by mask)
+ * 2. Group matches into batches of {@code notification.batch.size}
+ * 3. Push batches through a bounded queue; when it is full, matching blocks until the
+ *    workers catch up (backpressure), which holds only the pipeline's own threads
+ * 4. Worker threads deliver batches through the configured {@link Notifier},
+ *    retrying with exponential backoff and dead-lettering batches that keep failing;
+ *    after a partial failure only the recipients that failed are retried
+ *
+ * Dead letters are kept until replayed, never dropped. Once
+ * {@code notification.dead-letter.capacity} batches are waiting, new publish events
+ * are refused instead.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationPipeline {
+
+    private final SubscriberService subscriberService;
+    private final Notifier notifier;
+
+    @Value("${notification.batch.size:100}")
+    private int batchSize;
+
+    @Value("${notification.queue.capacity:64}")
+    private int queueCapacity;
+
+    @Value("${notification.workers:0}")
+    private int workers;  // 0 = one per core
+
+    @Value("${notification.max.attempts:3}")
+    private int maxAttempts;
+
+    @Value("${notification.retry.backoff.ms:500}")
+    private long retryBackoffMs;
+
+    @Value("${notification.dead-letter.capacity:1000}")
+    private int deadLetterCapacity;
+
+    private static final int JOB_HISTORY = 50;
+
+    private record WorkItem(NotificationJob job, NotificationBatch batch) { }
+
+    private BlockingQueue<WorkItem> queue;
+    private ExecutorService workerPool;
+    private ExecutorService matchingPool;
+
+    private final Map<String, NotificationJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, NotificationJob> eldest) {
+            return size() > JOB_HISTORY;
+        }
+    };
+    private final Deque<DeadLetter> deadLetters = new ArrayDeque<>();
+
+    @PostConstruct
+    void start() {
+        int workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        workerPool = Executors.newFixedThreadPool(workerCount, namedThreads("notify-worker"));
+        matchingPool = Executors.newFixedThreadPool(2, namedThreads("notify-match"));
+
+        for (int i = 0; i < workerCount; i++) {
+            workerPool.execute(this::workLoop);
+        }
+        log.info("Notification pipeline started: notifier={}, workers={}, batchSize={}, queueCapacity={}",
+                notifier.getClass().getSimpleName(), workerCount, batchSize, queueCapacity);
+    }
+
+    @PreDestroy
+    void stop() {
+        matchingPool.shutdownNow();
+        workerPool.shutdownNow();
+    }
+
+    /**
+     * Start notifying subscribers about a published movie
+     *
+     * @param event The published movie
+     * @return The job, which runs in the background
+     * @throws IllegalStateException if the dead-letter queue is full
+     */
+    public NotificationJob submit(MoviePublishedEvent event) {
+        synchronized (deadLetters) {
+            if (deadLetters.size() >= deadLetterCapacity) {
+                throw new IllegalStateException("Dead-letter queue holds " + deadLetters.size()
+                        + " batches: replay them before publishing more");
+            }
+        }
+        NotificationJob job = new NotificationJob(UUID.randomUUID().toString(), event.getTitle());
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+
+        matchingPool.execute(() -> match(job, event));
+        log.info("[job {}] Publish fan-out started for '{}' with moods {}", job.getId(), event.getTitle(), event.getMoodTags());
+        return job;
+    }
+
+    public NotificationJob getJob(String jobId) {
+        synchronized (jobs) {
+            return jobs.get(jobId);
+        }
+    }
+
+    public List<DeadLetter> getDeadLetters() {
+        synchronized (deadLetters) {
+            return new ArrayList<>(deadLetters);
+        }
+    }
+
+    /**
+     * Queue every dead-lettered batch again under a new job
+     *
+     * @return The replay job, or null if there was nothing to replay
+     */
+    public NotificationJob replayDeadLetters() {
+        List<DeadLetter> replay;
+        synchronized (deadLetters) {
+            replay = new ArrayList<>(deadLetters);
+            deadLetters.clear();
+        }
+        if (replay.isEmpty()) {
+            return null;
+        }
+
+        NotificationJob job = new NotificationJob(UUID.randomUUID().toString(), "dead-letter replay");
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+        matchingPool.execute(() -> {
+            try {
+                for (DeadLetter deadLetter : replay) {
+                    enqueue(job, deadLetter.batch());
+                }
+                job.matchingFinished();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                job.fail("Interrupted while replaying dead letters");
+            }
+        });
+        return job;
+    }
+
+    private void match(NotificationJob job, MoviePublishedEvent event) {
+        Batcher batcher = new Batcher(job, event);
+        try {
+            // Called on this thread, in scan order
+            subscriberService.streamSubscribersByMoods(event.getMoodTags(), subscriber -> {
+                job.getMatched().incrementAndGet();
+                batcher.add(subscriber);
+            });
+            batcher.flush();
+            job.matchingFinished();
+            log.info("[job {}] Matched {} subscribers into {} batches",
+                    job.getId(), job.getMatched().get(), job.getBatchesQueued().get());
+        } catch (Exception e) {
+            log.error("[job {}] Matching subscribers failed", job.getId(), e);
+            job.fail(e.getMessage());
+        }
+    }
+
+    private void enqueue(NotificationJob job, NotificationBatch batch) throws InterruptedException {
+        job.batchQueued();
+        queue.put(new WorkItem(job, batch));  // Blocks while the workers are behind
+    }
+
+    private void workLoop() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                deliver(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void deliver(WorkItem item) throws InterruptedException {
+        NotificationBatch batch = item.batch();
+        NotificationJob job = item.job();
+
+        int notified = 0;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                notifier.send(batch);
+                job.batchSent(batch.recipients().size());
+                return;
+            } catch (Exception e) {
+                if (e instanceof PartialDeliveryException partial) {
+                    int delivered = batch.recipients().size() - partial.getFailed().size();
+                    job.recipientsNotified(delivered);
+                    notified += delivered;
+                    batch = new NotificationBatch(batch.jobId(), batch.movie(), partial.getFailed());
+                }
+                if (attempt >= maxAttempts) {
+                    log.error("[job {}] Batch of {} dead-lettered after {} attempts ({} notified): {}",
+                            job.getId(), batch.recipients().size(), attempt, notified, e.getMessage());
+                    deadLetter(new DeadLetter(batch, attempt, e.getMessage(), Instant.now()));
+                    job.batchDeadLettered();
+                    return;
+                }
+
+                long backoff = retryBackoffMs << (attempt - 1);
+                long jitter = ThreadLocalRandom.current().nextLong(retryBackoffMs + 1);
+                log.warn("[job {}] Batch delivery attempt {} failed, retrying in {} ms: {}",
+                        job.getId(), attempt, backoff + jitter, e.getMessage());
+                job.getRetries().incrementAndGet();
+                Thread.sleep(backoff + jitter);
+            }
+        }
+    }
+
+    private void deadLetter(DeadLetter deadLetter) {
+        synchronized (deadLetters) {
+            // Never dropped: submit() refuses new events while too many are waiting
+            deadLetters.addLast(deadLetter);
+        }
+    }
+
+    /**
+     * Collects matches from the matching thread into fixed-size batches
+     */
+    private class Batcher {
+        private final NotificationJob job;
+        private final MoviePublishedEvent event;
+        private List<Subscriber> current;
+
+        Batcher(NotificationJob job, MoviePublishedEvent event) {
+            this.job = job;
+            this.event = event;
+            this.current = new ArrayList<>(batchSize);
+        }
+
+        void add(Subscriber subscriber) {
+            current.add(subscriber);
+            if (current.size() >= batchSize) {
+                put(current);
+                current = new ArrayList<>(batchSize);
+            }
+        }
+
+        void flush() {
+            if (!current.isEmpty()) {
+                put(current);
+                current = new ArrayList<>(batchSize);
+            }
+        }
+
+        private void put(List<Subscriber> recipients) {
+            try {
+                enqueue(job, new NotificationBatch(job.getId(), event, recipients));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing notification batch", e);
+            }
+        }
+    }
+
+    private static ThreadFactory namedThreads(String prefix) {
+        AtomicInteger index = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + index.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,13 @@
+package com.streampick.notification;
+
+/**
+ * Delivers notification batches (email, webhook, ...)
+ *
+ * Implementations are called concurrently from the pipeline workers and should
+ * throw on failure; the pipeline takes care of retries and dead-lettering.
+ * The active implementation is chosen with {@code notification.notifier}.
+ */
+public interface Notifier {
+
+    void send(NotificationBatch batch) throws Exception;
+}
@@ -0,0 +1,26 @@
+package com.streampick.notification;
+
+import com.streampick.dto.Subscriber;
+
+import java.util.List;
+
+/**
+ * Thrown by a {@link Notifier} when only some recipients of a batch could be notified;
+ * the pipeline then retries just the failed ones, so nobody is notified twice
+ */
+public class PartialDeliveryException extends Exception {
+
+    private final List<Subscriber> failed;
+
+    public PartialDeliveryException(List<Subscriber> failed, String message, Throwable cause) {
+        super(message, cause);
+        this.failed = List.copyOf(failed);
+    }
+
+    /**
+     * Recipients that were not notified
+     */
+    public List<Subscriber> getFailed() {
+        return failed;
+    }
+}
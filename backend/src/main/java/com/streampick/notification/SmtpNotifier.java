@@ -0,0 +1,71 @@
+package com.streampick.notification;
+
+import com.streampick.dto.Subscriber;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Notifier that emails every recipient through SMTP ({@code spring.mail.*})
+ *
+ * A batch is handed to the mail sender in one call, so it goes out over a single
+ * SMTP connection. If only some messages fail, just those recipients are retried. Point {@code spring.mail.host} at a local SMTP sink
+ * (MailHog, smtp4dev, ...) to test without sending real mail.
+ */
+@Component
+@ConditionalOnProperty(name = "notification.notifier", havingValue = "smtp")
+@RequiredArgsConstructor
+@Slf4j
+public class SmtpNotifier implements Notifier {
+
+    private final JavaMailSender mailSender;
+
+    @Value("${notification.mail.from}")
+    private String from;
+
+    @Override
+    public void send(NotificationBatch batch) throws PartialDeliveryException {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.recipients().size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = buildMessage(batch, batch.recipients().get(i));
+        }
+
+        try {
+            mailSender.send(messages);
+        } catch (MailSendException e) {
+            // Messages missing from the failed ones were handed to the server; don't send those again
+            List<Subscriber> failed = new ArrayList<>();
+            for (int i = 0; i < messages.length; i++) {
+                if (e.getFailedMessages().containsKey(messages[i])) {
+                    failed.add(batch.recipients().get(i));
+                }
+            }
+            if (failed.isEmpty() || failed.size() == messages.length) {
+                throw e;
+            }
+            throw new PartialDeliveryException(failed,
+                    failed.size() + " of " + messages.length + " emails failed: " + e.getMessage(), e);
+        }
+        log.debug("[job {}] Emailed {} subscribers", batch.jobId(), messages.length);
+    }
+
+    private SimpleMailMessage buildMessage(NotificationBatch batch, Subscriber subscriber) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(from);
+        message.setTo(subscriber.getEmail());
+        message.setSubject("New on StreamPick: " + batch.movie().getTitle());
+        message.setText("Hi " + subscriber.getName() + ",\n\n"
+                + batch.movie().getTitle() + " was just added to StreamPick and matches the moods you picked ("
+                + String.join(", ", subscriber.getPreferredMoods()) + ").\n\n"
+                + "Happy watching!\nThe StreamPick Team");
+        return message;
+    }
+}
@@ -0,0 +1,31 @@
+package com.streampick.notification;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Notifier that POSTs each batch as JSON to a webhook (an email service,
+ * an Automate trigger, or a local sink stand-in)
+ */
+@Component
+@ConditionalOnProperty(name = "notification.notifier", havingValue = "webhook")
+@RequiredArgsConstructor
+@Slf4j
+public class WebhookNotifier implements Notifier {
+
+    private final RestTemplate restTemplate;
+
+    @Value("${notification.webhook.url}")
+    private String webhookUrl;
+
+    @Override
+    public void send(NotificationBatch batch) {
+        // Non-2xx responses throw, which makes the pipeline retry the batch
+        restTemplate.postForEntity(webhookUrl, batch, Void.class);
+        log.debug("[job {}] Posted {} subscribers to webhook", batch.jobId(), batch.recipients().size());
+    }
+}
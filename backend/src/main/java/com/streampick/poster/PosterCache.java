@@ -0,0 +1,147 @@
+package com.streampick.poster;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Disk-backed LRU of poster files, bounded by total size
+ *
+ * One file per key, named {@code key.extension} (the extension gives the content type).
+ * Files are written to a temporary name and moved into place, so a reader never sees
+ * a partial file. The index (key -> file, size) lives in memory in access order and is
+ * rebuilt from the directory on startup, oldest modification time first; least
+ * recently used files are deleted once the total passes the cap.
+ */
+final class PosterCache {
+
+    private static final Logger log = LoggerFactory.getLogger(PosterCache.class);
+    private static final String TEMP_SUFFIX = ".part";
+
+    private record Entry(Path file, long size) {
+    }
+
+    private final Path directory;
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+
+    PosterCache(Path directory, long maxBytes) throws IOException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        Files.createDirectories(directory);
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path file : stream) {
+                if (file.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    Files.deleteIfExists(file);  // Left by a crash mid-write
+                } else if (Files.isRegularFile(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        files.sort(Comparator.comparing(PosterCache::lastModified));
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            int dot = name.lastIndexOf('.');
+            long size = Files.size(file);
+            entries.put(dot > 0 ? name.substring(0, dot) : name, new Entry(file, size));
+            totalBytes += size;
+        }
+        evict();
+        log.info("Poster cache in {}: {} files, {} of {} bytes", directory, entries.size(), totalBytes, maxBytes);
+    }
+
+    /**
+     * The cached file for a key, marking it most recently used
+     *
+     * @return The file, or null if it isn't cached
+     */
+    synchronized Path get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (!Files.exists(entry.file())) {
+            // Deleted behind our back
+            entries.remove(key);
+            totalBytes -= entry.size();
+            return null;
+        }
+        return entry.file();
+    }
+
+    /**
+     * Store a file, evicting least recently used ones past the size cap
+     *
+     * @param extension File extension without the dot, e.g. "jpg"
+     * @return The stored file
+     */
+    Path put(String key, String extension, byte[] data) throws IOException {
+        Path file = directory.resolve(key + "." + extension);
+        Path temp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+        try {
+            Files.write(temp, data);
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+
+        synchronized (this) {
+            Entry previous = entries.put(key, new Entry(file, data.length));
+            if (previous != null) {
+                totalBytes -= previous.size();
+                if (!previous.file().equals(file)) {
+                    Files.deleteIfExists(previous.file());
+                }
+            }
+            totalBytes += data.length;
+            evict();
+        }
+        return file;
+    }
+
+    synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    // Keeps the most recent entry even if it alone is over the cap
+    private void evict() {
+        Iterator<Map.Entry<String, Entry>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && entries.size() > 1 && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            eldest.remove();
+            totalBytes -= entry.size();
+            try {
+                Files.deleteIfExists(entry.file());
+            } catch (IOException e) {
+                log.warn("Couldn't delete evicted poster {}: {}", entry.file(), e.getMessage());
+            }
+        }
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.readAttributes(file, BasicFileAttributes.class).lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,409 @@
+package com.streampick.poster;
+
+import com.streampick.model.Movie;
+import com.streampick.service.CatalogService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Pattern;
+
+/**
+ * Poster proxy: movie posters fetched from the asset CDN once, kept on local disk and
+ * served in a few fixed widths
+ *
+ * Files are keyed by movie UID, a hash of the asset URL (a replaced poster gets a new
+ * URL, so a new key) and the variant. The original is fetched on the first request for
+ * any width; each width is then scaled down from it once. Requested widths are rounded
+ * up to the nearest of {@code poster.widths}, so a handful of variants per poster
+ * exist; wider requests, and formats ImageIO can't decode (WebP), get the original.
+ * Concurrent requests for a file that isn't cached yet share one fetch or resize.
+ * Clients put the poster's {@link #version} of the asset URL in theirs, so a replaced
+ * poster is a new URL and the old responses can be cached for good.
+ */
+@Service
+public class PosterService {
+
+    private static final Logger log = LoggerFactory.getLogger(PosterService.class);
+
+    private static final Pattern SAFE_UID = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+        "jpg", "image/jpeg",
+        "png", "image/png",
+        "gif", "image/gif",
+        "webp", "image/webp",
+        "avif", "image/avif",
+        "bin", "application/octet-stream");
+
+    private final CatalogService catalogService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${poster.cache.dir:./data/posters}")
+    private String cacheDirectory;
+
+    @Value("${poster.cache.max-bytes:536870912}")
+    private long cacheMaxBytes;
+
+    @Value("${poster.widths:160,320,480,780}")
+    private int[] widths;
+
+    @Value("${poster.jpeg.quality:0.82}")
+    private float jpegQuality;
+
+    // Replaces the scheme, host and port of asset URLs, e.g. a local stand-in; empty = as published
+    @Value("${poster.origin.base-url:}")
+    private String originBaseUrl;
+
+    @Value("${poster.origin.timeout.connect.ms:5000}")
+    private long connectTimeoutMillis;
+
+    @Value("${poster.origin.timeout.read.ms:15000}")
+    private long readTimeoutMillis;
+
+    @Value("${poster.origin.max-bytes:20971520}")
+    private long maxOriginBytes;
+
+    private PosterCache cache;
+    private OkHttpClient httpClient;
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    // Per poster, the width from which the original is served instead of a variant: its
+    // own width (no upscaling), or 0 if ImageIO can't decode it
+    private final Map<String, Integer> originalFrom = new ConcurrentHashMap<>();
+
+    /**
+     * A poster file ready to send
+     *
+     * @param etag Strong validator, changes with the asset and the variant
+     * @param version {@link #version} of the asset URL the file was made from
+     */
+    public record Poster(Path file, String contentType, String etag, String version) {
+    }
+
+    public PosterService(CatalogService catalogService, MeterRegistry meterRegistry) {
+        this.catalogService = catalogService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        Arrays.sort(widths);
+        cache = new PosterCache(Path.of(cacheDirectory), cacheMaxBytes);
+        httpClient = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(8, 5, TimeUnit.MINUTES))
+            .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+            .build();
+
+        Gauge.builder("streampick.posters.cache.bytes", cache, PosterCache::totalBytes)
+            .description("Bytes of posters in the local disk cache")
+            .register(meterRegistry);
+        Gauge.builder("streampick.posters.cache.files", cache, PosterCache::size)
+            .register(meterRegistry);
+
+        log.info("Poster proxy: widths {}, origin {}", Arrays.toString(widths),
+            originBaseUrl.isBlank() ? "as published" : originBaseUrl);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * The poster of a movie, at a width
+     *
+     * @param uid Movie UID
+     * @param width Requested width in pixels, null for the original
+     * @return The poster, or null if the movie isn't in the catalog or has no poster
+     * @throws IllegalStateException if the poster couldn't be fetched from the origin
+     */
+    public Poster getPoster(String uid, Integer width) {
+        if (uid == null || !SAFE_UID.matcher(uid).matches()) {
+            return null;
+        }
+        Movie movie = catalogService.getCatalog().getMovie(uid);
+        String url = movie != null ? movie.getImageUrl() : null;
+        if (url == null || url.isBlank()) {
+            return null;
+        }
+
+        String base = uid + "-" + hash(url);
+        String originalKey = base + "-orig";
+        Callable<Path> fetch = () -> fetchOriginal(originalKey, url);
+        Integer variantWidth = variantWidth(width);
+        if (variantWidth == null || variantWidth >= originalFrom.getOrDefault(base, Integer.MAX_VALUE)) {
+            return poster(load(originalKey, fetch), originalKey, version(url));
+        }
+
+        String key = base + "-w" + variantWidth;
+        Path variant = load(key, () -> resize(base, key, load(originalKey, fetch), variantWidth));
+        return poster(variant, variant.getFileName().toString().startsWith(originalKey + ".") ? originalKey : key,
+            version(url));
+    }
+
+    /**
+     * Short version tag of an asset URL, for clients to put in poster URLs: 32-bit FNV-1a
+     * over the URL's UTF-16 code units, in hex (the frontend's posterUrl computes the same)
+     */
+    public static String version(String assetUrl) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < assetUrl.length(); i++) {
+            hash = (hash ^ assetUrl.charAt(i)) * 0x01000193;
+        }
+        return Integer.toUnsignedString(hash, 16);
+    }
+
+    /**
+     * Smallest configured width at least as wide as requested; null (the original) for
+     * no width or one wider than every variant
+     */
+    Integer variantWidth(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return null;
+        }
+        for (int width : widths) {
+            if (width >= requested) {
+                return width;
+            }
+        }
+        return null;
+    }
+
+    private Poster poster(Path file, String key, String version) {
+        String name = file.getFileName().toString();
+        String extension = name.substring(name.lastIndexOf('.') + 1);
+        return new Poster(file, CONTENT_TYPES.getOrDefault(extension, "application/octet-stream"),
+            "\"" + key + "\"", version);
+    }
+
+    /**
+     * The cached file for a key, else the loader's result; one loader runs per key
+     */
+    private Path load(String key, Callable<Path> loader) {
+        Path cached = cache.get(key);
+        if (cached != null) {
+            count("hit");
+            return cached;
+        }
+
+        CompletableFuture<Path> mine = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            count("coalesced");
+            try {
+                return running.get(connectTimeoutMillis + readTimeoutMillis + 5000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for poster " + key);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalStateException("Couldn't load poster " + key, e);
+            }
+        }
+
+        count("miss");
+        try {
+            Path path = loader.call();
+            mine.complete(path);
+            return path;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e instanceof IllegalStateException ise ? ise : new IllegalStateException("Couldn't load poster " + key, e);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Path fetchOriginal(String key, String url) throws IOException {
+        HttpUrl httpUrl = originUrl(url);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try (Response response = httpClient.newCall(new Request.Builder().url(httpUrl).get().build()).execute()) {
+            ResponseBody body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new IOException("Poster origin returned " + response.code() + " for " + httpUrl);
+            }
+            if (body.contentLength() > maxOriginBytes) {
+                throw new IOException("Poster " + httpUrl + " is larger than " + maxOriginBytes + " bytes");
+            }
+            // Chunked responses declare no length: read one byte past the cap at most
+            byte[] data;
+            try (InputStream in = body.byteStream()) {
+                data = in.readNBytes((int) Math.min(maxOriginBytes + 1, Integer.MAX_VALUE - 8));
+            }
+            if (data.length > maxOriginBytes) {
+                throw new IOException("Poster " + httpUrl + " is larger than " + maxOriginBytes + " bytes");
+            }
+            Path file = cache.put(key, extension(data), data);
+            outcome = "success";
+            return file;
+        } finally {
+            sample.stop(meterRegistry.timer("streampick.posters.origin", "outcome", outcome));
+        }
+    }
+
+    private Path resize(String base, String key, Path original, int width) throws IOException {
+        BufferedImage source;
+        try {
+            source = ImageIO.read(original.toFile());
+        } catch (IOException | RuntimeException e) {
+            source = null;
+        }
+        if (source == null) {
+            log.debug("Poster {} can't be decoded, serving the original for every width", base);
+            originalFrom.put(base, 0);
+            return original;
+        }
+        if (source.getWidth() <= width) {
+            originalFrom.put(base, source.getWidth());  // Never upscale
+            return original;
+        }
+
+        boolean alpha = source.getColorModel().hasAlpha();
+        BufferedImage scaled = scale(source, width, alpha);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (alpha) {
+            ImageIO.write(scaled, "png", out);
+        } else {
+            writeJpeg(scaled, out);
+        }
+        return cache.put(key, alpha ? "png" : "jpg", out.toByteArray());
+    }
+
+    /**
+     * Halve the size while more than twice too big, then one bilinear step: close to
+     * area-averaged quality at a fraction of the cost
+     */
+    private static BufferedImage scale(BufferedImage source, int width, boolean alpha) {
+        int height = Math.max(1, Math.round((float) source.getHeight() * width / source.getWidth()));
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight,
+                alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                graphics.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (currentWidth > width || currentHeight > height);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, ByteArrayOutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(jpegQuality);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private HttpUrl originUrl(String url) {
+        HttpUrl published = HttpUrl.get(url);
+        if (originBaseUrl.isBlank()) {
+            return published;
+        }
+        HttpUrl origin = HttpUrl.get(originBaseUrl);
+        return published.newBuilder()
+            .scheme(origin.scheme())
+            .host(origin.host())
+            .port(origin.port())
+            .build();
+    }
+
+    /**
+     * File extension from the content's magic bytes (asset URLs and headers can't be trusted)
+     */
+    private static String extension(byte[] data) {
+        if (startsWith(data, 0, 0xFF, 0xD8, 0xFF)) {
+            return "jpg";
+        }
+        if (startsWith(data, 0, 0x89, 'P', 'N', 'G')) {
+            return "png";
+        }
+        if (startsWith(data, 0, 'G', 'I', 'F', '8')) {
+            return "gif";
+        }
+        if (startsWith(data, 0, 'R', 'I', 'F', 'F') && startsWith(data, 8, 'W', 'E', 'B', 'P')) {
+            return "webp";
+        }
+        if (startsWith(data, 4, 'f', 't', 'y', 'p', 'a', 'v', 'i', 'f')) {
+            return "avif";
+        }
+        return "bin";
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... magic) {
+        if (data.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((data[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String hash(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("streampick.posters", "result", result).increment();
+    }
+}
@@ -0,0 +1,64 @@
+package com.streampick.profile;
+
+/**
+ * Approximate access counts for admission into a bounded cache (TinyLFU)
+ *
+ * A count-min sketch: four rows of small counters, each key hashed to one counter per
+ * row, its estimate the smallest of the four. Counters saturate at 15, and every
+ * counter is halved after 10 increments per cache slot, so the counts follow recent
+ * popularity rather than all-time popularity.
+ */
+final class FrequencySketch {
+
+    private static final int ROWS = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F};
+
+    private final byte[][] counters;
+    private final int mask;
+    private final int resetAfter;
+    private int increments;
+
+    FrequencySketch(int capacity) {
+        int width = Integer.highestOneBit(Math.max(16, capacity) * 2 - 1);
+        counters = new byte[ROWS][width];
+        mask = width - 1;
+        resetAfter = Math.max(160, capacity * 10);
+    }
+
+    synchronized void increment(String key) {
+        int hash = key.hashCode();
+        for (int row = 0; row < ROWS; row++) {
+            int slot = slot(hash, row);
+            if (counters[row][slot] < MAX_COUNT) {
+                counters[row][slot]++;
+            }
+        }
+        if (++increments >= resetAfter) {
+            halve();
+        }
+    }
+
+    synchronized int frequency(String key) {
+        int hash = key.hashCode();
+        int min = MAX_COUNT;
+        for (int row = 0; row < ROWS; row++) {
+            min = Math.min(min, counters[row][slot(hash, row)]);
+        }
+        return min;
+    }
+
+    private int slot(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * 0x9E3779B1;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void halve() {
+        for (byte[] row : counters) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>= 1;
+            }
+        }
+        increments /= 2;
+    }
+}
@@ -0,0 +1,29 @@
+package com.streampick.profile;
+
+import com.streampick.model.Movie;
+
+/**
+ * A user's profile and how much it may move a ranking
+ *
+ * @param profile The profile, null for anonymous or unknown users
+ * @param weight Share of the blended score taken by the profile's affinity, 0-1
+ */
+public record Personalization(UserProfile profile, double weight) {
+
+    public static final Personalization NONE = new Personalization(null, 0);
+
+    public boolean isEmpty() {
+        return profile == null || weight <= 0;
+    }
+
+    /**
+     * Blend a movie's score with the profile's affinity for it
+     *
+     * @param score The unpersonalized score
+     * @param scale The score's maximum (affinity is 0-1)
+     * @return The blended score, on the same scale
+     */
+    public double blend(double score, double scale, Movie movie) {
+        return isEmpty() ? score : (1 - weight) * score + weight * scale * profile.affinity(movie);
+    }
+}
@@ -0,0 +1,381 @@
+package com.streampick.profile;
+
+import com.streampick.model.Movie;
+import com.streampick.service.CatalogService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Per-user preference profiles, in memory for active users and on local disk for
+ * the rest
+ *
+ * The in-memory cache holds at most {@code profile.cache.size} profiles in LRU order,
+ * with TinyLFU admission: when it is full, a profile read from disk (or new) only
+ * displaces the least recently used one if its user has been seen more often lately
+ * (see {@link FrequencySketch}), so a burst of one-off users doesn't flush the
+ * regulars. Changed profiles are written out every {@code profile.spill.interval.ms},
+ * when they leave the cache and on shutdown; a profile that wasn't admitted is written
+ * as soon as it changes. Files are one per user, named by a hash of the user ID.
+ * Updates to one user's profile run one at a time (so two updates to a profile that
+ * lives on disk can't both read the old file), and so do writes of their file. Files
+ * not written for {@code profile.file.ttl.days} are deleted; by then decay has left
+ * them next to no weight.
+ *
+ * Everything here is local, so using a profile costs a recommendation at most one small
+ * file read.
+ */
+@Service
+public class ProfileStore {
+
+    private static final Logger log = LoggerFactory.getLogger(ProfileStore.class);
+    private static final int MAX_USER_ID_LENGTH = 128;
+    private static final String TEMP_SUFFIX = ".part";
+    private static final int LOCK_STRIPES = 256;
+
+    private final CatalogService catalogService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${profile.store.dir:./data/profiles}")
+    private String directoryPath;
+
+    @Value("${profile.cache.size:10000}")
+    private int cacheSize;
+
+    @Value("${profile.half-life.days:14}")
+    private double halfLifeDays;
+
+    // Share of a personalized score taken by the profile, for a profile with many events
+    @Value("${profile.blend.weight:0.3}")
+    private double blendWeight;
+
+    @Value("${profile.file.ttl.days:90}")
+    private double fileTtlDays;
+
+    private Path directory;
+    private long halfLifeMillis;
+    private FrequencySketch sketch;
+    private final LinkedHashMap<String, UserProfile> cached = new LinkedHashMap<>(256, 0.75f, true);
+    // Dirty profiles evicted from the cache until their file is written; lookups use these over the file
+    private final Map<String, UserProfile> evicting = new ConcurrentHashMap<>();
+    // Striped by user ID: updateLocks around read-modify-write, saveLocks around file writes only
+    private final Object[] updateLocks = newLocks();
+    private final Object[] saveLocks = newLocks();
+
+    public ProfileStore(CatalogService catalogService, MeterRegistry meterRegistry) {
+        this.catalogService = catalogService;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        directory = Path.of(directoryPath).toAbsolutePath().normalize();
+        Files.createDirectories(directory);
+        halfLifeMillis = Math.max(1, (long) (halfLifeDays * 24 * 3600 * 1000));
+        sketch = new FrequencySketch(cacheSize);
+        Gauge.builder("streampick.profiles.cached", this, store -> store.cachedCount())
+            .description("User profiles held in memory")
+            .register(meterRegistry);
+        log.info("User profiles in {}, up to {} in memory", directory, cacheSize);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        spill();
+    }
+
+    /**
+     * Remember the mood and time a user asked recommendations for
+     */
+    public void recordChoice(String userId, String mood, Integer minutes) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (lockFor(updateLocks, userId)) {
+            UserProfile profile = lookup(userId, true);
+            if (profile != null) {
+                profile.recordChoice(mood, minutes, System.currentTimeMillis(), halfLifeMillis);
+                saveIfUncached(userId, profile);
+            }
+        }
+    }
+
+    /**
+     * Remember that a user picked a movie
+     *
+     * @return false if the movie isn't in the catalog (or the user ID is unusable)
+     */
+    public boolean recordClick(String userId, String movieUid) {
+        Movie movie = catalogService.getCatalog().getMovie(movieUid);
+        if (movie == null) {
+            return false;
+        }
+        if (userId == null) {
+            return false;
+        }
+        synchronized (lockFor(updateLocks, userId)) {
+            UserProfile profile = lookup(userId, true);
+            if (profile == null) {
+                return false;
+            }
+            profile.recordClick(movie, System.currentTimeMillis(), halfLifeMillis);
+            saveIfUncached(userId, profile);
+            return true;
+        }
+    }
+
+    /**
+     * How to personalize a ranking for a user
+     *
+     * @param userId User ID, may be null
+     * @return The user's profile and blend weight, or {@link Personalization#NONE}
+     */
+    public Personalization personalization(String userId) {
+        UserProfile profile = lookup(userId, false);
+        if (profile == null) {
+            return Personalization.NONE;
+        }
+        return new Personalization(profile,
+                blendWeight * profile.confidence(System.currentTimeMillis(), halfLifeMillis));
+    }
+
+    /**
+     * Write every changed profile in the cache to disk, and evicted ones whose write failed
+     */
+    @Scheduled(initialDelayString = "${profile.spill.interval.ms:60000}",
+            fixedDelayString = "${profile.spill.interval.ms:60000}")
+    public void spill() {
+        List<Map.Entry<String, UserProfile>> dirty = new ArrayList<>();
+        synchronized (cached) {
+            for (Map.Entry<String, UserProfile> entry : cached.entrySet()) {
+                if (entry.getValue().isDirty()) {
+                    dirty.add(Map.entry(entry.getKey(), entry.getValue()));
+                }
+            }
+        }
+        int written = 0;
+        for (Map.Entry<String, UserProfile> entry : dirty) {
+            written += save(entry.getKey(), entry.getValue()) ? 1 : 0;
+        }
+        for (Map.Entry<String, UserProfile> entry : evicting.entrySet()) {
+            if (save(entry.getKey(), entry.getValue())) {
+                evicting.remove(entry.getKey(), entry.getValue());
+                written++;
+            }
+        }
+        if (written > 0) {
+            log.debug("Spilled {} user profiles", written);
+        }
+    }
+
+    /**
+     * Delete profile files not written for {@code profile.file.ttl.days}, and temp files
+     * left behind by interrupted writes
+     */
+    @Scheduled(initialDelayString = "${profile.sweep.interval.ms:21600000}",
+            fixedDelayString = "${profile.sweep.interval.ms:21600000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        long profileCutoff = now - (long) (fileTtlDays * 24 * 3600 * 1000);
+        long tempCutoff = now - TimeUnit.HOURS.toMillis(1);
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(directory, 2)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                long cutoff = name.endsWith(".bin") ? profileCutoff : name.endsWith(TEMP_SUFFIX) ? tempCutoff : -1;
+                if (cutoff < 0) {
+                    continue;
+                }
+                try {
+                    FileTime modified = Files.getLastModifiedTime(file);
+                    if (modified.toMillis() < cutoff && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    // Written or deleted meanwhile
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Sweeping stale user profiles failed: {}", e.getMessage());
+        }
+        if (deleted > 0) {
+            meterRegistry.counter("streampick.profiles.expired").increment(deleted);
+            log.info("Deleted {} stale user profile files", deleted);
+        }
+    }
+
+    private UserProfile lookup(String userId, boolean create) {
+        if (userId == null || userId.isBlank() || userId.length() > MAX_USER_ID_LENGTH) {
+            return null;
+        }
+        sketch.increment(userId);
+        synchronized (cached) {
+            UserProfile profile = cached.get(userId);
+            if (profile != null) {
+                count("hit");
+                return profile;
+            }
+        }
+        UserProfile profile = evicting.get(userId);
+        if (profile == null) {
+            profile = load(userId);
+        }
+        if (profile == null && !create) {
+            count("miss");
+            return null;
+        }
+        count(profile != null ? "disk" : "new");
+        return admit(userId, profile != null ? profile : new UserProfile());
+    }
+
+    /**
+     * Cache a profile unless the least recently used one is the more frequent user
+     *
+     * @return The profile to use: the cached one if another thread got there first
+     */
+    private UserProfile admit(String userId, UserProfile profile) {
+        String victimId = null;
+        UserProfile victim = null;
+        synchronized (cached) {
+            UserProfile existing = cached.get(userId);
+            if (existing != null) {
+                return existing;
+            }
+            if (cached.size() >= cacheSize) {
+                Map.Entry<String, UserProfile> eldest = cached.entrySet().iterator().next();
+                if (sketch.frequency(userId) <= sketch.frequency(eldest.getKey())) {
+                    meterRegistry.counter("streampick.profiles.admissions", "outcome", "rejected").increment();
+                    return profile;
+                }
+                victimId = eldest.getKey();
+                victim = eldest.getValue();
+                cached.remove(victimId);
+                if (victim.isDirty()) {
+                    evicting.put(victimId, victim);  // Until written, so a lookup doesn't read the old file
+                }
+            }
+            cached.put(userId, profile);
+            meterRegistry.counter("streampick.profiles.admissions", "outcome", "admitted").increment();
+        }
+        if (victim != null && evicting.get(victimId) == victim && save(victimId, victim)) {
+            evicting.remove(victimId, victim);
+        }
+        return profile;
+    }
+
+    private void saveIfUncached(String userId, UserProfile profile) {
+        boolean isCached;
+        synchronized (cached) {
+            isCached = cached.get(userId) == profile;
+        }
+        if (!isCached) {
+            save(userId, profile);
+        }
+    }
+
+    private UserProfile load(String userId) {
+        Path file = fileFor(userId);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return UserProfile.read(in);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Unreadable profile {}, starting over: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private boolean save(String userId, UserProfile profile) {
+        Path file = fileFor(userId);
+        synchronized (lockFor(saveLocks, userId)) {
+            profile.markClean();
+            Path temp = null;
+            try {
+                Files.createDirectories(file.getParent());
+                temp = Files.createTempFile(file.getParent(), file.getFileName() + ".", TEMP_SUFFIX);
+                try (OutputStream stream = Files.newOutputStream(temp);
+                     DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                    profile.write(out);
+                }
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                meterRegistry.counter("streampick.profiles.spilled").increment();
+                return true;
+            } catch (IOException e) {
+                log.warn("Couldn't write profile {}: {}", file, e.getMessage());
+                profile.markDirty();  // Retried on the next spill
+                if (temp != null) {
+                    try {
+                        Files.deleteIfExists(temp);
+                    } catch (IOException ignored) {
+                        // Swept later
+                    }
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * {@code <dir>/ab/abcdef....bin}: SHA-256 of the user ID, fanned out by its first byte
+     */
+    private Path fileFor(String userId) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(userId.getBytes(StandardCharsets.UTF_8));
+            String name = HexFormat.of().formatHex(digest);
+            return directory.resolve(name.substring(0, 2)).resolve(name + ".bin");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private static Object lockFor(Object[] locks, String userId) {
+        return locks[Math.floorMod(userId.hashCode(), locks.length)];
+    }
+
+    private int cachedCount() {
+        synchronized (cached) {
+            return cached.size();
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("streampick.profiles.lookups", "result", result).increment();
+    }
+}
@@ -0,0 +1,280 @@
+package com.streampick.profile;
+
+import com.streampick.model.Movie;
+import com.streampick.util.MoodMapper;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+/**
+ * One user's taste, as exponentially decayed weights
+ *
+ * Each event adds weight: a recommendation request to the mood asked for and to the
+ * time available, a click on a movie to its moods, genres and runtime (clicks count
+ * for more). Weights halve every half-life, applied lazily when the next event comes
+ * in. Moods are one float per {@link MoodMapper#getBackendMoods() backend mood};
+ * genres one float per genre in a process-wide dictionary that grows as genres are
+ * seen (up to {@link #MAX_GENRES}). On disk names are written instead of indexes, so
+ * files survive a different dictionary order.
+ */
+public final class UserProfile {
+
+    static final int MAX_GENRES = 256;
+
+    private static final int FORMAT = 1;
+    private static final float CLICK_WEIGHT = 3;
+    private static final List<String> MOODS = MoodMapper.getBackendMoods();
+
+    /** Normalized genre -> index, assigned on first sight */
+    private static final Map<String, Integer> GENRE_IDS = new ConcurrentHashMap<>();
+    private static final String[] GENRE_NAMES = new String[MAX_GENRES];
+    private static final AtomicInteger nextGenreId = new AtomicInteger();
+
+    private final float[] moods = new float[MOODS.size()];
+    private float[] genres = new float[0];
+    private float runtimeSum;
+    private float runtimeWeight;
+    private float events;
+    private long updatedAtMillis;
+    private volatile boolean dirty;
+
+    synchronized void recordChoice(String mood, Integer minutes, long now, long halfLifeMillis) {
+        decayTo(now, halfLifeMillis);
+        int index = moodIndex(mood);
+        if (index >= 0) {
+            moods[index] += 1;
+        }
+        if (minutes != null && minutes > 0) {
+            runtimeSum += minutes;
+            runtimeWeight += 1;
+        }
+        events += 1;
+        dirty = true;
+    }
+
+    synchronized void recordClick(Movie movie, long now, long halfLifeMillis) {
+        decayTo(now, halfLifeMillis);
+        if (movie.getMoodTags() != null) {
+            for (String tag : movie.getMoodTags()) {
+                int index = moodIndex(tag);
+                if (index >= 0) {
+                    moods[index] += CLICK_WEIGHT;
+                }
+            }
+        }
+        if (movie.getGenre() != null) {
+            for (String genre : movie.getGenre()) {
+                int index = genreIndex(genre, true);
+                if (index >= 0) {
+                    if (index >= genres.length) {
+                        genres = Arrays.copyOf(genres, index + 1);
+                    }
+                    genres[index] += CLICK_WEIGHT;
+                }
+            }
+        }
+        if (movie.getRuntime() != null && movie.getRuntime() > 0) {
+            runtimeSum += CLICK_WEIGHT * movie.getRuntime();
+            runtimeWeight += CLICK_WEIGHT;
+        }
+        events += CLICK_WEIGHT;
+        dirty = true;
+    }
+
+    /**
+     * How well a movie fits this taste, 0-1: the share of mood weight and of genre
+     * weight on the movie's tags, and how close its runtime is to the usual one
+     */
+    public synchronized double affinity(Movie movie) {
+        double total = 0;
+        double parts = 0;
+
+        float moodTotal = sum(moods);
+        if (moodTotal > 0 && movie.getMoodTags() != null) {
+            boolean[] seen = new boolean[moods.length];
+            double share = 0;
+            for (String tag : movie.getMoodTags()) {
+                int index = moodIndex(tag);
+                if (index >= 0 && !seen[index]) {
+                    seen[index] = true;
+                    share += moods[index] / moodTotal;
+                }
+            }
+            total += 0.45 * Math.min(1, share);
+            parts += 0.45;
+        }
+
+        float genreTotal = sum(genres);
+        if (genreTotal > 0 && movie.getGenre() != null) {
+            boolean[] seen = new boolean[genres.length];
+            double share = 0;
+            for (String genre : movie.getGenre()) {
+                int index = genreIndex(genre, false);
+                if (index >= 0 && index < genres.length && !seen[index]) {
+                    seen[index] = true;
+                    share += genres[index] / genreTotal;
+                }
+            }
+            total += 0.35 * Math.min(1, share);
+            parts += 0.35;
+        }
+
+        if (runtimeWeight > 0 && movie.getRuntime() != null) {
+            double usual = runtimeSum / runtimeWeight;
+            total += 0.2 * Math.max(0, 1 - Math.abs(movie.getRuntime() - usual) / 90);
+            parts += 0.2;
+        }
+        return parts > 0 ? total / parts : 0;
+    }
+
+    /**
+     * How much to trust {@link #affinity}, 0-1: grows with the (decayed) number of
+     * events, so a profile with one request barely moves a ranking
+     */
+    public synchronized double confidence(long now, long halfLifeMillis) {
+        return 1 - Math.exp(-events * decayFactor(now, halfLifeMillis) / 5);
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    void markClean() {
+        dirty = false;
+    }
+
+    void markDirty() {
+        dirty = true;
+    }
+
+    private void decayTo(long now, long halfLifeMillis) {
+        float factor = (float) decayFactor(now, halfLifeMillis);
+        if (factor < 1) {
+            scale(moods, factor);
+            scale(genres, factor);
+            runtimeSum *= factor;
+            runtimeWeight *= factor;
+            events *= factor;
+        }
+        updatedAtMillis = now;
+    }
+
+    private double decayFactor(long now, long halfLifeMillis) {
+        if (updatedAtMillis == 0 || now <= updatedAtMillis) {
+            return 1;
+        }
+        return Math.pow(0.5, (double) (now - updatedAtMillis) / halfLifeMillis);
+    }
+
+    synchronized void write(DataOutput out) throws IOException {
+        out.writeByte(FORMAT);
+        out.writeLong(updatedAtMillis);
+        out.writeFloat(events);
+        out.writeFloat(runtimeSum);
+        out.writeFloat(runtimeWeight);
+        writeWeights(out, moods, MOODS::get);
+        writeWeights(out, genres, index -> GENRE_NAMES[index]);
+    }
+
+    static UserProfile read(DataInput in) throws IOException {
+        if (in.readByte() != FORMAT) {
+            throw new IOException("Unknown profile format");
+        }
+        UserProfile profile = new UserProfile();
+        profile.updatedAtMillis = in.readLong();
+        profile.events = in.readFloat();
+        profile.runtimeSum = in.readFloat();
+        profile.runtimeWeight = in.readFloat();
+        int moodCount = in.readUnsignedShort();
+        for (int i = 0; i < moodCount; i++) {
+            String mood = in.readUTF();
+            float weight = in.readFloat();
+            int index = MOODS.indexOf(mood);
+            if (index >= 0) {
+                profile.moods[index] = weight;
+            }
+        }
+        int genreCount = in.readUnsignedShort();
+        for (int i = 0; i < genreCount; i++) {
+            String genre = in.readUTF();
+            float weight = in.readFloat();
+            int index = genreIndex(genre, true);
+            if (index >= 0) {
+                if (index >= profile.genres.length) {
+                    profile.genres = Arrays.copyOf(profile.genres, index + 1);
+                }
+                profile.genres[index] = weight;
+            }
+        }
+        return profile;
+    }
+
+    private static void writeWeights(DataOutput out, float[] weights, IntFunction<String> names)
+            throws IOException {
+        int count = 0;
+        for (float weight : weights) {
+            count += weight > 0 ? 1 : 0;
+        }
+        out.writeShort(count);
+        for (int i = 0; i < weights.length; i++) {
+            if (weights[i] > 0) {
+                out.writeUTF(names.apply(i));
+                out.writeFloat(weights[i]);
+            }
+        }
+    }
+
+    private static int moodIndex(String mood) {
+        String normalized = MoodMapper.normalizeMood(mood);
+        return normalized != null ? MOODS.indexOf(normalized) : -1;
+    }
+
+    /**
+     * @param assign Give an unseen genre the next index (if any are left)
+     * @return The genre's index, or -1
+     */
+    private static int genreIndex(String genre, boolean assign) {
+        if (genre == null || genre.isBlank()) {
+            return -1;
+        }
+        String normalized = genre.trim().toLowerCase(Locale.ROOT);
+        Integer index = GENRE_IDS.get(normalized);
+        if (index != null || !assign) {
+            return index != null ? index : -1;
+        }
+        synchronized (GENRE_IDS) {
+            index = GENRE_IDS.get(normalized);
+            if (index == null) {
+                if (nextGenreId.get() >= MAX_GENRES) {
+                    return -1;
+                }
+                index = nextGenreId.getAndIncrement();
+                GENRE_NAMES[index] = normalized;
+                GENRE_IDS.put(normalized, index);
+            }
+            return index;
+        }
+    }
+
+    private static float sum(float[] weights) {
+        float sum = 0;
+        for (float weight : weights) {
+            sum += weight;
+        }
+        return sum;
+    }
+
+    private static void scale(float[] weights, float factor) {
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] *= factor;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.streampick.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Text analysis shared by indexing and queries: accents folded, lower-cased, split on
+ * anything that isn't a letter or digit, common English stop words dropped
+ */
+final class Analyzer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "in", "into", "is", "it",
+        "its", "of", "on", "or", "that", "the", "their", "this", "to", "was", "what", "when", "with");
+
+    private Analyzer() {
+    }
+
+    /**
+     * Lower-case, accent-free form of the text (nothing removed)
+     */
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(folded).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index/query terms of the text, in order, stop words removed
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String token : tokens(normalize(text))) {
+            if (!STOP_WORDS.contains(token)) {
+                terms.add(token);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Letter/digit runs of already normalized text, stop words kept
+     */
+    static List<String> tokens(String normalized) {
+        List<String> tokens = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean word = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,290 @@
+package com.streampick.search;
+
+import com.streampick.dto.MovieFilter;
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Immutable filter/facet index over one catalog version
+ *
+ * Genres and platforms are bitsets (one bit per movie, {@code long} words) per value,
+ * so "any of these genres and any of these platforms" is OR within a dimension and AND
+ * across dimensions, 64 movies per instruction. Runtime and rating are arrays of
+ * movies sorted by value: a range is two binary searches, and its movies are set into
+ * a bitset. Facet counts are popcounts of the other dimensions' selection ANDed with
+ * each value's bitset, without materializing anything.
+ */
+public final class FacetIndex {
+
+    public static final String GENRE = "genre";
+    public static final String PLATFORM = "platform";
+    public static final String RUNTIME = "runtime";
+    public static final String RATING = "rating";
+
+    // Facet buckets: label -> [min, max) (runtime in minutes) or [min, +inf) (rating)
+    private static final String[] RUNTIME_BUCKETS = {"<90", "90-119", "120-149", "150+"};
+    private static final int[] RUNTIME_BUCKET_MINS = {0, 90, 120, 150};
+    private static final String[] RATING_BUCKETS = {"9+", "8+", "7+", "6+"};
+    private static final double[] RATING_BUCKET_MINS = {9, 8, 7, 6};
+
+    private final List<Movie> movies;
+    private final int words;
+    private final long[] all;
+    private final Dimension genres;
+    private final Dimension platforms;
+    private final SortedValues runtimes;
+    private final SortedValues ratings;
+    private final long[][] runtimeBuckets;
+    private final long[][] ratingBuckets;
+
+    private FacetIndex(Catalog catalog) {
+        movies = catalog.getMovies();
+        int n = movies.size();
+        words = (n + 63) >>> 6;
+        all = new long[words];
+        for (int doc = 0; doc < n; doc++) {
+            set(all, doc);
+        }
+
+        genres = new Dimension(movies, Movie::getGenre, words);
+        platforms = new Dimension(movies, Movie::getPlatforms, words);
+        runtimes = new SortedValues(movies, movie -> movie.getRuntime() != null ? movie.getRuntime() : Double.NaN);
+        ratings = new SortedValues(movies, movie -> movie.getRating() != null ? movie.getRating() : Double.NaN);
+
+        runtimeBuckets = new long[RUNTIME_BUCKETS.length][];
+        for (int b = 0; b < RUNTIME_BUCKETS.length; b++) {
+            double max = b + 1 < RUNTIME_BUCKET_MINS.length ? RUNTIME_BUCKET_MINS[b + 1] - 1 : Double.MAX_VALUE;
+            runtimeBuckets[b] = runtimes.range(RUNTIME_BUCKET_MINS[b], max, words);
+        }
+        ratingBuckets = new long[RATING_BUCKETS.length][];
+        for (int b = 0; b < RATING_BUCKETS.length; b++) {
+            ratingBuckets[b] = ratings.range(RATING_BUCKET_MINS[b], Double.MAX_VALUE, words);
+        }
+    }
+
+    public static FacetIndex build(Catalog catalog) {
+        return new FacetIndex(catalog);
+    }
+
+    /**
+     * Apply a filter
+     *
+     * @param filter What to match; null or empty matches everything
+     * @param offset Matches to skip
+     * @param limit Maximum number of movies to return
+     * @param byRating Return the best rated matches first, else in catalog order
+     * @param withFacets Whether to compute facet counts
+     */
+    public Result filter(MovieFilter filter, int offset, int limit, boolean byRating, boolean withFacets) {
+        long[] genre = null;
+        long[] platform = null;
+        long[] runtime = null;
+        long[] rating = null;
+        if (filter != null) {
+            genre = genres.select(filter.getGenres(), words);
+            platform = platforms.select(filter.getPlatforms(), words);
+            if (filter.getMinRuntime() != null || filter.getMaxRuntime() != null) {
+                runtime = runtimes.range(
+                    filter.getMinRuntime() != null ? filter.getMinRuntime() : -Double.MAX_VALUE,
+                    filter.getMaxRuntime() != null ? filter.getMaxRuntime() : Double.MAX_VALUE, words);
+            }
+            if (filter.getMinRating() != null || filter.getMaxRating() != null) {
+                rating = ratings.range(
+                    filter.getMinRating() != null ? filter.getMinRating() : -Double.MAX_VALUE,
+                    filter.getMaxRating() != null ? filter.getMaxRating() : Double.MAX_VALUE, words);
+            }
+        }
+
+        long[] match = and(all, genre, platform, runtime, rating);
+        int total = 0;
+        for (long word : match) {
+            total += Long.bitCount(word);
+        }
+
+        List<Movie> page = new ArrayList<>(Math.max(0, Math.min(limit, total - offset)));
+        int skipped = 0;
+        if (byRating) {
+            // Best rated first, movies without a rating last
+            for (int i = ratings.docs.length - 1; i >= 0 && page.size() < limit; i--) {
+                int doc = ratings.docs[i];
+                if (get(match, doc) && skipped++ >= offset) {
+                    page.add(movies.get(doc));
+                }
+            }
+            for (int doc = 0; doc < movies.size() && page.size() < limit; doc++) {
+                if (movies.get(doc).getRating() == null && get(match, doc) && skipped++ >= offset) {
+                    page.add(movies.get(doc));
+                }
+            }
+        } else {
+            for (int w = 0; w < words && page.size() < limit; w++) {
+                for (long word = match[w]; word != 0 && page.size() < limit; word &= word - 1) {
+                    if (skipped++ >= offset) {
+                        page.add(movies.get((w << 6) + Long.numberOfTrailingZeros(word)));
+                    }
+                }
+            }
+        }
+
+        Map<String, Map<String, Integer>> facets = null;
+        if (withFacets) {
+            facets = new LinkedHashMap<>();
+            facets.put(GENRE, genres.counts(and(all, platform, runtime, rating)));
+            facets.put(PLATFORM, platforms.counts(and(all, genre, runtime, rating)));
+            facets.put(RUNTIME, bucketCounts(and(all, genre, platform, rating), RUNTIME_BUCKETS, runtimeBuckets));
+            facets.put(RATING, bucketCounts(and(all, genre, platform, runtime), RATING_BUCKETS, ratingBuckets));
+        }
+        return new Result(total, page, facets);
+    }
+
+    private Map<String, Integer> bucketCounts(long[] base, String[] labels, long[][] buckets) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        for (int b = 0; b < labels.length; b++) {
+            counts.put(labels[b], countAnd(base, buckets[b]));
+        }
+        return counts;
+    }
+
+    /**
+     * AND of the non-null bitsets, starting from a copy of the first
+     */
+    private static long[] and(long[] first, long[]... others) {
+        long[] result = first.clone();
+        for (long[] other : others) {
+            if (other != null) {
+                for (int w = 0; w < result.length; w++) {
+                    result[w] &= other[w];
+                }
+            }
+        }
+        return result;
+    }
+
+    private static int countAnd(long[] a, long[] b) {
+        int count = 0;
+        for (int w = 0; w < a.length; w++) {
+            count += Long.bitCount(a[w] & b[w]);
+        }
+        return count;
+    }
+
+    private static void set(long[] bits, int doc) {
+        bits[doc >>> 6] |= 1L << doc;
+    }
+
+    private static boolean get(long[] bits, int doc) {
+        return (bits[doc >>> 6] & (1L << doc)) != 0;
+    }
+
+    /**
+     * A multi-valued string dimension: one bitset per (case-insensitive) value
+     */
+    private static final class Dimension {
+        private final Map<String, long[]> bitsByKey = new LinkedHashMap<>();
+        private final Map<String, String> labels = new LinkedHashMap<>();
+
+        Dimension(List<Movie> movies, Function<Movie, List<String>> values, int words) {
+            for (int doc = 0; doc < movies.size(); doc++) {
+                List<String> movieValues = values.apply(movies.get(doc));
+                if (movieValues == null) {
+                    continue;
+                }
+                for (String value : movieValues) {
+                    if (value == null || value.isBlank()) {
+                        continue;
+                    }
+                    String key = value.trim().toLowerCase(Locale.ROOT);
+                    labels.putIfAbsent(key, value.trim());
+                    set(bitsByKey.computeIfAbsent(key, k -> new long[words]), doc);
+                }
+            }
+        }
+
+        /**
+         * Union of the values' bitsets, null if no values are given (no filter)
+         */
+        long[] select(List<String> values, int words) {
+            if (values == null || values.isEmpty()) {
+                return null;
+            }
+            long[] union = new long[words];
+            for (String value : values) {
+                long[] bits = value != null ? bitsByKey.get(value.trim().toLowerCase(Locale.ROOT)) : null;
+                if (bits != null) {
+                    for (int w = 0; w < words; w++) {
+                        union[w] |= bits[w];
+                    }
+                }
+            }
+            return union;
+        }
+
+        Map<String, Integer> counts(long[] base) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            bitsByKey.forEach((key, bits) -> counts.put(labels.get(key), countAnd(base, bits)));
+            return counts;
+        }
+    }
+
+    /**
+     * Movies with a value, sorted by it, for range queries
+     */
+    private static final class SortedValues {
+        private final int[] docs;
+        private final double[] values;
+
+        SortedValues(List<Movie> movies, ToDoubleFunction<Movie> value) {
+            Integer[] order = new Integer[movies.size()];
+            int count = 0;
+            for (int doc = 0; doc < movies.size(); doc++) {
+                if (!Double.isNaN(value.applyAsDouble(movies.get(doc)))) {
+                    order[count++] = doc;
+                }
+            }
+            order = Arrays.copyOf(order, count);
+            Arrays.sort(order, Comparator.comparingDouble((Integer doc) -> value.applyAsDouble(movies.get(doc))));
+            docs = new int[count];
+            values = new double[count];
+            for (int i = 0; i < count; i++) {
+                docs[i] = order[i];
+                values[i] = value.applyAsDouble(movies.get(order[i]));
+            }
+        }
+
+        long[] range(double min, double max, int words) {
+            long[] bits = new long[words];
+            for (int i = lowerBound(min); i < values.length && values[i] <= max; i++) {
+                set(bits, docs[i]);
+            }
+            return bits;
+        }
+
+        // First index with a value >= min
+        private int lowerBound(double min) {
+            int low = 0;
+            int high = values.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[mid] < min) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+    }
+
+    public record Result(int total, List<Movie> movies, Map<String, Map<String, Integer>> facets) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.streampick.search;
+
+import com.streampick.dto.MovieFilter;
+import com.streampick.model.Movie;
+import com.streampick.service.CatalogDerived;
+import com.streampick.service.CatalogService;
+import com.streampick.tracing.StageTimer;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Faceted filtering of the catalog by genre, platform, runtime and rating, from a
+ * {@link FacetIndex} built once per catalog version
+ */
+@Service
+public class FilterService {
+
+    private final CatalogDerived<FacetIndex> index;
+    private final StageTimer stageTimer;
+
+    public FilterService(CatalogService catalogService, StageTimer stageTimer) {
+        this.index = new CatalogDerived<>(catalogService, "Facet index", FacetIndex::build);
+        this.stageTimer = stageTimer;
+    }
+
+    /**
+     * One page of matching movies with facet counts
+     *
+     * @param filter What to match
+     * @param offset Matches to skip
+     * @param limit Page size
+     * @param byRating Best rated first, else catalog order
+     */
+    public FacetIndex.Result filter(MovieFilter filter, int offset, int limit, boolean byRating) {
+        FacetIndex current = index.get();
+        try (StageTimer.Stage stage = stageTimer.start("filter")) {
+            return current.filter(filter, offset, limit, byRating, true);
+        }
+    }
+
+    /**
+     * All matching movies in catalog order, without facet counts (e.g. to narrow the
+     * candidates of a recommendation)
+     */
+    public List<Movie> matching(MovieFilter filter) {
+        FacetIndex current = index.get();
+        try (StageTimer.Stage stage = stageTimer.start("filter")) {
+            return current.filter(filter, 0, Integer.MAX_VALUE, false, false).movies();
+        }
+    }
+}
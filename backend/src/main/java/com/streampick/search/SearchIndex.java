@@ -0,0 +1,232 @@
+package com.streampick.search;
+
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Immutable full-text index over one catalog version
+ *
+ * An inverted index over title, genres, description and AI description scored with
+ * BM25F: per-field term frequencies are length-normalized, weighted (title highest)
+ * and summed before saturation, and everything but the query's IDF is computed at
+ * build time, so a query is a walk over a few posting lists into a score array. The
+ * term dictionary is sorted, so the last query word can be matched as a prefix
+ * (search-as-you-type). Titles also get a {@link TitleTrie} for type-ahead.
+ */
+public final class SearchIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final double[] FIELD_WEIGHTS = {3.0, 2.0, 1.0, 1.0};  // title, genre, description, ai_description
+    // Most frequent expansions of a prefix that take part in a query
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+
+    private final String version;
+    private final List<Movie> movies;
+    private final String[] terms;
+    private final int[][] postingDocs;
+    private final float[][] postingWeights;
+    private final float[] idf;
+    private final TitleTrie titles;
+
+    private SearchIndex(String version, List<Movie> movies, String[] terms, int[][] postingDocs,
+            float[][] postingWeights, float[] idf, TitleTrie titles) {
+        this.version = version;
+        this.movies = movies;
+        this.terms = terms;
+        this.postingDocs = postingDocs;
+        this.postingWeights = postingWeights;
+        this.idf = idf;
+        this.titles = titles;
+    }
+
+    public static SearchIndex build(Catalog catalog) {
+        List<Movie> movies = catalog.getMovies();
+        int docCount = movies.size();
+
+        // Per document and field: term -> frequency, plus field lengths
+        List<List<Map<String, Integer>>> fieldTerms = new ArrayList<>(docCount);
+        double[][] lengths = new double[FIELD_WEIGHTS.length][docCount];
+        double[] totalLengths = new double[FIELD_WEIGHTS.length];
+        for (int doc = 0; doc < docCount; doc++) {
+            Movie movie = movies.get(doc);
+            String[] fields = {
+                movie.getTitle(),
+                movie.getGenre() != null ? String.join(" ", movie.getGenre()) : null,
+                movie.getDescription(),
+                movie.getAiDescription()};
+            List<Map<String, Integer>> docFields = new ArrayList<>(fields.length);
+            for (int field = 0; field < fields.length; field++) {
+                Map<String, Integer> frequencies = new HashMap<>();
+                List<String> fieldTokens = Analyzer.terms(fields[field]);
+                for (String term : fieldTokens) {
+                    frequencies.merge(term, 1, Integer::sum);
+                }
+                docFields.add(frequencies);
+                lengths[field][doc] = fieldTokens.size();
+                totalLengths[field] += fieldTokens.size();
+            }
+            fieldTerms.add(docFields);
+        }
+
+        // Term -> weighted, length-normalized frequency per document (BM25F pseudo-frequency)
+        Map<String, Map<Integer, Double>> postings = new HashMap<>();
+        for (int doc = 0; doc < docCount; doc++) {
+            for (int field = 0; field < FIELD_WEIGHTS.length; field++) {
+                double averageLength = docCount > 0 ? Math.max(1, totalLengths[field] / docCount) : 1;
+                double norm = 1 - B + B * lengths[field][doc] / averageLength;
+                for (Map.Entry<String, Integer> entry : fieldTerms.get(doc).get(field).entrySet()) {
+                    postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>())
+                        .merge(doc, FIELD_WEIGHTS[field] * entry.getValue() / norm, Double::sum);
+                }
+            }
+        }
+
+        String[] terms = postings.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[][] postingDocs = new int[terms.length][];
+        float[][] postingWeights = new float[terms.length][];
+        float[] idf = new float[terms.length];
+        for (int t = 0; t < terms.length; t++) {
+            Map<Integer, Double> termPostings = postings.get(terms[t]);
+            int[] docs = termPostings.keySet().stream().mapToInt(Integer::intValue).sorted().toArray();
+            float[] weights = new float[docs.length];
+            for (int i = 0; i < docs.length; i++) {
+                double frequency = termPostings.get(docs[i]);
+                weights[i] = (float) (frequency * (K1 + 1) / (frequency + K1));
+            }
+            postingDocs[t] = docs;
+            postingWeights[t] = weights;
+            idf[t] = (float) Math.log(1 + (docCount - docs.length + 0.5) / (docs.length + 0.5));
+        }
+
+        return new SearchIndex(catalog.getVersion(), movies, terms, postingDocs, postingWeights, idf,
+            TitleTrie.build(movies));
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return movies.size();
+    }
+
+    /**
+     * Best matches for a free-text query, any query word matching
+     *
+     * @param query The query
+     * @param limit Maximum number of hits
+     * @param prefix Whether the last word may be incomplete (matched as a prefix)
+     * @return The hits, best first, and the number of matching movies
+     */
+    public Result search(String query, int limit, boolean prefix) {
+        String normalized = Analyzer.normalize(query);
+        List<String> tokens = Analyzer.tokens(normalized);
+        String prefixToken = null;
+        if (prefix && !tokens.isEmpty() && Character.isLetterOrDigit(normalized.charAt(normalized.length() - 1))) {
+            prefixToken = tokens.remove(tokens.size() - 1);
+        }
+
+        float[] scores = new float[movies.size()];
+        boolean[] matched = new boolean[movies.size()];
+        for (String term : Analyzer.terms(String.join(" ", tokens))) {
+            int t = Arrays.binarySearch(terms, term);
+            if (t >= 0) {
+                accumulate(t, 1f, scores, matched);
+            }
+        }
+        if (prefixToken != null) {
+            for (int t : prefixExpansions(prefixToken)) {
+                // Exact completions count fully, longer ones a little less
+                accumulate(t, terms[t].length() == prefixToken.length() ? 1f : 0.8f, scores, matched);
+            }
+        }
+
+        int total = 0;
+        PriorityQueue<Integer> top = new PriorityQueue<>(
+            Comparator.<Integer>comparingDouble(doc -> scores[doc]).thenComparing(doc -> -doc));
+        for (int doc = 0; doc < scores.length; doc++) {
+            if (!matched[doc]) {
+                continue;
+            }
+            total++;
+            top.add(doc);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        }
+
+        List<Hit> hits = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            int doc = top.poll();
+            hits.add(new Hit(movies.get(doc), scores[doc]));
+        }
+        Collections.reverse(hits);
+        return new Result(hits, total);
+    }
+
+    /**
+     * Movies whose title (or a word in it onwards) starts with the prefix, best rated first
+     */
+    public List<Movie> complete(String prefix, int limit) {
+        int[] docs = titles.complete(prefix, limit);
+        List<Movie> completions = new ArrayList<>(docs.length);
+        for (int doc : docs) {
+            completions.add(movies.get(doc));
+        }
+        return completions;
+    }
+
+    private void accumulate(int t, float boost, float[] scores, boolean[] matched) {
+        int[] docs = postingDocs[t];
+        float[] weights = postingWeights[t];
+        float termIdf = idf[t] * boost;
+        for (int i = 0; i < docs.length; i++) {
+            scores[docs[i]] += termIdf * weights[i];
+            matched[docs[i]] = true;
+        }
+    }
+
+    /**
+     * Dictionary entries starting with the prefix (a contiguous range of the sorted terms),
+     * the most frequent first when there are too many
+     */
+    private int[] prefixExpansions(String prefix) {
+        int from = Arrays.binarySearch(terms, prefix);
+        if (from < 0) {
+            from = -from - 1;
+        }
+        int to = from;
+        while (to < terms.length && terms[to].startsWith(prefix)) {
+            to++;
+        }
+        int[] range = new int[to - from];
+        for (int i = 0; i < range.length; i++) {
+            range[i] = from + i;
+        }
+        if (range.length <= MAX_PREFIX_EXPANSIONS) {
+            return range;
+        }
+        return Arrays.stream(range).boxed()
+            .sorted(Comparator.comparingInt((Integer t) -> postingDocs[t].length).reversed())
+            .limit(MAX_PREFIX_EXPANSIONS)
+            .mapToInt(Integer::intValue)
+            .toArray();
+    }
+
+    public record Hit(Movie movie, double score) {
+    }
+
+    public record Result(List<Hit> hits, int total) {
+    }
+}
@@ -0,0 +1,49 @@
+package com.streampick.search;
+
+import com.streampick.model.Movie;
+import com.streampick.service.CatalogDerived;
+import com.streampick.service.CatalogService;
+import com.streampick.tracing.StageTimer;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Full-text search and title type-ahead over the catalog, from a {@link SearchIndex}
+ * built once per catalog version
+ */
+@Service
+public class SearchService {
+
+    private final CatalogDerived<SearchIndex> index;
+    private final StageTimer stageTimer;
+
+    public SearchService(CatalogService catalogService, StageTimer stageTimer) {
+        this.index = new CatalogDerived<>(catalogService, "Search index", SearchIndex::build);
+        this.stageTimer = stageTimer;
+    }
+
+    /**
+     * Movies matching a free-text query, best match first
+     *
+     * @param query Words to look for in titles, genres and descriptions
+     * @param limit Maximum number of hits
+     * @param prefix Match the last word as a prefix (search-as-you-type)
+     */
+    public SearchIndex.Result search(String query, int limit, boolean prefix) {
+        SearchIndex current = index.get();
+        try (StageTimer.Stage stage = stageTimer.start("search")) {
+            return current.search(query, limit, prefix);
+        }
+    }
+
+    /**
+     * Titles starting with the prefix (from any word), best rated first
+     */
+    public List<Movie> autocomplete(String prefix, int limit) {
+        SearchIndex current = index.get();
+        try (StageTimer.Stage stage = stageTimer.start("search")) {
+            return current.complete(prefix, Math.min(limit, TitleTrie.MAX_COMPLETIONS));
+        }
+    }
+}
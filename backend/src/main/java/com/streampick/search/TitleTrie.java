@@ -0,0 +1,125 @@
+package com.streampick.search;
+
+import com.streampick.model.Movie;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prefix trie over normalized movie titles for type-ahead
+ *
+ * Every title is inserted from each of its words onwards ("the dark knight", "dark
+ * knight", "knight"), so typing any word of a title finds it. Each node stores its best
+ * completions (highest rated first) up to {@link #MAX_COMPLETIONS}, so a lookup is one
+ * walk down the prefix with no subtree traversal. Built once per catalog version and
+ * frozen into sorted arrays.
+ */
+final class TitleTrie {
+
+    static final int MAX_COMPLETIONS = 20;
+
+    private final Node root;
+
+    private TitleTrie(Node root) {
+        this.root = root;
+    }
+
+    static TitleTrie build(List<Movie> movies) {
+        // Insert in rank order, so each node keeps the first completions that reach it
+        Integer[] order = new Integer[movies.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparingDouble((Integer doc) -> {
+            Double rating = movies.get(doc).getRating();
+            return rating != null ? -rating : 0;
+        }));
+
+        Builder root = new Builder();
+        for (int doc : order) {
+            List<String> words = Analyzer.tokens(Analyzer.normalize(movies.get(doc).getTitle()));
+            for (int start = 0; start < words.size(); start++) {
+                root.insert(String.join(" ", words.subList(start, words.size())), doc);
+            }
+        }
+        return new TitleTrie(root.freeze());
+    }
+
+    /**
+     * Documents whose title has a word sequence starting with the prefix
+     *
+     * @return Document numbers, best first
+     */
+    int[] complete(String prefix, int limit) {
+        String normalized = Analyzer.normalize(prefix);
+        String key = String.join(" ", Analyzer.tokens(normalized));
+        if (key.isEmpty()) {
+            return new int[0];
+        }
+        // "dark " must not match "darkness"
+        if (!Character.isLetterOrDigit(normalized.charAt(normalized.length() - 1))) {
+            key += " ";
+        }
+
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return new int[0];
+        }
+        return Arrays.copyOf(node.completions, Math.min(limit, node.completions.length));
+    }
+
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final int[] completions;
+
+        Node(char[] labels, Node[] children, int[] completions) {
+            this.labels = labels;
+            this.children = children;
+            this.completions = completions;
+        }
+
+        Node child(char label) {
+            int i = Arrays.binarySearch(labels, label);
+            return i >= 0 ? children[i] : null;
+        }
+    }
+
+    private static final class Builder {
+        private final TreeMap<Character, Builder> children = new TreeMap<>();
+        private final List<Integer> completions = new ArrayList<>();
+
+        void insert(String key, int doc) {
+            Builder node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new Builder());
+                node.add(doc);
+            }
+        }
+
+        private void add(int doc) {
+            if (completions.size() < MAX_COMPLETIONS && !completions.contains(doc)) {
+                completions.add(doc);
+            }
+        }
+
+        Node freeze() {
+            char[] labels = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Builder> entry : children.entrySet()) {
+                labels[i] = entry.getKey();
+                frozen[i] = entry.getValue().freeze();
+                i++;
+            }
+            return new Node(labels, frozen, completions.stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+}
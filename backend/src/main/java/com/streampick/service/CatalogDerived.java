@@ -0,0 +1,116 @@
+package com.streampick.service;
+
+import com.streampick.model.Catalog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * A structure derived from the catalog (search index, similarity lists, ...), built
+ * once per catalog version
+ *
+ * Rebuilt off the request path when the catalog swaps in a new version; a caller that
+ * finds it out of date (e.g. the very first request) builds it itself, and concurrent
+ * callers wait for that build instead of repeating it. Structures too slow to build
+ * while requests wait can be given a background executor instead: replacements are
+ * built there and callers keep getting the previous version until one is ready; only
+ * a caller that finds nothing built at all waits.
+ */
+public class CatalogDerived<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogDerived.class);
+
+    private final CatalogService catalogService;
+    private final Function<Catalog, T> builder;
+    private final String name;
+    private final Executor background;
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+
+    private volatile Built<T> current;
+
+    public CatalogDerived(CatalogService catalogService, String name, Function<Catalog, T> builder) {
+        this(catalogService, name, builder, null);
+    }
+
+    /**
+     * @param background Where to build replacements while the previous version is
+     *        served; null to build on the notifying or calling thread
+     */
+    public CatalogDerived(CatalogService catalogService, String name, Function<Catalog, T> builder,
+            Executor background) {
+        this.catalogService = catalogService;
+        this.name = name;
+        this.builder = builder;
+        this.background = background;
+        catalogService.addListener(catalog -> {
+            if (background != null) {
+                rebuildSoon();
+            } else {
+                rebuild(catalog);
+            }
+        });
+    }
+
+    /**
+     * The structure for the current catalog version
+     */
+    public T get() {
+        Catalog catalog = catalogService.getCatalog();
+        Built<T> built = current;
+        if (built == null || !Objects.equals(built.version, catalog.getVersion())) {
+            if (built != null && background != null) {
+                rebuildSoon();
+                return built.value;
+            }
+            return rebuild(catalog);
+        }
+        return built.value;
+    }
+
+    /**
+     * The structure for the current catalog version, never a previous one: builds it
+     * on this thread, or waits for a build in progress (for warm-up)
+     */
+    public T getCurrent() {
+        return rebuild(catalogService.getCatalog());
+    }
+
+    /**
+     * Build for the then-current catalog on the background executor; requests made
+     * while one is queued are coalesced into it
+     */
+    private void rebuildSoon() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            background.execute(() -> {
+                rebuildQueued.set(false);
+                try {
+                    rebuild(catalogService.peekCatalog());
+                } catch (RuntimeException e) {
+                    log.error("{} rebuild failed, keeping the previous version", name, e);
+                }
+            });
+        }
+    }
+
+    private synchronized T rebuild(Catalog catalog) {
+        Built<T> built = current;
+        if (built != null && Objects.equals(built.version, catalog.getVersion())) {
+            return built.value;  // Built while we waited
+        }
+        long start = System.nanoTime();
+        T value = builder.apply(catalog);
+        if (catalog == catalogService.peekCatalog()) {
+            current = new Built<>(catalog.getVersion(), value);
+        }  // else superseded while we built it; don't replace a newer one
+        log.info("{} for catalog version {} built ({} movies) in {} ms",
+            name, catalog.getVersion(), catalog.size(), (System.nanoTime() - start) / 1_000_000);
+        return value;
+    }
+
+    private record Built<T>(String version, T value) {
+    }
+}
@@ -0,0 +1,361 @@
+package com.streampick.service;
+
+import com.streampick.cluster.InvalidationBus;
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+import com.streampick.tracing.StageTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-process movie catalog
+ *
+ * Requests read the latest {@link Catalog} snapshot instead of querying Contentstack
+ * each time. The snapshot is refreshed on a fixed delay and as soon as a movie is
+ * published, and only replaced when its version changes; listeners are told when a
+ * new version is swapped in, so anything derived
+ * from the catalog is rebuilt once per version. Until the first load succeeds, the
+ * first request loads it (others wait for that load) and failed loads are retried at
+ * most every {@code catalog.retry.interval.ms}.
+ *
+ * With several replicas on a {@link InvalidationBus}, only the holder of the
+ * {@code catalog-refresh} lease polls Contentstack. It stores each new version on the
+ * bus as a snapshot and announces it, and every replica swaps that snapshot in on the
+ * announcement, so all of them serve the same version and Contentstack sees one
+ * replica's load however many there are. Publish events reaching a follower are
+ * forwarded to the leader. Followers also check the latest shared version on the
+ * refresh delay, in case they missed an announcement while reconnecting, and ask the
+ * leader to share again when a snapshot is gone; one without any catalog yet fetches
+ * its own copy but never shares it. If the bus is unreachable, each replica refreshes
+ * from Contentstack itself.
+ */
+@Service
+public class CatalogService {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+
+    // Cluster bus channels, lease and keys
+    private static final String VERSION_CHANNEL = "catalog-version";
+    private static final String REFRESH_CHANNEL = "catalog-refresh";
+    private static final String REFRESH_LEASE = "catalog-refresh";
+    private static final String LATEST_KEY = "catalog:latest";
+    private static final String SNAPSHOT_KEY_PREFIX = "catalog:";
+
+    /**
+     * Called with every newly loaded catalog version
+     */
+    public interface CatalogListener {
+        void catalogChanged(Catalog catalog);
+    }
+
+    @Autowired
+    private ContentstackService contentstackService;
+
+    @Autowired
+    private StageTimer stageTimer;
+
+    @Autowired
+    private InvalidationBus bus;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.retry.interval.ms:5000}")
+    private long retryIntervalMillis;
+
+    @Value("${cluster.leader.lease.ms:15000}")
+    private long leaseMillis;
+
+    @Value("${cluster.snapshot.ttl.ms:86400000}")
+    private long snapshotTtlMillis;
+
+    private final List<CatalogListener> listeners = new CopyOnWriteArrayList<>();
+    private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    private volatile Catalog catalog;
+    private volatile long lastFailedLoadMillis;
+    private volatile boolean leader = true;
+    private volatile boolean reshareRequested;
+    private long sharedAtMillis;
+    private long askedLeaderAtMillis;
+
+    @PostConstruct
+    void init() {
+        bus.subscribe(VERSION_CHANNEL, version -> refresher.execute(() -> adopt(version)));
+        bus.subscribe(REFRESH_CHANNEL, replica -> {
+            if (leader) {
+                reshareRequested = true;  // The asker may be missing the current version's snapshot
+                queueRefresh();
+            }
+        });
+        renewLeadership();
+        Gauge.builder("streampick.cluster.leader", this, service -> service.leader ? 1 : 0)
+            .description("1 if this replica refreshes the catalog for the cluster")
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * The current catalog; loads it if nothing has been loaded yet
+     *
+     * @return The catalog, {@link Catalog#EMPTY} if it has never loaded successfully
+     */
+    public Catalog getCatalog() {
+        Catalog current = catalog;
+        if (current == null) {
+            current = loadFirst();
+        }
+        stageTimer.tag("catalog.version", current.getVersion());
+        return current;
+    }
+
+    /**
+     * The current catalog if one has been loaded, without ever triggering a load
+     */
+    public Catalog peekCatalog() {
+        Catalog current = catalog;
+        return current != null ? current : Catalog.EMPTY;
+    }
+
+    /**
+     * All movies in the catalog (unmodifiable)
+     */
+    public List<Movie> getAllMovies() {
+        return getCatalog().getMovies();
+    }
+
+    /**
+     * Movies tagged with a mood (unmodifiable)
+     *
+     * @param mood The mood to filter by, case-insensitive
+     * @return Matching movies, empty if none
+     */
+    public List<Movie> getMoviesByMood(String mood) {
+        if (mood == null || mood.trim().isEmpty()) {
+            log.warn("Mood parameter is null or empty");
+            return List.of();
+        }
+        List<Movie> movies = getCatalog().getMoviesByMood(mood);
+        log.info("Found {} movies for mood: {}", movies.size(), mood);
+        return movies;
+    }
+
+    public void addListener(CatalogListener listener) {
+        listeners.add(listener);
+    }
+
+    @Scheduled(initialDelayString = "${catalog.refresh.interval.ms:60000}",
+            fixedDelayString = "${catalog.refresh.interval.ms:60000}")
+    public void scheduledRefresh() {
+        if (leader) {
+            refresh();
+        } else {
+            followLatest();
+        }
+    }
+
+    /**
+     * Take or keep the refresh lease; without a reachable bus, act as leader
+     */
+    @Scheduled(initialDelayString = "${cluster.leader.renew.ms:5000}",
+            fixedDelayString = "${cluster.leader.renew.ms:5000}")
+    public void renewLeadership() {
+        boolean was = leader;
+        try {
+            leader = bus.tryAcquireLease(REFRESH_LEASE, leaseMillis);
+        } catch (RuntimeException e) {
+            leader = true;
+            if (!was) {
+                log.warn("Cluster bus unreachable, refreshing the catalog from Contentstack here: {}", e.getMessage());
+            }
+        }
+        if (leader != was) {
+            log.info("Replica {} is {} catalog refresh leader", bus.replicaId(), leader ? "now the" : "no longer the");
+        }
+    }
+
+    public boolean isLeader() {
+        return leader;
+    }
+
+    /**
+     * Refresh in the background (e.g. after a publish); requests made while one is
+     * queued are coalesced into it. A follower asks the leader to do it instead.
+     */
+    public void requestRefresh() {
+        if (leader) {
+            queueRefresh();
+        } else {
+            bus.publish(REFRESH_CHANNEL, bus.replicaId());
+        }
+    }
+
+    /**
+     * Bring this replica up to the cluster's current version: the latest shared
+     * snapshot if there is one, else a fetch from Contentstack (shared only by the leader)
+     *
+     * @return true if a catalog is loaded
+     */
+    public boolean catchUp() {
+        if (followLatest()) {
+            return true;
+        }
+        return refresh();
+    }
+
+    private void queueRefresh() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                refreshQueued.set(false);
+                refresh();
+            });
+        }
+    }
+
+    /**
+     * Fetch the catalog now and swap it in if its version changed; the leader then
+     * shares it
+     *
+     * @return true if the fetch succeeded
+     */
+    public synchronized boolean refresh() {
+        Catalog fetched = contentstackService.fetchCatalog();
+        if (fetched == null) {
+            lastFailedLoadMillis = System.currentTimeMillis();
+            log.warn("Catalog refresh failed, keeping version {}", catalog != null ? catalog.getVersion() : "none");
+            return false;
+        }
+
+        Catalog previous = catalog;
+        boolean changed = previous == null || !fetched.getVersion().equals(previous.getVersion());
+        if (changed) {
+            swapIn(fetched, "contentstack");
+        }
+        if (leader) {
+            share(changed);
+        }
+        return true;
+    }
+
+    /**
+     * Store the current version on the bus and announce it when it changed or a
+     * follower asked; otherwise only keep the stored copy from expiring
+     */
+    private void share(boolean changed) {
+        if (!bus.isClustered()) {
+            return;
+        }
+        boolean requested = reshareRequested;
+        reshareRequested = false;
+        long now = System.currentTimeMillis();
+        if (!changed && !requested && now - sharedAtMillis < snapshotTtlMillis / 2) {
+            return;
+        }
+        Catalog current = catalog;
+        byte[] snapshot = CatalogSnapshotCodec.encode(current);
+        bus.put(SNAPSHOT_KEY_PREFIX + current.getVersion(), snapshot, snapshotTtlMillis);
+        bus.put(LATEST_KEY, current.getVersion().getBytes(StandardCharsets.UTF_8), snapshotTtlMillis);
+        sharedAtMillis = now;
+        if (changed || requested) {
+            bus.publish(VERSION_CHANNEL, current.getVersion());
+            log.info("Shared catalog version {} with the cluster ({} bytes)", current.getVersion(), snapshot.length);
+        }
+    }
+
+    /**
+     * Adopt the version the cluster last shared, if it differs from ours
+     *
+     * @return true if a catalog is loaded afterwards and it is the shared version
+     */
+    private boolean followLatest() {
+        if (!bus.isClustered()) {
+            return false;
+        }
+        byte[] latest = bus.get(LATEST_KEY);
+        if (latest == null) {
+            return false;
+        }
+        String version = new String(latest, StandardCharsets.UTF_8);
+        adopt(version);
+        Catalog current = catalog;
+        return current != null && version.equals(current.getVersion());
+    }
+
+    /**
+     * Swap in an announced version from its shared snapshot. If the snapshot is gone,
+     * the leader fetches from Contentstack; a follower asks the leader to share again
+     * and keeps its version until then.
+     */
+    private synchronized void adopt(String version) {
+        Catalog current = catalog;
+        if (current != null && version.equals(current.getVersion())) {
+            return;
+        }
+        byte[] snapshot = bus.get(SNAPSHOT_KEY_PREFIX + version);
+        if (snapshot != null) {
+            try {
+                swapIn(CatalogSnapshotCodec.decode(snapshot), "cluster");
+                return;
+            } catch (IOException e) {
+                log.warn("Shared catalog version {} is unreadable: {}", version, e.getMessage());
+            }
+        }
+        if (leader) {
+            log.info("Catalog version {} isn't shared, fetching from Contentstack", version);
+            refresh();
+        } else if (System.currentTimeMillis() - askedLeaderAtMillis >= leaseMillis) {
+            // At most once per lease period, so a snapshot that won't store can't loop the leader
+            log.info("Catalog version {} isn't shared, asking the leader for it", version);
+            askedLeaderAtMillis = System.currentTimeMillis();
+            bus.publish(REFRESH_CHANNEL, bus.replicaId());
+        }
+    }
+
+    private synchronized void swapIn(Catalog loaded, String source) {
+        catalog = loaded;
+        meterRegistry.counter("streampick.catalog.loads", "source", source).increment();
+        log.info("Catalog version {} loaded from {} ({} movies)", loaded.getVersion(), source, loaded.size());
+        for (CatalogListener listener : listeners) {
+            try {
+                listener.catalogChanged(loaded);
+            } catch (RuntimeException e) {
+                log.error("Catalog listener failed for version {}", loaded.getVersion(), e);
+            }
+        }
+    }
+
+    private synchronized Catalog loadFirst() {
+        if (catalog != null) {
+            return catalog;  // Loaded while we waited
+        }
+        if (System.currentTimeMillis() - lastFailedLoadMillis < retryIntervalMillis) {
+            return Catalog.EMPTY;
+        }
+        return catchUp() ? catalog : Catalog.EMPTY;
+    }
+}
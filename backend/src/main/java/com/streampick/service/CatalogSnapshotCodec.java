@@ -0,0 +1,60 @@
+package com.streampick.service;
+
+import com.google.gson.Gson;
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Catalog snapshot as gzipped JSON, for replicas to share over the cluster bus
+ *
+ * Movies are written with their Contentstack field names (the Gson mapping they were
+ * read with), so a decoded snapshot is the same catalog as a fresh fetch.
+ */
+final class CatalogSnapshotCodec {
+
+    private static final Gson GSON = new Gson();
+
+    private record Snapshot(String version, long loadedAtMillis, List<Movie> movies) {
+    }
+
+    private CatalogSnapshotCodec() {
+    }
+
+    static byte[] encode(Catalog catalog) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (Writer out = new OutputStreamWriter(new GZIPOutputStream(bytes), StandardCharsets.UTF_8)) {
+            GSON.toJson(new Snapshot(catalog.getVersion(), catalog.getLoadedAtMillis(), catalog.getMovies()), out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the data isn't a snapshot
+     */
+    static Catalog decode(byte[] data) throws IOException {
+        try (Reader in = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(data)), StandardCharsets.UTF_8)) {
+            Snapshot snapshot = GSON.fromJson(in, Snapshot.class);
+            if (snapshot == null || snapshot.version() == null || snapshot.movies() == null) {
+                throw new IOException("Empty catalog snapshot");
+            }
+            return new Catalog(snapshot.version(), snapshot.movies(), snapshot.loadedAtMillis());
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed catalog snapshot: " + e.getMessage(), e);
+        }
+    }
+}
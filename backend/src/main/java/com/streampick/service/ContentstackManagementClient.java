@@ -0,0 +1,256 @@
+package com.streampick.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import okhttp3.ConnectionPool;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared Contentstack Management API client
+ *
+ * Built once at startup: every call goes through one OkHttpClient, so they share its
+ * connection pool (kept-alive TLS connections), and at most
+ * {@code max-requests-per-host} of them are in flight at once. Entry URLs are
+ * resolved once per content type and cached, and every request carries the same
+ * {@code api_key}/{@code authorization} pair. Requests answered with 429 or 5xx (or
+ * failing to connect) are retried with exponential backoff and full jitter, honoring
+ * {@code Retry-After} when Contentstack sends one.
+ */
+@Service
+public class ContentstackManagementClient {
+
+    private static final Logger log = LoggerFactory.getLogger(ContentstackManagementClient.class);
+
+    @Value("${contentstack.api.key}")
+    private String apiKey;
+
+    @Value("${contentstack.management.token}")
+    private String managementToken;
+
+    // host[:port]
+    @Value("${contentstack.management.host:api.contentstack.io}")
+    private String managementHost;
+
+    @Value("${contentstack.management.pool.max-idle:16}")
+    private int maxIdleConnections;
+
+    @Value("${contentstack.management.pool.keep-alive.seconds:300}")
+    private long keepAliveSeconds;
+
+    @Value("${contentstack.management.max-requests-per-host:16}")
+    private int maxRequestsPerHost;
+
+    @Value("${contentstack.management.timeout.connect.ms:5000}")
+    private long connectTimeoutMillis;
+
+    @Value("${contentstack.management.timeout.read.ms:30000}")
+    private long readTimeoutMillis;
+
+    @Value("${contentstack.management.timeout.write.ms:30000}")
+    private long writeTimeoutMillis;
+
+    @Value("${contentstack.management.retry.max-attempts:4}")
+    private int maxAttempts;
+
+    @Value("${contentstack.management.retry.backoff.ms:250}")
+    private long retryBackoffMillis;
+
+    @Value("${contentstack.management.retry.max-backoff.ms:5000}")
+    private long maxRetryBackoffMillis;
+
+    private OkHttpClient httpClient;
+
+    // Calls are synchronous (execute()), so the dispatcher's per-host limit never applies
+    private Semaphore inFlight;
+
+    // Content type UID -> .../content_types/{uid}/entries
+    private final Map<String, HttpUrl> entriesUrls = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        inFlight = new Semaphore(maxRequestsPerHost, true);
+
+        httpClient = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(maxIdleConnections, keepAliveSeconds, TimeUnit.SECONDS))
+            .connectTimeout(connectTimeoutMillis, TimeUnit.MILLISECONDS)
+            .readTimeout(readTimeoutMillis, TimeUnit.MILLISECONDS)
+            .writeTimeout(writeTimeoutMillis, TimeUnit.MILLISECONDS)
+            .addInterceptor(this::retry)
+            .build();
+
+        log.info("Contentstack Management client for {} (pool {} idle / {}s, {} per host, {} attempts)",
+            managementHost, maxIdleConnections, keepAliveSeconds, maxRequestsPerHost, maxAttempts);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        httpClient.dispatcher().executorService().shutdown();
+        httpClient.connectionPool().evictAll();
+    }
+
+    /**
+     * Open a pooled connection (DNS, TCP and TLS) ahead of the first real call
+     *
+     * @return HTTP status of a minimal content type listing
+     * @throws IOException if Contentstack can't be reached
+     */
+    public int warmUp() throws IOException {
+        HttpUrl url = HttpUrl.get("https://" + managementHost)
+            .newBuilder()
+            .addPathSegments("v3/content_types")
+            .addQueryParameter("limit", "1")
+            .build();
+        Request request = new Request.Builder()
+            .url(url)
+            .header("api_key", apiKey)
+            .header("authorization", managementToken)
+            .get()
+            .build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            return response.code();
+        }
+    }
+
+    /**
+     * Fetch an entry
+     *
+     * @return The response body, to be closed by the caller
+     * @throws IOException if the request fails after retries or returns an error
+     */
+    public ResponseBody fetchEntry(String contentType, String entryUid) throws IOException {
+        Request request = request(contentType, entryUid).get().build();
+        Response response = httpClient.newCall(request).execute();
+        if (!response.isSuccessful()) {
+            try (response) {
+                throw new IOException("Failed to fetch entry " + entryUid + ": " + response.code() + " - " + errorBody(response));
+            }
+        }
+        return response.body();
+    }
+
+    /**
+     * Replace an entry. The body may be written more than once if the request is retried.
+     *
+     * @return true if Contentstack accepted the update
+     * @throws IOException if the request could not be completed
+     */
+    public boolean updateEntry(String contentType, String entryUid, RequestBody body) throws IOException {
+        Request request = request(contentType, entryUid).put(body).build();
+        try (Response response = httpClient.newCall(request).execute()) {
+            if (!response.isSuccessful()) {
+                log.error("Failed to update entry {}: {} - {}", entryUid, response.code(), errorBody(response));
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private Request.Builder request(String contentType, String entryUid) {
+        HttpUrl entries = entriesUrls.computeIfAbsent(contentType, uid -> HttpUrl.get("https://" + managementHost)
+            .newBuilder()
+            .addPathSegments("v3/content_types")
+            .addPathSegment(uid)
+            .addPathSegment("entries")
+            .build());
+
+        return new Request.Builder()
+            .url(entries.newBuilder().addPathSegment(entryUid).build())
+            .header("api_key", apiKey)
+            .header("authorization", managementToken);
+    }
+
+    private Response retry(Interceptor.Chain chain) throws IOException {
+        Request request = chain.request();
+        for (int attempt = 1; ; attempt++) {
+            Response response;
+            try {
+                response = proceed(chain, request);
+            } catch (InterruptedIOException e) {
+                throw e;  // Timeouts and cancellation are not retried
+            } catch (IOException e) {
+                if (attempt >= maxAttempts) {
+                    throw e;
+                }
+                log.warn("{} {} failed (attempt {}/{}): {}", request.method(), request.url().encodedPath(),
+                    attempt, maxAttempts, e.getMessage());
+                sleep(backoff(attempt, null));
+                continue;
+            }
+
+            int code = response.code();
+            if ((code != 429 && code < 500) || attempt >= maxAttempts) {
+                return response;
+            }
+
+            String retryAfter = response.header("Retry-After");
+            response.close();
+            log.warn("{} {} returned {} (attempt {}/{}), retrying", request.method(), request.url().encodedPath(),
+                code, attempt, maxAttempts);
+            sleep(backoff(attempt, retryAfter));
+        }
+    }
+
+    /**
+     * Full jitter: a random delay up to base * 2^(attempt - 1), capped; Retry-After wins if present
+     */
+    private long backoff(int attempt, String retryAfter) {
+        if (retryAfter != null) {
+            try {
+                return Math.min(Long.parseLong(retryAfter.trim()) * 1000, maxRetryBackoffMillis);
+            } catch (NumberFormatException e) {
+                // HTTP-date form: fall back to our own backoff
+            }
+        }
+        long ceiling = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * One attempt, holding one of the max-requests-per-host slots until the response
+     * headers arrive (not during backoff)
+     */
+    private Response proceed(Interceptor.Chain chain, Request request) throws IOException {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a request slot");
+        }
+        try {
+            return chain.proceed(request);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private static void sleep(long millis) throws IOException {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off");
+        }
+    }
+
+    private static String errorBody(Response response) throws IOException {
+        return response.body() != null ? response.body().string() : "Unknown error";
+    }
+}
@@ -2,10 +2,18 @@ package com.streampick.service;
 
 import com.contentstack.sdk.*;
 import com.google.gson.Gson;
+import com.streampick.model.Catalog;
 import com.streampick.model.Movie;
+import com.streampick.tracing.StageTimer;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -15,7 +23,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
-import java.util.stream.Collectors;
 
 /**
  * Service for fetching movies from Contentstack CMS
@@ -26,6 +33,23 @@ public class ContentstackService {
     
     private static final Logger log = LoggerFactory.getLogger(ContentstackService.class);
 
+    // Gson is thread-safe; building one per entry re-reflects Movie every time
+    private static final Gson GSON = new Gson();
+
+    // Fields Movie maps, plus updated_at for the catalog version (uid always comes back);
+    // system fields like ACL, publish_details and created_by stay out of the response
+    static final String[] CATALOG_FIELDS = {
+        "title", "year", "runtime", "rating", "genre", "mood_tags", "platforms",
+        "description", "ai_description", "image", "updated_at"};
+
+    // Summary tier: what filtering, search, scoring, similarity and list views need,
+    // descriptions included (ML and similarity features, search). Of the image file object
+    // only its url is projected; the rest (filename, size, dimensions, ACL, publish
+    // details, ...) is left to the detail tier (fetchMovie).
+    static final String[] SUMMARY_FIELDS = {
+        "title", "year", "runtime", "rating", "genre", "mood_tags", "platforms",
+        "description", "ai_description", "image.url", "updated_at"};
+
     @Value("${contentstack.api.key}")
     private String apiKey;
 
@@ -35,23 +59,170 @@ public class ContentstackService {
     @Value("${contentstack.environment}")
     private String environment;
 
+    // Delivery API host (e.g. eu-cdn.contentstack.com, or a local stand-in for load tests)
+    @Value("${contentstack.delivery.host:cdn.contentstack.io}")
+    private String deliveryHost;
+
+    // Two-tier catalog: summaries for every movie, details fetched per movie on demand
+    @Value("${catalog.details.lazy:true}")
+    private boolean lazyDetails;
+
+    // Same content type the subscriber write path uses
+    @Value("${contentstack.subscribers.content.type:users}")
+    private String subscribersContentType;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private StageTimer stageTimer;
+
+    private DistributionSummary entryCounts;
+
+    // Last successful catalog fetch, for the catalog size/age gauges
+    private volatile int catalogSize;
+    private volatile long catalogFetchedAtMillis;
+
+    // Content hash of the last successful fetch (entry UIDs and update times)
+    private volatile String catalogVersion;
+
+    @PostConstruct
+    void registerMetrics() {
+        entryCounts = DistributionSummary.builder("streampick.contentstack.entries")
+                .description("Entries returned per Contentstack query")
+                .tag("content_type", "movie")
+                .register(meterRegistry);
+        Gauge.builder("streampick.catalog.size", this, service -> service.catalogSize)
+                .description("Movies in the last successful catalog fetch")
+                .register(meterRegistry);
+        Gauge.builder("streampick.catalog.age", this, service -> service.catalogFetchedAtMillis == 0
+                        ? Double.NaN
+                        : (System.currentTimeMillis() - service.catalogFetchedAtMillis) / 1000.0)
+                .description("Seconds since the last successful catalog fetch")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fetch the whole movie catalog from Contentstack
+     * Requests read it through {@link CatalogService}, which keeps the latest snapshot
+     * @return The catalog, or null if the query failed or timed out
+     */
+    public Catalog fetchCatalog() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String[] outcome = {"error"};
+
+        List<Entry> entries;
+        try (StageTimer.Stage stage = stageTimer.start("contentstack")) {
+            entries = queryAllMovies(outcome);
+        }
+        sample.stop(meterRegistry.timer("streampick.contentstack.query",
+                "content_type", "movie", "outcome", outcome[0]));
+        if (!"success".equals(outcome[0])) {
+            return null;
+        }
+
+        List<Movie> movies;
+        try (StageTimer.Stage stage = stageTimer.start("map")) {
+            movies = mapEntries(entries);
+        }
+        entryCounts.record(movies.size());
+        catalogSize = movies.size();
+        catalogFetchedAtMillis = System.currentTimeMillis();
+        catalogVersion = versionOf(entries);
+        log.info("Fetched {} movies (catalog version {})", movies.size(), catalogVersion);
+        return new Catalog(catalogVersion, movies, catalogFetchedAtMillis);
+    }
+
+    /**
+     * Version of the last successfully fetched catalog, null before the first fetch
+     *
+     * Derived from the entries' UIDs and update times, so every replica that sees the
+     * same published content reports the same version.
+     */
+    public String getCatalogVersion() {
+        return catalogVersion;
+    }
+
     /**
-     * Get all movies from Contentstack
-     * @return List of all movies (empty list if none found or error occurs)
+     * Whether the catalog holds summaries only (see {@link #fetchMovie(String)})
      */
-    public List<Movie> getAllMovies() {
+    public boolean isLazyDetails() {
+        return lazyDetails;
+    }
+
+    /**
+     * Fetch one movie with every field (the detail tier)
+     * @param uid Movie entry UID
+     * @return The movie, or null if the fetch failed or timed out
+     */
+    public Movie fetchMovie(String uid) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        try (StageTimer.Stage stage = stageTimer.start("contentstack")) {
+            Entry entry = deliveryStack().contentType("movie").entry(uid);
+            entry.only(CATALOG_FIELDS);
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            final boolean[] success = {false};
+            entry.fetch(new EntryResultCallBack() {
+                @Override
+                public void onCompletion(ResponseType responseType, com.contentstack.sdk.Error error) {
+                    try {
+                        if (error == null) {
+                            success[0] = true;
+                        } else {
+                            log.error("Contentstack fetch of movie {} failed - Error Code: {}, Error Message: {}",
+                                    uid, error.getErrorCode(), error.getErrorMessage());
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                log.error("Contentstack fetch of movie {} timed out after 10 seconds", uid);
+                outcome = "timeout";
+                return null;
+            }
+            if (!success[0]) {
+                return null;
+            }
+            Movie movie = mapEntryToMovie(entry);
+            outcome = movie != null ? "success" : "error";
+            return movie;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.error("Error fetching movie {} from Contentstack", uid, e);
+            return null;
+        } finally {
+            sample.stop(meterRegistry.timer("streampick.contentstack.query",
+                    "content_type", "movie_detail", "outcome", outcome));
+        }
+    }
+
+    /**
+     * Query the "movie" content type
+     * @param outcome Set to "success", "timeout" or left as "error" for metrics
+     * @return The entries (empty list if none found or error occurs)
+     */
+    private List<Entry> queryAllMovies(String[] outcome) {
         log.info("Fetching all movies from Contentstack");
         
         try {
             // Initialize Contentstack Stack
-            Stack stack = Contentstack.stack(apiKey, deliveryToken, environment);
+            Stack stack = deliveryStack();
             
             // Query the "movie" content type
             Query query = stack.contentType("movie").query();
-            query.includeReference("image");
+            query.only(lazyDetails ? SUMMARY_FIELDS : CATALOG_FIELDS);
             
             // Use CountDownLatch to wait for async callback
-            final List<Movie> movies = new ArrayList<>();
+            final List<Entry> entries = new ArrayList<>();
             final CountDownLatch latch = new CountDownLatch(1);
             final boolean[] success = {false};
             
@@ -65,24 +236,16 @@ public class ContentstackService {
                             log.info("Response Type: {}", responseType);
                             log.info("Query Result: {}", queryResult);
                             
-                            List<Entry> entries = queryResult.getResultObjects();
-                            log.info("Number of entries returned: {}", entries != null ? entries.size() : 0);
+                            List<Entry> results = queryResult.getResultObjects();
+                            log.info("Number of entries returned: {}", results != null ? results.size() : 0);
                             
-                            if (entries != null && !entries.isEmpty()) {
-                                for (Entry entry : entries) {
-                                    try {
-                                        Movie movie = mapEntryToMovie(entry);
-                                        if (movie != null) {
-                                            movies.add(movie);
-                                        }
-                                    } catch (Exception e) {
-                                        log.error("Error mapping entry to movie: {}", entry.getUid(), e);
-                                    }
-                                }
+                            // Mapped on the calling thread, so mapping is timed as its own stage
+                            if (results != null) {
+                                entries.addAll(results);
                             }
                             
                             success[0] = true;
-                            log.info("Successfully fetched {} movies from Contentstack", movies.size());
+                            log.info("Successfully fetched {} entries from Contentstack", entries.size());
                         } else {
                             if (error != null) {
                                 log.error("Contentstack query failed - Error Code: {}, Error Message: {}", 
@@ -101,12 +264,13 @@ public class ContentstackService {
             // Wait for callback to complete (max 10 seconds)
             if (!latch.await(10, TimeUnit.SECONDS)) {
                 log.error("Contentstack query timeout after 10 seconds");
+                outcome[0] = "timeout";
                 return new ArrayList<>();
             }
             
             if (success[0]) {
-                log.info("Returning {} movies", movies.size());
-                return movies;
+                outcome[0] = "success";
+                return entries;
             } else {
                 log.warn("No movies fetched from Contentstack, returning empty list");
                 return new ArrayList<>();
@@ -122,35 +286,33 @@ public class ContentstackService {
         }
     }
 
+    private List<Movie> mapEntries(List<Entry> entries) {
+        List<Movie> movies = new ArrayList<>(entries.size());
+        for (Entry entry : entries) {
+            try {
+                Movie movie = mapEntryToMovie(entry);
+                if (movie != null) {
+                    movies.add(movie);
+                }
+            } catch (Exception e) {
+                log.error("Error mapping entry to movie: {}", entry.getUid(), e);
+            }
+        }
+        return movies;
+    }
+
     /**
-     * Get movies by mood
-     * @param mood The mood to filter by
-     * @return List of movies matching the mood (empty list if none found)
+     * Order-independent hash of the entries' UIDs and update times
      */
-    public List<Movie> getMoviesByMood(String mood) {
-        log.info("Fetching movies for mood: {}", mood);
-        
-        if (mood == null || mood.trim().isEmpty()) {
-            log.warn("Mood parameter is null or empty");
-            return new ArrayList<>();
-        }
-        
-        List<Movie> allMovies = getAllMovies();
-        
-        if (allMovies.isEmpty()) {
-            log.warn("No movies available to filter by mood");
-            return new ArrayList<>();
+    private static String versionOf(List<Entry> entries) {
+        long hash = entries.size();
+        for (Entry entry : entries) {
+            JSONObject json = entry.toJSON();
+            String updatedAt = json != null ? json.optString("updated_at") : "";
+            long h = (entry.getUid() + "@" + updatedAt).hashCode() * 0x9E3779B97F4A7C15L;
+            hash += h ^ (h >>> 29);
         }
-        
-        String moodLowerCase = mood.toLowerCase().trim();
-        List<Movie> filteredMovies = allMovies.stream()
-                .filter(movie -> movie.getMoodTags() != null && 
-                        movie.getMoodTags().stream()
-                                .anyMatch(tag -> tag.toLowerCase().equals(moodLowerCase)))
-                .collect(Collectors.toList());
-        
-        log.info("Found {} movies for mood: {}", filteredMovies.size(), mood);
-        return filteredMovies;
+        return Long.toHexString(hash);
     }
 
     /**
@@ -158,7 +320,7 @@ public class ContentstackService {
      * @param entry The Contentstack entry to map
      * @return Movie object, or null if mapping fails
      */
-    private Movie mapEntryToMovie(Entry entry) {
+    static Movie mapEntryToMovie(Entry entry) {
         try {
             if (entry == null) {
                 log.warn("Entry is null, cannot map to Movie");
@@ -171,8 +333,7 @@ public class ContentstackService {
                 return null;
             }
             
-            Gson gson = new Gson();
-            Movie movie = gson.fromJson(json.toString(), Movie.class);
+            Movie movie = mapJsonToMovie(json.toString());
             
             if (movie == null) {
                 log.warn("Gson returned null for entry: {}", entry.getUid());
@@ -189,6 +350,21 @@ public class ContentstackService {
         }
     }
 
+    private Stack deliveryStack() throws IllegalAccessException {
+        Config config = new Config();
+        config.setHost(deliveryHost);
+        return Contentstack.stack(apiKey, deliveryToken, environment, config);
+    }
+
+    /**
+     * Map the JSON of a movie entry to a Movie
+     * @param entryJson Entry JSON as returned by the Delivery API
+     * @return Movie object, or null for empty input
+     */
+    static Movie mapJsonToMovie(String entryJson) {
+        return GSON.fromJson(entryJson, Movie.class);
+    }
+
     /**
      * Get user details from subscribers entry
      * Note: This uses Delivery API (read-only)
@@ -198,8 +374,8 @@ public class ContentstackService {
         log.info("Fetching user details from Contentstack");
         
         try {
-            Stack stack = Contentstack.stack(apiKey, deliveryToken, environment);
-            Query query = stack.contentType("subscribers").query();
+            Stack stack = deliveryStack();
+            Query query = stack.contentType(subscribersContentType).query();
             // Note: user_details is a modular block, not a reference
             
             final List<Map<String, Object>> userDetailsList = new ArrayList<>();
@@ -0,0 +1,145 @@
+package com.streampick.service;
+
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Detail tier of the catalog: full movies (with the whole image file object), fetched
+ * from Contentstack per UID when asked for
+ *
+ * Details are kept in an LRU cache bounded by {@code catalog.details.cache.size}. A
+ * cached copy is used while its entry's {@code updated_at} matches the catalog
+ * summary, so a republished movie is fetched again and nothing else is evicted on a
+ * catalog refresh. Concurrent requests for a movie that isn't cached share one fetch.
+ * With {@code catalog.details.lazy=false} the catalog already holds full movies and
+ * they are returned directly.
+ */
+@Service
+public class MovieDetailService {
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private ContentstackService contentstackService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${catalog.details.cache.size:500}")
+    private int cacheSize;
+
+    // Longer than the 10 s Contentstack fetch timeout, so waiters see its outcome
+    @Value("${catalog.details.wait.ms:12000}")
+    private long waitMillis;
+
+    private Map<String, Movie> cache;
+    private final ConcurrentHashMap<String, CompletableFuture<Movie>> inFlight = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Movie> eldest) {
+                return size() > cacheSize;
+            }
+        };
+        Gauge.builder("streampick.movie.details.cached", this, service -> service.cachedCount())
+            .description("Movie details in the per-entry cache")
+            .register(meterRegistry);
+    }
+
+    /**
+     * A movie with every field
+     *
+     * @param uid Movie UID
+     * @return The movie, or null if it isn't in the catalog
+     * @throws IllegalStateException if the details couldn't be fetched
+     */
+    public Movie getMovie(String uid) {
+        Catalog catalog = catalogService.getCatalog();
+        Movie summary = catalog.getMovie(uid);
+        if (summary == null) {
+            return null;
+        }
+        if (!contentstackService.isLazyDetails()) {
+            return summary;
+        }
+
+        Movie cached;
+        synchronized (cache) {
+            cached = cache.get(uid);
+        }
+        if (cached != null && Objects.equals(cached.getUpdatedAt(), summary.getUpdatedAt())) {
+            count("hit");
+            return cached;
+        }
+
+        CompletableFuture<Movie> mine = new CompletableFuture<>();
+        CompletableFuture<Movie> fetch = inFlight.putIfAbsent(uid, mine);
+        if (fetch != null) {
+            count("coalesced");
+            return await(uid, fetch);
+        }
+
+        count("miss");
+        try {
+            Movie movie = contentstackService.fetchMovie(uid);
+            if (movie != null) {
+                synchronized (cache) {
+                    cache.put(uid, movie);
+                }
+            }
+            mine.complete(movie);
+            return requireFetched(uid, movie);
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(uid, mine);
+        }
+    }
+
+    private Movie await(String uid, CompletableFuture<Movie> fetch) {
+        try {
+            return requireFetched(uid, fetch.get(waitMillis, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for details of movie " + uid);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Couldn't load details of movie " + uid, e);
+        }
+    }
+
+    private static Movie requireFetched(String uid, Movie movie) {
+        if (movie == null) {
+            throw new IllegalStateException("Couldn't load details of movie " + uid);
+        }
+        return movie;
+    }
+
+    private int cachedCount() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("streampick.movie.details", "result", result).increment();
+    }
+}
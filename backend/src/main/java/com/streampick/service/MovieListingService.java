@@ -0,0 +1,130 @@
+package com.streampick.service;
+
+import com.streampick.dto.MovieCard;
+import com.streampick.dto.MoviePage;
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Paged, projected listing of the catalog
+ * 
+ * Pages follow catalog order. The cursor holds the position after the last movie
+ * returned and that movie's UID: if the catalog changes between pages the UID is
+ * looked up again, so a page neither repeats nor skips movies around it.
+ */
+@Service
+@RequiredArgsConstructor
+public class MovieListingService {
+
+    public enum View { FULL, CARD }
+
+    // Projectable fields, by their JSON name
+    private static final Map<String, Function<Movie, Object>> FIELDS = new LinkedHashMap<>();
+
+    static {
+        FIELDS.put("uid", Movie::getUid);
+        FIELDS.put("title", Movie::getTitle);
+        FIELDS.put("year", Movie::getYear);
+        FIELDS.put("runtime", Movie::getRuntime);
+        FIELDS.put("rating", Movie::getRating);
+        FIELDS.put("genre", Movie::getGenre);
+        FIELDS.put("moodTags", Movie::getMoodTags);
+        FIELDS.put("platforms", Movie::getPlatforms);
+        FIELDS.put("description", Movie::getDescription);
+        FIELDS.put("aiDescription", Movie::getAiDescription);
+        FIELDS.put("image", Movie::getImage);
+        FIELDS.put("imageUrl", Movie::getImageUrl);
+    }
+
+    private final CatalogService catalogService;
+
+    /**
+     * One page of movies
+     * 
+     * @param cursor Cursor from the previous page, null for the first
+     * @param limit Page size
+     * @param view Representation of each movie, ignored if fields are given
+     * @param fields JSON field names to keep, null or empty for the whole view
+     * @return The page, with nextCursor set if there are more movies
+     * @throws IllegalArgumentException if the cursor or a field name is invalid
+     */
+    public MoviePage page(String cursor, int limit, View view, List<String> fields) {
+        Function<Movie, Object> representation = representation(view, fields);
+        Catalog catalog = catalogService.getCatalog();
+        List<Movie> movies = catalog.getMovies();
+
+        int start = resolveCursor(cursor, catalog);
+        int end = Math.min(movies.size(), start + limit);
+        List<Object> items = new ArrayList<>(Math.max(0, end - start));
+        for (int i = start; i < end; i++) {
+            items.add(representation.apply(movies.get(i)));
+        }
+
+        return MoviePage.builder()
+                .total(movies.size())
+                .movies(items)
+                .nextCursor(end < movies.size() ? encodeCursor(end, movies.get(end - 1).getUid()) : null)
+                .build();
+    }
+
+    private static Function<Movie, Object> representation(View view, List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return view == View.CARD ? MovieCard::of : movie -> movie;
+        }
+        List<String> names = new ArrayList<>();
+        List<Function<Movie, Object>> getters = new ArrayList<>();
+        for (String field : fields) {
+            String name = field.trim();
+            Function<Movie, Object> getter = FIELDS.get(name);
+            if (getter == null) {
+                throw new IllegalArgumentException("Unknown field: " + name + " (one of " + FIELDS.keySet() + ")");
+            }
+            names.add(name);
+            getters.add(getter);
+        }
+        return movie -> {
+            Map<String, Object> projected = new LinkedHashMap<>();
+            for (int i = 0; i < names.size(); i++) {
+                projected.put(names.get(i), getters.get(i).apply(movie));
+            }
+            return projected;
+        };
+    }
+
+    private static int resolveCursor(String cursor, Catalog catalog) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int colon = decoded.indexOf(':');
+            int position = Integer.parseInt(decoded.substring(0, colon));
+            String lastUid = decoded.substring(colon + 1);
+            if (position >= 0) {
+                int moved = catalog.indexOf(lastUid);
+                if (moved >= 0) {
+                    return moved + 1;  // Same or new position of the last movie returned
+                }
+                return Math.min(position, catalog.size());  // That movie is gone: best effort
+            }
+        } catch (RuntimeException e) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+
+    private static String encodeCursor(int position, String lastUid) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((position + ":" + (lastUid != null ? lastUid : "")).getBytes(StandardCharsets.UTF_8));
+    }
+}
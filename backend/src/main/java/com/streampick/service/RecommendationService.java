@@ -5,14 +5,26 @@ import com.streampick.dto.PythonRecommendationResponse;
 import com.streampick.dto.RecommendationRequest;
 import com.streampick.dto.RecommendationResponse;
 import com.streampick.model.Movie;
+import com.streampick.profile.Personalization;
+import com.streampick.profile.ProfileStore;
+import com.streampick.search.FilterService;
+import com.streampick.tracing.StageTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -21,17 +33,47 @@ import java.util.stream.Collectors;
  * Strategy:
  * 1. Try to call Python ML service (content-based filtering with TF-IDF + cosine similarity)
  * 2. If Python fails, fallback to simple Java-based scoring
+ * 
+ * An optional MovieFilter on the request (platforms, genres, runtime, rating) narrows
+ * the candidates before either step.
+ * 
+ * Under overload (see RecommendationAdmission) requests skip the ML service: they get
+ * a recent ML result for the same mood and time if one is cached, else the fallback.
+ * 
+ * Requests with a userId add to that user's profile (see ProfileStore), and the
+ * fallback blends the profile into its ranking; the ML service gets the userId as is.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class RecommendationService {
 
-    private final ContentstackService contentstackService;
+    private final CatalogService catalogService;
     private final RestTemplate restTemplate;
+    private final MeterRegistry meterRegistry;
+    private final StageTimer stageTimer;
+    private final FilterService filterService;
+    private final ProfileStore profileStore;
 
     @Value("${python.recommendation.service.url}")
     private String pythonServiceUrl;
+
+    @Value("${recommendation.cache.size:1000}")
+    private int cacheSize;
+
+    // "mood|timeAvailable" -> last ML result, cleared on every new catalog version
+    private Map<String, RecommendationResponse> recentResults;
+
+    @PostConstruct
+    void init() {
+        recentResults = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RecommendationResponse> eldest) {
+                return size() > cacheSize;
+            }
+        });
+        catalogService.addListener(catalog -> recentResults.clear());
+    }
     
     /**
      * Generate movie recommendations based on user preferences
@@ -42,27 +84,84 @@ public class RecommendationService {
     public RecommendationResponse getRecommendation(RecommendationRequest request) {
         log.info("Generating recommendations for mood: {}, time: {} mins", 
                 request.getMood(), request.getTimeAvailable());
+        profileStore.recordChoice(request.getUserId(), request.getMood(), request.getTimeAvailable());
         try{
-            return getRecommendationsFromPython(request);
+            RecommendationResponse response = getRecommendationsFromPython(request);
+            // ML results don't depend on the user (profiles only shape the fallback), so any request's result is reusable
+            if (!hasFilter(request)) {
+                recentResults.put(cacheKey(request), response);
+            }
+            return countBySource(response);
         } catch (Exception e) {
             log.warn("Python service unavailable, using fallback: {}", e.getMessage());
             // Fallback to simple Java-based recommendations
-            return getRecommendationsFromJavaFallback(request);
+            return fallback(request);
         }
     }
 
+    /**
+     * Recommendations without calling the ML service, for when the service is overloaded
+     * 
+     * @param request User's mood and available time
+     * @return A cached ML result for the same mood and time ("cached"), else the fallback
+     */
+    public RecommendationResponse getDegradedRecommendation(RecommendationRequest request) {
+        profileStore.recordChoice(request.getUserId(), request.getMood(), request.getTimeAvailable());
+        RecommendationResponse cached = hasFilter(request) ? null : recentResults.get(cacheKey(request));
+        if (cached != null) {
+            return countBySource(RecommendationResponse.builder()
+                    .recommendations(cached.getRecommendations())
+                    .totalCandidates(cached.getTotalCandidates())
+                    .source("cached")
+                    .build());
+        }
+        return fallback(request);
+    }
+
+    private RecommendationResponse fallback(RecommendationRequest request) {
+        try {
+            return countBySource(getRecommendationsFromJavaFallback(request));
+        } catch (RuntimeException fallbackError) {
+            meterRegistry.counter("streampick.recommendations", "source", "none").increment();
+            stageTimer.tag("recommendation.source", "none");
+            throw fallbackError;
+        }
+    }
+
+    private static boolean hasFilter(RecommendationRequest request) {
+        return request.getFilter() != null && !request.getFilter().isEmpty();
+    }
+
+    private static String cacheKey(RecommendationRequest request) {
+        return request.getMood().trim().toLowerCase(Locale.ROOT) + "|" + request.getTimeAvailable();
+    }
+
+    /**
+     * Count responses by source, so the fallback activation rate is fallback / total
+     */
+    private RecommendationResponse countBySource(RecommendationResponse response) {
+        meterRegistry.counter("streampick.recommendations", "source", response.getSource()).increment();
+        stageTimer.tag("recommendation.source", response.getSource());
+        return response;
+    }
+
     private RecommendationResponse getRecommendationsFromPython(RecommendationRequest request) {
 
         String url = pythonServiceUrl + "/recommend";
 
-        // Step 1: Fetch ALL movies from Contentstack (with images!)
-        List<Movie> allMovies = contentstackService.getAllMovies();
-        log.info("Fetched {} movies from Contentstack", allMovies.size());
+        // Step 1: All movies from the catalog snapshot (with images!), narrowed by the request's filter
+        List<Movie> allMovies = hasFilter(request)
+                ? filterService.matching(request.getFilter())
+                : catalogService.getAllMovies();
+        log.info("Using {} movies from the catalog", allMovies.size());
         
         // Step 2: Convert to Python format
-        List<PythonRecommendationRequest.MovieInput> movieInputs = allMovies.stream()
-                .map(this::convertToMovieInput)
-                .collect(Collectors.toList());
+        List<PythonRecommendationRequest.MovieInput> movieInputs;
+        try (StageTimer.Stage stage = stageTimer.start("ml-request")) {
+            movieInputs = allMovies.stream()
+                    .map(this::convertToMovieInput)
+                    .collect(Collectors.toList());
+        }
         
         // Step 3: Send to Python ML service
         PythonRecommendationRequest pythonRequest = PythonRecommendationRequest.builder()
@@ -74,16 +173,33 @@ public class RecommendationService {
             .build();
 
         log.info("Sending {} movies to Python ML service", movieInputs.size());
-        PythonRecommendationResponse response = restTemplate.postForObject(url, pythonRequest, PythonRecommendationResponse.class);
+        meterRegistry.summary("streampick.ml.request.movies").record(movieInputs.size());
         
-        if (response == null || response.getRecommendations() == null) {
-            throw new RuntimeException("Python service returned null response");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "error";
+        PythonRecommendationResponse response;
+        try (StageTimer.Stage stage = stageTimer.start("ml")) {
+            try {
+                response = restTemplate.postForObject(url, pythonRequest, PythonRecommendationResponse.class);
+            } catch (RuntimeException e) {
+                stage.error(e);
+                throw e;
+            }
+            if (response == null || response.getRecommendations() == null) {
+                outcome = "empty";
+                throw new RuntimeException("Python service returned null response");
+            }
+            outcome = "success";
+        } finally {
+            sample.stop(meterRegistry.timer("streampick.ml.request", "outcome", outcome));
         }
         
         log.info("Python service returned {} recommendations", response.getRecommendations().size());
         
         // Convert Python response to our response format
-        return convertPythonResponse(response);
+        try (StageTimer.Stage stage = stageTimer.start("ml-response")) {
+            return convertPythonResponse(response, allMovies);
+        }
     }
     
     /**
@@ -91,6 +207,7 @@ public class RecommendationService {
      */
     private PythonRecommendationRequest.MovieInput convertToMovieInput(Movie movie) {
         return PythonRecommendationRequest.MovieInput.builder()
+                .uid(movie.getUid())
                 .title(movie.getTitle())
                 .year(movie.getYear())
                 .runtime(movie.getRuntime())
@@ -104,10 +221,17 @@ public class RecommendationService {
                 .build();
     }
 
-    private RecommendationResponse convertPythonResponse(PythonRecommendationResponse pythonResponse) {
+    private RecommendationResponse convertPythonResponse(PythonRecommendationResponse pythonResponse,
+            List<Movie> sentMovies) {
+        // Python echoes the UIDs it was sent; an older ML service doesn't, so fall back to
+        // title and year (a title alone is ambiguous for remakes)
+        Map<String, String> uidsByTitleAndYear = new HashMap<>();
+        for (Movie movie : sentMovies) {
+            uidsByTitleAndYear.putIfAbsent(movie.getTitle() + "\u0000" + movie.getYear(), movie.getUid());
+        }
         List<RecommendationResponse.MovieRecommendation> recommendations = 
                 pythonResponse.getRecommendations().stream()
-                .map(this::convertPythonRecommendation)
+                .map(pythonRec -> convertPythonRecommendation(pythonRec, uidsByTitleAndYear))
                 .collect(Collectors.toList());
         
         return RecommendationResponse.builder()
@@ -118,12 +242,15 @@ public class RecommendationService {
     }
 
     private RecommendationResponse.MovieRecommendation convertPythonRecommendation(
-            PythonRecommendationResponse.PythonRecommendation pythonRec) {
+            PythonRecommendationResponse.PythonRecommendation pythonRec, Map<String, String> uidsByTitleAndYear) {
         
         PythonRecommendationResponse.PythonMovie pythonMovie = pythonRec.getMovie();
         
         // Create Movie object (Python already has all data including image URL)
         Movie movie = new Movie();
+        movie.setUid(pythonMovie.getUid() != null
+                ? pythonMovie.getUid()
+                : uidsByTitleAndYear.get(pythonMovie.getTitle() + "\u0000" + pythonMovie.getYear()));
         movie.setTitle(pythonMovie.getTitle());
         movie.setYear(pythonMovie.getYear());
         movie.setRuntime(pythonMovie.getRuntime());
@@ -151,8 +278,13 @@ public class RecommendationService {
     private RecommendationResponse getRecommendationsFromJavaFallback(RecommendationRequest request) {
         log.info("Using Java fallback recommendation logic");
         
-        // Fetch candidate movies matching mood
-        List<Movie> candidates = contentstackService.getMoviesByMood(request.getMood());
+        // Fetch candidate movies matching mood (and the request's filter)
+        List<Movie> candidates = hasFilter(request)
+                ? filterService.matching(request.getFilter()).stream()
+                        .filter(movie -> movie.getMoodTags() != null && movie.getMoodTags().stream()
+                                .anyMatch(tag -> tag.equalsIgnoreCase(request.getMood())))
+                        .collect(Collectors.toList())
+                : catalogService.getMoviesByMood(request.getMood());
         
         if (candidates.isEmpty()) {
             log.warn("No movies found for mood: {}", request.getMood());
@@ -161,20 +293,12 @@ public class RecommendationService {
 
         log.info("Found {} candidate movies", candidates.size());
 
-        // Score and sort movies
-        List<Movie> scoredMovies = candidates.stream()
-                .sorted(Comparator.comparing((Movie m) -> calculateSimpleScore(m, request)).reversed())
-                .limit(5)  // Get top 5
-                .collect(Collectors.toList());
-        
-        // Convert to response format
-        List<RecommendationResponse.MovieRecommendation> recommendations = scoredMovies.stream()
-                .map(movie -> RecommendationResponse.MovieRecommendation.builder()
-                        .movie(movie)
-                        .aiReason(movie.getAiDescription())
-                        .matchScore(calculateSimpleScore(movie, request))
-                        .build())
-                .collect(Collectors.toList());
+        // Score, sort and convert to response format
+        List<RecommendationResponse.MovieRecommendation> recommendations;
+        try (StageTimer.Stage stage = stageTimer.start("rank")) {
+            recommendations = rankFallback(candidates, request,
+                    profileStore.personalization(request.getUserId()), 5);
+        }
         
         return RecommendationResponse.builder()
                 .recommendations(recommendations)
@@ -183,10 +307,41 @@ public class RecommendationService {
                 .build();
     }
 
+    /**
+     * Rank candidates with the fallback score, scoring each movie once
+     * 
+     * @param candidates Movies to rank
+     * @param request User's mood and available time
+     * @param topN Number of recommendations to return
+     * @return Best-scoring movies first
+     */
+    static List<RecommendationResponse.MovieRecommendation> rankFallback(
+            List<Movie> candidates, RecommendationRequest request, int topN) {
+        return rankFallback(candidates, request, Personalization.NONE, topN);
+    }
+
+    /**
+     * Rank candidates with the fallback score blended with the user's profile
+     * 
+     * @param personalization The user's profile, {@link Personalization#NONE} for none
+     */
+    static List<RecommendationResponse.MovieRecommendation> rankFallback(
+            List<Movie> candidates, RecommendationRequest request, Personalization personalization, int topN) {
+        return candidates.stream()
+                .map(movie -> RecommendationResponse.MovieRecommendation.builder()
+                        .movie(movie)
+                        .aiReason(movie.getAiDescription())
+                        .matchScore(personalization.blend(calculateSimpleScore(movie, request), 100.0, movie))
+                        .build())
+                .sorted(Comparator.comparing(RecommendationResponse.MovieRecommendation::getMatchScore).reversed())
+                .limit(topN)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Simple scoring algorithm for fallback
      */
-    private double calculateSimpleScore(Movie movie, RecommendationRequest request) {
+    static double calculateSimpleScore(Movie movie, RecommendationRequest request) {
         double score = 0.0;
         
         // Mood match (50 points)
@@ -0,0 +1,305 @@
+package com.streampick.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streampick.dto.Subscriber;
+import com.streampick.dto.SubscriberImportResponse;
+import com.streampick.util.MoodMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Bulk subscriber import from a streamed CSV or NDJSON upload
+ *
+ * Rows are parsed one at a time, validated, and committed to the {@link SubscriberLog}
+ * in large batches (one group commit each); the replicator then writes each Contentstack
+ * shard once per batch instead of once per subscriber. Emails already in the log, or
+ * repeated in the upload, are reported as duplicates.
+ *
+ * CSV: optional header naming the columns {@code name}, {@code email},
+ * {@code preferred_moods}; without one the columns are taken in that order. Moods in a
+ * field are separated by {@code ;}, {@code |} or (quoted) commas.
+ * NDJSON: one {@code {"name", "email", "preferredMoods"}} object per line; moods may
+ * be an array or a comma-separated string, {@code preferred_moods} is accepted too.
+ */
+@Service
+public class SubscriberImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriberImporter.class);
+
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final Pattern MOOD_SEPARATOR = Pattern.compile("\\s*[,;|]\\s*");
+
+    public enum Format { CSV, NDJSON }
+
+    @Autowired
+    private SubscriberLog subscriberLog;
+
+    @Autowired
+    private SubscriberReplicator subscriberReplicator;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${subscriber.import.batch.size:5000}")
+    private int batchSize;
+
+    @Value("${subscriber.import.max.errors:1000}")
+    private int maxErrors;
+
+    /**
+     * Import subscribers from an upload
+     *
+     * @param in Request body, read once and not buffered as a whole
+     * @param format Body format
+     * @return Counts and per-row errors
+     * @throws IOException if the body can't be read or a batch can't be stored durably
+     *         (batches committed before that stay imported)
+     */
+    public SubscriberImportResponse importSubscribers(InputStream in, Format format) throws IOException {
+        long start = System.currentTimeMillis();
+        ImportRun run = new ImportRun();
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        if (format == Format.CSV) {
+            readCsv(reader, run);
+        } else {
+            readNdjson(reader, run);
+        }
+        run.flush();
+        run.errors.sort(Comparator.comparingInt(SubscriberImportResponse.RowError::getRow));
+
+        log.info("Imported {} of {} subscriber rows ({} duplicates, {} invalid) in {} ms",
+            run.imported, run.rows, run.duplicates, run.invalid, System.currentTimeMillis() - start);
+
+        return SubscriberImportResponse.builder()
+            .success(true)
+            .totalRows(run.rows)
+            .imported(run.imported)
+            .duplicates(run.duplicates)
+            .invalid(run.invalid)
+            .errors(run.errors)
+            .errorsTruncated(run.errorsTruncated)
+            .elapsedMillis(System.currentTimeMillis() - start)
+            .build();
+    }
+
+    private void readCsv(BufferedReader reader, ImportRun run) throws IOException {
+        int nameColumn = 0;
+        int emailColumn = 1;
+        int moodsColumn = 2;
+
+        List<String> record = readCsvRecord(reader);
+        if (record != null && record.stream().anyMatch(field -> field.trim().equalsIgnoreCase("email"))) {
+            nameColumn = emailColumn = moodsColumn = -1;
+            for (int i = 0; i < record.size(); i++) {
+                switch (record.get(i).trim().toLowerCase(Locale.ROOT).replace(" ", "_")) {
+                    case "name" -> nameColumn = i;
+                    case "email" -> emailColumn = i;
+                    case "preferred_moods", "preferredmoods", "moods" -> moodsColumn = i;
+                    default -> { }
+                }
+            }
+            record = readCsvRecord(reader);
+        }
+
+        while (record != null) {
+            if (!(record.size() == 1 && record.get(0).isBlank())) {
+                String moods = field(record, moodsColumn);
+                run.add(field(record, nameColumn), field(record, emailColumn),
+                    moods.isBlank() ? List.of() : List.of(MOOD_SEPARATOR.split(moods.trim())));
+            }
+            record = readCsvRecord(reader);
+        }
+    }
+
+    private void readNdjson(BufferedReader reader, ImportRun run) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(line);
+            } catch (JsonProcessingException e) {
+                run.reject(null, "Malformed JSON: " + e.getOriginalMessage());
+                continue;
+            }
+            if (!node.isObject()) {
+                run.reject(null, "Expected a JSON object");
+                continue;
+            }
+
+            JsonNode moodsNode = node.has("preferredMoods") ? node.get("preferredMoods") : node.get("preferred_moods");
+            List<String> moods = new ArrayList<>();
+            if (moodsNode != null && moodsNode.isArray()) {
+                moodsNode.forEach(mood -> moods.add(mood.asText()));
+            } else if (moodsNode != null && !moodsNode.isNull() && !moodsNode.asText().isBlank()) {
+                moods.addAll(List.of(MOOD_SEPARATOR.split(moodsNode.asText().trim())));
+            }
+            run.add(node.path("name").asText(""), node.path("email").asText(""), moods);
+        }
+    }
+
+    private static String field(List<String> record, int column) {
+        return column >= 0 && column < record.size() ? record.get(column) : "";
+    }
+
+    /**
+     * Read one RFC 4180 record: quoted fields may contain commas, newlines and "" escapes
+     *
+     * @return The fields, or null at end of input
+     */
+    private static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * State of one import: the pending batch and the running counts
+     */
+    private class ImportRun {
+        private final String today = LocalDate.now().format(DateTimeFormatter.ISO_DATE);
+        private final List<Subscriber> batch = new ArrayList<>();
+        private final List<Integer> batchRows = new ArrayList<>();
+        private final List<SubscriberImportResponse.RowError> errors = new ArrayList<>();
+        private boolean errorsTruncated;
+        private int rows;
+        private int imported;
+        private int duplicates;
+        private int invalid;
+
+        void add(String name, String email, List<String> moodInputs) throws IOException {
+            rows++;
+            name = name.trim();
+            email = email.trim();
+
+            if (name.isEmpty()) {
+                invalid(email, "Name is required");
+                return;
+            }
+            if (email.isEmpty()) {
+                invalid(email, "Email is required");
+                return;
+            }
+            // Rejected per row so one oversized value can't fail the whole batch's log commit
+            String lengthError = new Subscriber(name, email, moodInputs).checkLengths();
+            if (lengthError != null) {
+                invalid(abbreviate(email), lengthError);
+                return;
+            }
+            if (!EMAIL.matcher(email).matches()) {
+                invalid(email, "Invalid email address");
+                return;
+            }
+
+            List<String> moods = new ArrayList<>();
+            for (String mood : MoodMapper.normalizeMoods(moodInputs)) {
+                if (!MoodMapper.getBackendMoods().contains(mood)) {
+                    invalid(email, "Unknown mood: " + mood);
+                    return;
+                }
+                if (!moods.contains(mood)) {
+                    moods.add(mood);
+                }
+            }
+
+            batch.add(new Subscriber(name, email, moods, today));
+            batchRows.add(rows);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(String email, String message) {
+            rows++;
+            invalid(email, message);
+        }
+
+        void flush() throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<SubscriberLog.LogRecord> records = subscriberLog.appendAll(batch, SubscriberLog.ORIGIN_LOCAL);
+            for (int i = 0; i < records.size(); i++) {
+                if (records.get(i) != null) {
+                    imported++;
+                } else {
+                    duplicates++;
+                    error(batchRows.get(i), batch.get(i).getEmail(), "This email is already subscribed!");
+                }
+            }
+            batch.clear();
+            batchRows.clear();
+            subscriberReplicator.requestRun();
+        }
+
+        private String abbreviate(String email) {
+            return email.length() > Subscriber.MAX_EMAIL_LENGTH ? email.substring(0, Subscriber.MAX_EMAIL_LENGTH) + "..." : email;
+        }
+
+        private void invalid(String email, String message) {
+            invalid++;
+            error(rows, email, message);
+        }
+
+        private void error(int row, String email, String message) {
+            if (errors.size() < maxErrors) {
+                errors.add(new SubscriberImportResponse.RowError(row, email, message));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+    }
+}
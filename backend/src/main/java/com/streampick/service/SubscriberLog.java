@@ -0,0 +1,685 @@
+package com.streampick.service;
+
+import com.streampick.dto.Subscriber;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only subscriber log - the system of record for signups: they are
+ * acknowledged once durable here, and {@link SubscriberReplicator} stores them in
+ * Contentstack in the background. It also holds this replica's copy of the
+ * subscribers already in Contentstack or signed up through other replicas.
+ *
+ * Signups are appended by a single committer thread that drains all waiting
+ * appends, writes them in one go and fsyncs once (group commit); callers return
+ * only after their record is on disk. When the log grows past a threshold (or on
+ * the periodic compaction tick) it is folded into a snapshot file and truncated.
+ *
+ * Recovery memory-maps the snapshot and the log, replays them, and truncates a
+ * torn tail left by a crash mid-write.
+ *
+ * Files in {@code subscriber.log.dir}:
+ * <ul>
+ *   <li>{@code subscribers.snapshot} - header + all records up to a sequence number</li>
+ *   <li>{@code subscribers.log} - records appended since the snapshot</li>
+ *   <li>{@code replicated.seq} - highest sequence number synced to Contentstack</li>
+ *   <li>{@code seeded} - marker: existing Contentstack subscribers have been imported</li>
+ * </ul>
+ * Every record is framed as [length][crc32][seq, origin, name, email, moods, date].
+ */
+@Service
+public class SubscriberLog {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriberLog.class);
+
+    /** Record written by a signup on this backend; replicated to Contentstack */
+    public static final byte ORIGIN_LOCAL = 0;
+    /** Record already in Contentstack (imported, or stored by another replica); never replicated back */
+    public static final byte ORIGIN_CMS = 1;
+
+    private static final int SNAPSHOT_MAGIC = 0x53505331;  // "SPS1"
+    private static final int FRAME_HEADER = 8;
+    private static final int MAX_UTF_BYTES = 65535;
+
+    @Value("${subscriber.log.dir:./data/subscribers}")
+    private String directory;
+
+    @Value("${subscriber.log.group-commit.max-batch:1000}")
+    private int maxCommitBatch;
+
+    @Value("${subscriber.log.compact.threshold.bytes:67108864}")
+    private long compactThresholdBytes;
+
+    /**
+     * One durable subscriber record
+     */
+    public record LogRecord(long seq, byte origin, Subscriber subscriber) {
+    }
+
+    /**
+     * Immutable view of the records: slots below size are never written again,
+     * so readers can iterate without locking
+     */
+    private record View(LogRecord[] records, int size) {
+    }
+
+    /**
+     * Notified on the committer thread after records become durable and visible
+     */
+    @FunctionalInterface
+    public interface AppendListener {
+        /**
+         * @param firstPosition Position of the first record in {@link #records()}
+         * @param records Newly appended records, in order
+         */
+        void onAppend(int firstPosition, List<LogRecord> records);
+    }
+
+    private record PendingAppend(List<Subscriber> subscribers, byte origin, CompletableFuture<List<LogRecord>> done) {
+        boolean isCompaction() {
+            return subscribers == null;
+        }
+    }
+
+    private Path snapshotFile;
+    private Path logFile;
+    private Path replicatedFile;
+    private Path seededFile;
+
+    private volatile View view = new View(new LogRecord[1024], 0);
+    private volatile long replicatedSeq;
+    private volatile boolean seeded;
+    private volatile boolean closed;
+
+    // Normalized email -> position; written only by the committer thread
+    private final Map<String, Integer> emailIndex = new ConcurrentHashMap<>();
+    private long lastSeq;
+    private FileChannel logChannel;
+
+    private final BlockingQueue<PendingAppend> pending = new LinkedBlockingQueue<>();
+    private final List<AppendListener> listeners = new CopyOnWriteArrayList<>();
+    private Thread committer;
+
+    @PostConstruct
+    void recover() throws IOException {
+        Path dir = Path.of(directory);
+        Files.createDirectories(dir);
+        snapshotFile = dir.resolve("subscribers.snapshot");
+        logFile = dir.resolve("subscribers.log");
+        replicatedFile = dir.resolve("replicated.seq");
+        seededFile = dir.resolve("seeded");
+
+        long snapshotSeq = loadSnapshot();
+        long validLength = replayLog(snapshotSeq);
+
+        logChannel = FileChannel.open(logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        if (logChannel.size() > validLength) {
+            log.warn("Truncating torn subscriber log tail: {} -> {} bytes", logChannel.size(), validLength);
+            logChannel.truncate(validLength);
+            logChannel.force(true);
+        }
+        logChannel.position(validLength);
+
+        replicatedSeq = readReplicatedSeq();
+        seeded = Files.exists(seededFile);
+
+        committer = new Thread(this::commitLoop, "subscriber-log-committer");
+        committer.setDaemon(true);
+        committer.start();
+
+        log.info("Subscriber log recovered: {} subscribers, last seq {}, replicated up to {}, seeded: {}",
+            view.size(), lastSeq, replicatedSeq, seeded);
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        closed = true;
+        committer.interrupt();
+        try {
+            committer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failPending();
+        logChannel.close();
+    }
+
+    /**
+     * Fail appends the committer will never get to, so their callers don't wait forever
+     */
+    private void failPending() {
+        List<PendingAppend> abandoned = new ArrayList<>();
+        pending.drainTo(abandoned);
+        for (PendingAppend append : abandoned) {
+            append.done().completeExceptionally(new IOException("Subscriber log is closed"));
+        }
+    }
+
+    /**
+     * Durably append a signup
+     *
+     * @return The record, to wait for its replication with
+     * @throws IllegalArgumentException if the email is already subscribed
+     * @throws IOException if the record could not be written
+     */
+    public LogRecord append(Subscriber subscriber) throws IOException {
+        LogRecord record = appendAll(List.of(subscriber), ORIGIN_LOCAL).get(0);
+        if (record == null) {
+            throw new IllegalArgumentException("This email is already subscribed!");
+        }
+        return record;
+    }
+
+    /**
+     * Durably append several subscribers in one group commit.
+     * Emails that are already present (or repeated in the list) are skipped.
+     *
+     * @return For each subscriber, its record, or null if it was skipped
+     */
+    public List<LogRecord> appendAll(List<Subscriber> subscribers, byte origin) throws IOException {
+        if (closed) {
+            throw new IOException("Subscriber log is closed");
+        }
+        CompletableFuture<List<LogRecord>> done = new CompletableFuture<>();
+        pending.add(new PendingAppend(subscribers, origin, done));
+        if (closed) {
+            failPending();  // Closed while we queued: the committer may already be gone
+        }
+        try {
+            return done.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for subscriber log commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Subscriber log commit failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    /**
+     * Register a listener for new records. Records appended before registration are
+     * not replayed; read them from {@link #records()} (positions let the listener
+     * skip any it then sees twice).
+     */
+    public void addListener(AppendListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * All records in append order (a consistent, read-only view)
+     */
+    public List<LogRecord> records() {
+        View current = view;
+        return Collections.unmodifiableList(Arrays.asList(current.records()).subList(0, current.size()));
+    }
+
+    public int size() {
+        return view.size();
+    }
+
+    public boolean contains(String email) {
+        return emailIndex.containsKey(SubscriberShardStore.normalizeEmail(email));
+    }
+
+    /**
+     * True once subscribers already stored in Contentstack have been imported,
+     * i.e. the log holds the complete audience
+     */
+    public boolean isSeeded() {
+        return seeded;
+    }
+
+    /**
+     * Import the subscribers already stored in Contentstack (first start only)
+     */
+    public void seed(List<Subscriber> cmsSubscribers) throws IOException {
+        List<LogRecord> added = appendAll(cmsSubscribers, ORIGIN_CMS);
+        Files.writeString(seededFile, Long.toString(System.currentTimeMillis()));
+        seeded = true;
+        log.info("Seeded subscriber log with {} of {} Contentstack subscribers",
+            added.stream().filter(Objects::nonNull).count(), cmsSubscribers.size());
+    }
+
+    /**
+     * Local signups not yet synced to Contentstack, oldest first
+     */
+    public List<LogRecord> unreplicated(int max) {
+        List<LogRecord> all = records();
+        long watermark = replicatedSeq;
+
+        // Sequence numbers increase with position, so binary search the first unsynced record
+        int low = 0;
+        int high = all.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (all.get(mid).seq() <= watermark) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+
+        List<LogRecord> result = new ArrayList<>();
+        for (int i = low; i < all.size() && result.size() < max; i++) {
+            if (all.get(i).origin() == ORIGIN_LOCAL) {
+                result.add(all.get(i));
+            }
+        }
+        return result;
+    }
+
+    public long getReplicatedSeq() {
+        return replicatedSeq;
+    }
+
+    /**
+     * Record that every local signup up to seq is stored in Contentstack
+     */
+    public synchronized void markReplicated(long seq) throws IOException {
+        if (seq <= replicatedSeq) {
+            return;
+        }
+        Path tmp = replicatedFile.resolveSibling("replicated.seq.tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer bytes = StandardCharsets.US_ASCII.encode(Long.toString(seq));
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+            out.force(true);  // Else the rename can land before the data and leave an empty file
+        }
+        Files.move(tmp, replicatedFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        replicatedSeq = seq;
+    }
+
+    private long readReplicatedSeq() throws IOException {
+        if (!Files.exists(replicatedFile)) {
+            return 0;
+        }
+        String value = Files.readString(replicatedFile).trim();
+        if (value.isEmpty()) {
+            // Left by a crash before the data reached disk; replaying is harmless, shards skip known emails
+            log.warn("Empty {}, replicating local signups from the start", replicatedFile);
+            return 0;
+        }
+        return Long.parseLong(value);
+    }
+
+    /**
+     * Ask the committer to fold the log into a fresh snapshot
+     */
+    public void requestCompaction() {
+        pending.add(new PendingAppend(null, ORIGIN_LOCAL, new CompletableFuture<>()));
+    }
+
+    private void commitLoop() {
+        List<PendingAppend> batch = new ArrayList<>();
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(pending.take());
+                pending.drainTo(batch, maxCommitBatch - 1);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void commit(List<PendingAppend> batch) {
+        List<LogRecord> accepted = new ArrayList<>();
+        List<List<LogRecord>> results = new ArrayList<>(batch.size());
+        Set<String> batchEmails = new HashSet<>();
+        boolean compact = false;
+        long seq = lastSeq;
+
+        for (PendingAppend append : batch) {
+            if (append.isCompaction()) {
+                compact = true;
+                results.add(List.of());
+                continue;
+            }
+            List<LogRecord> added = new ArrayList<>(append.subscribers().size());
+            for (Subscriber subscriber : append.subscribers()) {
+                if (!isEncodable(subscriber)) {
+                    // Skipped here rather than failing the encode of everyone's records in the group
+                    log.warn("Not logging subscriber {}: a field is too long to encode", subscriber.getEmail());
+                    added.add(null);
+                    continue;
+                }
+                String email = SubscriberShardStore.normalizeEmail(subscriber.getEmail());
+                boolean isNew = !email.isEmpty() && !emailIndex.containsKey(email) && batchEmails.add(email);
+                LogRecord record = isNew ? new LogRecord(++seq, append.origin(), subscriber) : null;
+                if (record != null) {
+                    accepted.add(record);
+                }
+                added.add(record);
+            }
+            results.add(added);
+        }
+
+        long validLength = 0;
+        try {
+            validLength = logChannel.position();
+            if (!accepted.isEmpty()) {
+                ByteBuffer frames = encode(accepted);
+                while (frames.hasRemaining()) {
+                    logChannel.write(frames);
+                }
+                logChannel.force(false);  // One fsync for the whole group
+                apply(accepted);
+                lastSeq = seq;
+            }
+
+        } catch (IOException | RuntimeException e) {
+            log.error("Subscriber log commit of {} records failed", accepted.size(), e);
+            rollBackTail(validLength);
+            for (PendingAppend append : batch) {
+                append.done().completeExceptionally(e);
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).done().complete(results.get(i));
+        }
+
+        if (compact || logSize() > compactThresholdBytes) {
+            try {
+                compact();
+            } catch (IOException e) {
+                // The log is still intact, so this only delays compaction
+                log.error("Subscriber log compaction failed", e);
+            }
+        }
+    }
+
+    private long logSize() {
+        try {
+            return logChannel.size();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void rollBackTail(long validLength) {
+        // Drop whatever part of the failed group made it to the file
+        try {
+            logChannel.truncate(validLength);
+            logChannel.position(validLength);
+        } catch (IOException e) {
+            log.error("Could not truncate subscriber log after failed commit", e);
+        }
+    }
+
+    private void apply(List<LogRecord> records) {
+        View current = view;
+        LogRecord[] array = current.records();
+        int first = current.size();
+        int size = first;
+        if (size + records.size() > array.length) {
+            array = Arrays.copyOf(array, Math.max(array.length * 2, size + records.size()));
+        }
+        for (LogRecord record : records) {
+            emailIndex.put(SubscriberShardStore.normalizeEmail(record.subscriber().getEmail()), size);
+            array[size++] = record;
+        }
+        view = new View(array, size);
+
+        for (AppendListener listener : listeners) {
+            try {
+                listener.onAppend(first, records);
+            } catch (RuntimeException e) {
+                log.error("Subscriber log listener failed", e);
+            }
+        }
+    }
+
+    /**
+     * Write all records to a new snapshot, then empty the log
+     */
+    private void compact() throws IOException {
+        View current = view;
+        Path tmp = snapshotFile.resolveSibling("subscribers.snapshot.tmp");
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(16);
+            header.putInt(SNAPSHOT_MAGIC).putLong(lastSeq).putInt(current.size()).flip();
+            out.write(header);
+
+            int chunk = 4096;
+            for (int from = 0; from < current.size(); from += chunk) {
+                List<LogRecord> part = Arrays.asList(current.records()).subList(from, Math.min(from + chunk, current.size()));
+                ByteBuffer frames = encode(part);
+                while (frames.hasRemaining()) {
+                    out.write(frames);
+                }
+            }
+            out.force(true);
+        }
+        Files.move(tmp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Records up to lastSeq are in the snapshot; replay skips them if we crash before this
+        logChannel.truncate(0);
+        logChannel.position(0);
+        logChannel.force(true);
+        log.info("Compacted subscriber log into snapshot of {} records (seq {})", current.size(), lastSeq);
+    }
+
+    private long loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Not a subscriber snapshot: " + snapshotFile);
+            }
+            long snapshotSeq = buffer.getLong();
+            int count = buffer.getInt();
+
+            List<LogRecord> records = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                LogRecord record = decode(buffer);
+                if (record == null) {
+                    throw new IOException("Corrupt subscriber snapshot at record " + i);
+                }
+                records.add(record);
+            }
+            apply(records);
+            lastSeq = snapshotSeq;
+            return snapshotSeq;
+        }
+    }
+
+    /**
+     * @return Length of the valid prefix of the log
+     */
+    private long replayLog(long snapshotSeq) throws IOException {
+        if (!Files.exists(logFile)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            List<LogRecord> records = new ArrayList<>();
+            long validLength = 0;
+
+            while (buffer.hasRemaining()) {
+                LogRecord record = decode(buffer);
+                if (record == null) {
+                    break;  // Torn or corrupt tail
+                }
+                validLength = buffer.position();
+                if (record.seq() > snapshotSeq) {
+                    records.add(record);
+                }
+            }
+
+            apply(records);
+            if (!records.isEmpty()) {
+                lastSeq = records.get(records.size() - 1).seq();
+            }
+            return validLength;
+        }
+    }
+
+    /**
+     * Whether every field fits writeUTF's 65535-byte limit
+     */
+    private static boolean isEncodable(Subscriber subscriber) {
+        String moods = subscriber.getPreferredMoods() != null ? String.join(", ", subscriber.getPreferredMoods()) : "";
+        return fitsUtf(subscriber.getName()) && fitsUtf(subscriber.getEmail()) && fitsUtf(moods)
+            && fitsUtf(subscriber.getSubscribedDate());
+    }
+
+    private static boolean fitsUtf(String value) {
+        if (value == null || value.length() <= MAX_UTF_BYTES / 3) {
+            return true;  // At most 3 bytes per char
+        }
+        long bytes = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            bytes += c >= 1 && c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        return bytes <= MAX_UTF_BYTES;
+    }
+
+    private static ByteBuffer encode(List<LogRecord> records) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(records.size() * 96);
+            DataOutputStream out = new DataOutputStream(bytes);
+            ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(128);
+            DataOutputStream payload = new DataOutputStream(payloadBytes);
+            CRC32 crc = new CRC32();
+
+            for (LogRecord record : records) {
+                payloadBytes.reset();
+                Subscriber subscriber = record.subscriber();
+                payload.writeLong(record.seq());
+                payload.writeByte(record.origin());
+                payload.writeUTF(nullToEmpty(subscriber.getName()));
+                payload.writeUTF(nullToEmpty(subscriber.getEmail()));
+                payload.writeUTF(subscriber.getPreferredMoods() != null
+                    ? String.join(", ", subscriber.getPreferredMoods())
+                    : "");
+                payload.writeUTF(nullToEmpty(subscriber.getSubscribedDate()));
+                payload.flush();
+
+                crc.reset();
+                crc.update(payloadBytes.toByteArray());
+                out.writeInt(payloadBytes.size());
+                out.writeInt((int) crc.getValue());
+                payloadBytes.writeTo(out);
+            }
+            out.flush();
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);  // In-memory streams don't throw
+        }
+    }
+
+    /**
+     * @return The next record, or null if the buffer ends in a torn/corrupt frame
+     */
+    private static LogRecord decode(ByteBuffer buffer) {
+        if (buffer.remaining() < FRAME_HEADER) {
+            return null;
+        }
+        int start = buffer.position();
+        int length = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining()) {
+            buffer.position(start);
+            return null;
+        }
+
+        ByteBuffer payload = buffer.slice(buffer.position(), length);
+        CRC32 crc = new CRC32();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            buffer.position(start);
+            return null;
+        }
+        buffer.position(buffer.position() + length);
+
+        try {
+            long seq = payload.getLong();
+            byte origin = payload.get();
+            String name = readUtf(payload);
+            String email = readUtf(payload);
+            String moods = readUtf(payload);
+            String date = readUtf(payload);
+            return new LogRecord(seq, origin, new Subscriber(name, email, List.of(moods.split(",\\s*")), date));
+        } catch (BufferUnderflowException e) {
+            buffer.position(start);
+            return null;
+        }
+    }
+
+    /**
+     * Read a string written by DataOutputStream.writeUTF (ASCII fast path, modified UTF-8 otherwise)
+     */
+    private static String readUtf(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        for (byte b : bytes) {
+            if (b <= 0) {
+                return decodeModifiedUtf8(bytes);
+            }
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static String decodeModifiedUtf8(byte[] bytes) {
+        // Modified UTF-8 differs from UTF-8 only for NUL and supplementary characters
+        ByteBuffer prefixed = ByteBuffer.allocate(bytes.length + 2);
+        prefixed.putShort((short) bytes.length).put(bytes);
+        try {
+            return new java.io.DataInputStream(new java.io.ByteArrayInputStream(prefixed.array())).readUTF();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String nullToEmpty(String value) {
+        return value != null ? value : "";
+    }
+}
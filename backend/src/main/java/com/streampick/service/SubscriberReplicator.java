@@ -0,0 +1,238 @@
+package com.streampick.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streampick.cluster.InvalidationBus;
+import com.streampick.dto.Subscriber;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stores signups from the local {@link SubscriberLog} in the Contentstack shards, and
+ * keeps the log in step with signups other replicas store
+ *
+ * On first start it imports the subscribers already in Contentstack into the log.
+ * After that each run pushes signups past the replication watermark, grouped by
+ * shard so every shard is read and written once per batch. Signups are acknowledged
+ * before this, once durable in the log; a run starts right after each one
+ * ({@link #requestRun}), and otherwise every {@code subscriber.replication.interval.ms}.
+ * A failed run (e.g. Contentstack is down) leaves the watermark where it was and the
+ * batch is retried. Shards skip emails they already hold, so a retry never duplicates
+ * anyone, and an email signed up on two replicas at once is stored once.
+ *
+ * With several replicas, the subscribers each run stored are broadcast on the
+ * {@link InvalidationBus} and the other replicas add them to their logs. A replica
+ * that missed some (it was down or reconnecting) picks them up by comparing its log
+ * with Contentstack on start and every {@code subscriber.reconcile.interval.ms}.
+ */
+@Service
+public class SubscriberReplicator {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriberReplicator.class);
+    private static final String STORED_CHANNEL = "subscribers-stored";
+
+    @Autowired
+    private SubscriberLog subscriberLog;
+
+    @Autowired
+    private SubscriberShardStore shardStore;
+
+    @Autowired
+    private InvalidationBus bus;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${subscriber.replication.batch.size:5000}")
+    private int batchSize;
+
+    /**
+     * Subscribers a replica stored in Contentstack, as broadcast to the others
+     */
+    record Stored(String replica, List<Subscriber> subscribers) {
+    }
+
+    private final ExecutorService worker = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "subscriber-replicator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean runQueued = new AtomicBoolean();
+    private volatile boolean reconciled;
+    private volatile long lastSuccessMillis;
+    private volatile long lastReconcileMillis;
+    private volatile String lastError;
+
+    @PostConstruct
+    void init() {
+        bus.subscribe(STORED_CHANNEL, message -> worker.execute(() -> adopt(message)));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        worker.shutdownNow();
+    }
+
+    /**
+     * Start a run on the replication thread, unless one is already waiting to start
+     */
+    public void requestRun() {
+        if (runQueued.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                runQueued.set(false);
+                replicate();
+            });
+        }
+    }
+
+    @Scheduled(initialDelay = 0, fixedDelayString = "${subscriber.replication.interval.ms:5000}")
+    public synchronized void replicate() {
+        try {
+            if (!subscriberLog.isSeeded()) {
+                seed();
+                reconciled = true;
+            } else if (!reconciled && bus.isClustered()) {
+                reconcile();
+            }
+
+            List<SubscriberLog.LogRecord> batch;
+            while (!(batch = subscriberLog.unreplicated(batchSize)).isEmpty()) {
+                Map<Integer, List<SubscriberLog.LogRecord>> byShard = new HashMap<>();
+                for (SubscriberLog.LogRecord record : batch) {
+                    byShard.computeIfAbsent(shardStore.shardFor(record.subscriber().getEmail()), k -> new ArrayList<>())
+                        .add(record);
+                }
+
+                int added = 0;
+                for (Map.Entry<Integer, List<SubscriberLog.LogRecord>> group : byShard.entrySet()) {
+                    List<Subscriber> stored = shardStore.appendAll(group.getKey(),
+                        group.getValue().stream().map(SubscriberLog.LogRecord::subscriber).toList());
+                    added += stored.size();
+                    share(stored);
+                }
+
+                long upTo = batch.get(batch.size() - 1).seq();
+                subscriberLog.markReplicated(upTo);
+                log.info("Replicated {} subscriber(s) to {} shard(s), up to seq {} ({} already stored)",
+                    added, byShard.size(), upTo, batch.size() - added);
+            }
+
+            lastSuccessMillis = System.currentTimeMillis();
+            lastError = null;
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            log.warn("Subscriber replication to Contentstack failed, will retry: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Add subscribers that are in Contentstack but missing here (stored by other
+     * replicas while this one wasn't listening)
+     */
+    @Scheduled(initialDelayString = "${subscriber.reconcile.interval.ms:600000}",
+               fixedDelayString = "${subscriber.reconcile.interval.ms:600000}")
+    public void scheduledReconcile() {
+        if (bus.isClustered() && subscriberLog.isSeeded()) {
+            worker.execute(() -> {
+                try {
+                    reconcile();
+                } catch (Exception e) {
+                    log.warn("Reconciling the subscriber log with Contentstack failed: {}", e.getMessage());
+                }
+            });
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${subscriber.log.compact.interval.ms:3600000}",
+               initialDelayString = "${subscriber.log.compact.interval.ms:3600000}")
+    public void compact() {
+        subscriberLog.requestCompaction();
+    }
+
+    private void seed() throws Exception {
+        log.info("Importing existing Contentstack subscribers into the local subscriber log");
+        subscriberLog.seed(readContentstack());
+        lastReconcileMillis = System.currentTimeMillis();
+    }
+
+    private void reconcile() throws Exception {
+        List<Subscriber> existing = readContentstack();
+        long added = subscriberLog.appendAll(existing, SubscriberLog.ORIGIN_CMS).stream()
+            .filter(Objects::nonNull)
+            .count();
+        reconciled = true;
+        lastReconcileMillis = System.currentTimeMillis();
+        log.info("Reconciled subscriber log with Contentstack: {} of {} subscribers were missing", added, existing.size());
+    }
+
+    private List<Subscriber> readContentstack() throws IOException {
+        List<Subscriber> existing = new ArrayList<>();
+        shardStore.forEach(subscriber -> {
+            synchronized (existing) {
+                existing.add(subscriber);
+            }
+        });
+        return existing;
+    }
+
+    /**
+     * Tell the other replicas about subscribers this one stored
+     */
+    private void share(List<Subscriber> stored) {
+        if (!bus.isClustered() || stored.isEmpty()) {
+            return;
+        }
+        try {
+            bus.publish(STORED_CHANNEL, objectMapper.writeValueAsString(new Stored(bus.replicaId(), stored)));
+        } catch (JsonProcessingException | RuntimeException e) {
+            // The other replicas pick them up at their next reconcile
+            log.warn("Couldn't broadcast {} stored subscriber(s): {}", stored.size(), e.getMessage());
+        }
+    }
+
+    private void adopt(String message) {
+        try {
+            Stored stored = objectMapper.readValue(message, Stored.class);
+            if (bus.replicaId().equals(stored.replica())) {
+                return;
+            }
+            long added = subscriberLog.appendAll(stored.subscribers(), SubscriberLog.ORIGIN_CMS).stream()
+                .filter(Objects::nonNull)
+                .count();
+            log.debug("Added {} subscriber(s) stored by replica {}", added, stored.replica());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Couldn't add subscribers stored by another replica: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replication state for the status endpoint
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new HashMap<>();
+        status.put("seeded", subscriberLog.isSeeded());
+        status.put("localSubscribers", subscriberLog.size());
+        status.put("replicatedSeq", subscriberLog.getReplicatedSeq());
+        status.put("pending", subscriberLog.unreplicated(Integer.MAX_VALUE).size());
+        status.put("lastSuccessMillis", lastSuccessMillis);
+        status.put("lastReconcileMillis", lastReconcileMillis);
+        status.put("lastError", lastError);
+        return status;
+    }
+}
@@ -1,193 +1,94 @@
 package com.streampick.service;
 
-import com.contentstack.cms.Contentstack;
-import com.contentstack.cms.stack.Stack;
+import com.streampick.dto.FilteredSubscribersResponse;
 import com.streampick.dto.Subscriber;
+import com.streampick.tracing.StageTimer;
 import com.streampick.util.MoodMapper;
-import okhttp3.ResponseBody;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
-import retrofit2.Call;
-import retrofit2.Response;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
- * Service for managing subscribers using Contentstack Management API
+ * Service for managing subscribers
+ * 
+ * A signup is acknowledged once it is durable in the local {@link SubscriberLog}, so
+ * signups keep working while Contentstack is down. {@link SubscriberReplicator} stores
+ * it in the Contentstack shard entries of {@link SubscriberShardStore} in the
+ * background and shares it with the other replicas. Reads are served from the log
+ * once it holds the full audience, and from Contentstack until then.
  */
 @Service
 public class SubscriberService {
     
     private static final Logger log = LoggerFactory.getLogger(SubscriberService.class);
     
-    @Value("${contentstack.api.key}")
-    private String apiKey;
+    @Autowired
+    private SubscriberShardStore shardStore;
     
-    @Value("${contentstack.authtoken}")
-    private String authToken;
+    @Autowired
+    private SubscriberLog subscriberLog;
     
-    @Value("${contentstack.subscribers.entry.uid}")
-    private String subscribersEntryUid;
-
-    @Value("${contentstack.management.token}")
-    private String managementToken;
+    @Autowired
+    private SubscriberReplicator subscriberReplicator;
     
-    private Contentstack managementClient;
+    @Autowired
+    private SubscriberStats subscriberStats;
     
-    /**
-     * Initialize Management Client using Management Token
-     */
-    private Contentstack getManagementClient() {
-        if (managementClient == null) {
-            log.debug("Initializing Contentstack Management Client");
-            log.debug("AuthToken present: {}", (authToken != null && !authToken.isEmpty()));
-            log.debug("AuthToken length: {}", authToken != null ? authToken.length() : 0);
-            
-            managementClient = new Contentstack.Builder().build();
-                
-            log.info("Management client initialized successfully");
-        }
-        return managementClient;
-    }
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private StageTimer stageTimer;
     
     /**
-     * Add a new subscriber to the modular block
+     * Add a new subscriber to the local log; it reaches Contentstack asynchronously
      * 
      * @param name Subscriber name
      * @param email Subscriber email
      * @param preferredMoods List of preferred moods
      * @return true if successful, false otherwise
-     * @throws IOException if there's an error communicating with Contentstack
+     * @throws IllegalArgumentException if the email is already subscribed
+     * @throws IOException if the subscriber could not be stored durably
      */
     public boolean addSubscriber(String name, String email, List<String> preferredMoods) throws IOException {
         log.info("Adding subscriber: {}", email);
-        log.debug("API Key: {}", apiKey != null ? "Present" : "Missing");
-        log.debug("Subscribers Entry UID: {}", subscribersEntryUid);
         
         try {
-            // Initialize Management API client
-            Contentstack cms = getManagementClient();
-            
-            log.debug("Creating stack entry reference for apiKey: {}", apiKey);
-            Stack stack = cms.stack(apiKey, managementToken);
-            
-            // 1. Get existing entry using Management SDK
-            com.contentstack.cms.stack.Entry entry = stack.contentType("users")
-                .entry(subscribersEntryUid);
-            
-            log.debug("Fetching entry...");
-            
-            Call<ResponseBody> fetchCall = entry.fetch();
-            Response<ResponseBody> fetchResponse = fetchCall.execute();
-            
-            if (!fetchResponse.isSuccessful()) {
-                log.error("Failed to fetch entry: {}", fetchResponse.errorBody().string());
-                return false;
-            }
-            
-            // Parse response
-            String responseBody = fetchResponse.body().string();
-            JSONObject responseJson = new JSONObject(responseBody);
-            JSONObject entryData = responseJson.getJSONObject("entry");
+            Subscriber subscriber = new Subscriber(name, email, preferredMoods,
+                LocalDate.now().format(DateTimeFormatter.ISO_DATE));
             
-            // 2. Get current user_details array
-            JSONArray userDetails = entryData.has("user_details") 
-                ? entryData.getJSONArray("user_details") 
-                : new JSONArray();
-            
-            // 3. Check if email already exists
-            for (int i = 0; i < userDetails.length(); i++) {
-                JSONObject userBlock = userDetails.getJSONObject(i);
-                if (userBlock.has("user")) {
-                    JSONObject user = userBlock.getJSONObject("user");
-                    if (user.has("email") && user.getString("email").equalsIgnoreCase(email)) {
-                        log.warn("Email already subscribed: {}", email);
+            if (!subscriberLog.isSeeded()) {
+                try (StageTimer.Stage stage = stageTimer.start("dedupe-check")) {
+                    if (isStoredInContentstack(email)) {
                         throw new IllegalArgumentException("This email is already subscribed!");
                     }
                 }
             }
             
-            // 4. Create new user block (matching exact Contentstack structure)
-            JSONObject newUserBlock = new JSONObject();
-            JSONObject newUser = new JSONObject();
-            newUser.put("name", name);
-            newUser.put("email", email);
-            newUser.put("preferred_moods", String.join(", ", preferredMoods));
-            newUser.put("subscribed_date", LocalDate.now().format(DateTimeFormatter.ISO_DATE));
-            
-            newUserBlock.put("user", newUser);
-            
-            // 5. Add to array
-            userDetails.put(newUserBlock);
-            
-            log.info("Adding new user to array. Total subscribers will be: {}", userDetails.length());
-            
-            // 6. Build update payload using org.json.simple (required by Management SDK)
-            org.json.simple.JSONObject updatePayload = new org.json.simple.JSONObject();
-            org.json.simple.JSONObject entryUpdate = new org.json.simple.JSONObject();
-            
-            // Convert org.json.JSONArray to org.json.simple.JSONArray and collect all emails
-            org.json.simple.JSONArray userDetailsSimple = new org.json.simple.JSONArray();
-            StringBuilder allEmailsBuilder = new StringBuilder();
-            
-            for (int i = 0; i < userDetails.length(); i++) {
-                JSONObject userBlock = userDetails.getJSONObject(i);
-                org.json.simple.JSONObject simpleBlock = new org.json.simple.JSONObject();
-                
-                if (userBlock.has("user")) {
-                    JSONObject user = userBlock.getJSONObject("user");
-                    org.json.simple.JSONObject simpleUser = new org.json.simple.JSONObject();
-                    simpleUser.put("name", user.optString("name"));
-                    simpleUser.put("email", user.optString("email"));
-                    simpleUser.put("preferred_moods", user.optString("preferred_moods"));
-                    simpleUser.put("subscribed_date", user.optString("subscribed_date"));
-                    
-                    simpleBlock.put("user", simpleUser);
-                    
-                    // Collect email for all_users field
-                    if (i > 0) {
-                        allEmailsBuilder.append(", ");
-                    }
-                    allEmailsBuilder.append(user.optString("email"));
-                }
-                
-                userDetailsSimple.add(simpleBlock);
-            }
-            
-            String allUsers = allEmailsBuilder.toString();
-            log.debug("All users email list: {}", allUsers);
-            
-            entryUpdate.put("title", "Subscribers");
-            entryUpdate.put("user_details", userDetailsSimple);
-            entryUpdate.put("all_users", allUsers);
-            updatePayload.put("entry", entryUpdate);
-            
-            log.debug("Update payload: {}", updatePayload.toJSONString());
-            
-            // Use Management SDK to update
-            Call<ResponseBody> updateCall = entry.update(updatePayload);
-            Response<ResponseBody> updateResponse = updateCall.execute();
-            
-            if (updateResponse.isSuccessful()) {
-                log.info("Successfully added subscriber: {}", email);
-                return true;
-            } else {
-                String errorBody = updateResponse.errorBody() != null 
-                    ? updateResponse.errorBody().string() 
-                    : "Unknown error";
-                log.error("Failed to update entry: {} - {}", updateResponse.code(), errorBody);
-                return false;
+            try (StageTimer.Stage stage = stageTimer.start("subscriber-log")) {
+                subscriberLog.append(subscriber);
             }
+            subscriberReplicator.requestRun();
+            log.info("Successfully added subscriber: {}", email);
+            return true;
             
         } catch (IllegalArgumentException e) {
+            log.warn("Email already subscribed: {}", email);
             throw e;
         } catch (Exception e) {
             log.error("Error adding subscriber: {}", email, e);
@@ -196,39 +97,58 @@ public class SubscriberService {
     }
     
     
+    private boolean isStoredInContentstack(String email) {
+        // Until existing subscribers are imported, duplicates can only be caught in Contentstack.
+        // If it is unreachable, accept the signup: replication skips emails a shard already has.
+        try {
+            return shardStore.contains(email);
+        } catch (Exception e) {
+            log.warn("Could not check Contentstack for {}, accepting signup locally: {}", email, e.getMessage());
+            return false;
+        }
+    }
+    
     /**
-     * Get count of subscribers using Management SDK
+     * Get count of subscribers
      * @return count of subscribers
      * @throws IOException if there's an error communicating with Contentstack
      */
     public int getSubscriberCount() throws IOException {
         try {
-            Contentstack cms = getManagementClient();
-            com.contentstack.cms.stack.Entry entry = cms.stack(apiKey)
-                .contentType("subscribers")
-                .entry(subscribersEntryUid);
-            
-            Call<ResponseBody> fetchCall = entry.fetch();
-            Response<ResponseBody> fetchResponse = fetchCall.execute();
-            
-            if (fetchResponse.isSuccessful()) {
-                String responseBody = fetchResponse.body().string();
-                JSONObject responseJson = new JSONObject(responseBody);
-                JSONObject entryData = responseJson.getJSONObject("entry");
-                
-                if (entryData.has("user_details")) {
-                    JSONArray userDetails = entryData.getJSONArray("user_details");
-                    return userDetails.length();
-                }
+            if (subscriberLog.isSeeded()) {
+                return subscriberStats.getTotal();
             }
-            
-            return 0;
+            AtomicInteger count = new AtomicInteger();
+            shardStore.forEach(subscriber -> count.incrementAndGet());
+            return count.get();
         } catch (Exception e) {
             log.error("Error getting subscriber count", e);
             throw new IOException("Failed to get subscriber count: " + e.getMessage(), e);
         }
     }
     
+    /**
+     * Audience size per backend mood
+     * 
+     * @return Mood -> number of subscribers who picked it, or null while existing
+     *         subscribers are still being imported from Contentstack
+     */
+    public Map<String, Integer> getAudienceByMood() {
+        return subscriberLog.isSeeded() ? subscriberStats.getAudienceByMood() : null;
+    }
+    
+    /**
+     * Exact audience size for a mood combination, from the mood bitmaps
+     * 
+     * @param moodTags Moods to count
+     * @param matchAll true for subscribers with every mood, false for any of them
+     * @return Number of matching subscribers, or null while existing subscribers
+     *         are still being imported from Contentstack
+     */
+    public Integer getAudienceSize(List<String> moodTags, boolean matchAll) {
+        return subscriberLog.isSeeded() ? subscriberStats.getAudienceSize(moodTags, matchAll) : null;
+    }
+    
     /**
      * Get subscribers whose preferred moods match any of the given movie moods
      * 
@@ -237,66 +157,219 @@ public class SubscriberService {
      * @throws IOException if there's an error communicating with Contentstack
      */
     public List<Subscriber> getSubscribersByMoods(List<String> movieMoodTags) throws IOException {
+        List<Subscriber> matchingSubscribers = new ArrayList<>();
+        streamSubscribersByMoods(movieMoodTags, matchingSubscribers::add);
+        return matchingSubscribers;
+    }
+    
+    /**
+     * Stream subscribers whose preferred moods match any of the given movie moods.
+     * Matching runs on the calling thread, and so does the sink: callers can write to
+     * a socket from it without locking. Contentstack shards are still fetched and
+     * parsed in parallel (see {@link SubscriberShardStore#forEach}).
+     * 
+     * @param movieMoodTags List of mood tags from the published movie
+     * @param sink Receives each matching subscriber
+     * @return Number of matching subscribers
+     * @throws IOException if there's an error communicating with Contentstack
+     */
+    public int streamSubscribersByMoods(List<String> movieMoodTags, Consumer<Subscriber> sink) throws IOException {
         log.info("Fetching subscribers for moods: {}", movieMoodTags);
         
         try {
-            Contentstack cms = getManagementClient();
-            com.contentstack.cms.stack.Entry entry = cms.stack(apiKey, managementToken)
-                .contentType("users")
-                .entry(subscribersEntryUid);
-            
-            Call<ResponseBody> fetchCall = entry.fetch();
-            Response<ResponseBody> fetchResponse = fetchCall.execute();
-            
-            if (!fetchResponse.isSuccessful()) {
-                log.error("Failed to fetch subscribers: {}", fetchResponse.errorBody().string());
-                return List.of();
-            }
-            
-            String responseBody = fetchResponse.body().string();
-            JSONObject responseJson = new JSONObject(responseBody);
-            JSONObject entryData = responseJson.getJSONObject("entry");
-            
-            if (!entryData.has("user_details")) {
-                log.warn("No user_details found in subscribers entry");
-                return List.of();
-            }
-            
-            JSONArray userDetails = entryData.getJSONArray("user_details");
-            List<Subscriber> matchingSubscribers = new ArrayList<>();
-            
-            // Filter subscribers by mood matching
-            for (int i = 0; i < userDetails.length(); i++) {
-                JSONObject userBlock = userDetails.getJSONObject(i);
-                if (userBlock.has("user")) {
-                    JSONObject user = userBlock.getJSONObject("user");
-                    String name = user.optString("name");
-                    String email = user.optString("email");
-                    String preferredMoodsStr = user.optString("preferred_moods", "");
-                    
-                    // Parse preferred moods (stored as comma-separated string)
-                    List<String> preferredMoods = List.of(preferredMoodsStr.split(",\\s*"));
-                    
-                    // Use MoodMapper to check if any preferred mood matches any movie mood tag
-                    boolean hasMatch = MoodMapper.hasMatchingMood(preferredMoods, movieMoodTags);
-                    
-                    if (hasMatch) {
-                        matchingSubscribers.add(new Subscriber(name, email, preferredMoods));
-                        List<String> matchingMoods = MoodMapper.getMatchingMoods(preferredMoods, movieMoodTags);
-                        log.debug("Subscriber {} matches with moods: {}", email, matchingMoods);
+            int[] matching = {0};
+            int[] total = {0};
+            int movieMask = MoodMapper.compileMoods(movieMoodTags);
+            
+            Consumer<Subscriber> filter = subscriber -> {
+                total[0]++;
+                if (matches(subscriber, movieMask, movieMoodTags)) {
+                    matching[0]++;
+                    sink.accept(new Subscriber(subscriber.getName(), subscriber.getEmail(), subscriber.getPreferredMoods()));
+                }
+            };
+            
+            String source = subscriberLog.isSeeded() ? "log" : "contentstack";
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try (StageTimer.Stage stage = stageTimer.start("subscriber-filter")) {
+                if (subscriberLog.isSeeded()) {
+                    for (SubscriberLog.LogRecord record : subscriberLog.records()) {
+                        filter.accept(record.subscriber());
                     }
+                } else {
+                    // Filter subscribers by mood matching as each shard is parsed
+                    shardStore.forEach(filter);
                 }
             }
+            sample.stop(meterRegistry.timer("streampick.subscribers.filter", "source", source));
+            if (total[0] > 0) {
+                meterRegistry.summary("streampick.subscribers.filter.match.ratio")
+                    .record((double) matching[0] / total[0]);
+            }
             
-            log.info("Found {} matching subscribers out of {} total", 
-                matchingSubscribers.size(), userDetails.length());
+            log.info("Found {} matching subscribers out of {} total", matching[0], total[0]);
             
-            return matchingSubscribers;
+            return matching[0];
             
         } catch (Exception e) {
             log.error("Error fetching subscribers by moods", e);
             throw new IOException("Failed to fetch subscribers by moods: " + e.getMessage(), e);
         }
     }
+    
+    /**
+     * Get one page of subscribers whose preferred moods match the given movie moods
+     * 
+     * The cursor records how far the scan got (entry and position in it), so each
+     * page only reads what it needs. It is tagged with the source it indexes (local
+     * log or Contentstack) and is rejected by the other one: positions in the two
+     * don't line up, so continuing across a switch would skip or repeat subscribers. From Contentstack, each entry is fetched once per
+     * scan and kept for its next pages (see {@link SubscriberShardStore#scanEntry}).
+     * 
+     * @param movieMoodTags List of mood tags from the published movie
+     * @param cursor Cursor from the previous page, null for the first page
+     * @param limit Maximum number of subscribers in the page
+     * @return The page, with nextCursor set if there are more subscribers to scan
+     * @throws IllegalArgumentException if the cursor is malformed or from the other source
+     * @throws IOException if there's an error communicating with Contentstack
+     */
+    public FilteredSubscribersResponse getSubscribersPageByMoods(List<String> movieMoodTags, String cursor, int limit)
+            throws IOException {
+        log.info("Fetching subscriber page for moods: {} (cursor: {}, limit: {})", movieMoodTags, cursor, limit);
+        
+        char source = subscriberLog.isSeeded() ? LOG_CURSOR : CONTENTSTACK_CURSOR;
+        Cursor position = decodeCursor(cursor, source);
+        int entry = position.entry();
+        int offset = position.offset();
+        int movieMask = MoodMapper.compileMoods(movieMoodTags);
+        List<Subscriber> page = new ArrayList<>(limit);
+        
+        if (subscriberLog.isSeeded()) {
+            try (StageTimer.Stage stage = stageTimer.start("subscriber-page")) {
+                return getLocalPage(movieMoodTags, movieMask, offset, limit);
+            }
+        }
+        
+        String scanId = position.scanId() != null ? position.scanId() : newScanId();
+        try (StageTimer.Stage stage = stageTimer.start("subscriber-page")) {
+            while (entry < shardStore.getScanEntryCount() && page.size() < limit) {
+                SubscriberShardStore.EntryScan scan = shardStore.scanEntry(scanId, entry, offset, subscriber -> {
+                    if (matches(subscriber, movieMask, movieMoodTags)) {
+                        page.add(new Subscriber(subscriber.getName(), subscriber.getEmail(), subscriber.getPreferredMoods()));
+                    }
+                    return page.size() < limit;
+                });
+                
+                if (scan.complete()) {
+                    entry++;
+                    offset = 0;
+                } else {
+                    offset = scan.position();
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error fetching subscriber page by moods", e);
+            throw new IOException("Failed to fetch subscribers by moods: " + e.getMessage(), e);
+        }
+        
+        String nextCursor = entry < shardStore.getScanEntryCount() ? encodeCursor(CONTENTSTACK_CURSOR, entry, offset, scanId) : null;
+        return FilteredSubscribersResponse.builder()
+            .success(true)
+            .totalMatching(page.size())
+            .subscribers(page)
+            .nextCursor(nextCursor)
+            .build();
+    }
+    
+    private FilteredSubscribersResponse getLocalPage(List<String> movieMoodTags, int movieMask, int offset, int limit) {
+        // Local log cursors use a single "entry": the position in the log
+        List<SubscriberLog.LogRecord> records = subscriberLog.records();
+        List<Subscriber> page = new ArrayList<>(limit);
+        int position = offset;
+        while (position < records.size() && page.size() < limit) {
+            Subscriber subscriber = records.get(position++).subscriber();
+            if (matches(subscriber, movieMask, movieMoodTags)) {
+                page.add(new Subscriber(subscriber.getName(), subscriber.getEmail(), subscriber.getPreferredMoods()));
+            }
+        }
+        
+        String nextCursor = position < records.size() ? encodeCursor(LOG_CURSOR, 0, position, null) : null;
+        return FilteredSubscribersResponse.builder()
+            .success(true)
+            .totalMatching(page.size())
+            .subscribers(page)
+            .nextCursor(nextCursor)
+            .build();
+    }
+    
+    static boolean matches(Subscriber subscriber, int movieMask, List<String> movieMoodTags) {
+        // Precompiled masks: a single & unless both sides carry overflowed tags
+        boolean hasMatch = MoodMapper.hasMatchingMood(
+            subscriber.getMoodMask(), subscriber.getPreferredMoods(), movieMask, movieMoodTags);
+        
+        if (hasMatch && log.isDebugEnabled()) {
+            List<String> matchingMoods = MoodMapper.getMatchingMoods(subscriber.getPreferredMoods(), movieMoodTags);
+            log.debug("Subscriber {} matches with moods: {}", subscriber.getEmail(), matchingMoods);
+        }
+        return hasMatch;
+    }
+    
+    /**
+     * Where a paged scan stopped: entry, position in it, and (for Contentstack
+     * scans) the ID the scan's fetched entries are kept under
+     */
+    private record Cursor(int entry, int offset, String scanId) {
+    }
+    
+    // Cursor source tags: "l" scans the local log, "c" the Contentstack entries
+    private static final char LOG_CURSOR = 'l';
+    private static final char CONTENTSTACK_CURSOR = 'c';
+    
+    private static String newScanId() {
+        return Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    }
+    
+    private static String encodeCursor(char source, int entry, int offset, String scanId) {
+        String cursor = source + ":" + entry + ":" + offset + (scanId != null ? ":" + scanId : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.US_ASCII));
+    }
+    
+    private static Cursor decodeCursor(String cursor, char source) {
+        if (cursor == null || cursor.isBlank()) {
+            return new Cursor(0, 0, null);
+        }
+        String[] parts;
+        try {
+            parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII).split(":");
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+        if (parts.length >= 1 && parts[0].length() == 1 && parts[0].charAt(0) != source
+                && (parts[0].charAt(0) == LOG_CURSOR || parts[0].charAt(0) == CONTENTSTACK_CURSOR)) {
+            throw new IllegalArgumentException(
+                "Cursor is from another subscriber source, start again from the first page");
+        }
+        try {
+            int entry = Integer.parseInt(parts[1]);
+            int offset = Integer.parseInt(parts[2]);
+            if (parts[0].equals(String.valueOf(source)) && (parts.length == 3 || parts.length == 4)
+                    && entry >= 0 && offset >= 0) {
+                return new Cursor(entry, offset, parts.length == 4 ? parts[3] : null);
+            }
+        } catch (RuntimeException e) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + cursor);
+    }
+    
+    /**
+     * Move subscribers out of the legacy single entry into their shards
+     * 
+     * @return number of subscribers migrated
+     * @throws IOException if there's an error communicating with Contentstack
+     */
+    public int migrateLegacySubscribers() throws IOException {
+        log.info("Migrating legacy subscribers entry into {} shard(s)", shardStore.getShardCount());
+        return shardStore.migrateLegacyEntry();
+    }
 }
-
@@ -0,0 +1,521 @@
+package com.streampick.service;
+
+import com.streampick.dto.Subscriber;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.streampick.util.SubscriberJson;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Stores subscribers hash-partitioned by email across several Contentstack entries.
+ *
+ * Each shard is an entry of the subscribers content type with the usual
+ * {@code user_details} modular block. Reads fan out to all shards in parallel,
+ * writes only fetch and rewrite the shard that owns the email.
+ *
+ * If the legacy single entry ({@code contentstack.subscribers.entry.uid}) is not one
+ * of the configured shards it is treated as draining: it is still read and checked
+ * for duplicates until {@link #migrateLegacyEntry()} has moved its subscribers over.
+ */
+@Service
+public class SubscriberShardStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriberShardStore.class);
+
+    private static final String DEFAULT_TITLE = "Subscribers";
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    // Entries kept between the pages of paged scans
+    private static final int MAX_SCAN_SNAPSHOTS = 8;
+    private static final long SCAN_SNAPSHOT_TTL_MILLIS = 120_000;
+
+    // Parsed subscribers waiting for the thread that called forEach
+    private static final int HAND_OFF_CAPACITY = 1024;
+    private static final long HAND_OFF_POLL_MILLIS = 50;
+
+    @Autowired
+    private ContentstackManagementClient managementClient;
+
+    @Value("${contentstack.subscribers.content.type:users}")
+    private String contentType;
+
+    @Value("${contentstack.subscribers.entry.uid}")
+    private String legacyEntryUid;
+
+    @Value("${contentstack.subscribers.shard.entry.uids:}")
+    private String shardEntryUids;
+
+    private List<String> shards;
+    private ReentrantLock[] shardLocks;
+    private final ReentrantLock legacyLock = new ReentrantLock();
+    private ExecutorService fanOutExecutor;
+    private final Map<String, ScanSnapshot> scanSnapshots = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ScanSnapshot> eldest) {
+            return size() > MAX_SCAN_SNAPSHOTS;
+        }
+    };
+
+    /**
+     * Contents of one subscribers entry
+     */
+    public static class ShardContents {
+        private final String title;
+        private final List<Subscriber> subscribers;
+
+        public ShardContents(String title, List<Subscriber> subscribers) {
+            this.title = title;
+            this.subscribers = subscribers;
+        }
+
+        public String getTitle() {
+            return title;
+        }
+
+        public List<Subscriber> getSubscribers() {
+            return subscribers;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        List<String> configured = Arrays.stream(shardEntryUids.split(","))
+            .map(String::trim)
+            .filter(uid -> !uid.isEmpty())
+            .toList();
+
+        // No shards configured: the legacy entry is the one and only shard
+        shards = configured.isEmpty() ? List.of(legacyEntryUid) : configured;
+        shardLocks = new ReentrantLock[shards.size()];
+        for (int i = 0; i < shardLocks.length; i++) {
+            shardLocks[i] = new ReentrantLock();
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        fanOutExecutor = Executors.newFixedThreadPool(Math.min(shards.size() + 1, 16), runnable -> {
+            Thread thread = new Thread(runnable, "subscriber-shard-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        log.info("Subscriber store using {} shard(s), legacy entry draining: {}",
+            shards.size(), isLegacyDraining());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        fanOutExecutor.shutdownNow();
+    }
+
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * True while the legacy single entry still has to be read alongside the shards
+     */
+    public boolean isLegacyDraining() {
+        return legacyEntryUid != null && !legacyEntryUid.isBlank() && !shards.contains(legacyEntryUid);
+    }
+
+    /**
+     * Shard index owning the given email. String.hashCode is specified by the JLS,
+     * so every replica routes the same email to the same shard.
+     */
+    public int shardFor(String email) {
+        return Math.floorMod(normalizeEmail(email).hashCode(), shards.size());
+    }
+
+    public static String normalizeEmail(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Append a subscriber to its owning shard. Only that shard is fetched and rewritten.
+     *
+     * @return true if the shard was updated
+     * @throws IllegalArgumentException if the email is already subscribed
+     */
+    public boolean append(Subscriber subscriber) throws IOException {
+        String normalized = normalizeEmail(subscriber.getEmail());
+        if (isLegacyDraining() && containsEmail(readEntry(legacyEntryUid), normalized)) {
+            throw new IllegalArgumentException("This email is already subscribed!");
+        }
+
+        int shard = shardFor(subscriber.getEmail());
+        String entryUid = shards.get(shard);
+        ReentrantLock lock = shardLocks[shard];
+        lock.lock();
+        try {
+            ShardContents contents = readEntry(entryUid);
+            if (containsEmail(contents, normalized)) {
+                throw new IllegalArgumentException("This email is already subscribed!");
+            }
+
+            List<Subscriber> updated = new ArrayList<>(contents.getSubscribers());
+            updated.add(subscriber);
+            log.info("Adding subscriber to shard {} ({}). Shard size will be: {}", shard, entryUid, updated.size());
+            return writeEntry(entryUid, contents.getTitle(), updated);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Stream every subscriber from all shards (and the draining legacy entry).
+     * Shards are fetched and parsed in parallel, and handed back through a bounded
+     * queue: the sink is only ever called on the calling thread, and a slow sink
+     * holds the parsers back instead of piling subscribers up in memory.
+     * Subscribers present in both a shard and the legacy entry are emitted once.
+     *
+     * The legacy entry is read before the shards: a migration copies into the shards
+     * before emptying it, so whichever way one interleaves with this read, every
+     * subscriber is found in at least one of the two.
+     */
+    public void forEach(Consumer<Subscriber> sink) throws IOException {
+        boolean draining = isLegacyDraining();
+
+        List<Subscriber> legacy = new ArrayList<>();
+        if (draining) {
+            readEntry(legacyEntryUid, legacy::add);
+        }
+
+        // While draining, remember shard emails so legacy duplicates can be skipped
+        Set<String> shardEmails = draining ? new HashSet<>() : null;
+
+        BlockingQueue<Subscriber> handOff = new ArrayBlockingQueue<>(HAND_OFF_CAPACITY);
+        AtomicBoolean abandoned = new AtomicBoolean();
+        Consumer<Subscriber> shardSink = subscriber -> {
+            try {
+                while (!handOff.offer(subscriber, HAND_OFF_POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    if (abandoned.get()) {
+                        throw new CancellationException("Subscriber scan abandoned");
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("Subscriber scan interrupted");
+            }
+        };
+
+        List<CompletableFuture<String>> reads = shards.stream()
+            .map(uid -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return readEntry(uid, shardSink);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, fanOutExecutor))
+            .toList();
+        CompletableFuture<Void> all = CompletableFuture.allOf(reads.toArray(CompletableFuture<?>[]::new));
+
+        boolean finished = false;
+        try {
+            while (true) {
+                Subscriber subscriber = handOff.poll(HAND_OFF_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (subscriber == null && all.isDone()) {
+                    // Nothing more can arrive: drain what the last readers queued
+                    subscriber = handOff.poll();
+                    if (subscriber == null) {
+                        break;
+                    }
+                }
+                if (subscriber != null) {
+                    if (shardEmails != null) {
+                        shardEmails.add(normalizeEmail(subscriber.getEmail()));
+                    }
+                    sink.accept(subscriber);
+                }
+            }
+            all.join();
+            finished = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading subscriber shards");
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException("Failed to read subscriber shards: " + cause.getMessage(), cause);
+        } finally {
+            if (!finished) {
+                // Unblock readers waiting on a full queue nobody drains any more
+                abandoned.set(true);
+                handOff.clear();
+            }
+        }
+
+        for (Subscriber subscriber : legacy) {
+            if (!shardEmails.contains(normalizeEmail(subscriber.getEmail()))) {
+                sink.accept(subscriber);
+            }
+        }
+    }
+
+    /**
+     * Number of entries a paged scan walks through: the shards, then the
+     * legacy entry while it is draining
+     */
+    public int getScanEntryCount() {
+        return shards.size() + (isLegacyDraining() ? 1 : 0);
+    }
+
+    /**
+     * Scan one entry sequentially, for cursor-based paging. Shards only grow by
+     * appending, so a position in an entry stays valid between pages.
+     *
+     * The entry is fetched once per scan and kept (with, while draining, the email
+     * sets of the shards used to skip legacy subscribers already copied into them) for
+     * the next pages of the same scan, so paging through an entry reads it once. A
+     * page whose scan has expired, or was started on another replica, refetches the
+     * entry and picks up at the same position.
+     *
+     * @param scanId Identifies the paged scan, the same on each of its pages
+     * @param index Entry index, 0 until {@link #getScanEntryCount()}
+     * @param skip Position in the entry to start at
+     * @param sink Receives subscribers from there on, returns false to stop
+     * @return How far the scan got, and whether it reached the end of the entry
+     */
+    public EntryScan scanEntry(String scanId, int index, int skip, Predicate<Subscriber> sink) throws IOException {
+        boolean legacy = index == shards.size();
+        String entryUid = legacy ? legacyEntryUid : shards.get(index);
+        ScanSnapshot snapshot = scanSnapshot(scanId + ":" + index, entryUid);
+
+        try {
+            List<Subscriber> subscribers = snapshot.subscribers();
+            int position = skip;
+            while (position < subscribers.size()) {
+                Subscriber subscriber = subscribers.get(position++);
+                if (legacy && migratedEmails(subscriber.getEmail(), snapshot.shardEmails())) {
+                    continue;
+                }
+                if (!sink.test(subscriber)) {
+                    return new EntryScan(position, position >= subscribers.size());
+                }
+            }
+            return new EntryScan(position, true);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Result of {@link #scanEntry}
+     *
+     * @param position Records of the entry consumed, skipped ones included: where the next page starts
+     * @param complete Whether the end of the entry was reached
+     */
+    public record EntryScan(int position, boolean complete) {
+    }
+
+    private record ScanSnapshot(List<Subscriber> subscribers, Map<Integer, Set<String>> shardEmails, long createdMillis) {
+    }
+
+    private ScanSnapshot scanSnapshot(String key, String entryUid) throws IOException {
+        long now = System.currentTimeMillis();
+        synchronized (scanSnapshots) {
+            ScanSnapshot snapshot = scanSnapshots.get(key);
+            if (snapshot != null && now - snapshot.createdMillis() < SCAN_SNAPSHOT_TTL_MILLIS) {
+                return snapshot;
+            }
+        }
+        ScanSnapshot snapshot = new ScanSnapshot(readEntry(entryUid).getSubscribers(), new ConcurrentHashMap<>(), now);
+        synchronized (scanSnapshots) {
+            scanSnapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private boolean migratedEmails(String email, Map<Integer, Set<String>> shardEmails) {
+        int shard = shardFor(email);
+        Set<String> emails = shardEmails.computeIfAbsent(shard, s -> {
+            Set<String> loaded = new HashSet<>();
+            try {
+                readEntry(shards.get(s), subscriber -> loaded.add(normalizeEmail(subscriber.getEmail())));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return loaded;
+        });
+        return emails.contains(normalizeEmail(email));
+    }
+
+    /**
+     * Move subscribers from the legacy single entry into their owning shards.
+     * Safe to run while the application serves traffic: reads keep merging the
+     * legacy entry until it is emptied, and shards skip emails they already hold.
+     *
+     * @return number of subscribers copied into shards
+     */
+    public int migrateLegacyEntry() throws IOException {
+        if (!isLegacyDraining()) {
+            log.info("Legacy subscribers entry is a shard, nothing to migrate");
+            return 0;
+        }
+
+        legacyLock.lock();
+        try {
+            ShardContents legacy = readEntry(legacyEntryUid);
+            Map<Integer, List<Subscriber>> byShard = new HashMap<>();
+            for (Subscriber subscriber : legacy.getSubscribers()) {
+                byShard.computeIfAbsent(shardFor(subscriber.getEmail()), k -> new ArrayList<>()).add(subscriber);
+            }
+
+            int migrated = 0;
+            for (Map.Entry<Integer, List<Subscriber>> group : byShard.entrySet()) {
+                migrated += mergeIntoShard(group.getKey(), group.getValue()).size();
+            }
+
+            // Every legacy subscriber now lives in a shard; empty the legacy entry
+            if (!writeEntry(legacyEntryUid, legacy.getTitle(), List.of())) {
+                throw new IOException("Failed to clear legacy subscribers entry " + legacyEntryUid);
+            }
+
+            log.info("Migrated {} of {} legacy subscribers into {} shard(s)",
+                migrated, legacy.getSubscribers().size(), byShard.size());
+            return migrated;
+        } finally {
+            legacyLock.unlock();
+        }
+    }
+
+    /**
+     * Append several subscribers to one shard with a single read and write.
+     * Emails the shard already holds are skipped, so replaying a batch is harmless.
+     *
+     * @return The subscribers added, i.e. without those whose email was already there
+     */
+    public List<Subscriber> appendAll(int shard, List<Subscriber> incoming) throws IOException {
+        return mergeIntoShard(shard, incoming);
+    }
+
+    /**
+     * Check whether an email is stored in its owning shard (or the draining legacy entry)
+     */
+    public boolean contains(String email) throws IOException {
+        String normalized = normalizeEmail(email);
+        if (isLegacyDraining() && containsEmail(readEntry(legacyEntryUid), normalized)) {
+            return true;
+        }
+        return containsEmail(readEntry(shards.get(shardFor(email))), normalized);
+    }
+
+    private List<Subscriber> mergeIntoShard(int shard, List<Subscriber> incoming) throws IOException {
+        String entryUid = shards.get(shard);
+        ReentrantLock lock = shardLocks[shard];
+        lock.lock();
+        try {
+            ShardContents contents = readEntry(entryUid);
+            List<Subscriber> updated = new ArrayList<>(contents.getSubscribers());
+            Set<String> emails = new HashSet<>();
+            for (Subscriber subscriber : updated) {
+                emails.add(normalizeEmail(subscriber.getEmail()));
+            }
+
+            List<Subscriber> added = new ArrayList<>();
+            for (Subscriber subscriber : incoming) {
+                if (emails.add(normalizeEmail(subscriber.getEmail()))) {
+                    updated.add(subscriber);
+                    added.add(subscriber);
+                }
+            }
+
+            if (!added.isEmpty() && !writeEntry(entryUid, contents.getTitle(), updated)) {
+                throw new IOException("Failed to write subscribers shard " + entryUid);
+            }
+            return added;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean containsEmail(ShardContents contents, String normalizedEmail) {
+        return containsEmail(contents.getSubscribers(), normalizedEmail);
+    }
+
+    private static boolean containsEmail(List<Subscriber> subscribers, String normalizedEmail) {
+        for (Subscriber subscriber : subscribers) {
+            if (normalizeEmail(subscriber.getEmail()).equals(normalizedEmail)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fetch one subscribers entry into memory (used by writes, which rewrite the whole shard)
+     */
+    ShardContents readEntry(String entryUid) throws IOException {
+        List<Subscriber> subscribers = new ArrayList<>();
+        String title = readEntry(entryUid, subscribers::add);
+        return new ShardContents(title != null ? title : DEFAULT_TITLE, subscribers);
+    }
+
+    /**
+     * Fetch one subscribers entry, parsing the response stream
+     * and emitting subscribers one at a time
+     *
+     * @return The entry title
+     */
+    String readEntry(String entryUid, Consumer<Subscriber> sink) throws IOException {
+        try (ResponseBody body = managementClient.fetchEntry(contentType, entryUid)) {
+            return SubscriberJson.readEntry(body.byteStream(), sink);
+        }
+    }
+
+    /**
+     * Rewrite one subscribers entry, streaming the payload straight into the request body
+     */
+    boolean writeEntry(String entryUid, String title, List<Subscriber> subscribers) throws IOException {
+        RequestBody payload = new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return JSON;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                SubscriberJson.writeEntry(sink.outputStream(), title != null ? title : DEFAULT_TITLE, subscribers);
+            }
+        };
+
+        return managementClient.updateEntry(contentType, entryUid, payload);
+    }
+}
@@ -0,0 +1,192 @@
+package com.streampick.service;
+
+import com.streampick.dto.Subscriber;
+import com.streampick.util.MoodMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Subscriber counters kept in step with {@link SubscriberLog} appends
+ *
+ * Holds a running total, a counter per mood bit and, per mood bit, a bitmap over
+ * log positions of the subscribers who picked that mood. Totals and single-mood
+ * audiences are O(1) reads; the exact audience of a mood combination is the
+ * cardinality of the OR (any mood) or AND (all moods) of their bitmaps, so nothing
+ * is fetched from Contentstack.
+ */
+@Service
+public class SubscriberStats {
+
+    private static final Logger log = LoggerFactory.getLogger(SubscriberStats.class);
+
+    // Mood masks use bits 0..30 (30 = overflow, set by every tag that isn't a known alias)
+    private static final int MOOD_BITS = 31;
+    private static final int OVERFLOW_INDEX = Integer.numberOfTrailingZeros(MoodMapper.OVERFLOW_BIT);
+
+    @Autowired
+    private SubscriberLog subscriberLog;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final BitSet[] audiences = new BitSet[MOOD_BITS];
+    private final AtomicIntegerArray audienceCounts = new AtomicIntegerArray(MOOD_BITS);
+    private final AtomicInteger total = new AtomicInteger();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private int indexedUpTo;  // Log positions below this are counted (guarded by lock)
+
+    @PostConstruct
+    void init() {
+        for (int bit = 0; bit < MOOD_BITS; bit++) {
+            audiences[bit] = new BitSet();
+        }
+
+        // Listen first, then index what is already there; positions make the overlap harmless
+        subscriberLog.addListener(this::index);
+        index(0, subscriberLog.records());
+
+        Gauge.builder("streampick.subscribers", total, AtomicInteger::get)
+            .description("Subscribers in the local subscriber log")
+            .register(meterRegistry);
+        for (String mood : MoodMapper.getBackendMoods()) {
+            Gauge.builder("streampick.subscribers.audience", () -> getAudienceSize(mood))
+                .description("Subscribers who picked the mood")
+                .tag("mood", mood)
+                .register(meterRegistry);
+        }
+
+        log.info("Subscriber stats initialized: {} subscribers, by mood {}", total.get(), getAudienceByMood());
+    }
+
+    private void index(int firstPosition, List<SubscriberLog.LogRecord> records) {
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < records.size(); i++) {
+                int position = firstPosition + i;
+                if (position < indexedUpTo) {
+                    continue;
+                }
+
+                int mask = records.get(i).subscriber().getMoodMask();
+                while (mask != 0) {
+                    int bit = Integer.numberOfTrailingZeros(mask);
+                    audiences[bit].set(position);
+                    audienceCounts.incrementAndGet(bit);
+                    mask &= mask - 1;
+                }
+                total.incrementAndGet();
+                indexedUpTo = position + 1;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Total number of subscribers
+     */
+    public int getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Audience size of each backend mood, in {@link MoodMapper#getBackendMoods()} order
+     */
+    public Map<String, Integer> getAudienceByMood() {
+        Map<String, Integer> byMood = new LinkedHashMap<>();
+        for (String mood : MoodMapper.getBackendMoods()) {
+            byMood.put(mood, getAudienceSize(mood));
+        }
+        return byMood;
+    }
+
+    /**
+     * Subscribers who picked a mood (any alias of it)
+     */
+    public int getAudienceSize(String mood) {
+        int mask = MoodMapper.compileMoods(List.of(mood));
+        if ((mask & MoodMapper.OVERFLOW_BIT) != 0) {
+            return audienceCounts.get(OVERFLOW_INDEX) == 0 ? 0 : countByScan(List.of(mood), false);
+        }
+        if (mask == 0) {
+            return 0;
+        }
+        return audienceCounts.get(Integer.numberOfTrailingZeros(mask));
+    }
+
+    /**
+     * Exact audience size for a mood combination
+     *
+     * @param moods Mood inputs in any format (UI label, alias or backend tag)
+     * @param matchAll true to count subscribers with every mood, false for any of them
+     *                 (the latter is who filter-by-moods would return)
+     * @return Number of matching subscribers
+     */
+    public int getAudienceSize(List<String> moods, boolean matchAll) {
+        int mask = MoodMapper.compileMoods(moods);
+        if ((mask & MoodMapper.OVERFLOW_BIT) != 0) {
+            if (audienceCounts.get(OVERFLOW_INDEX) > 0) {
+                // Tags without a bit of their own share one, so its bitmap can't tell them apart
+                return countByScan(moods, matchAll);
+            }
+            // No subscriber has such a tag: it matches nobody
+            if (matchAll) {
+                return 0;
+            }
+            mask &= ~MoodMapper.OVERFLOW_BIT;
+        }
+        if (mask == 0) {
+            return 0;
+        }
+        if (Integer.bitCount(mask) == 1) {
+            return audienceCounts.get(Integer.numberOfTrailingZeros(mask));
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet combined = null;
+            for (int rest = mask; rest != 0; rest &= rest - 1) {
+                BitSet audience = audiences[Integer.numberOfTrailingZeros(rest)];
+                if (combined == null) {
+                    combined = (BitSet) audience.clone();
+                } else if (matchAll) {
+                    combined.and(audience);
+                } else {
+                    combined.or(audience);
+                }
+            }
+            return combined.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int countByScan(List<String> moods, boolean matchAll) {
+        List<String> wanted = MoodMapper.normalizeMoods(moods);
+        int count = 0;
+        for (SubscriberLog.LogRecord record : subscriberLog.records()) {
+            Subscriber subscriber = record.subscriber();
+            List<String> preferred = MoodMapper.normalizeMoods(subscriber.getPreferredMoods());
+            boolean matches = matchAll
+                ? preferred.containsAll(wanted)
+                : MoodMapper.hasMatchingMood(subscriber.getPreferredMoods(), moods);
+            if (matches) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
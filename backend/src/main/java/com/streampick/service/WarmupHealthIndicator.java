@@ -0,0 +1,25 @@
+package com.streampick.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * "warmup" health: out of service until {@link WarmupService} completes
+ *
+ * Part of the readiness group (/actuator/health/readiness), so load balancers only
+ * route to instances that have warmed up; liveness is unaffected.
+ */
+@Component
+public class WarmupHealthIndicator implements HealthIndicator {
+
+    @Autowired
+    private WarmupService warmupService;
+
+    @Override
+    public Health health() {
+        Health.Builder builder = warmupService.isComplete() ? Health.up() : Health.outOfService();
+        return builder.withDetails(warmupService.getDetails()).build();
+    }
+}
@@ -0,0 +1,188 @@
+package com.streampick.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.streampick.dto.RecommendationRequest;
+import com.streampick.dto.RecommendationResponse;
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+import com.streampick.similarity.SimilarityService;
+import com.streampick.util.MoodMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Warm-up run once the application has started
+ *
+ * Loads the catalog (building its indexes) and the similarity index for it (else
+ * built in the background, after readiness), opens the pooled Management API
+ * connection, wakes the ML service through {@code /health} (a Render cold start can
+ * take most of a minute) and runs synthetic recommendations through the scorer and
+ * the JSON serializer so the JIT has compiled the hot paths before real traffic
+ * arrives. Runs in the background; {@link WarmupHealthIndicator} keeps the readiness
+ * group out of service until it completes. A failing step is recorded and skipped,
+ * so warm-up always completes.
+ */
+@Service
+public class WarmupService {
+
+    private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+    @Autowired
+    private CatalogService catalogService;
+
+    @Autowired
+    private SimilarityService similarityService;
+
+    @Autowired
+    private ContentstackManagementClient managementClient;
+
+    @Autowired
+    private RestTemplate restTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${warmup.synthetic-recommendations:500}")
+    private int syntheticRecommendations;
+
+    @Value("${warmup.ml-health.timeout.ms:60000}")
+    private long mlHealthTimeoutMillis;
+
+    @Value("${python.recommendation.service.url}")
+    private String pythonServiceUrl;
+
+    private final Map<String, String> steps = Collections.synchronizedMap(new LinkedHashMap<>());
+    private volatile boolean complete;
+    private volatile long durationMillis;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!enabled) {
+            steps.put("warmup", "disabled");
+            complete = true;
+            return;
+        }
+        Thread thread = new Thread(this::warmUp, "warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * @return true once every warm-up step has run (or warm-up is disabled)
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Outcome of each step so far, for the health details
+     */
+    public Map<String, Object> getDetails() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        synchronized (steps) {
+            details.putAll(steps);
+        }
+        if (complete) {
+            details.put("durationMillis", durationMillis);
+        }
+        return details;
+    }
+
+    void warmUp() {
+        long start = System.currentTimeMillis();
+        log.info("Warm-up started");
+
+        step("catalog", () -> {
+            if (!catalogService.catchUp()) {
+                return "failed, loading on first request";
+            }
+            Catalog catalog = catalogService.peekCatalog();
+            return catalog.size() + " movies, version " + catalog.getVersion();
+        });
+        step("similarityIndex", () -> similarityService.awaitIndex() + " movies");
+        step("contentstackManagement", () -> "HTTP " + managementClient.warmUp());
+        step("mlService", this::pingMlService);
+        step("scorer", this::runSyntheticRecommendations);
+
+        durationMillis = System.currentTimeMillis() - start;
+        complete = true;
+        log.info("Warm-up complete in {} ms: {}", durationMillis, steps);
+    }
+
+    private interface Step {
+        String run() throws Exception;
+    }
+
+    private void step(String name, Step step) {
+        long start = System.currentTimeMillis();
+        String outcome;
+        try {
+            outcome = step.run();
+        } catch (Exception e) {
+            log.warn("Warm-up step {} failed: {}", name, e.getMessage());
+            outcome = "failed: " + e.getMessage();
+        }
+        steps.put(name, outcome + " (" + (System.currentTimeMillis() - start) + " ms)");
+    }
+
+    /**
+     * Poll /health until the ML service answers or the timeout passes
+     */
+    private String pingMlService() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + mlHealthTimeoutMillis;
+        int attempts = 0;
+        while (true) {
+            attempts++;
+            try {
+                restTemplate.getForObject(pythonServiceUrl + "/health", String.class);
+                return "healthy after " + attempts + " attempt(s)";
+            } catch (RuntimeException e) {
+                if (System.currentTimeMillis() + 2000 > deadline) {
+                    return "unreachable after " + attempts + " attempt(s): " + e.getMessage();
+                }
+                Thread.sleep(2000);
+            }
+        }
+    }
+
+    /**
+     * Rank and serialize synthetic requests across every mood and a range of runtimes
+     */
+    private String runSyntheticRecommendations() throws Exception {
+        Catalog catalog = catalogService.peekCatalog();
+        if (catalog.isEmpty()) {
+            return "skipped, no catalog";
+        }
+
+        List<String> moods = MoodMapper.getBackendMoods();
+        long bytes = 0;
+        for (int i = 0; i < syntheticRecommendations; i++) {
+            RecommendationRequest request = new RecommendationRequest();
+            request.setMood(moods.get(i % moods.size()));
+            request.setTimeAvailable(60 + (i * 37) % 150);
+
+            List<Movie> candidates = catalog.getMoviesByMood(request.getMood());
+            RecommendationResponse response = RecommendationResponse.builder()
+                    .recommendations(RecommendationService.rankFallback(candidates, request, 5))
+                    .totalCandidates(candidates.size())
+                    .source("fallback")
+                    .build();
+            bytes += objectMapper.writeValueAsBytes(response).length;
+        }
+        return syntheticRecommendations + " recommendations, " + bytes + " bytes serialized";
+    }
+}
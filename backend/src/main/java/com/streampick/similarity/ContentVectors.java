@@ -0,0 +1,228 @@
+package com.streampick.similarity;
+
+import com.streampick.model.Movie;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * TF-IDF vectorizer for movies, fitted the way the ML service's content-based model
+ * is fitted
+ *
+ * Per movie the text is genres and mood tags (each repeated three times), description
+ * and AI description. Terms are lower-cased words of two or more characters, stop words
+ * removed, plus adjacent-word bigrams; only the {@link #MAX_FEATURES} most frequent
+ * terms in the fitted movies are kept. Weights are raw term count times smoothed IDF
+ * ({@code ln((1 + n) / (1 + df)) + 1}), and every vector is L2-normalized, so a dot
+ * product is the cosine similarity.
+ *
+ * Once fitted, the vocabulary and IDF are fixed, so movies added later are vectorized
+ * into the same space without touching the others.
+ */
+public final class ContentVectors {
+
+    public static final int MAX_FEATURES = 500;
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "a", "about", "after", "all", "also", "an", "and", "any", "are", "as", "at", "be", "been", "before",
+        "being", "but", "by", "can", "could", "do", "does", "for", "from", "had", "has", "have", "he", "her",
+        "his", "how", "if", "in", "into", "is", "it", "its", "just", "more", "most", "no", "not", "of", "on",
+        "one", "only", "or", "other", "our", "out", "over", "she", "so", "some", "such", "than", "that", "the",
+        "their", "them", "then", "there", "these", "they", "this", "those", "through", "to", "too", "up",
+        "very", "was", "we", "were", "what", "when", "where", "which", "while", "who", "why", "will", "with",
+        "would", "you", "your");
+
+    /**
+     * A sparse vector: sorted feature ids with their weights
+     */
+    public record SparseVector(int[] features, float[] weights) {
+
+        public static final SparseVector EMPTY = new SparseVector(new int[0], new float[0]);
+
+        /**
+         * Dot product (the cosine similarity, as both are normalized)
+         */
+        public float dot(SparseVector other) {
+            return ContentVectors.dot(features, weights, other.features, other.weights);
+        }
+    }
+
+    private final String[] vocabulary;
+    private final Map<String, Integer> featureIds;
+    private final double[] idf;
+    private final int documents;
+
+    private ContentVectors(String[] vocabulary, double[] idf, int documents) {
+        this.vocabulary = vocabulary;
+        this.idf = idf;
+        this.documents = documents;
+        this.featureIds = new HashMap<>(vocabulary.length * 2);
+        for (int i = 0; i < vocabulary.length; i++) {
+            featureIds.put(vocabulary[i], i);
+        }
+    }
+
+    /**
+     * Learn the vocabulary and IDF of a list of movies
+     */
+    public static ContentVectors fit(List<Movie> movies) {
+        Map<String, Integer> corpusCounts = new HashMap<>();
+        Map<String, Integer> documentFrequencies = new HashMap<>();
+        for (Movie movie : movies) {
+            termCounts(movie).forEach((term, count) -> {
+                corpusCounts.merge(term, count, Integer::sum);
+                documentFrequencies.merge(term, 1, Integer::sum);
+            });
+        }
+
+        // Vocabulary: the most frequent terms, ties broken alphabetically
+        String[] vocabulary = corpusCounts.keySet().stream()
+            .sorted((a, b) -> {
+                int byCount = Integer.compare(corpusCounts.get(b), corpusCounts.get(a));
+                return byCount != 0 ? byCount : a.compareTo(b);
+            })
+            .limit(MAX_FEATURES)
+            .sorted()
+            .toArray(String[]::new);
+        double[] idf = new double[vocabulary.length];
+        for (int i = 0; i < vocabulary.length; i++) {
+            idf[i] = Math.log((1.0 + movies.size()) / (1.0 + documentFrequencies.get(vocabulary[i]))) + 1;
+        }
+        return new ContentVectors(vocabulary, idf, movies.size());
+    }
+
+    /**
+     * A movie's normalized TF-IDF vector in this vocabulary
+     */
+    public SparseVector vectorize(Movie movie) {
+        Map<String, Integer> termCounts = termCounts(movie);
+        int[] ids = termCounts.keySet().stream()
+            .map(featureIds::get)
+            .filter(id -> id != null)
+            .mapToInt(Integer::intValue)
+            .sorted()
+            .toArray();
+        float[] values = new float[ids.length];
+        double norm = 0;
+        for (int i = 0; i < ids.length; i++) {
+            double weight = termCounts.get(vocabulary[ids[i]]) * idf[ids[i]];
+            values[i] = (float) weight;
+            norm += weight * weight;
+        }
+        if (norm > 0) {
+            float scale = (float) (1 / Math.sqrt(norm));
+            for (int i = 0; i < values.length; i++) {
+                values[i] *= scale;
+            }
+        }
+        return new SparseVector(ids, values);
+    }
+
+    public int dimensions() {
+        return vocabulary.length;
+    }
+
+    /**
+     * How many movies the vocabulary was fitted on
+     */
+    public int documents() {
+        return documents;
+    }
+
+    void write(DataOutput out) throws IOException {
+        out.writeInt(documents);
+        out.writeInt(vocabulary.length);
+        for (int i = 0; i < vocabulary.length; i++) {
+            out.writeUTF(vocabulary[i]);
+            out.writeDouble(idf[i]);
+        }
+    }
+
+    static ContentVectors read(DataInput in) throws IOException {
+        int documents = in.readInt();
+        int dimensions = in.readInt();
+        String[] vocabulary = new String[dimensions];
+        double[] idf = new double[dimensions];
+        for (int i = 0; i < dimensions; i++) {
+            vocabulary[i] = in.readUTF();
+            idf[i] = in.readDouble();
+        }
+        return new ContentVectors(vocabulary, idf, documents);
+    }
+
+    /**
+     * Dot product of two sparse vectors given as sorted ids and weights
+     */
+    static float dot(int[] featuresA, float[] weightsA, int[] featuresB, float[] weightsB) {
+        float dot = 0;
+        for (int i = 0, j = 0; i < featuresA.length && j < featuresB.length; ) {
+            if (featuresA[i] == featuresB[j]) {
+                dot += weightsA[i++] * weightsB[j++];
+            } else if (featuresA[i] < featuresB[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return dot;
+    }
+
+    private static Map<String, Integer> termCounts(Movie movie) {
+        Map<String, Integer> termCounts = new HashMap<>();
+        for (String term : terms(movie)) {
+            termCounts.merge(term, 1, Integer::sum);
+        }
+        return termCounts;
+    }
+
+    private static List<String> terms(Movie movie) {
+        List<String> parts = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            if (movie.getGenre() != null) {
+                parts.addAll(movie.getGenre());
+            }
+            if (movie.getMoodTags() != null) {
+                parts.addAll(movie.getMoodTags());
+            }
+        }
+        parts.add(movie.getDescription());
+        parts.add(movie.getAiDescription());
+
+        List<String> words = new ArrayList<>();
+        for (String part : parts) {
+            if (part != null) {
+                words.addAll(words(part));
+            }
+        }
+        List<String> terms = new ArrayList<>(words.size() * 2);
+        terms.addAll(words);
+        for (int i = 1; i < words.size(); i++) {
+            terms.add(words.get(i - 1) + " " + words.get(i));
+        }
+        return terms;
+    }
+
+    private static List<String> words(String text) {
+        String normalized = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD))
+            .replaceAll("")
+            .toLowerCase(Locale.ROOT);
+        List<String> words = new ArrayList<>();
+        for (String word : normalized.split("[^\\p{L}\\p{N}_]+")) {
+            if (word.length() >= 2 && !STOP_WORDS.contains(word)) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,476 @@
+package com.streampick.similarity;
+
+import com.streampick.similarity.ContentVectors.SparseVector;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntPredicate;
+
+/**
+ * Hierarchical navigable small world graph (HNSW, Malkov and Yashunin) over sparse unit
+ * vectors, searched by cosine similarity
+ *
+ * Every node is on level 0 and, with exponentially falling probability, on the levels
+ * above; each level links a node to up to {@code m} similar nodes ({@code 2m} on level
+ * 0), picked with the diversity heuristic. A search descends greedily from the top
+ * level and runs a best-first beam of width {@code ef} on level 0, so it scores a few
+ * hundred to a few thousand nodes however large the graph is.
+ *
+ * Nodes are only ever added. A deleted node keeps routing searches to its neighbours
+ * but is never returned. One thread adds and deletes while any number of threads
+ * search: a node's vector and links are written before the node count is published,
+ * link lists are replaced whole rather than edited, and a search ignores ids past the
+ * count it started with, so it sees a consistent (if slightly old) graph without locks.
+ */
+final class HnswGraph {
+
+    private static final int[] NO_LINKS = new int[0];
+    private static final int MAX_LEVEL = 16;
+    private static final int FORMAT = 1;
+
+    private static final ThreadLocal<Visited> VISITED = ThreadLocal.withInitial(Visited::new);
+
+    // Dense scratch copies of one side of a dot product: the query, and the node whose
+    // similarity to others the neighbour heuristic needs
+    private static final ThreadLocal<float[]> QUERY =
+            ThreadLocal.withInitial(() -> new float[ContentVectors.MAX_FEATURES]);
+    private static final ThreadLocal<float[]> PAIR =
+            ThreadLocal.withInitial(() -> new float[ContentVectors.MAX_FEATURES]);
+
+    /**
+     * The node searches start from, on the graph's top level
+     */
+    private record Entry(int node, int level) {
+    }
+
+    private final int m;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+
+    private int[][] features = new int[16][];
+    private float[][] weights = new float[16][];
+    private int[][][] links = new int[16][][];
+    private boolean[] deleted = new boolean[16];
+    private volatile int size;
+    private volatile Entry entry;
+    private int deletedCount;
+
+    HnswGraph(int m, int efConstruction, long seed) {
+        this.m = m;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+    }
+
+    int m() {
+        return m;
+    }
+
+    int efConstruction() {
+        return efConstruction;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int deletedCount() {
+        return deletedCount;
+    }
+
+    boolean isDeleted(int node) {
+        return deleted[node];
+    }
+
+    SparseVector vector(int node) {
+        return new SparseVector(features[node], weights[node]);
+    }
+
+    /**
+     * Add a node
+     *
+     * @return Its id, the number of nodes added before it
+     */
+    int add(SparseVector vector) {
+        int node = size;
+        ensureCapacity(node + 1);
+        features[node] = vector.features();
+        weights[node] = vector.weights();
+        int level = randomLevel();
+        int[][] nodeLinks = new int[level + 1][];
+        Arrays.fill(nodeLinks, NO_LINKS);
+        links[node] = nodeLinks;
+
+        Entry current = entry;
+        if (current == null) {
+            size = node + 1;
+            entry = new Entry(node, level);
+            return node;
+        }
+
+        float[] query = scatter(QUERY.get(), vector.features(), vector.weights());
+        try {
+            int nearest = current.node();
+            float nearestScore = score(query, nearest);
+            for (int l = current.level(); l > level; l--) {
+                long found = greedy(query, nearest, nearestScore, l, node);
+                nearest = (int) (found >>> 32);
+                nearestScore = Float.intBitsToFloat((int) found);
+            }
+            int[] candidates = new int[efConstruction];
+            float[] candidateScores = new float[efConstruction];
+            for (int l = Math.min(level, current.level()); l >= 0; l--) {
+                NodeHeap found = searchLayer(query, nearest, nearestScore, efConstruction, l, node, null,
+                        Integer.MAX_VALUE);
+                int count = found.drainBestFirst(candidates, candidateScores);
+                nodeLinks[l] = selectNeighbours(candidates, candidateScores, count, maxLinks(l));
+                nearest = candidates[0];
+                nearestScore = candidateScores[0];
+            }
+        } finally {
+            clear(query, vector.features());
+        }
+
+        size = node + 1;
+        for (int l = 0; l < nodeLinks.length; l++) {
+            for (int neighbour : nodeLinks[l]) {
+                link(neighbour, node, l);
+            }
+        }
+        if (level > current.level()) {
+            entry = new Entry(node, level);
+        }
+        return node;
+    }
+
+    void delete(int node) {
+        if (!deleted[node]) {
+            deleted[node] = true;
+            deletedCount++;
+        }
+    }
+
+    /**
+     * The nodes most similar to a query
+     *
+     * @param k Number of nodes wanted
+     * @param ef Beam width, at least k; larger finds more of the true top k, slower
+     * @param accept Which nodes may be returned (null: all); others are still traversed
+     * @param maxVisits Give up after scoring this many nodes (a filter few nodes pass
+     *        could otherwise walk the whole graph)
+     * @return How many nodes were written to the output arrays, best first
+     */
+    int search(SparseVector query, int k, int ef, IntPredicate accept, int maxVisits,
+            int[] outNodes, float[] outScores) {
+        int limit = size;
+        Entry start = entry;
+        if (start == null || limit == 0) {
+            return 0;
+        }
+        float[] dense = scatter(QUERY.get(), query.features(), query.weights());
+        try {
+            int nearest = start.node();
+            float nearestScore = score(dense, nearest);
+            for (int l = start.level(); l > 0; l--) {
+                long found = greedy(dense, nearest, nearestScore, l, limit);
+                nearest = (int) (found >>> 32);
+                nearestScore = Float.intBitsToFloat((int) found);
+            }
+            NodeHeap results = searchLayer(dense, nearest, nearestScore, Math.max(ef, k), 0, limit, accept,
+                    maxVisits);
+            while (results.size() > k) {
+                results.pop();
+            }
+            return results.drainBestFirst(outNodes, outScores);
+        } finally {
+            clear(dense, query.features());
+        }
+    }
+
+    /**
+     * Walk to ever more similar neighbours on one level until none is better
+     *
+     * @return The node in the high 32 bits, its score's float bits in the low 32
+     */
+    private long greedy(float[] query, int node, float score, int level, int limit) {
+        boolean moved = true;
+        while (moved) {
+            moved = false;
+            int[][] nodeLinks = links[node];
+            if (level >= nodeLinks.length) {
+                break;
+            }
+            for (int neighbour : nodeLinks[level]) {
+                if (neighbour >= limit) {
+                    continue;
+                }
+                float neighbourScore = score(query, neighbour);
+                if (neighbourScore > score) {
+                    score = neighbourScore;
+                    node = neighbour;
+                    moved = true;
+                }
+            }
+        }
+        return ((long) node << 32) | (Float.floatToRawIntBits(score) & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Best-first search of one level from a start node
+     *
+     * @return Up to ef accepted nodes, worst on top
+     */
+    private NodeHeap searchLayer(float[] query, int start, float startScore, int ef, int level, int limit,
+            IntPredicate accept, int maxVisits) {
+        Visited visited = VISITED.get();
+        visited.reset(limit);
+        NodeHeap candidates = NodeHeap.bestFirst(ef * 2);
+        NodeHeap results = NodeHeap.worstFirst(ef + 1);
+        visited.mark(start);
+        candidates.push(start, startScore);
+        if (accept == null || accept.test(start)) {
+            results.push(start, startScore);
+        }
+        int visits = 1;
+        while (!candidates.isEmpty() && visits < maxVisits) {
+            int candidate = candidates.topNode();
+            float candidateScore = candidates.topScore();
+            if (results.size() >= ef && candidateScore < results.topScore()) {
+                break;
+            }
+            candidates.pop();
+            int[][] nodeLinks = links[candidate];
+            if (level >= nodeLinks.length) {
+                continue;
+            }
+            for (int neighbour : nodeLinks[level]) {
+                if (neighbour >= limit || visited.isMarked(neighbour)) {
+                    continue;
+                }
+                visited.mark(neighbour);
+                visits++;
+                float score = score(query, neighbour);
+                if (results.size() < ef || score > results.topScore()) {
+                    candidates.push(neighbour, score);
+                    if (accept == null || accept.test(neighbour)) {
+                        results.push(neighbour, score);
+                        if (results.size() > ef) {
+                            results.pop();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Link a node to a new neighbour, pruning its list with the heuristic once it is full
+     */
+    private void link(int node, int neighbour, int level) {
+        int[] current = links[node][level];
+        int max = maxLinks(level);
+        if (current.length < max) {
+            int[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = neighbour;
+            links[node][level] = extended;
+            return;
+        }
+        int count = current.length + 1;
+        Integer[] order = new Integer[count];
+        int[] candidates = Arrays.copyOf(current, count);
+        candidates[current.length] = neighbour;
+        float[] scores = new float[count];
+        float[] base = scatter(PAIR.get(), features[node], weights[node]);
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+            scores[i] = score(base, candidates[i]);
+        }
+        clear(base, features[node]);
+        Arrays.sort(order, (a, b) -> Float.compare(scores[b], scores[a]));
+        int[] sorted = new int[count];
+        float[] sortedScores = new float[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = candidates[order[i]];
+            sortedScores[i] = scores[order[i]];
+        }
+        links[node][level] = selectNeighbours(sorted, sortedScores, count, max);
+    }
+
+    /**
+     * The HNSW neighbour heuristic: take candidates best first, skipping one that is
+     * more similar to an already picked neighbour than to the base node (it would add
+     * a redundant edge), then fill any remaining slots with the skipped ones
+     *
+     * @param candidates Candidates, most similar to the base node first
+     */
+    private int[] selectNeighbours(int[] candidates, float[] scores, int count, int max) {
+        int[] selected = new int[Math.min(max, count)];
+        int picked = 0;
+        int[] skipped = new int[count];
+        int skippedCount = 0;
+        float[] candidate = PAIR.get();
+        for (int i = 0; i < count && picked < selected.length; i++) {
+            boolean diverse = true;
+            int[] candidateFeatures = features[candidates[i]];
+            scatter(candidate, candidateFeatures, weights[candidates[i]]);
+            for (int j = 0; j < picked; j++) {
+                if (score(candidate, selected[j]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            clear(candidate, candidateFeatures);
+            if (diverse) {
+                selected[picked++] = candidates[i];
+            } else {
+                skipped[skippedCount++] = candidates[i];
+            }
+        }
+        for (int i = 0; i < skippedCount && picked < selected.length; i++) {
+            selected[picked++] = skipped[i];
+        }
+        return picked == selected.length ? selected : Arrays.copyOf(selected, picked);
+    }
+
+    private int maxLinks(int level) {
+        return level == 0 ? 2 * m : m;
+    }
+
+    private int randomLevel() {
+        return Math.min(MAX_LEVEL, (int) (-Math.log(1 - random.nextDouble()) * levelMultiplier));
+    }
+
+    /**
+     * Dot product of a dense vector with a node's
+     */
+    private float score(float[] dense, int node) {
+        int[] nodeFeatures = features[node];
+        float[] nodeWeights = weights[node];
+        float dot = 0;
+        for (int i = 0; i < nodeFeatures.length; i++) {
+            dot += dense[nodeFeatures[i]] * nodeWeights[i];
+        }
+        return dot;
+    }
+
+    private static float[] scatter(float[] dense, int[] sparseFeatures, float[] sparseWeights) {
+        for (int i = 0; i < sparseFeatures.length; i++) {
+            dense[sparseFeatures[i]] = sparseWeights[i];
+        }
+        return dense;
+    }
+
+    private static void clear(float[] dense, int[] sparseFeatures) {
+        for (int feature : sparseFeatures) {
+            dense[feature] = 0;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= features.length) {
+            return;
+        }
+        int grown = Math.max(capacity, features.length * 2);
+        features = Arrays.copyOf(features, grown);
+        weights = Arrays.copyOf(weights, grown);
+        links = Arrays.copyOf(links, grown);
+        deleted = Arrays.copyOf(deleted, grown);
+    }
+
+    void write(DataOutput out) throws IOException {
+        int count = size;
+        Entry start = entry;
+        out.writeByte(FORMAT);
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(count);
+        out.writeInt(start != null ? start.node() : -1);
+        out.writeInt(start != null ? start.level() : -1);
+        for (int node = 0; node < count; node++) {
+            out.writeBoolean(deleted[node]);
+            out.writeShort(features[node].length);
+            for (int i = 0; i < features[node].length; i++) {
+                out.writeShort(features[node][i]);
+                out.writeFloat(weights[node][i]);
+            }
+            out.writeByte(links[node].length);
+            for (int[] levelLinks : links[node]) {
+                out.writeShort(levelLinks.length);
+                for (int neighbour : levelLinks) {
+                    out.writeInt(neighbour);
+                }
+            }
+        }
+    }
+
+    static HnswGraph read(DataInput in, long seed) throws IOException {
+        if (in.readByte() != FORMAT) {
+            throw new IOException("Unknown graph format");
+        }
+        HnswGraph graph = new HnswGraph(in.readInt(), in.readInt(), seed);
+        int count = in.readInt();
+        int entryNode = in.readInt();
+        int entryLevel = in.readInt();
+        graph.ensureCapacity(count);
+        for (int node = 0; node < count; node++) {
+            if (in.readBoolean()) {
+                graph.deleted[node] = true;
+                graph.deletedCount++;
+            }
+            int length = in.readUnsignedShort();
+            int[] nodeFeatures = new int[length];
+            float[] nodeWeights = new float[length];
+            for (int i = 0; i < length; i++) {
+                nodeFeatures[i] = in.readUnsignedShort();
+                nodeWeights[i] = in.readFloat();
+            }
+            graph.features[node] = nodeFeatures;
+            graph.weights[node] = nodeWeights;
+            int[][] nodeLinks = new int[in.readUnsignedByte()][];
+            for (int l = 0; l < nodeLinks.length; l++) {
+                int[] levelLinks = new int[in.readUnsignedShort()];
+                for (int i = 0; i < levelLinks.length; i++) {
+                    levelLinks[i] = in.readInt();
+                }
+                nodeLinks[l] = levelLinks;
+            }
+            graph.links[node] = nodeLinks;
+        }
+        graph.size = count;
+        graph.entry = entryNode >= 0 ? new Entry(entryNode, entryLevel) : null;
+        return graph;
+    }
+
+    /**
+     * Per-thread visited marks: a node is visited if its mark is the current epoch, so
+     * starting a search doesn't clear an array the size of the graph
+     */
+    private static final class Visited {
+        private int[] marks = new int[0];
+        private int epoch;
+
+        void reset(int capacity) {
+            if (marks.length < capacity) {
+                marks = new int[Math.max(capacity, marks.length * 2)];
+                epoch = 0;
+            }
+            if (++epoch == 0) {
+                Arrays.fill(marks, 0);
+                epoch = 1;
+            }
+        }
+
+        boolean isMarked(int node) {
+            return marks[node] == epoch;
+        }
+
+        void mark(int node) {
+            marks[node] = epoch;
+        }
+    }
+}
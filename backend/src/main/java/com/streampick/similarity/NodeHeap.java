@@ -0,0 +1,118 @@
+package com.streampick.similarity;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of (node, score) pairs on primitive arrays, best or worst score on top
+ */
+final class NodeHeap {
+
+    private final boolean maxOnTop;
+    private int[] nodes;
+    private float[] scores;
+    private int size;
+
+    NodeHeap(int capacity, boolean maxOnTop) {
+        this.maxOnTop = maxOnTop;
+        this.nodes = new int[Math.max(4, capacity)];
+        this.scores = new float[nodes.length];
+    }
+
+    static NodeHeap bestFirst(int capacity) {
+        return new NodeHeap(capacity, true);
+    }
+
+    static NodeHeap worstFirst(int capacity) {
+        return new NodeHeap(capacity, false);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int topNode() {
+        return nodes[0];
+    }
+
+    float topScore() {
+        return scores[0];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    void push(int node, float score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!above(score, scores[parent])) {
+                break;
+            }
+            nodes[i] = nodes[parent];
+            scores[i] = scores[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        scores[i] = score;
+    }
+
+    /**
+     * Remove the top; read it with {@link #topNode()} and {@link #topScore()} first
+     */
+    void pop() {
+        int lastNode = nodes[--size];
+        float lastScore = scores[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && above(scores[child + 1], scores[child])) {
+                child++;
+            }
+            if (!above(scores[child], lastScore)) {
+                break;
+            }
+            nodes[i] = nodes[child];
+            scores[i] = scores[child];
+            i = child;
+        }
+        nodes[i] = lastNode;
+        scores[i] = lastScore;
+    }
+
+    /**
+     * Empty the heap into arrays, best score first
+     */
+    int drainBestFirst(int[] outNodes, float[] outScores) {
+        int count = size;
+        if (maxOnTop) {
+            for (int i = 0; i < count; i++) {
+                outNodes[i] = topNode();
+                outScores[i] = topScore();
+                pop();
+            }
+        } else {
+            for (int i = count - 1; i >= 0; i--) {
+                outNodes[i] = topNode();
+                outScores[i] = topScore();
+                pop();
+            }
+        }
+        return count;
+    }
+
+    private boolean above(float a, float b) {
+        return maxOnTop ? a > b : a < b;
+    }
+}
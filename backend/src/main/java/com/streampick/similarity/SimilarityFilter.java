@@ -0,0 +1,43 @@
+package com.streampick.similarity;
+
+import com.streampick.model.Movie;
+import com.streampick.util.MoodMapper;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Restricts "more like this" results to some moods and a runtime range
+ *
+ * @param moods Any of these moods (UI labels, aliases or tags); null or empty: any
+ * @param minRuntime Minimum runtime in minutes, inclusive; null: no minimum
+ * @param maxRuntime Maximum runtime in minutes, inclusive; null: no maximum
+ */
+public record SimilarityFilter(List<String> moods, Integer minRuntime, Integer maxRuntime) {
+
+    public static final SimilarityFilter NONE = new SimilarityFilter(null, null, null);
+
+    public boolean isEmpty() {
+        return (moods == null || moods.isEmpty()) && minRuntime == null && maxRuntime == null;
+    }
+
+    /**
+     * The filter as a test on movies, moods compiled to a mask once
+     */
+    Predicate<Movie> compile() {
+        int moodMask = MoodMapper.compileMoods(moods);
+        int min = minRuntime != null ? minRuntime : Integer.MIN_VALUE;
+        int max = maxRuntime != null ? maxRuntime : Integer.MAX_VALUE;
+        boolean anyRuntime = minRuntime == null && maxRuntime == null;
+        return movie -> {
+            if (moodMask != 0 && !MoodMapper.hasMatchingMood(moodMask, moods, movie.getMoodMask(), movie.getMoodTags())) {
+                return false;
+            }
+            if (anyRuntime) {
+                return true;
+            }
+            Integer runtime = movie.getRuntime();
+            return runtime != null && runtime >= min && runtime <= max;
+        };
+    }
+}
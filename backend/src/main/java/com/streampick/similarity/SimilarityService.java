@@ -0,0 +1,157 @@
+package com.streampick.similarity;
+
+import com.streampick.model.Catalog;
+import com.streampick.profile.Personalization;
+import com.streampick.profile.ProfileStore;
+import com.streampick.service.CatalogDerived;
+import com.streampick.service.CatalogService;
+import com.streampick.tracing.StageTimer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * "More like this": the movies most similar to a given one, from a {@link VectorIndex}
+ * kept up to date with the catalog
+ *
+ * Each new catalog version is applied to the index as a delta, on a background thread;
+ * when that calls for a full rebuild, requests keep using the previous index until the
+ * new one is ready. The index is saved to {@code similar.index.dir} after every change
+ * and loaded from there on startup, so a restart only applies what changed since.
+ * Recall against an exact scan is measured by {@code VectorIndexBenchmark} (JMH), not here.
+ *
+ * For a user with a profile, the top K neighbours are re-ranked by their similarity
+ * blended with the profile's affinity before the limit is applied.
+ */
+@Service
+public class SimilarityService {
+
+    private static final Logger log = LoggerFactory.getLogger(SimilarityService.class);
+    private static final String INDEX_FILE = "similarity.idx";
+
+    private final CatalogDerived<VectorIndex> index;
+    private final StageTimer stageTimer;
+    private final ProfileStore profileStore;
+    private final int topK;
+    private final VectorIndex.Settings settings;
+    private final Path indexFile;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "similarity-index-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean saveQueued = new AtomicBoolean();
+    private volatile VectorIndex latest;
+
+    public SimilarityService(CatalogService catalogService, StageTimer stageTimer, ProfileStore profileStore,
+            @Value("${similar.top-k:20}") int topK,
+            @Value("${similar.index.m:16}") int m,
+            @Value("${similar.index.ef-construction:100}") int efConstruction,
+            @Value("${similar.index.ef-search:64}") int efSearch,
+            @Value("${similar.index.dir:./data/similarity}") String directory) {
+        this.stageTimer = stageTimer;
+        this.profileStore = profileStore;
+        this.topK = topK;
+        this.settings = new VectorIndex.Settings(m, efConstruction, Math.max(efSearch, topK));
+        this.indexFile = Path.of(directory).toAbsolutePath().normalize().resolve(INDEX_FILE);
+        // Updates run on the writer thread too, so a full rebuild (seconds at 10k movies) never blocks a request
+        this.index = new CatalogDerived<>(catalogService, "Similarity index", this::update, writer);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        writer.shutdownNow();
+    }
+
+    /**
+     * Movies similar to one, most similar first
+     *
+     * @param uid Movie UID
+     * @param limit Maximum number of movies (at most similar.top-k)
+     * @param userId User to personalize the order for, may be null
+     * @param filter Only movies passing it
+     * @return The similar movies, or null if the movie isn't in the catalog
+     */
+    public List<VectorIndex.Neighbour> similarTo(String uid, int limit, String userId, SimilarityFilter filter) {
+        VectorIndex current = index.get();
+        if (!current.contains(uid)) {
+            return null;
+        }
+        int count = Math.min(limit, topK);
+        Personalization personalization = profileStore.personalization(userId);
+        try (StageTimer.Stage stage = stageTimer.start("similar")) {
+            if (personalization.isEmpty()) {
+                return current.similarTo(uid, count, filter);
+            }
+            return current.similarTo(uid, topK, filter).stream()
+                .sorted(Comparator.comparingDouble((VectorIndex.Neighbour neighbour) ->
+                        personalization.blend(neighbour.similarity(), 1.0, neighbour.movie())).reversed())
+                .limit(count)
+                .toList();
+        }
+    }
+
+    /**
+     * Bring the index up to the current catalog version, waiting for a build in progress
+     *
+     * @return Movies in the index
+     */
+    public int awaitIndex() {
+        return index.getCurrent().size();
+    }
+
+    private VectorIndex update(Catalog catalog) {
+        if (catalog.isEmpty()) {
+            return VectorIndex.build(catalog, settings);  // Nothing loaded yet; keep the saved index for it
+        }
+        VectorIndex previous = latest != null ? latest : load();
+        VectorIndex next = previous != null ? previous.update(catalog) : VectorIndex.build(catalog, settings);
+        latest = next;
+        queueSave();
+        return next;
+    }
+
+    private VectorIndex load() {
+        if (!Files.exists(indexFile)) {
+            return null;
+        }
+        try {
+            return VectorIndex.load(indexFile, settings);
+        } catch (IOException e) {
+            log.warn("Couldn't load the similarity index from {}, building it: {}", indexFile, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Save in the background; saves queued while one waits are coalesced
+     */
+    private void queueSave() {
+        if (saveQueued.compareAndSet(false, true)) {
+            writer.execute(() -> {
+                saveQueued.set(false);
+                VectorIndex current = latest;
+                long start = System.nanoTime();
+                try {
+                    current.save(indexFile);
+                    log.info("Similarity index of catalog version {} saved in {} ms", current.getVersion(),
+                        (System.nanoTime() - start) / 1_000_000);
+                } catch (IOException e) {
+                    log.warn("Couldn't save the similarity index to {}: {}", indexFile, e.getMessage());
+                }
+            });
+        }
+    }
+}
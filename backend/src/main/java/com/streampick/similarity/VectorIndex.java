@@ -0,0 +1,375 @@
+package com.streampick.similarity;
+
+import com.streampick.model.Catalog;
+import com.streampick.model.Movie;
+import com.streampick.similarity.ContentVectors.SparseVector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+
+/**
+ * Approximate nearest-neighbour index of the catalog's content vectors, for "more like
+ * this" at any catalog size
+ *
+ * Movies are vectorized with {@link ContentVectors} fitted on the catalog the index was
+ * built from, and searched through an {@link HnswGraph}. A new catalog version is
+ * applied as a delta: movies whose content (genres, moods, descriptions, runtime)
+ * changed are deleted and added again, new ones added, removed ones deleted, and the
+ * rest only get their Movie swapped. {@link #update} builds a fresh index instead once a
+ * quarter of the nodes are deleted, or the catalog has doubled since the vocabulary was
+ * fitted (its IDF no longer describes the catalog).
+ *
+ * A filtered search walks the same graph but only returns movies that pass. The beam
+ * is widened by how rare passing movies are (estimated from a sample); when they are
+ * rarer than the beam is wide, or the walk's visit budget runs out before k are found,
+ * the movies are scanned exactly instead.
+ */
+public final class VectorIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(VectorIndex.class);
+
+    private static final int FORMAT = 1;
+    private static final long SEED = 42;
+    private static final int SELECTIVITY_SAMPLE = 256;
+    private static final int MAX_EF = 2000;
+    private static final int MIN_FILTERED_VISITS = 10_000;
+
+    public record Neighbour(Movie movie, float similarity) {
+    }
+
+    /**
+     * Graph parameters
+     *
+     * @param m Links per node and level (2m on level 0)
+     * @param efConstruction Beam width while adding nodes
+     * @param efSearch Beam width while searching, at least the number of results
+     */
+    public record Settings(int m, int efConstruction, int efSearch) {
+    }
+
+    private final Settings settings;
+    private final ContentVectors model;
+    private final HnswGraph graph;
+    private final Map<String, Integer> nodesByUid = new ConcurrentHashMap<>();
+    private volatile Movie[] movies = new Movie[16];
+    private int[] fingerprints = new int[16];
+    private volatile String version;
+
+    private VectorIndex(Settings settings, ContentVectors model, HnswGraph graph) {
+        this.settings = settings;
+        this.model = model;
+        this.graph = graph;
+    }
+
+    /**
+     * A new index of a catalog, its vocabulary fitted on it
+     */
+    public static VectorIndex build(Catalog catalog, Settings settings) {
+        VectorIndex index = new VectorIndex(settings, ContentVectors.fit(catalog.getMovies()),
+                new HnswGraph(settings.m(), settings.efConstruction(), SEED));
+        index.apply(catalog.getMovies());
+        index.version = catalog.getVersion();
+        return index;
+    }
+
+    /**
+     * Bring the index up to a catalog version
+     *
+     * @return This index, updated in place, or a new index if it was due a rebuild
+     */
+    public synchronized VectorIndex update(Catalog catalog) {
+        if (version != null && version.equals(catalog.getVersion())) {
+            return this;
+        }
+        List<Movie> list = catalog.getMovies();
+        if (list.size() > 2 * model.documents()) {
+            return build(catalog, settings);
+        }
+        int[] delta = apply(list);
+        if (graph.deletedCount() > graph.size() / 4) {
+            return build(catalog, settings);
+        }
+        log.info("Similarity index updated to catalog version {}: {} added, {} changed, {} removed",
+            catalog.getVersion(), delta[0], delta[1], delta[2]);
+        version = catalog.getVersion();
+        return this;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * Movies in the index
+     */
+    public int size() {
+        return nodesByUid.size();
+    }
+
+    public boolean contains(String uid) {
+        return nodesByUid.containsKey(uid);
+    }
+
+    /**
+     * The movies most similar to one
+     *
+     * @param uid Movie UID
+     * @param limit Maximum number of movies
+     * @param filter Only movies passing it
+     * @return Similar movies, most similar first; null if the movie isn't indexed
+     */
+    public List<Neighbour> similarTo(String uid, int limit, SimilarityFilter filter) {
+        Integer node = nodesByUid.get(uid);
+        if (node == null) {
+            return null;
+        }
+        return search(graph.vector(node), limit, filter, node);
+    }
+
+    /**
+     * The same as {@link #similarTo}, always by an exact scan (the baseline recall is
+     * measured against)
+     */
+    List<Neighbour> exactSimilarTo(String uid, int limit, SimilarityFilter filter) {
+        Integer node = nodesByUid.get(uid);
+        if (node == null) {
+            return null;
+        }
+        Movie[] current = movies;
+        Predicate<Movie> test = filter.compile();
+        IntPredicate accept = other -> other != node && !graph.isDeleted(other)
+                && other < current.length && current[other] != null && test.test(current[other]);
+        int[] nodes = new int[Math.max(limit, 1)];
+        float[] scores = new float[nodes.length];
+        int found = exact(graph.vector(node), limit, accept, nodes, scores);
+        return neighbours(current, nodes, scores, found);
+    }
+
+    /**
+     * @param exclude Node never returned (the query movie itself), -1 for none
+     */
+    private List<Neighbour> search(SparseVector query, int k, SimilarityFilter filter, int exclude) {
+        Movie[] current = movies;
+        int[] nodes = new int[Math.max(k, 1)];
+        float[] scores = new float[nodes.length];
+        if (filter.isEmpty()) {
+            IntPredicate accept = node -> node != exclude && !graph.isDeleted(node);
+            int found = graph.search(query, k, settings.efSearch(), accept, Integer.MAX_VALUE, nodes, scores);
+            return neighbours(current, nodes, scores, found);
+        }
+
+        Predicate<Movie> test = filter.compile();
+        IntPredicate accept = node -> node != exclude && !graph.isDeleted(node)
+                && node < current.length && current[node] != null && test.test(current[node]);
+        double selectivity = selectivity(current, test);
+        int ef = (int) Math.min(MAX_EF, Math.ceil(Math.max(settings.efSearch(), k) / Math.max(selectivity, 1e-9)));
+        if (selectivity * graph.size() > ef) {
+            int found = graph.search(query, k, ef, accept, Math.max(MIN_FILTERED_VISITS, 20 * ef), nodes, scores);
+            if (found >= k) {
+                return neighbours(current, nodes, scores, found);
+            }
+        }
+        int found = exact(query, k, accept, nodes, scores);
+        return neighbours(current, nodes, scores, found);
+    }
+
+    /**
+     * Share of a sample of live movies passing a filter
+     */
+    private double selectivity(Movie[] current, Predicate<Movie> test) {
+        int size = Math.min(graph.size(), current.length);
+        int sampled = 0;
+        int passed = 0;
+        for (int i = 0; i < SELECTIVITY_SAMPLE && i < size; i++) {
+            int node = (int) ((long) i * size / Math.min(SELECTIVITY_SAMPLE, size));
+            if (graph.isDeleted(node) || current[node] == null) {
+                continue;
+            }
+            sampled++;
+            passed += test.test(current[node]) ? 1 : 0;
+        }
+        return sampled > 0 ? (double) passed / sampled : 0;
+    }
+
+    /**
+     * Score every accepted node
+     */
+    private int exact(SparseVector query, int k, IntPredicate accept, int[] outNodes, float[] outScores) {
+        NodeHeap best = NodeHeap.worstFirst(k + 1);
+        int size = graph.size();
+        for (int node = 0; node < size; node++) {
+            if (!accept.test(node)) {
+                continue;
+            }
+            float score = query.dot(graph.vector(node));
+            if (best.size() < k || score > best.topScore()) {
+                best.push(node, score);
+                if (best.size() > k) {
+                    best.pop();
+                }
+            }
+        }
+        return best.drainBestFirst(outNodes, outScores);
+    }
+
+    private static List<Neighbour> neighbours(Movie[] current, int[] nodes, float[] scores, int count) {
+        List<Neighbour> neighbours = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Movie movie = nodes[i] < current.length ? current[nodes[i]] : null;
+            if (movie != null) {
+                neighbours.add(new Neighbour(movie, scores[i]));
+            }
+        }
+        return neighbours;
+    }
+
+    /**
+     * Add, re-add and delete nodes so the index holds exactly these movies
+     *
+     * @return Movies added, changed and removed
+     */
+    private int[] apply(List<Movie> list) {
+        Set<String> present = new HashSet<>(list.size() * 2);
+        int added = 0;
+        int changed = 0;
+        for (Movie movie : list) {
+            String uid = movie.getUid();
+            if (uid == null || !present.add(uid)) {
+                continue;
+            }
+            int fingerprint = fingerprint(movie);
+            Integer node = nodesByUid.get(uid);
+            if (node != null && fingerprints[node] == fingerprint) {
+                movies[node] = movie;
+                continue;
+            }
+            if (node != null) {
+                graph.delete(node);
+                changed++;
+            } else {
+                added++;
+            }
+            int next = graph.size();
+            ensureCapacity(next + 1);
+            movies[next] = movie;
+            fingerprints[next] = fingerprint;
+            graph.add(model.vectorize(movie));
+            nodesByUid.put(uid, next);
+        }
+        int removed = 0;
+        for (Iterator<Map.Entry<String, Integer>> it = nodesByUid.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Integer> entry = it.next();
+            if (!present.contains(entry.getKey())) {
+                graph.delete(entry.getValue());
+                it.remove();
+                removed++;
+            }
+        }
+        return new int[] {added, changed, removed};
+    }
+
+    /**
+     * Hash of everything the vector and the filters are computed from
+     */
+    private static int fingerprint(Movie movie) {
+        return Objects.hash(movie.getGenre(), movie.getMoodTags(), movie.getDescription(),
+                movie.getAiDescription(), movie.getRuntime());
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= fingerprints.length) {
+            return;
+        }
+        int grown = Math.max(capacity, fingerprints.length * 2);
+        fingerprints = Arrays.copyOf(fingerprints, grown);
+        movies = Arrays.copyOf(movies, grown);
+    }
+
+    /**
+     * Write the index to a file (through a temporary file, so a crash never leaves a
+     * partial one)
+     */
+    public synchronized void save(Path file) throws IOException {
+        Files.createDirectories(file.getParent());
+        Path temp = file.resolveSibling(file.getFileName() + ".part");
+        try (OutputStream stream = Files.newOutputStream(temp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16))) {
+            out.writeByte(FORMAT);
+            out.writeUTF(version != null ? version : "");
+            model.write(out);
+            int size = graph.size();
+            out.writeInt(size);
+            for (int node = 0; node < size; node++) {
+                out.writeInt(fingerprints[node]);
+            }
+            out.writeInt(nodesByUid.size());
+            for (Map.Entry<String, Integer> entry : nodesByUid.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            graph.write(out);
+        }
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read an index written by {@link #save}; it holds no movies until the next
+     * {@link #update}, which applies the catalog as a delta
+     *
+     * @return The index, or null if it was built with other graph parameters
+     * @throws IOException if the file is missing or unreadable
+     */
+    public static VectorIndex load(Path file, Settings settings) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readByte() != FORMAT) {
+                throw new IOException("Unknown index format");
+            }
+            String savedVersion = in.readUTF();
+            ContentVectors model = ContentVectors.read(in);
+            int size = in.readInt();
+            int[] fingerprints = new int[Math.max(16, size)];
+            for (int node = 0; node < size; node++) {
+                fingerprints[node] = in.readInt();
+            }
+            int uids = in.readInt();
+            Map<String, Integer> nodesByUid = new ConcurrentHashMap<>(uids * 2);
+            for (int i = 0; i < uids; i++) {
+                nodesByUid.put(in.readUTF(), in.readInt());
+            }
+            HnswGraph graph = HnswGraph.read(in, SEED + size);
+            if (graph.m() != settings.m() || graph.efConstruction() != settings.efConstruction()) {
+                log.info("Saved similarity index was built with other parameters, ignoring it");
+                return null;
+            }
+            VectorIndex index = new VectorIndex(settings, model, graph);
+            index.fingerprints = fingerprints;
+            index.movies = new Movie[fingerprints.length];
+            index.nodesByUid.putAll(nodesByUid);
+            log.info("Loaded similarity index of catalog version {} ({} movies) from {}",
+                savedVersion, nodesByUid.size(), file);
+            return index;
+        } catch (RuntimeException e) {
+            throw new IOException("Malformed similarity index: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.streampick.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Times response serialization and, when {@code server-timing.enabled} is set, adds a
+ * {@code Server-Timing} header with the request's stages
+ *
+ * Headers must be set before the body is committed, so the header is written when the
+ * body is first opened: it covers every stage up to the first byte ({@code app}). The
+ * {@code serialize} stage that follows is only in the trace and the stage timer.
+ */
+@Component
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String HEADER = "Server-Timing";
+
+    private final StageTimer stageTimer;
+
+    @Value("${server-timing.enabled:false}")
+    private boolean headerEnabled;
+
+    // Browsers only expose Server-Timing to cross-origin pages listed here
+    @Value("${cors.allowed.origins:}")
+    private String allowedOrigins;
+
+    public ServerTimingFilter(StageTimer stageTimer) {
+        this.stageTimer = stageTimer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ServerTimings timings = headerEnabled ? ServerTimings.bind() : null;
+        TimedResponse timedResponse = new TimedResponse(response, timings);
+        try {
+            chain.doFilter(request, timedResponse);
+        } finally {
+            // Async (streamed) responses keep writing on other threads after this returns
+            if (!request.isAsyncStarted()) {
+                timedResponse.bodyStarted();
+            }
+            timedResponse.endSerialization();
+            if (timings != null) {
+                ServerTimings.unbind();
+            }
+        }
+    }
+
+    /**
+     * Writes the header and starts the serialize stage when the body is first opened
+     */
+    private class TimedResponse extends HttpServletResponseWrapper {
+        private final ServerTimings timings;
+        private final Thread requestThread = Thread.currentThread();
+        private StageTimer.Stage serialization;
+        private boolean started;
+
+        TimedResponse(HttpServletResponse response, ServerTimings timings) {
+            super(response);
+            this.timings = timings;
+        }
+
+        void bodyStarted() {
+            if (started) {
+                return;
+            }
+            started = true;
+            if (timings != null && !isCommitted()) {
+                setHeader(HEADER, timings.header());
+                if (!allowedOrigins.isBlank()) {
+                    setHeader("Timing-Allow-Origin", allowedOrigins.replace(",", ", "));
+                }
+            }
+        }
+
+        void endSerialization() {
+            if (serialization != null && Thread.currentThread() == requestThread) {
+                serialization.close();
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            startSerialization();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            startSerialization();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            bodyStarted();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int status) throws IOException {
+            bodyStarted();
+            super.sendError(status);
+        }
+
+        @Override
+        public void sendError(int status, String message) throws IOException {
+            bodyStarted();
+            super.sendError(status, message);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            bodyStarted();
+            super.sendRedirect(location);
+        }
+
+        private void startSerialization() {
+            // Stages are scoped to the thread; bodies written from async threads aren't timed
+            if (!started && Thread.currentThread() == requestThread) {
+                bodyStarted();
+                serialization = stageTimer.start("serialize");
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.streampick.tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Stage durations and attributes collected for one request's Server-Timing header
+ *
+ * Bound to the request thread by {@link ServerTimingFilter} only when the header is
+ * enabled, so stages cost nothing extra otherwise.
+ */
+final class ServerTimings {
+
+    private static final ThreadLocal<ServerTimings> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final List<String> metrics = new ArrayList<>();
+
+    static ServerTimings current() {
+        return CURRENT.get();
+    }
+
+    static ServerTimings bind() {
+        ServerTimings timings = new ServerTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    synchronized void add(String stage, long nanos) {
+        metrics.add(stage + ";dur=" + String.format(Locale.ROOT, "%.1f", nanos / 1e6));
+    }
+
+    synchronized void describe(String key, String value) {
+        String token = key.replace('.', '-');
+        String description = value.replace("\\", "\\\\").replace("\"", "\\\"");
+        metrics.add(token + ";desc=\"" + description + "\"");
+    }
+
+    /**
+     * Header value: the stages in completion order, then the time to first byte as {@code app}
+     */
+    synchronized String header() {
+        List<String> values = new ArrayList<>(metrics);
+        values.add("app;dur=" + String.format(Locale.ROOT, "%.1f", (System.nanoTime() - startNanos) / 1e6));
+        return String.join(", ", values);
+    }
+}
@@ -0,0 +1,106 @@
+package com.streampick.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.ObservationView;
+import org.springframework.stereotype.Component;
+
+/**
+ * Request-scoped stage timing
+ *
+ * Each stage is an observation named {@code streampick.stage} (tagged with the stage
+ * name), so it becomes a child span of the HTTP request when tracing is enabled and a
+ * {@code streampick.stage} timer either way. When the Server-Timing header is enabled,
+ * stages timed on the request thread are also added to the header.
+ *
+ * <pre>
+ * try (StageTimer.Stage stage = stageTimer.start("ml")) {
+ *     ...
+ * }
+ * </pre>
+ */
+@Component
+public class StageTimer {
+
+    private static final String OBSERVATION_NAME = "streampick.stage";
+
+    private final ObservationRegistry observationRegistry;
+
+    public StageTimer(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Start timing a stage; close the returned stage when it ends
+     *
+     * @param name Stage name, a Server-Timing token (letters, digits, '-')
+     */
+    public Stage start(String name) {
+        Observation observation = Observation.createNotStarted(OBSERVATION_NAME, observationRegistry)
+                .contextualName(name)
+                .lowCardinalityKeyValue("stage", name)
+                .start();
+        return new Stage(name, observation, observation.openScope());
+    }
+
+    /**
+     * Attach an attribute to the current span and its parents (up to the HTTP request
+     * span) and to the Server-Timing header; high-cardinality, so never a metric tag
+     */
+    public void tag(String key, String value) {
+        if (value == null) {
+            return;
+        }
+        ObservationView view = observationRegistry.getCurrentObservation();
+        while (view != null) {
+            if (view instanceof Observation observation) {
+                observation.highCardinalityKeyValue(key, value);
+            }
+            view = view.getContextView().getParentObservation();
+        }
+        ServerTimings timings = ServerTimings.current();
+        if (timings != null) {
+            timings.describe(key, value);
+        }
+    }
+
+    /**
+     * A running stage
+     */
+    public static final class Stage implements AutoCloseable {
+        private final String name;
+        private final Observation observation;
+        private final Observation.Scope scope;
+        private final long startNanos = System.nanoTime();
+        private boolean closed;
+
+        private Stage(String name, Observation observation, Observation.Scope scope) {
+            this.name = name;
+            this.observation = observation;
+            this.scope = scope;
+        }
+
+        /**
+         * Mark the stage as failed (it still has to be closed)
+         */
+        public void error(Throwable error) {
+            observation.error(error);
+        }
+
+        @Override
+        public void close() {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            long nanos = System.nanoTime() - startNanos;
+            scope.close();
+            observation.stop();
+
+            ServerTimings timings = ServerTimings.current();
+            if (timings != null) {
+                timings.add(name, nanos);
+            }
+        }
+    }
+}
@@ -1,15 +1,43 @@
 package com.streampick.util;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
 
 /**
  * Maps user-friendly mood labels to backend mood tags
  * Mirrors the Python MoodMapper in recommendation-service
+ * 
+ * Moods can also be compiled into an int mask (one bit per backend mood) so that
+ * matching a subscriber against a movie is a single {@code &}. Other tags only get a
+ * bit of their own when a catalog carrying them is registered
+ * ({@link #registerCatalogTags}), until the spare bits run out. Every tag that isn't
+ * a known alias also sets {@link #OVERFLOW_BIT}, so a mask compiled before its tag was
+ * registered still matches, by comparing the strings; input from requests and signups
+ * never claims a bit.
  */
 public class MoodMapper {
     
     private static final Map<String, String> MOOD_ALIASES = new HashMap<>();
     
+    private static final List<String> BACKEND_MOODS = List.of("cozy", "thrilling", "laugh", "deep", "escape", "chill");
+    
+    /** Set by every tag that isn't a known alias; matching then compares the strings */
+    public static final int OVERFLOW_BIT = 1 << 30;
+    
+    /** Never produced by {@link #compileMoods}, usable as a "not compiled yet" marker */
+    public static final int UNCOMPILED = Integer.MIN_VALUE;
+    
+    /** Normalized alias -> mood bit, fixed at class load */
+    private static final Map<String, Integer> ALIAS_BITS = new HashMap<>();
+    
+    /** Normalized catalog tag -> mood bit, assigned when a catalog carrying it is registered */
+    private static final Map<String, Integer> EXTRA_BITS = new ConcurrentHashMap<>();
+    private static final int MAX_EXTRA_BITS = 30 - BACKEND_MOODS.size();
+    
+    /** What a catalog tag must look like to claim a bit (after normalization) */
+    private static final Pattern CATALOG_TAG = Pattern.compile("[a-z][a-z0-9 &'-]{0,31}");
+    
     static {
         // Direct mappings
         MOOD_ALIASES.put("cozy", "cozy");
@@ -52,6 +80,9 @@ public class MoodMapper {
         MOOD_ALIASES.put("background", "chill");
         MOOD_ALIASES.put("relaxing", "chill");
         MOOD_ALIASES.put("mellow", "chill");
+        
+        // Resolve every alias to its backend mood's bit once
+        MOOD_ALIASES.forEach((alias, mood) -> ALIAS_BITS.put(alias, 1 << BACKEND_MOODS.indexOf(mood)));
     }
     
     /**
@@ -106,17 +137,35 @@ public class MoodMapper {
             return false;
         }
         
-        // Normalize both lists
-        List<String> normalizedUserMoods = normalizeMoods(userMoods);
-        List<String> normalizedMovieMoods = normalizeMoods(movieMoods);
+        return hasMatchingMood(compileMoods(userMoods), userMoods, compileMoods(movieMoods), movieMoods);
+    }
+    
+    /**
+     * Check precompiled mood masks for a common mood. The lists are only
+     * consulted when both sides carry tags without a common bit.
+     * 
+     * @param userMask Compiled user moods
+     * @param userMoods User's preferred moods the mask was compiled from
+     * @param movieMask Compiled movie mood tags
+     * @param movieMoods Movie's mood tags the mask was compiled from
+     * @return true if there's at least one match
+     */
+    public static boolean hasMatchingMood(int userMask, List<String> userMoods, int movieMask, List<String> movieMoods) {
+        int common = userMask & movieMask;
+        if ((common & ~OVERFLOW_BIT) != 0) {
+            return true;
+        }
+        if (common == 0) {
+            return false;
+        }
         
-        // Check for intersection
-        for (String userMood : normalizedUserMoods) {
+        // Both sides have tags without a common bit: compare those the slow way
+        List<String> normalizedMovieMoods = normalizeMoods(movieMoods);
+        for (String userMood : normalizeMoods(userMoods)) {
             if (normalizedMovieMoods.contains(userMood)) {
                 return true;
             }
         }
-        
         return false;
     }
     
@@ -132,19 +181,81 @@ public class MoodMapper {
             return new ArrayList<>();
         }
         
-        List<String> normalizedUserMoods = normalizeMoods(userMoods);
-        List<String> normalizedMovieMoods = normalizeMoods(movieMoods);
+        int movieMask = compileMoods(movieMoods);
+        List<String> normalizedMovieMoods = null;
         
         List<String> matches = new ArrayList<>();
-        for (String userMood : normalizedUserMoods) {
-            if (normalizedMovieMoods.contains(userMood)) {
+        for (String userMood : normalizeMoods(userMoods)) {
+            int bits = moodBit(userMood);
+            if ((movieMask & bits & ~OVERFLOW_BIT) != 0) {
                 matches.add(userMood);
+            } else if ((movieMask & bits & OVERFLOW_BIT) != 0) {
+                if (normalizedMovieMoods == null) {
+                    normalizedMovieMoods = normalizeMoods(movieMoods);
+                }
+                if (normalizedMovieMoods.contains(userMood)) {
+                    matches.add(userMood);
+                }
             }
         }
         
         return matches;
     }
     
+    /**
+     * Compile a list of mood inputs into a mood mask
+     * 
+     * @param moodInputs Mood inputs in any format (UI label, alias or backend tag)
+     * @return Mask with one bit per distinct mood (0 for null/empty input)
+     */
+    public static int compileMoods(List<String> moodInputs) {
+        if (moodInputs == null) {
+            return 0;
+        }
+        
+        int mask = 0;
+        for (String mood : moodInputs) {
+            String normalizedMood = normalizeMood(mood);
+            if (normalizedMood != null && !normalizedMood.isEmpty()) {
+                mask |= moodBit(normalizedMood);
+            }
+        }
+        return mask;
+    }
+    
+    /**
+     * Give a catalog's tags that aren't known aliases a bit of their own, while spare
+     * bits last; bits once given are kept
+     * 
+     * @param moodTags Mood tags of catalog movies
+     */
+    public static void registerCatalogTags(Collection<String> moodTags) {
+        for (String tag : moodTags) {
+            String normalizedMood = normalizeMood(tag);
+            if (normalizedMood == null || ALIAS_BITS.containsKey(normalizedMood)
+                    || EXTRA_BITS.containsKey(normalizedMood) || !CATALOG_TAG.matcher(normalizedMood).matches()) {
+                continue;
+            }
+            synchronized (EXTRA_BITS) {
+                if (EXTRA_BITS.size() < MAX_EXTRA_BITS) {
+                    EXTRA_BITS.putIfAbsent(normalizedMood, 1 << (BACKEND_MOODS.size() + EXTRA_BITS.size()));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Bits for an already normalized mood; nothing is registered
+     */
+    private static int moodBit(String normalizedMood) {
+        Integer bit = ALIAS_BITS.get(normalizedMood);
+        if (bit != null) {
+            return bit;
+        }
+        bit = EXTRA_BITS.get(normalizedMood);
+        return bit != null ? bit | OVERFLOW_BIT : OVERFLOW_BIT;
+    }
+    
     /**
      * Get UI-friendly mood labels
      */
@@ -163,7 +274,7 @@ public class MoodMapper {
      * Get backend mood tags
      */
     public static List<String> getBackendMoods() {
-        return Arrays.asList("cozy", "thrilling", "laugh", "deep", "escape", "chill");
+        return BACKEND_MOODS;
     }
 }
 
@@ -0,0 +1,196 @@
+package com.streampick.util;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamWriteFeature;
+import com.streampick.dto.Subscriber;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Streaming reader/writer for the subscribers entry JSON
+ *
+ * Entry layout (Management API):
+ * {"entry": {"title": "...", "user_details": [{"user": {"name", "email",
+ *  "preferred_moods", "subscribed_date"}}, ...], "all_users": "a@x, b@y"}}
+ *
+ * Subscribers are emitted/consumed one at a time, so no DOM of the
+ * whole entry is ever held in memory.
+ */
+public class SubscriberJson {
+
+    // The caller owns the output stream (e.g. an OkHttp sink), so leave it open
+    private static final JsonFactory JSON_FACTORY = JsonFactory.builder()
+        .disable(StreamWriteFeature.AUTO_CLOSE_TARGET)
+        .build();
+
+    private SubscriberJson() {
+    }
+
+    /**
+     * Parse an entry response, handing each subscriber to the sink as soon as it is read
+     *
+     * @param in Management API entry response body
+     * @param sink Receives every subscriber in entry order
+     * @return The entry title, or null if the entry has none
+     */
+    public static String readEntry(InputStream in, Consumer<Subscriber> sink) throws IOException {
+        String[] title = new String[1];
+        scanEntry(in, subscriber -> {
+            sink.accept(subscriber);
+            return true;
+        }, title);
+        return title[0];
+    }
+
+    /**
+     * Parse an entry response until the sink asks to stop
+     *
+     * @param in Management API entry response body
+     * @param sink Receives subscribers in entry order, returns false to stop reading
+     * @return true if the whole entry was read, false if the sink stopped early
+     */
+    public static boolean scanEntry(InputStream in, Predicate<Subscriber> sink) throws IOException {
+        return scanEntry(in, sink, new String[1]);
+    }
+
+    private static boolean scanEntry(InputStream in, Predicate<Subscriber> sink, String[] title) throws IOException {
+        try (JsonParser parser = JSON_FACTORY.createParser(in)) {
+            expect(parser.nextToken(), JsonToken.START_OBJECT);
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+
+                if ("entry".equals(field) && value == JsonToken.START_OBJECT) {
+                    if (!readEntryFields(parser, sink, title)) {
+                        return false;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean readEntryFields(JsonParser parser, Predicate<Subscriber> sink, String[] title) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("title".equals(field) && value == JsonToken.VALUE_STRING) {
+                title[0] = parser.getText();
+            } else if ("user_details".equals(field) && value == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    if (!readUserBlock(parser, sink)) {
+                        return false;
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return true;
+    }
+
+    private static boolean readUserBlock(JsonParser parser, Predicate<Subscriber> sink) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("user".equals(field) && value == JsonToken.START_OBJECT) {
+                if (!sink.test(readUser(parser))) {
+                    return false;
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return true;
+    }
+
+    private static Subscriber readUser(JsonParser parser) throws IOException {
+        String name = "";
+        String email = "";
+        String preferredMoods = "";
+        String subscribedDate = "";
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if (!value.isScalarValue()) {
+                parser.skipChildren();
+                continue;
+            }
+            String text = value == JsonToken.VALUE_NULL ? "" : parser.getText();
+            switch (field) {
+                case "name" -> name = text;
+                case "email" -> email = text;
+                case "preferred_moods" -> preferredMoods = text;
+                case "subscribed_date" -> subscribedDate = text;
+                default -> { }
+            }
+        }
+
+        // Preferred moods are stored as a comma-separated string
+        return new Subscriber(name, email, List.of(preferredMoods.split(",\\s*")), subscribedDate);
+    }
+
+    /**
+     * Write an entry update payload
+     *
+     * @param out Request body stream
+     * @param title Entry title
+     * @param subscribers Iterated twice: once for user_details, once for all_users
+     */
+    public static void writeEntry(OutputStream out, String title, Iterable<Subscriber> subscribers) throws IOException {
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8)) {
+            generator.writeStartObject();
+            generator.writeObjectFieldStart("entry");
+            generator.writeStringField("title", title);
+
+            generator.writeArrayFieldStart("user_details");
+            for (Subscriber subscriber : subscribers) {
+                generator.writeStartObject();
+                generator.writeObjectFieldStart("user");
+                generator.writeStringField("name", subscriber.getName());
+                generator.writeStringField("email", subscriber.getEmail());
+                generator.writeStringField("preferred_moods", subscriber.getPreferredMoods() != null
+                    ? String.join(", ", subscriber.getPreferredMoods())
+                    : "");
+                generator.writeStringField("subscribed_date", subscriber.getSubscribedDate());
+                generator.writeEndObject();
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+
+            StringBuilder allUsers = new StringBuilder();
+            for (Subscriber subscriber : subscribers) {
+                if (allUsers.length() > 0) {
+                    allUsers.append(", ");
+                }
+                allUsers.append(subscriber.getEmail());
+            }
+            generator.writeStringField("all_users", allUsers.toString());
+
+            generator.writeEndObject();
+            generator.writeEndObject();
+        }
+    }
+
+    private static void expect(JsonToken actual, JsonToken expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Malformed subscribers entry: expected " + expected + " but got " + actual);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 import { Sparkles, Clock, Star, Tv, RefreshCw, Home } from 'lucide-react';
 import { useState, useEffect } from 'react';
+import recommendationService from '../services/recommendationService';
 
 /**
  * RecommendationCard component - Display the recommended movie
@@ -87,6 +88,7 @@ export default function RecommendationCard({ recommendation, onTryAnother, onSta
       }
     }
     setFeaturedIndex(originalIndex);
+    recommendationService.recordClick(allRecommendations[originalIndex]?.movie?.uid);
     // Smooth scroll to top of the card
     window.scrollTo({ top: 0, behavior: 'smooth' });
   };
@@ -114,7 +116,7 @@ export default function RecommendationCard({ recommendation, onTryAnother, onSta
               {movie.imageUrl || movie.image?.url ? (
                 <>
                   <img 
-                    src={movie.imageUrl || movie.image?.url} 
+                    src={recommendationService.posterUrl(movie, 480)} 
                     alt={movie.title}
                     className="w-full h-full object-cover"
                     style={{ objectFit: 'cover', objectPosition: 'center' }}
@@ -259,7 +261,8 @@ export default function RecommendationCard({ recommendation, onTryAnother, onSta
                   {alt.movie.imageUrl || alt.movie.image?.url ? (
                     <>
                       <img 
-                        src={alt.movie.imageUrl || alt.movie.image?.url} 
+                        src={recommendationService.posterUrl(alt.movie, 240)} 
+                        loading="lazy"
                         alt={alt.movie.title}
                         className="w-full h-full object-cover group-hover:scale-110 transition-transform duration-300"
                         style={{ objectFit: 'cover', objectPosition: 'center' }}
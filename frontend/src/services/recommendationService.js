@@ -1,5 +1,38 @@
 import api from './api';
 
+const USER_ID_KEY = 'streampick.userId';
+
+/**
+ * Anonymous ID for this browser, kept in localStorage, so the backend can learn its taste
+ * @returns {string|null} The ID, null if storage is unavailable
+ */
+const userId = () => {
+  try {
+    let id = window.localStorage.getItem(USER_ID_KEY);
+    if (!id) {
+      id = window.crypto?.randomUUID?.() || `${Date.now().toString(36)}-${Math.random().toString(36).slice(2)}`;
+      window.localStorage.setItem(USER_ID_KEY, id);
+    }
+    return id;
+  } catch {
+    return null; // Private mode etc.: recommendations just aren't personalized
+  }
+};
+
+/**
+ * Version of a poster's asset URL, as the backend computes it (PosterService.version):
+ * 32-bit FNV-1a over the UTF-16 code units, in hex
+ * @param {string} assetUrl - CMS image URL
+ * @returns {string} Version tag
+ */
+const posterVersion = (assetUrl) => {
+  let hash = 0x811c9dc5;
+  for (let i = 0; i < assetUrl.length; i++) {
+    hash = Math.imul(hash ^ assetUrl.charCodeAt(i), 0x01000193);
+  }
+  return (hash >>> 0).toString(16);
+};
+
 /**
  * Service for movie recommendation API calls
  */
@@ -12,7 +45,18 @@ const recommendationService = {
    * @returns {Promise} Axios promise with recommendation response
    */
   getRecommendation: (data) => {
-    return api.post('/api/recommendations', data);
+    return api.post('/api/recommendations', { userId: userId(), ...data });
+  },
+
+  /**
+   * Tell the backend the user picked a movie (feeds their profile; failures are ignored)
+   * @param {string} movieUid - Picked movie's UID
+   */
+  recordClick: (movieUid) => {
+    const id = userId();
+    if (id && movieUid) {
+      api.post('/api/recommendations/clicks', { userId: id, movieUid }).catch(() => {});
+    }
   },
 
   /**
@@ -23,6 +67,40 @@ const recommendationService = {
     return api.get('/api/movies');
   },
 
+  /**
+   * Get one page of movies, as compact cards by default
+   * @param {Object} params - { cursor, limit, view: 'card' | 'full', fields: 'uid,title,...' }
+   * @returns {Promise} Axios promise with { total, movies, nextCursor }
+   */
+  getMoviesPage: (params = {}) => {
+    return api.get('/api/movies', { params: { view: 'card', limit: 50, ...params } });
+  },
+
+  /**
+   * Get one movie with every field (the card listing leaves out descriptions)
+   * @param {string} uid - Movie UID
+   * @returns {Promise} Axios promise with the movie
+   */
+  getMovie: (uid) => {
+    return api.get(`/api/movies/${uid}`);
+  },
+
+  /**
+   * URL of a movie's poster through the backend's poster cache, scaled for a display width.
+   * Carries a version of the asset URL, so a replaced poster gets a new URL
+   * @param {Object} movie - Movie; without a uid the CMS image URL is used as is
+   * @param {number} width - Display width in CSS pixels
+   * @returns {string|null} Image URL, null if the movie has no poster
+   */
+  posterUrl: (movie, width) => {
+    const original = movie.imageUrl || movie.image?.url;
+    if (!original || !movie.uid) {
+      return original || null;
+    }
+    const pixels = Math.round(width * (window.devicePixelRatio || 1));
+    return `${api.defaults.baseURL}/api/posters/${movie.uid}?w=${pixels}&v=${posterVersion(original)}`;
+  },
+
   /**
    * Get movies by mood
    * @param {string} mood - Mood to filter by
@@ -31,6 +109,39 @@ const recommendationService = {
   getMoviesByMood: (mood) => {
     return api.get(`/api/movies/mood/${mood}`);
   },
+
+  /**
+   * Full-text search (titles, genres, descriptions), ranked server-side
+   * @param {string} query - Search text; the last word may be incomplete
+   * @param {number} limit - Maximum number of results
+   * @returns {Promise} Axios promise with { query, totalMatching, results: [{ movie, score }] }
+   */
+  searchMovies: (query, limit = 20) => {
+    return api.get('/api/movies/search', { params: { q: query, limit } });
+  },
+
+  /**
+   * Filter the catalog, with facet counts
+   * @param {Object} filter - { genres, platforms, minRuntime, maxRuntime, minRating, maxRating }
+   * @param {Object} page - { offset, limit, sort: 'rating' | 'catalog' }
+   * @returns {Promise} Axios promise with { totalMatching, movies, facets }
+   */
+  filterMovies: (filter, page = {}) => {
+    return api.get('/api/movies/filter', {
+      params: { ...filter, ...page },
+      paramsSerializer: { indexes: null }, // genres=a&genres=b
+    });
+  },
+
+  /**
+   * Title suggestions for type-ahead
+   * @param {string} prefix - What has been typed so far
+   * @param {number} limit - Maximum number of suggestions
+   * @returns {Promise} Axios promise with [{ uid, title, year, imageUrl }]
+   */
+  autocompleteTitles: (prefix, limit = 8) => {
+    return api.get('/api/movies/autocomplete', { params: { prefix, limit } });
+  },
 };
 
 export default recommendationService;
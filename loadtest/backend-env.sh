@@ -0,0 +1,20 @@
+# Environment pointing the backend at the local stand-ins (sourced by run-local.sh and
+# startup-benchmark.sh). Expects KEYSTORE and STOREPASS to be set.
+export CONTENTSTACK_API_KEY=loadtest
+export CONTENTSTACK_DELIVERY_TOKEN=loadtest
+export CONTENTSTACK_MANAGEMENT_TOKEN=loadtest
+export CONTENTSTACK_AUTHTOKEN=loadtest
+export CONTENTSTACK_ENVIRONMENT=loadtest
+export CONTENTSTACK_DELIVERY_HOST=localhost:8443
+export CONTENTSTACK_MANAGEMENT_HOST=localhost:8444
+export CONTENTSTACK_SUBSCRIBERS_ENTRY_UID=loadtestsubscribers
+export CONTENTSTACK_SUBSCRIBERS_SHARD_ENTRY_UIDS=${CONTENTSTACK_SUBSCRIBERS_SHARD_ENTRY_UIDS:-loadtestshard0,loadtestshard1,loadtestshard2,loadtestshard3}
+export PYTHON_RECOMMENDATION_SERVICE_URL=http://localhost:9100
+export NOTIFICATION_NOTIFIER=webhook
+export NOTIFICATION_WEBHOOK_URL=http://localhost:9099/notify
+export POSTER_ORIGIN_BASE_URL=http://localhost:9101
+export POSTER_CACHE_DIR=${POSTER_CACHE_DIR:-$(pwd)/target/posters}
+export PROFILE_STORE_DIR=${PROFILE_STORE_DIR:-$(pwd)/target/profiles}
+export SIMILARITY_INDEX_DIR=${SIMILARITY_INDEX_DIR:-$(pwd)/target/similarity}
+export SUBSCRIBER_LOG_DIR=${SUBSCRIBER_LOG_DIR:-$(pwd)/target/subscriber-log}
+export JAVA_TOOL_OPTIONS="-Djavax.net.ssl.trustStore=$(pwd)/$KEYSTORE -Djavax.net.ssl.trustStorePassword=$STOREPASS -Djavax.net.ssl.trustStoreType=PKCS12 ${JAVA_TOOL_OPTIONS:-}"
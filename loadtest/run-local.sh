@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Local load-test environment: stand-ins for Contentstack, the ML service and the
+# notification webhook, plus the backend pointed at them.
+#
+#   ./run-local.sh standins   # build the harness, create the TLS keystore, start the stand-ins
+#   ./run-local.sh backend    # start the backend against the stand-ins (second terminal)
+#   ./run-local.sh run --scenario=browse --concurrency=64 --duration=60s --report=reports/browse.json
+#
+# Extra arguments are passed to the harness, e.g. ./run-local.sh standins --ml-error-rate=0.05
+set -euo pipefail
+
+cd "$(dirname "$0")"
+KEYSTORE=target/standins.p12
+STOREPASS=changeit
+JAR=target/loadtest.jar
+
+build() {
+  if [ ! -f "$JAR" ]; then
+    mvn -q -B package
+  fi
+}
+
+keystore() {
+  if [ ! -f "$KEYSTORE" ]; then
+    mkdir -p target
+    keytool -genkeypair -alias localhost -keyalg RSA -keysize 2048 -validity 365 \
+      -dname CN=localhost -ext SAN=dns:localhost,ip:127.0.0.1 \
+      -storetype PKCS12 -keystore "$KEYSTORE" -storepass "$STOREPASS" >/dev/null
+  fi
+}
+
+command=${1:-}
+shift || true
+
+case "$command" in
+  standins)
+    build
+    keystore
+    exec java -jar "$JAR" standins --tls-keystore="$KEYSTORE" --tls-password="$STOREPASS" "$@"
+    ;;
+  backend)
+    keystore
+    source ./backend-env.sh
+    cd ../backend
+    exec mvn -B spring-boot:run "$@"
+    ;;
+  run)
+    build
+    exec java -jar "$JAR" run "$@"
+    ;;
+  *)
+    sed -n '2,9p' "$0"
+    exit 1
+    ;;
+esac
@@ -0,0 +1,120 @@
+package com.streampick.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the Contentstack asset CDN ({@code GET /v3/assets/...})
+ *
+ * Serves the poster URLs in the fixture movies. With {@code --assets-dir} each request
+ * gets the file of the same name from that directory (e.g. real posters); otherwise a
+ * 1000x1500 JPEG is drawn per path, the same every time, so the backend's resizing
+ * does real work. Adds simulated latency and counts requests and bytes, so a run can
+ * show how many poster fetches reached the origin.
+ */
+public class AssetStandIn {
+
+    private static final String PREFIX = "/v3/assets/";
+    private static final int WIDTH = 1000;
+    private static final int HEIGHT = 1500;
+
+    private final Path directory;
+    private final LatencyDistribution latency;
+
+    private final Map<String, byte[]> generated = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    public AssetStandIn(Path directory, LatencyDistribution latency) {
+        this.directory = directory;
+        this.latency = latency;
+    }
+
+    public void register(HttpServer server) {
+        server.createContext(PREFIX, this::handleAsset);
+        server.createContext("/_stats", exchange -> Http.sendJson(exchange, 200, stats()));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("bytes", bytes.get());
+        return stats;
+    }
+
+    private void handleAsset(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        latency.sleep();
+
+        String path = exchange.getRequestURI().getPath();
+        String filename = path.substring(path.lastIndexOf('/') + 1);
+        byte[] body;
+        if (directory != null) {
+            Path file = directory.resolve(filename).normalize();
+            if (filename.isEmpty() || !file.startsWith(directory) || !Files.isRegularFile(file)) {
+                Http.send(exchange, 404, "text/plain", new byte[0]);
+                return;
+            }
+            body = Files.readAllBytes(file);
+        } else {
+            body = generated.computeIfAbsent(path, AssetStandIn::draw);
+        }
+
+        bytes.addAndGet(body.length);
+        Http.send(exchange, 200, contentType(filename), body);
+    }
+
+    private static byte[] draw(String path) {
+        int seed = path.hashCode();
+        BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            Color from = Color.getHSBColor((seed & 0xFF) / 255f, 0.6f, 0.8f);
+            Color to = Color.getHSBColor(((seed >>> 8) & 0xFF) / 255f, 0.7f, 0.3f);
+            graphics.setPaint(new GradientPaint(0, 0, from, WIDTH, HEIGHT, to));
+            graphics.fillRect(0, 0, WIDTH, HEIGHT);
+            graphics.setColor(Color.WHITE);
+            graphics.setFont(new Font(Font.SANS_SERIF, Font.BOLD, 64));
+            graphics.drawString(path.substring(path.lastIndexOf('/') + 1), 60, HEIGHT / 2);
+        } finally {
+            graphics.dispose();
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            ImageIO.write(image, "jpg", out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String contentType(String filename) {
+        String lower = filename.toLowerCase();
+        if (lower.endsWith(".png")) {
+            return "image/png";
+        }
+        if (lower.endsWith(".webp")) {
+            return "image/webp";
+        }
+        if (lower.endsWith(".gif")) {
+            return "image/gif";
+        }
+        return "image/jpeg";
+    }
+}
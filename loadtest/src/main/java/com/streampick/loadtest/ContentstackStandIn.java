@@ -0,0 +1,141 @@
+package com.streampick.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contentstack Delivery and Management API stand-ins
+ *
+ * Delivery: {@code GET /v3/content_types/{ct}/entries[/{uid}]} serves the fixture movies
+ * (honoring {@code skip}/{@code limit}); other content types are empty.
+ * Management: {@code GET/PUT /v3/content_types/{ct}/entries/{uid}} keeps entries in memory,
+ * so subscriber shards round-trip like the real thing. Both add simulated latency and the
+ * Management side can answer a share of calls with 429 to exercise client retries.
+ */
+public class ContentstackStandIn {
+
+    private static final String PREFIX = "/v3/content_types/";
+
+    private final List<Map<String, Object>> movies;
+    private final LatencyDistribution deliveryLatency;
+    private final LatencyDistribution managementLatency;
+    private final double throttleRate;
+
+    private final Map<String, byte[]> managementEntries = new ConcurrentHashMap<>();
+    private final AtomicLong deliveryCalls = new AtomicLong();
+    private final AtomicLong managementReads = new AtomicLong();
+    private final AtomicLong managementWrites = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    public ContentstackStandIn(List<Map<String, Object>> movies, LatencyDistribution deliveryLatency,
+                               LatencyDistribution managementLatency, double throttleRate) {
+        this.movies = movies;
+        this.deliveryLatency = deliveryLatency;
+        this.managementLatency = managementLatency;
+        this.throttleRate = throttleRate;
+    }
+
+    public void registerDelivery(HttpServer server) {
+        server.createContext(PREFIX, this::handleDelivery);
+    }
+
+    public void registerManagement(HttpServer server) {
+        server.createContext(PREFIX, this::handleManagement);
+        server.createContext("/_stats", exchange -> Http.sendJson(exchange, 200, stats()));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("deliveryCalls", deliveryCalls.get());
+        stats.put("managementReads", managementReads.get());
+        stats.put("managementWrites", managementWrites.get());
+        stats.put("throttled", throttled.get());
+        stats.put("managementEntries", managementEntries.size());
+        return stats;
+    }
+
+    private void handleDelivery(HttpExchange exchange) throws IOException {
+        deliveryCalls.incrementAndGet();
+        deliveryLatency.sleep();
+
+        String[] path = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+        String contentType = path[0];
+        List<Map<String, Object>> entries = "movie".equals(contentType) ? movies : List.of();
+
+        if (path.length >= 3) {
+            for (Map<String, Object> entry : entries) {
+                if (path[2].equals(entry.get("uid"))) {
+                    Http.sendJson(exchange, 200, Map.of("entry", entry));
+                    return;
+                }
+            }
+            Http.sendJson(exchange, 404, Map.of("error_message", "The requested entry doesn't exist.", "error_code", 141));
+            return;
+        }
+
+        Map<String, String> query = Http.query(exchange);
+        int skip = Integer.parseInt(query.getOrDefault("skip", "0"));
+        int limit = Integer.parseInt(query.getOrDefault("limit", "100"));
+        int from = Math.min(skip, entries.size());
+        int to = Math.min(from + limit, entries.size());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("entries", entries.subList(from, to));
+        if (query.containsKey("include_count")) {
+            response.put("count", entries.size());
+        }
+        Http.sendJson(exchange, 200, response);
+    }
+
+    private void handleManagement(HttpExchange exchange) throws IOException {
+        managementLatency.sleep();
+        if (throttleRate > 0 && ThreadLocalRandom.current().nextDouble() < throttleRate) {
+            throttled.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            Http.sendJson(exchange, 429, Map.of("error_message", "Too many requests", "error_code", 429));
+            return;
+        }
+
+        String[] path = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+        if (path.length < 3) {
+            Http.sendJson(exchange, 404, Map.of("error_message", "Not found"));
+            return;
+        }
+        String key = path[0] + "/" + path[2];
+
+        switch (exchange.getRequestMethod()) {
+            case "GET" -> {
+                managementReads.incrementAndGet();
+                byte[] stored = managementEntries.get(key);
+                if (stored == null) {
+                    stored = emptySubscribersEntry(path[2]);
+                }
+                Http.send(exchange, 200, "application/json", stored);
+            }
+            case "PUT" -> {
+                managementWrites.incrementAndGet();
+                managementEntries.put(key, Http.readBody(exchange).getBytes(StandardCharsets.UTF_8));
+                Http.sendJson(exchange, 200, Map.of("notice", "Entry updated successfully."));
+            }
+            default -> Http.sendJson(exchange, 405, Map.of("error_message", "Method not allowed"));
+        }
+    }
+
+    private static byte[] emptySubscribersEntry(String uid) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("uid", uid);
+        entry.put("title", "Subscribers");
+        entry.put("user_details", List.of());
+        entry.put("all_users", "");
+        return Json.write(Map.of("entry", entry)).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,91 @@
+package com.streampick.loadtest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Movie entries served by the Delivery stand-in
+ *
+ * Either replayed from a recorded Delivery API response
+ * ({@code <recordings>/delivery/movie.json}, i.e. {@code {"entries": [...]}}) or
+ * synthesized from a fixed seed in the same shape, image file object included.
+ */
+public final class Fixtures {
+
+    private static final String[] GENRES = {
+        "Drama", "Comedy", "Thriller", "Sci-Fi", "Romance", "Horror", "Animation", "Documentary", "Action", "Fantasy"};
+    private static final String[] MOODS = {"cozy", "thrilling", "laugh", "deep", "escape", "chill"};
+    private static final String[] PLATFORMS = {"Netflix", "Prime Video", "Disney+", "Hulu", "Max", "Apple TV+"};
+
+    private Fixtures() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static List<Map<String, Object>> movieEntries(String recordingsDir, int syntheticCount) throws IOException {
+        if (recordingsDir != null) {
+            Path recorded = Path.of(recordingsDir, "delivery", "movie.json");
+            if (Files.exists(recorded)) {
+                Map<String, Object> response = Json.parseObject(Files.readString(recorded, StandardCharsets.UTF_8));
+                List<Map<String, Object>> entries = (List<Map<String, Object>>) response.get("entries");
+                System.out.printf("Replaying %d recorded movie entries from %s%n", entries.size(), recorded);
+                return entries;
+            }
+        }
+        return syntheticEntries(syntheticCount);
+    }
+
+    public static List<Map<String, Object>> syntheticEntries(int count) {
+        Random random = new Random(42);
+        List<Map<String, Object>> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String uid = String.format("blt%016x", 0x5d4c6a2e00000000L + i);
+            int runtime = 75 + random.nextInt(110);
+            List<String> moods = pick(random, MOODS, 1 + random.nextInt(3));
+
+            Map<String, Object> image = new LinkedHashMap<>();
+            image.put("uid", uid + "img");
+            image.put("content_type", "image/jpeg");
+            image.put("file_size", String.valueOf(80_000 + random.nextInt(200_000)));
+            image.put("filename", "poster-" + i + ".jpg");
+            image.put("url", "https://images.contentstack.io/v3/assets/blt0/" + uid + "/poster-" + i + ".jpg");
+            image.put("title", "poster-" + i + ".jpg");
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("uid", uid);
+            entry.put("_version", 1.0);
+            entry.put("locale", "en-us");
+            entry.put("title", "Movie " + i);
+            entry.put("year", (double) (1970 + random.nextInt(55)));
+            entry.put("runtime", (double) runtime);
+            entry.put("rating", Math.round((4 + random.nextDouble() * 5.5) * 10) / 10.0);
+            entry.put("genre", pick(random, GENRES, 1 + random.nextInt(3)));
+            entry.put("mood_tags", moods);
+            entry.put("platforms", pick(random, PLATFORMS, 1 + random.nextInt(2)));
+            entry.put("description", "A " + GENRES[random.nextInt(GENRES.length)].toLowerCase()
+                + " about choices, consequences and what comes after, told over " + runtime + " minutes.");
+            entry.put("ai_description", "Perfect when you want something " + moods.get(0) + ".");
+            entry.put("image", image);
+            entry.put("tags", List.of());
+            entry.put("created_at", "2025-09-12T10:44:51.004Z");
+            entry.put("updated_at", "2025-10-01T08:15:22.647Z");
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    private static List<String> pick(Random random, String[] values, int count) {
+        List<String> remaining = new ArrayList<>(List.of(values));
+        List<String> picked = new ArrayList<>(count);
+        for (int i = 0; i < count && !remaining.isEmpty(); i++) {
+            picked.add(remaining.remove(random.nextInt(remaining.size())));
+        }
+        return picked;
+    }
+}
@@ -0,0 +1,86 @@
+package com.streampick.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import com.sun.net.httpserver.HttpsConfigurator;
+import com.sun.net.httpserver.HttpsServer;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyStore;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Helpers for the JDK HTTP server used by the stand-ins
+ */
+public final class Http {
+
+    private Http() {
+    }
+
+    /**
+     * Start a server on a pool of threads; HTTPS if a PKCS12 keystore is given
+     */
+    public static HttpServer createServer(int port, int threads, String keystore, String password) throws Exception {
+        HttpServer server;
+        if (keystore != null) {
+            KeyStore store = KeyStore.getInstance("PKCS12");
+            try (InputStream in = java.nio.file.Files.newInputStream(java.nio.file.Path.of(keystore))) {
+                store.load(in, password.toCharArray());
+            }
+            KeyManagerFactory keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            keyManagers.init(store, password.toCharArray());
+            SSLContext ssl = SSLContext.getInstance("TLS");
+            ssl.init(keyManagers.getKeyManagers(), null, null);
+
+            HttpsServer https = HttpsServer.create(new InetSocketAddress(port), 1024);
+            https.setHttpsConfigurator(new HttpsConfigurator(ssl));
+            server = https;
+        } else {
+            server = HttpServer.create(new InetSocketAddress(port), 1024);
+        }
+        server.setExecutor(Executors.newFixedThreadPool(threads));
+        return server;
+    }
+
+    public static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    public static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null) {
+            return params;
+        }
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    public static void sendJson(HttpExchange exchange, int status, Object body) throws IOException {
+        send(exchange, status, "application/json", Json.write(body).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static void send(HttpExchange exchange, int status, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
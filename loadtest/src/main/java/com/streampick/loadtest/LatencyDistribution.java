@@ -0,0 +1,74 @@
+package com.streampick.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated service latency
+ *
+ * <ul>
+ *   <li>{@code fixed:120} - always 120 ms</li>
+ *   <li>{@code uniform:50-300} - uniform between 50 and 300 ms</li>
+ *   <li>{@code lognormal:120,0.6} - median 120 ms, sigma 0.6 (long right tail, like real services)</li>
+ * </ul>
+ */
+public abstract class LatencyDistribution {
+
+    public abstract long sampleMillis();
+
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":", 2);
+        String kind = parts[0].trim();
+        String args = parts.length > 1 ? parts[1].trim() : "";
+
+        switch (kind) {
+            case "fixed": {
+                long millis = Long.parseLong(args);
+                return describe(spec, () -> millis);
+            }
+            case "uniform": {
+                String[] range = args.split("-");
+                long min = Long.parseLong(range[0].trim());
+                long max = Long.parseLong(range[1].trim());
+                return describe(spec, () -> ThreadLocalRandom.current().nextLong(min, max + 1));
+            }
+            case "lognormal": {
+                String[] values = args.split(",");
+                double median = Double.parseDouble(values[0].trim());
+                double sigma = values.length > 1 ? Double.parseDouble(values[1].trim()) : 0.5;
+                double mu = Math.log(median);
+                return describe(spec, () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian())));
+            }
+            default:
+                throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+        }
+    }
+
+    public void sleep() {
+        long millis = sampleMillis();
+        if (millis > 0) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private interface Sampler {
+        long sample();
+    }
+
+    private static LatencyDistribution describe(String spec, Sampler sampler) {
+        return new LatencyDistribution() {
+            @Override
+            public long sampleMillis() {
+                return sampler.sample();
+            }
+
+            @Override
+            public String toString() {
+                return spec;
+            }
+        };
+    }
+}
@@ -0,0 +1,103 @@
+package com.streampick.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram
+ *
+ * Log-linear buckets over microseconds: exact below 64 us, then 32 linear sub-buckets per
+ * power of two, so any recorded value is reported within ~3% of its true value (up to
+ * well past any request timeout). Memory is fixed no matter how many samples are recorded.
+ */
+public class LatencyRecorder {
+
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAGNITUDES = 32;
+
+    private final AtomicLongArray counts = new AtomicLongArray((MAGNITUDES + 1) * SUB_BUCKETS / 2);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+    private final AtomicLong sumMicros = new AtomicLong();
+
+    public void record(long nanos, boolean success) {
+        long micros = Math.max(0, nanos / 1000);
+        counts.incrementAndGet(index(micros));
+        total.incrementAndGet();
+        sumMicros.addAndGet(micros);
+        maxMicros.accumulateAndGet(micros, Math::max);
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    public long count() {
+        return total.get();
+    }
+
+    public long errors() {
+        return errors.get();
+    }
+
+    /**
+     * Upper bound of the bucket holding the given percentile, in milliseconds
+     */
+    public double percentileMillis(double percentile) {
+        long count = total.get();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxMicros.get()) / 1000.0;
+            }
+        }
+        return maxMicros.get() / 1000.0;
+    }
+
+    public Map<String, Object> summary(double elapsedSeconds) {
+        long count = total.get();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", count);
+        summary.put("errors", errors.get());
+        summary.put("throughput", elapsedSeconds > 0 ? round(count / elapsedSeconds) : 0.0);
+        summary.put("mean_ms", count > 0 ? round(sumMicros.get() / 1000.0 / count) : 0.0);
+        summary.put("p50_ms", round(percentileMillis(50)));
+        summary.put("p99_ms", round(percentileMillis(99)));
+        summary.put("p999_ms", round(percentileMillis(99.9)));
+        summary.put("max_ms", round(maxMicros.get() / 1000.0));
+        return summary;
+    }
+
+    private static int index(long micros) {
+        if (micros < SUB_BUCKETS) {
+            return (int) micros;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS + 1;
+        if (magnitude >= MAGNITUDES) {
+            return (MAGNITUDES + 1) * SUB_BUCKETS / 2 - 1;
+        }
+        int subBucket = (int) (micros >>> magnitude) - SUB_BUCKETS / 2;
+        return magnitude * SUB_BUCKETS / 2 + SUB_BUCKETS / 2 + subBucket;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int magnitude = (index - SUB_BUCKETS / 2) / (SUB_BUCKETS / 2);
+        int subBucket = (index - SUB_BUCKETS / 2) % (SUB_BUCKETS / 2) + SUB_BUCKETS / 2;
+        return ((long) (subBucket + 1) << magnitude) - 1;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,115 @@
+package com.streampick.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives a scenario against the backend
+ *
+ * Closed model (default): {@code concurrency} workers each send the next call as soon as
+ * the previous one returns, which finds peak throughput. Open model ({@code rate} > 0):
+ * calls are scheduled at a fixed rate regardless of how fast responses come back, and
+ * latency is measured from each call's scheduled start, so time spent queued behind a
+ * slow backend is counted instead of hidden (coordinated omission). Calls scheduled
+ * during the warm-up are sent but not recorded.
+ */
+public class LoadGenerator {
+
+    public static final String ALL = "all";
+
+    private final HttpClient client;
+    private final Scenario scenario;
+    private final int concurrency;
+    private final double rate;
+    private final Duration duration;
+    private final Duration warmup;
+
+    private final Map<String, LatencyRecorder> recorders = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile double measuredSeconds;
+
+    public LoadGenerator(HttpClient client, Scenario scenario, int concurrency, double rate,
+                         Duration duration, Duration warmup) {
+        this.client = client;
+        this.scenario = scenario;
+        this.concurrency = concurrency;
+        this.rate = rate;
+        this.duration = duration;
+        this.warmup = warmup;
+    }
+
+    /**
+     * @return Recorders by operation, plus {@link #ALL}, sorted by name
+     */
+    public Map<String, LatencyRecorder> run() throws InterruptedException {
+        recorders.put(ALL, new LatencyRecorder());
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        if (rate > 0) {
+            long period = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            for (long i = 0; ; i++) {
+                long intended = start + i * period;
+                if (intended >= end) {
+                    break;
+                }
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                workers.execute(() -> call(intended, intended >= measureFrom));
+            }
+        } else {
+            for (int i = 0; i < concurrency; i++) {
+                workers.execute(() -> {
+                    long now;
+                    while ((now = System.nanoTime()) < end) {
+                        call(now, now >= measureFrom);
+                    }
+                });
+            }
+        }
+        workers.shutdown();
+        workers.awaitTermination(1, TimeUnit.HOURS);
+
+        measuredSeconds = Math.max(System.nanoTime() - measureFrom, 1) / 1e9;
+        return new TreeMap<>(recorders);
+    }
+
+    /**
+     * Seconds from the end of the warm-up until the last call completed
+     */
+    public double measuredSeconds() {
+        return measuredSeconds;
+    }
+
+    private void call(long startNanos, boolean measure) {
+        Scenario.Call call = scenario.next(sequence.getAndIncrement());
+        boolean success;
+        try {
+            HttpResponse<Void> response = client.send(call.request(), HttpResponse.BodyHandlers.discarding());
+            success = response.statusCode() < 400;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (Exception e) {
+            success = false;
+        }
+        if (measure) {
+            long elapsed = System.nanoTime() - startNanos;
+            recorders.computeIfAbsent(call.operation(), operation -> new LatencyRecorder()).record(elapsed, success);
+            recorders.get(ALL).record(elapsed, success);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.streampick.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * StreamPick load-test harness
+ *
+ * <pre>
+ *   java -jar loadtest.jar standins [--tls-keystore=... --ml-latency=lognormal:250,0.6 ...]
+ *   java -jar loadtest.jar run --scenario=browse|recommend|signup|publish|mixed
+ *        [--target=http://localhost:8080] [--concurrency=32] [--rate=0]
+ *        [--duration=60s] [--warmup=10s] [--report=reports/run.json]
+ * </pre>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            usage();
+            return;
+        }
+        Options options = new Options(args, 1);
+        switch (args[0]) {
+            case "standins" -> {
+                StandIns.start(options);
+                Thread.currentThread().join();
+            }
+            case "run" -> run(options);
+            default -> usage();
+        }
+    }
+
+    private static void run(Options options) throws Exception {
+        URI target = URI.create(options.get("target", "http://localhost:8080"));
+        String scenarioName = options.get("scenario", "mixed");
+        int concurrency = options.getInt("concurrency", 32);
+        double rate = options.getDouble("rate", 0);
+        Duration duration = options.getDuration("duration", "60s");
+        Duration warmup = options.getDuration("warmup", "10s");
+
+        HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newCachedThreadPool())
+            .build();
+
+        Scenario scenario = Scenario.create(scenarioName, target, options);
+        scenario.prepare(client);
+
+        System.out.printf("Running %s against %s: %s, %s warm-up + %s%n", scenarioName, target,
+            rate > 0 ? "open model at " + rate + " req/s (max " + concurrency + " in flight)" : "closed model, " + concurrency + " workers",
+            warmup.toSeconds() + "s", duration.toSeconds() + "s");
+
+        LoadGenerator generator = new LoadGenerator(client, scenario, concurrency, rate, duration, warmup);
+        Map<String, LatencyRecorder> recorders = generator.run();
+        Map<String, Object> extra = scenario.finish(client);
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        System.out.printf("%n%-16s %10s %8s %10s %10s %10s %10s %10s%n",
+            "operation", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+            Map<String, Object> summary = entry.getValue().summary(generator.measuredSeconds());
+            operations.put(entry.getKey(), summary);
+            System.out.printf("%-16s %10s %8s %10s %10s %10s %10s %10s%n", entry.getKey(),
+                summary.get("requests"), summary.get("errors"), summary.get("throughput"),
+                summary.get("p50_ms"), summary.get("p99_ms"), summary.get("p999_ms"), summary.get("max_ms"));
+        }
+        extra.forEach((name, value) -> System.out.printf("%s: %s%n", name, value));
+
+        if (options.has("report")) {
+            Map<String, Object> report = new LinkedHashMap<>();
+            report.put("timestamp", Instant.now().toString());
+            report.put("scenario", scenarioName);
+            report.put("target", target.toString());
+            report.put("model", rate > 0 ? "open" : "closed");
+            report.put("concurrency", concurrency);
+            report.put("rate", rate);
+            report.put("duration_seconds", duration.toSeconds());
+            report.put("operations", operations);
+            report.put("scenario_results", extra);
+
+            Path path = Path.of(options.get("report", null));
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            Files.writeString(path, Json.write(report), StandardCharsets.UTF_8);
+            System.out.println("Report written to " + path);
+        }
+        System.exit(0);
+    }
+
+    private static void usage() {
+        System.out.println("Usage: loadtest standins [options] | loadtest run --scenario=<name> [options]");
+        System.out.println("Scenarios: browse, recommend, signup, publish, mixed (see README.md)");
+    }
+}
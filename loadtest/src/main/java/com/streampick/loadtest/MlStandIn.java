@@ -0,0 +1,119 @@
+package com.streampick.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the Python recommendation service ({@code POST /recommend})
+ *
+ * Ranks the movies it is sent the way the real service's response looks (mood overlap,
+ * then rating, within the time available) after a simulated inference latency. A share
+ * of calls can fail with 500, and another share can hang past the backend's 10 s read
+ * timeout, to exercise the rule-based fallback.
+ */
+public class MlStandIn {
+
+    private static final long HANG_MILLIS = 12_000;
+
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final double timeoutRate;
+
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public MlStandIn(LatencyDistribution latency, double errorRate, double timeoutRate) {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.timeoutRate = timeoutRate;
+    }
+
+    public void register(HttpServer server) {
+        server.createContext("/recommend", this::handleRecommend);
+        server.createContext("/health", exchange -> Http.sendJson(exchange, 200, Map.of("status", "healthy")));
+        server.createContext("/_stats", exchange -> Http.sendJson(exchange, 200, stats()));
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("calls", calls.get());
+        stats.put("errors", errors.get());
+        stats.put("timeouts", timeouts.get());
+        return stats;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void handleRecommend(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        Map<String, Object> request = Json.parseObject(Http.readBody(exchange));
+
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < timeoutRate) {
+            timeouts.incrementAndGet();
+            sleep(HANG_MILLIS);
+        } else if (roll < timeoutRate + errorRate) {
+            errors.incrementAndGet();
+            latency.sleep();
+            Http.sendJson(exchange, 500, Map.of("detail", "Simulated inference failure"));
+            return;
+        } else {
+            latency.sleep();
+        }
+
+        String mood = String.valueOf(request.get("mood")).toLowerCase();
+        double timeAvailable = number(request.get("time_available"), Double.MAX_VALUE);
+        int topN = (int) number(request.get("top_n"), 5);
+        List<Map<String, Object>> movies = (List<Map<String, Object>>) request.getOrDefault("movies", List.of());
+
+        List<Map<String, Object>> recommendations = new ArrayList<>();
+        for (Map<String, Object> movie : movies) {
+            if (number(movie.get("runtime"), 0) > timeAvailable) {
+                continue;
+            }
+            List<String> moodTags = (List<String>) movie.getOrDefault("mood_tags", List.of());
+            double moodMatch = moodTags.stream().anyMatch(tag -> tag.equalsIgnoreCase(mood)) ? 1.0 : 0.0;
+            double score = 0.6 * moodMatch + 0.4 * number(movie.get("rating"), 0) / 10.0;
+
+            Map<String, Object> result = new LinkedHashMap<>(movie);
+            result.put("similarity_score", score);
+            Map<String, Object> recommendation = new LinkedHashMap<>();
+            recommendation.put("movie", result);
+            recommendation.put("reason", moodMatch > 0 ? "Matches your " + mood + " mood" : "Highly rated pick");
+            recommendation.put("match_score", score);
+            recommendations.add(recommendation);
+        }
+        recommendations.sort(Comparator.comparingDouble(r -> -((Double) r.get("match_score"))));
+
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("mood", mood);
+        filters.put("time_available", request.get("time_available"));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("recommendations", recommendations.subList(0, Math.min(topN, recommendations.size())));
+        response.put("total_candidates", recommendations.size());
+        response.put("filters_applied", filters);
+        Http.sendJson(exchange, 200, response);
+    }
+
+    private static double number(Object value, double defaultValue) {
+        return value instanceof Number number ? number.doubleValue() : defaultValue;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.streampick.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Receiver for the backend's webhook notifier ({@code POST /notify})
+ *
+ * Counts delivered batches and recipients so a publish fan-out run can check that every
+ * matching subscriber was notified, and how long the last batch took to arrive.
+ */
+public class NotificationSink {
+
+    private final LatencyDistribution latency;
+
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong recipients = new AtomicLong();
+    private volatile long firstBatchAt;
+    private volatile long lastBatchAt;
+
+    public NotificationSink(LatencyDistribution latency) {
+        this.latency = latency;
+    }
+
+    public void register(HttpServer server) {
+        server.createContext("/notify", this::handleNotify);
+        server.createContext("/_stats", exchange -> {
+            if ("DELETE".equals(exchange.getRequestMethod())) {
+                reset();
+            }
+            Http.sendJson(exchange, 200, stats());
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", batches.get());
+        stats.put("recipients", recipients.get());
+        stats.put("firstBatchAt", firstBatchAt);
+        stats.put("lastBatchAt", lastBatchAt);
+        return stats;
+    }
+
+    private synchronized void reset() {
+        batches.set(0);
+        recipients.set(0);
+        firstBatchAt = 0;
+        lastBatchAt = 0;
+    }
+
+    private void handleNotify(HttpExchange exchange) throws IOException {
+        Map<String, Object> batch = Json.parseObject(Http.readBody(exchange));
+        latency.sleep();
+
+        Object batchRecipients = batch.get("recipients");
+        recipients.addAndGet(batchRecipients instanceof List<?> list ? list.size() : 0);
+        batches.incrementAndGet();
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            if (firstBatchAt == 0) {
+                firstBatchAt = now;
+            }
+            lastBatchAt = now;
+        }
+        Http.send(exchange, 200, "application/json", new byte[0]);
+    }
+}
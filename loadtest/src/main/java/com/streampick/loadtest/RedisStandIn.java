@@ -0,0 +1,298 @@
+package com.streampick.loadtest;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory stand-in for Redis, just what the backend's cluster bus uses
+ *
+ * Speaks RESP2 on a plain socket: PING, AUTH and SELECT (accepted and ignored), GET,
+ * SET with NX/XX and EX/PX, DEL, PEXPIRE, PUBLISH, SUBSCRIBE and UNSUBSCRIBE. Keys
+ * expire lazily when read. Several backends pointed at it elect a refresh leader and
+ * share catalog snapshots as they would through a real Redis.
+ */
+public class RedisStandIn {
+
+    private record Value(byte[] data, long expiresAtMillis) {
+        boolean expired(long now) {
+            return expiresAtMillis > 0 && now >= expiresAtMillis;
+        }
+    }
+
+    private final Map<String, Value> keys = new ConcurrentHashMap<>();
+    private final Map<String, Set<Client>> subscribers = new ConcurrentHashMap<>();
+    private final ExecutorService connections = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "redis-standin");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ServerSocket server;
+
+    public void start(int port) throws IOException {
+        server = new ServerSocket();
+        server.bind(new InetSocketAddress(port), 128);
+        connections.execute(() -> {
+            while (!server.isClosed()) {
+                try {
+                    Socket socket = server.accept();
+                    socket.setTcpNoDelay(true);
+                    connections.execute(() -> serve(socket));
+                } catch (IOException e) {
+                    return;
+                }
+            }
+        });
+    }
+
+    public int port() {
+        return server.getLocalPort();
+    }
+
+    private void serve(Socket socket) {
+        Client client = new Client(socket);
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                if (!execute(client, command)) {
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        } finally {
+            subscribers.values().forEach(clients -> clients.remove(client));
+        }
+    }
+
+    /**
+     * @return false to close the connection
+     */
+    private boolean execute(Client client, List<byte[]> command) throws IOException {
+        String name = string(command.get(0)).toUpperCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        switch (name) {
+            case "PING" -> client.simple("PONG");
+            case "AUTH", "SELECT" -> client.simple("OK");
+            case "QUIT" -> {
+                client.simple("OK");
+                return false;
+            }
+            case "GET" -> {
+                Value value = live(string(command.get(1)), now);
+                client.bulk(value != null ? value.data() : null);
+            }
+            case "SET" -> set(client, command, now);
+            case "DEL" -> {
+                long deleted = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    deleted += keys.remove(string(command.get(i))) != null ? 1 : 0;
+                }
+                client.integer(deleted);
+            }
+            case "PEXPIRE" -> {
+                String key = string(command.get(1));
+                long ttl = Long.parseLong(string(command.get(2)));
+                Value value = live(key, now);
+                if (value != null) {
+                    keys.put(key, new Value(value.data(), now + ttl));
+                }
+                client.integer(value != null ? 1 : 0);
+            }
+            case "PUBLISH" -> {
+                String channel = string(command.get(1));
+                int receivers = 0;
+                for (Client subscriber : subscribers.getOrDefault(channel, Set.of())) {
+                    try {
+                        subscriber.push("message", channel, command.get(2));
+                        receivers++;
+                    } catch (IOException e) {
+                        subscribers.get(channel).remove(subscriber);
+                    }
+                }
+                client.integer(receivers);
+            }
+            case "SUBSCRIBE" -> {
+                for (int i = 1; i < command.size(); i++) {
+                    String channel = string(command.get(i));
+                    subscribers.computeIfAbsent(channel, c -> new CopyOnWriteArraySet<>()).add(client);
+                    client.push("subscribe", channel, client.subscriptions.incrementAndGet());
+                }
+            }
+            case "UNSUBSCRIBE" -> {
+                for (int i = 1; i < command.size(); i++) {
+                    String channel = string(command.get(i));
+                    subscribers.getOrDefault(channel, Set.of()).remove(client);
+                    client.push("unsubscribe", channel, client.subscriptions.decrementAndGet());
+                }
+            }
+            default -> client.error("ERR unknown command '" + name + "'");
+        }
+        return true;
+    }
+
+    // SET key value [NX|XX] [EX seconds|PX milliseconds]
+    private void set(Client client, List<byte[]> command, long now) throws IOException {
+        String key = string(command.get(1));
+        boolean nx = false;
+        boolean xx = false;
+        long expiresAt = 0;
+        for (int i = 3; i < command.size(); i++) {
+            switch (string(command.get(i)).toUpperCase(Locale.ROOT)) {
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                case "PX" -> expiresAt = now + Long.parseLong(string(command.get(++i)));
+                case "EX" -> expiresAt = now + 1000 * Long.parseLong(string(command.get(++i)));
+                default -> {
+                    client.error("ERR syntax error");
+                    return;
+                }
+            }
+        }
+        Value value = new Value(command.get(2), expiresAt);
+        boolean stored;
+        synchronized (keys) {
+            boolean exists = live(key, now) != null;
+            stored = !(nx && exists) && !(xx && !exists);
+            if (stored) {
+                keys.put(key, value);
+            }
+        }
+        if (stored) {
+            client.simple("OK");
+        } else {
+            client.bulk(null);
+        }
+    }
+
+    private Value live(String key, long now) {
+        Value value = keys.get(key);
+        if (value != null && value.expired(now)) {
+            keys.remove(key, value);
+            return null;
+        }
+        return value;
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            throw new EOFException();
+        }
+        if (type != '*') {
+            throw new IOException("Inline commands aren't supported");
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Expected a bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] arg = in.readNBytes(length);
+            readLine(in);
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int b = in.read(); b != '\r'; b = in.read()) {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            line.append((char) b);
+        }
+        in.read();  // \n
+        return line.toString();
+    }
+
+    private static String string(byte[] bytes) {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * One connection's output; replies and pushed messages don't interleave
+     */
+    private static final class Client {
+        private final OutputStream out;
+        private final AtomicLong subscriptions = new AtomicLong();
+
+        Client(Socket socket) {
+            try {
+                out = new BufferedOutputStream(socket.getOutputStream());
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        synchronized void simple(String value) throws IOException {
+            line('+', value);
+            out.flush();
+        }
+
+        synchronized void error(String message) throws IOException {
+            line('-', message);
+            out.flush();
+        }
+
+        synchronized void integer(long value) throws IOException {
+            line(':', Long.toString(value));
+            out.flush();
+        }
+
+        synchronized void bulk(byte[] value) throws IOException {
+            writeBulk(value);
+            out.flush();
+        }
+
+        synchronized void push(String kind, String channel, Object payload) throws IOException {
+            line('*', "3");
+            writeBulk(kind.getBytes(StandardCharsets.UTF_8));
+            writeBulk(channel.getBytes(StandardCharsets.UTF_8));
+            if (payload instanceof byte[] bytes) {
+                writeBulk(bytes);
+            } else {
+                line(':', payload.toString());
+            }
+            out.flush();
+        }
+
+        private void writeBulk(byte[] value) throws IOException {
+            if (value == null) {
+                line('$', "-1");
+                return;
+            }
+            line('$', Integer.toString(value.length));
+            out.write(value);
+            out.write('\r');
+            out.write('\n');
+        }
+
+        private void line(char type, String value) throws IOException {
+            out.write(type);
+            out.write(value.getBytes(StandardCharsets.UTF_8));
+            out.write('\r');
+            out.write('\n');
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.streampick.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A scripted stream of backend calls
+ *
+ * <ul>
+ *   <li>{@code browse} - movie listing and mood pages</li>
+ *   <li>{@code recommend} - {@code POST /api/recommendations} (ML service, fallback on failure)</li>
+ *   <li>{@code signup} - a burst of new subscribers, every email unique</li>
+ *   <li>{@code publish} - movie-published events fanned out to the subscriber base; seeds
+ *       {@code --seed-subscribers} first and reports delivery as seen by the notification sink</li>
+ *   <li>{@code posters} - {@code GET /api/posters/{uid}?w=...} over the catalog, thumbnails
+ *       mostly; the first calls for each poster go to the asset stand-in</li>
+ *   <li>{@code similar} - {@code GET /api/movies/{uid}/similar} over the catalog, a third of
+ *       the calls filtered by mood and runtime</li>
+ *   <li>{@code mixed} - browse, recommend and signup weighted like production traffic</li>
+ * </ul>
+ */
+public abstract class Scenario {
+
+    private static final String[] MOODS = {"cozy", "thrilling", "laugh", "deep", "escape", "chill"};
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * One call: the operation name latencies are grouped under, and the request
+     */
+    public record Call(String operation, HttpRequest request) {
+    }
+
+    protected final URI target;
+    protected final String runId = Long.toString(System.currentTimeMillis(), 36);
+
+    protected Scenario(URI target) {
+        this.target = target;
+    }
+
+    public abstract Call next(long sequence);
+
+    /**
+     * Runs before the clock starts
+     */
+    public void prepare(HttpClient client) throws Exception {
+    }
+
+    /**
+     * Runs after the last call; returns extra figures for the report
+     */
+    public Map<String, Object> finish(HttpClient client) throws Exception {
+        return Map.of();
+    }
+
+    public static Scenario create(String name, URI target, Options options) {
+        return switch (name) {
+            case "browse" -> new Browse(target);
+            case "recommend" -> new Recommend(target);
+            case "signup" -> new Signup(target);
+            case "publish" -> new Publish(target, options);
+            case "posters" -> new Posters(target);
+            case "similar" -> new Similar(target);
+            case "mixed" -> new Mixed(target);
+            default -> throw new IllegalArgumentException("Unknown scenario: " + name);
+        };
+    }
+
+    protected HttpRequest get(String path) {
+        return HttpRequest.newBuilder(target.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    protected HttpRequest post(String path, Object body) {
+        return HttpRequest.newBuilder(target.resolve(path))
+            .timeout(REQUEST_TIMEOUT)
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(Json.write(body)))
+            .build();
+    }
+
+    protected static String randomMood() {
+        return MOODS[ThreadLocalRandom.current().nextInt(MOODS.length)];
+    }
+
+    protected static List<String> randomMoods() {
+        List<String> moods = new ArrayList<>();
+        int count = 1 + ThreadLocalRandom.current().nextInt(3);
+        while (moods.size() < count) {
+            String mood = randomMood();
+            if (!moods.contains(mood)) {
+                moods.add(mood);
+            }
+        }
+        return moods;
+    }
+
+    /**
+     * Every movie UID, through the paged listing
+     */
+    @SuppressWarnings("unchecked")
+    protected List<String> movieUids(HttpClient client) throws Exception {
+        List<String> uids = new ArrayList<>();
+        String cursor = null;
+        do {
+            String path = "/api/movies?fields=uid&limit=200" + (cursor != null ? "&cursor=" + cursor : "");
+            HttpResponse<String> response = client.send(get(path), HttpResponse.BodyHandlers.ofString());
+            Map<String, Object> page = Json.parseObject(response.body());
+            for (Object movie : (List<Object>) page.get("movies")) {
+                uids.add((String) ((Map<String, Object>) movie).get("uid"));
+            }
+            cursor = (String) page.get("nextCursor");
+        } while (cursor != null);
+        return uids;
+    }
+
+    protected Map<String, Object> subscriber(String prefix, long sequence) {
+        Map<String, Object> subscriber = new LinkedHashMap<>();
+        subscriber.put("name", "Load Test " + sequence);
+        subscriber.put("email", prefix + "-" + runId + "-" + sequence + "@loadtest.example.com");
+        subscriber.put("preferredMoods", randomMoods());
+        return subscriber;
+    }
+
+    static class Browse extends Scenario {
+        Browse(URI target) {
+            super(target);
+        }
+
+        @Override
+        public Call next(long sequence) {
+            if (ThreadLocalRandom.current().nextInt(10) < 7) {
+                return new Call("movies", get("/api/movies"));
+            }
+            return new Call("movies-by-mood", get("/api/movies/mood/" + randomMood()));
+        }
+    }
+
+    static class Recommend extends Scenario {
+        Recommend(URI target) {
+            super(target);
+        }
+
+        @Override
+        public Call next(long sequence) {
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("mood", randomMood());
+            body.put("timeAvailable", 60 + ThreadLocalRandom.current().nextInt(5) * 30);
+            return new Call("recommend", post("/api/recommendations", body));
+        }
+    }
+
+    static class Signup extends Scenario {
+        Signup(URI target) {
+            super(target);
+        }
+
+        @Override
+        public Call next(long sequence) {
+            return new Call("signup", post("/api/subscribers/add", subscriber("signup", sequence)));
+        }
+    }
+
+    static class Publish extends Scenario {
+        private final int seedSubscribers;
+        private final URI sink;
+        private final Duration drainTimeout;
+        private long startedAt;
+
+        Publish(URI target, Options options) {
+            super(target);
+            this.seedSubscribers = options.getInt("seed-subscribers", 10_000);
+            this.sink = URI.create(options.get("sink", "http://localhost:9099"));
+            this.drainTimeout = options.getDuration("drain-timeout", "5m");
+        }
+
+        @Override
+        public void prepare(HttpClient client) throws Exception {
+            if (seedSubscribers > 0) {
+                StringBuilder ndjson = new StringBuilder();
+                for (int i = 0; i < seedSubscribers; i++) {
+                    Json.write(subscriber("audience", i), ndjson);
+                    ndjson.append('\n');
+                }
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(target.resolve("/api/subscribers/import"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(ndjson.toString()))
+                        .build(),
+                    HttpResponse.BodyHandlers.ofString());
+                System.out.printf("Seeded audience: %d %s%n", response.statusCode(), response.body());
+            }
+            client.send(HttpRequest.newBuilder(sink.resolve("/_stats")).DELETE().build(),
+                HttpResponse.BodyHandlers.discarding());
+            startedAt = System.currentTimeMillis();
+        }
+
+        @Override
+        public Call next(long sequence) {
+            Map<String, Object> event = new LinkedHashMap<>();
+            event.put("uid", "loadtest" + runId + sequence);
+            event.put("title", "Load Test Premiere " + sequence);
+            event.put("mood_tags", randomMoods());
+            return new Call("publish", post("/api/events/movie-published", event));
+        }
+
+        /**
+         * Wait for notifications to stop arriving, then report fan-out throughput
+         */
+        @Override
+        public Map<String, Object> finish(HttpClient client) throws Exception {
+            long deadline = System.currentTimeMillis() + drainTimeout.toMillis();
+            Map<String, Object> stats = sinkStats(client);
+            while (System.currentTimeMillis() < deadline) {
+                Thread.sleep(2000);
+                Map<String, Object> latest = sinkStats(client);
+                if (latest.get("recipients").equals(stats.get("recipients"))) {
+                    break;
+                }
+                stats = latest;
+            }
+
+            double recipients = ((Number) stats.get("recipients")).doubleValue();
+            double lastBatchAt = ((Number) stats.get("lastBatchAt")).doubleValue();
+            double seconds = lastBatchAt > 0 ? (lastBatchAt - startedAt) / 1000.0 : 0;
+
+            Map<String, Object> fanOut = new LinkedHashMap<>();
+            fanOut.put("notification_batches", stats.get("batches"));
+            fanOut.put("notified_recipients", (long) recipients);
+            fanOut.put("fan_out_seconds", Math.round(seconds * 100) / 100.0);
+            fanOut.put("recipients_per_second", seconds > 0 ? Math.round(recipients / seconds) : 0);
+            return fanOut;
+        }
+
+        private Map<String, Object> sinkStats(HttpClient client) throws Exception {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(sink.resolve("/_stats")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+            return Json.parseObject(response.body());
+        }
+    }
+
+    static class Posters extends Scenario {
+        private static final int[] WIDTHS = {160, 160, 160, 320, 320, 780};
+
+        private List<String> uids = List.of();
+
+        Posters(URI target) {
+            super(target);
+        }
+
+        @Override
+        public void prepare(HttpClient client) throws Exception {
+            uids = movieUids(client);
+            System.out.printf("Posters for %d movies%n", uids.size());
+        }
+
+        @Override
+        public Call next(long sequence) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int width = WIDTHS[random.nextInt(WIDTHS.length)];
+            String uid = uids.get(random.nextInt(uids.size()));
+            return new Call("poster-w" + width, get("/api/posters/" + uid + "?w=" + width));
+        }
+    }
+
+    static class Similar extends Scenario {
+        private List<String> uids = List.of();
+
+        Similar(URI target) {
+            super(target);
+        }
+
+        @Override
+        public void prepare(HttpClient client) throws Exception {
+            uids = movieUids(client);
+            System.out.printf("Similar movies for %d movies%n", uids.size());
+        }
+
+        @Override
+        public Call next(long sequence) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            String path = "/api/movies/" + uids.get(random.nextInt(uids.size())) + "/similar?limit=10";
+            if (random.nextInt(3) > 0) {
+                return new Call("similar", get(path));
+            }
+            return new Call("similar-filtered", get(path + "&moods=" + randomMood() + "&maxRuntime=120"));
+        }
+    }
+
+    static class Mixed extends Scenario {
+        private final Browse browse;
+        private final Recommend recommend;
+        private final Signup signup;
+
+        Mixed(URI target) {
+            super(target);
+            browse = new Browse(target);
+            recommend = new Recommend(target);
+            signup = new Signup(target);
+        }
+
+        @Override
+        public Call next(long sequence) {
+            int roll = ThreadLocalRandom.current().nextInt(100);
+            if (roll < 65) {
+                return browse.next(sequence);
+            }
+            if (roll < 95) {
+                return recommend.next(sequence);
+            }
+            return signup.next(sequence);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.streampick.loadtest;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Starts every stand-in the backend talks to
+ *
+ * <pre>
+ *   Contentstack Delivery    --delivery-port=8443     (HTTPS with --tls-keystore)
+ *   Contentstack Management  --management-port=8444  (HTTPS with --tls-keystore)
+ *   ML service /recommend    --ml-port=9100
+ *   Notification webhook     --sink-port=9099
+ *   Asset CDN (posters)      --assets-port=9101
+ *   Redis (cluster bus)      --redis-port=6380
+ * </pre>
+ *
+ * The Contentstack SDK and Management client only speak HTTPS, so those two need a
+ * keystore whose certificate the backend JVM trusts (see run-local.sh).
+ */
+public final class StandIns {
+
+    private StandIns() {
+    }
+
+    public static void start(Options options) throws Exception {
+        String keystore = options.get("tls-keystore", null);
+        String password = options.get("tls-password", "changeit");
+        int threads = options.getInt("threads", 64);
+
+        List<Map<String, Object>> movies = Fixtures.movieEntries(
+            options.get("recordings", null), options.getInt("movies", 500));
+
+        ContentstackStandIn contentstack = new ContentstackStandIn(movies,
+            LatencyDistribution.parse(options.get("delivery-latency", "lognormal:40,0.4")),
+            LatencyDistribution.parse(options.get("management-latency", "lognormal:150,0.5")),
+            options.getDouble("management-429-rate", 0));
+        MlStandIn ml = new MlStandIn(
+            LatencyDistribution.parse(options.get("ml-latency", "lognormal:250,0.6")),
+            options.getDouble("ml-error-rate", 0),
+            options.getDouble("ml-timeout-rate", 0));
+        NotificationSink sink = new NotificationSink(
+            LatencyDistribution.parse(options.get("sink-latency", "fixed:5")));
+        String assetsDir = options.get("assets-dir", null);
+        AssetStandIn assets = new AssetStandIn(
+            assetsDir != null ? Path.of(assetsDir).toAbsolutePath().normalize() : null,
+            LatencyDistribution.parse(options.get("asset-latency", "lognormal:80,0.5")));
+
+        HttpServer delivery = Http.createServer(options.getInt("delivery-port", 8443), threads, keystore, password);
+        contentstack.registerDelivery(delivery);
+        HttpServer management = Http.createServer(options.getInt("management-port", 8444), threads, keystore, password);
+        contentstack.registerManagement(management);
+        HttpServer mlServer = Http.createServer(options.getInt("ml-port", 9100), threads, null, null);
+        ml.register(mlServer);
+        HttpServer sinkServer = Http.createServer(options.getInt("sink-port", 9099), threads, null, null);
+        sink.register(sinkServer);
+        HttpServer assetServer = Http.createServer(options.getInt("assets-port", 9101), threads, null, null);
+        assets.register(assetServer);
+
+        RedisStandIn redis = new RedisStandIn();
+        redis.start(options.getInt("redis-port", 6380));
+
+        for (HttpServer server : List.of(delivery, management, mlServer, sinkServer, assetServer)) {
+            server.start();
+        }
+
+        String scheme = keystore != null ? "https" : "http";
+        System.out.printf("Delivery    %s://localhost:%d (%d movies)%n", scheme, delivery.getAddress().getPort(), movies.size());
+        System.out.printf("Management  %s://localhost:%d%n", scheme, management.getAddress().getPort());
+        System.out.printf("ML          http://localhost:%d/recommend%n", mlServer.getAddress().getPort());
+        System.out.printf("Sink        http://localhost:%d/notify%n", sinkServer.getAddress().getPort());
+        System.out.printf("Assets      http://localhost:%d/v3/assets/ (%s)%n", assetServer.getAddress().getPort(),
+            assetsDir != null ? assetsDir : "generated posters");
+        System.out.printf("Redis       redis://localhost:%d%n", redis.port());
+    }
+}
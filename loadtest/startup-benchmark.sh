@@ -0,0 +1,99 @@
+#!/usr/bin/env bash
+# Startup benchmark for the backend build variants, against the local stand-ins.
+#
+#   ./run-local.sh standins                              # terminal 1
+#   (cd ../backend && ./mvnw -Pfast-startup package)     # builds the jar, AOT and CDS variants
+#   (cd ../backend && ./mvnw -Pnative native:compile)    # optional, needs GraalVM
+#   ./startup-benchmark.sh [runs] [report.json]
+#
+# Per variant, the median over the runs of:
+#   first request - launch until /actuator/health/liveness answers 200
+#   ready         - launch until /actuator/health/readiness is UP (warm-up complete)
+#   RSS           - resident memory at first request and once ready
+# Variants whose artifacts are missing are skipped.
+set -euo pipefail
+
+cd "$(dirname "$0")"
+RUNS=${1:-5}
+REPORT=${2:-}
+PORT=${STARTUP_BENCHMARK_PORT:-18080}
+KEYSTORE=target/standins.p12
+STOREPASS=changeit
+BACKEND=../backend/target
+FAST=$BACKEND/fast-startup
+
+if [ ! -f "$KEYSTORE" ]; then
+  echo "Start the stand-ins first (./run-local.sh standins)" >&2
+  exit 1
+fi
+source ./backend-env.sh
+TRUST="-Djavax.net.ssl.trustStore=$(pwd)/$KEYSTORE -Djavax.net.ssl.trustStorePassword=$STOREPASS -Djavax.net.ssl.trustStoreType=PKCS12"
+unset JAVA_TOOL_OPTIONS  # Passed explicitly below, so the JVM doesn't log it on every start
+
+FAT_JAR=$(ls $BACKEND/backend-*.jar 2>/dev/null | grep -v -- '-app.jar' | head -1 || true)
+THIN_JAR=$(ls $FAST/backend-*-app.jar 2>/dev/null | head -1 || true)
+NATIVE=$BACKEND/streampick-backend
+
+declare -A COMMANDS
+VARIANTS=()
+if [ -n "$FAT_JAR" ]; then
+  VARIANTS+=(jar);     COMMANDS[jar]="java $TRUST -jar $FAT_JAR"
+fi
+if [ -n "$THIN_JAR" ]; then
+  VARIANTS+=(aot);     COMMANDS[aot]="java $TRUST -Dspring.aot.enabled=true -jar $THIN_JAR"
+  if [ -f "$FAST/app.jsa" ]; then
+    VARIANTS+=(aot-cds); COMMANDS[aot-cds]="java $TRUST -XX:SharedArchiveFile=$FAST/app.jsa -Dspring.aot.enabled=true -jar $THIN_JAR"
+  fi
+fi
+if [ -x "$NATIVE" ]; then
+  VARIANTS+=(native);  COMMANDS[native]="$NATIVE $TRUST"
+fi
+if [ ${#VARIANTS[@]} -eq 0 ]; then
+  echo "No build artifacts in $BACKEND; build with ./mvnw -Pfast-startup package" >&2
+  exit 1
+fi
+
+now_ms() { date +%s%3N; }
+rss_mb() { awk '/VmRSS/ { printf "%.0f", $2 / 1024 }' "/proc/$1/status" 2>/dev/null || ps -o rss= -p "$1" | awk '{ printf "%.0f", $1 / 1024 }'; }
+status() { curl -s -o /dev/null -w '%{http_code}' "http://localhost:$PORT$1" || true; }
+median() { sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'; }
+
+run_once() {
+  local command=$1 start pid first ready rss_first rss_ready
+  rm -rf "$SUBSCRIBER_LOG_DIR"
+  start=$(now_ms)
+  $command --server.port="$PORT" >"target/startup-$2.log" 2>&1 &
+  pid=$!
+  until [ "$(status /actuator/health/liveness)" = 200 ]; do
+    kill -0 "$pid" 2>/dev/null || { echo "Backend exited, see target/startup-$2.log" >&2; exit 1; }
+    sleep 0.01
+  done
+  first=$(( $(now_ms) - start )); rss_first=$(rss_mb "$pid")
+  until [ "$(status /actuator/health/readiness)" = 200 ]; do sleep 0.01; done
+  ready=$(( $(now_ms) - start )); rss_ready=$(rss_mb "$pid")
+  kill "$pid"; wait "$pid" 2>/dev/null || true
+  echo "$first $ready $rss_first $rss_ready"
+}
+
+mkdir -p target
+RESULTS=()
+printf "%-10s %16s %10s %16s %14s\n" variant "first request ms" "ready ms" "RSS first MB" "RSS ready MB"
+for variant in "${VARIANTS[@]}"; do
+  samples=()
+  for ((i = 1; i <= RUNS; i++)); do
+    sample=$(run_once "${COMMANDS[$variant]}" "$variant")
+    samples+=("$sample")
+  done
+  first=$(printf '%s\n' "${samples[@]}" | awk '{ print $1 }' | median)
+  ready=$(printf '%s\n' "${samples[@]}" | awk '{ print $2 }' | median)
+  rss_first=$(printf '%s\n' "${samples[@]}" | awk '{ print $3 }' | median)
+  rss_ready=$(printf '%s\n' "${samples[@]}" | awk '{ print $4 }' | median)
+  printf "%-10s %16s %10s %16s %14s\n" "$variant" "$first" "$ready" "$rss_first" "$rss_ready"
+  RESULTS+=("\"$variant\":{\"first_request_ms\":$first,\"ready_ms\":$ready,\"rss_first_mb\":$rss_first,\"rss_ready_mb\":$rss_ready}")
+done
+
+if [ -n "$REPORT" ]; then
+  mkdir -p "$(dirname "$REPORT")"
+  (IFS=,; echo "{\"runs\":$RUNS,\"variants\":{${RESULTS[*]}}}") >"$REPORT"
+  echo "Report written to $REPORT"
+fi
@@ -7,6 +7,7 @@ from typing import List, Optional
 
 class MovieInput(BaseModel):
     """Movie data coming from Contentstack"""
+    uid: Optional[str] = None  # Contentstack entry UID, echoed back (titles aren't unique)
     title: str
     year: Optional[int] = None
     runtime: Optional[int] = None
@@ -47,6 +48,7 @@ class RecommendationRequest(BaseModel):
 
 class MovieResponse(BaseModel):
     """Movie data returned in response"""
+    uid: Optional[str] = None
     title: str
     year: int
     runtime: int
@@ -44,6 +44,7 @@ class RecommendationEngine:
         movies_data = []
         for movie in request.movies:
             movies_data.append({
+                'uid': movie.uid,
                 'Title': movie.title,
                 'Year': movie.year or 2020,
                 'Runtime': movie.runtime or 120,
@@ -128,6 +129,7 @@ class RecommendationEngine:
             
             # Convert to response format
             movie_response = MovieResponse(
+                uid=movie_data.get('uid'),
                 title=movie_data['Title'],
                 year=int(movie_data['Year']),
                 runtime=int(movie_data['Runtime']),